@@ -0,0 +1,79 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.benchmark;
+
+import static com.ibm.fhir.benchmark.runner.FHIRBenchmarkRunner.PROPERTY_EXAMPLE_NAME;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.ibm.fhir.benchmark.runner.FHIRBenchmarkRunner;
+import com.ibm.fhir.benchmark.util.BenchmarkUtil;
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.parser.FHIRParser;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.resource.SearchParameter;
+import com.ibm.fhir.path.FHIRPathNode;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator.EvaluationContext;
+import com.ibm.fhir.search.util.SearchParameterExtractor;
+import com.ibm.fhir.search.util.SearchUtil;
+
+/**
+ * Compares evaluating each search parameter expression independently (the previous approach) with
+ * the single pass {@link SearchParameterExtractor}.
+ */
+public class FHIRSearchExtractionBenchmark {
+    private static final String EXAMPLE_NAME = "explanationofbenefit-example";
+
+    @State(Scope.Benchmark)
+    public static class FHIRSearchExtractionState {
+        public static final String SPEC_EXAMPLE_NAME = System.getProperty(PROPERTY_EXAMPLE_NAME, EXAMPLE_NAME);
+        public static final String JSON_SPEC_EXAMPLE = BenchmarkUtil.getSpecExample(Format.JSON, SPEC_EXAMPLE_NAME);
+
+        public Resource resource;
+        public Map<String, SearchParameter> parameters;
+
+        @Setup
+        public void setUp() throws Exception {
+            resource = FHIRParser.parser(Format.JSON).parse(new StringReader(JSON_SPEC_EXAMPLE));
+            parameters = SearchUtil.getSearchParameters(resource.getClass().getSimpleName());
+        }
+    }
+
+    @Benchmark
+    public Map<SearchParameter, List<FHIRPathNode>> benchmarkIndependentExtraction(FHIRSearchExtractionState state) throws Exception {
+        Map<SearchParameter, List<FHIRPathNode>> result = new LinkedHashMap<>();
+        FHIRPathEvaluator evaluator = FHIRPathEvaluator.evaluator();
+        EvaluationContext evaluationContext = new EvaluationContext(state.resource);
+        for (SearchParameter parameter : state.parameters.values()) {
+            if (parameter.getExpression() != null) {
+                result.put(parameter, new ArrayList<>(evaluator.evaluate(evaluationContext, parameter.getExpression().getValue())));
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Map<SearchParameter, List<FHIRPathNode>> benchmarkSinglePassExtraction(FHIRSearchExtractionState state) throws Exception {
+        return SearchParameterExtractor.extract(state.resource, state.parameters, false);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new FHIRBenchmarkRunner(FHIRSearchExtractionBenchmark.class)
+                .property(PROPERTY_EXAMPLE_NAME, EXAMPLE_NAME)
+                .run();
+    }
+}
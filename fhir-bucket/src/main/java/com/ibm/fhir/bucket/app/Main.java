@@ -78,6 +78,7 @@ import com.ibm.fhir.database.utils.version.CreateControl;
 import com.ibm.fhir.database.utils.version.CreateVersionHistory;
 import com.ibm.fhir.database.utils.version.CreateWholeSchemaVersion;
 import com.ibm.fhir.database.utils.version.VersionHistoryService;
+import com.ibm.fhir.model.config.FHIRModelConfig;
 import com.ibm.fhir.model.type.code.FHIRResourceType;
 import com.ibm.fhir.task.api.ITaskCollector;
 import com.ibm.fhir.task.api.ITaskGroup;
@@ -449,6 +450,9 @@ public class Main {
             case "--immediate-local":
                 this.isImmediateLocal = true;
                 break;
+            case "--json-streaming-parser":
+                FHIRModelConfig.setJsonStreamingParser(true);
+                break;
             case "--incremental":
                 this.incremental = true;
                 break;
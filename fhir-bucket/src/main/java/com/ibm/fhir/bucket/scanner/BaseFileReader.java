@@ -38,6 +38,7 @@ import com.ibm.fhir.model.resource.Bundle;
 import com.ibm.fhir.model.resource.OperationOutcome;
 import com.ibm.fhir.model.resource.Resource;
 import com.ibm.fhir.model.util.FHIRUtil;
+import com.ibm.fhir.persistence.FHIRPersistenceSupport;
 import com.ibm.fhir.validation.FHIRValidator;
 import com.ibm.fhir.validation.exception.FHIRValidationException;
 
@@ -303,7 +304,10 @@ public abstract class BaseFileReader {
     protected void processJSON(final BucketLoaderJob job, final Reader reader) {
         final int lineNumber = 0;
         try {
-            process(job, FHIRParser.parser(Format.JSON).parse(reader), lineNumber, "");
+            // The whole file is submitted as a single request (a transaction bundle needs all of its entries to
+            // resolve local references), so it can't be consumed entry by entry. The streaming parser at least
+            // avoids holding a JSON object tree of the file next to the parsed resource.
+            process(job, FHIRPersistenceSupport.jsonParser().parse(reader), lineNumber, "");
         } catch (FHIRParserException x) {
             // record the error in the database
             ResourceBundleError error = new ResourceBundleError(lineNumber, "Parse error: " + x.getMessage());
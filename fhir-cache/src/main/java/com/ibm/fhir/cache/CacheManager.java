@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -7,7 +7,9 @@
 package com.ibm.fhir.cache;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -136,6 +138,23 @@ public final class CacheManager {
         return (cache != null) ? cache.stats() : null;
     }
 
+    /**
+     * Get a snapshot of the size and cumulative statistics for each of the managed caches for the current tenant.
+     *
+     * @return
+     *     a list of cache statistics ordered by cache name
+     */
+    public static List<CacheStatistics> getCacheStatistics() {
+        String tenantId = TENANT_ID_PROVIDER.getTenantId();
+        Map<String, Cache<?, ?>> tenantCacheMap = TENANT_CACHE_MAPS.getOrDefault(tenantId, Collections.emptyMap());
+        List<CacheStatistics> result = new ArrayList<>(tenantCacheMap.size());
+        for (Map.Entry<String, Cache<?, ?>> entry : tenantCacheMap.entrySet()) {
+            result.add(CacheStatistics.of(entry.getKey(), entry.getValue()));
+        }
+        result.sort((s1, s2) -> s1.getCacheName().compareTo(s2.getCacheName()));
+        return result;
+    }
+
     /**
      * Invalidate the entry with the provided key in the cache with the given name for the current tenant.
      *
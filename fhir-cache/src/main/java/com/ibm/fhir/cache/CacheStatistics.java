@@ -0,0 +1,104 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.cache;
+
+import java.util.Objects;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy.Eviction;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * An immutable point-in-time snapshot of the size and cumulative statistics of a named cache
+ */
+public final class CacheStatistics {
+    private final String cacheName;
+    private final long estimatedSize;
+    private final Long maximumSize;
+    private final CacheStats stats;
+
+    private CacheStatistics(String cacheName, long estimatedSize, Long maximumSize, CacheStats stats) {
+        this.cacheName = Objects.requireNonNull(cacheName, "cacheName");
+        this.estimatedSize = estimatedSize;
+        this.maximumSize = maximumSize;
+        this.stats = Objects.requireNonNull(stats, "stats");
+    }
+
+    /**
+     * The name of the cache
+     *
+     * @return
+     *     the cache name
+     */
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    /**
+     * The approximate number of entries in the cache
+     *
+     * @return
+     *     the estimated size
+     */
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    /**
+     * The maximum size of the cache before entries are evicted
+     *
+     * @return
+     *     the maximum size or null if the cache is not bounded by size
+     */
+    public Long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * The cumulative statistics of the cache
+     *
+     * @return
+     *     the cache stats
+     */
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    /**
+     * A factory method for taking a snapshot of the given cache
+     *
+     * @param cacheName
+     *     the cache name
+     * @param cache
+     *     the cache
+     * @return
+     *     a snapshot of the size and statistics of the given cache
+     */
+    public static CacheStatistics of(String cacheName, Cache<?, ?> cache) {
+        Objects.requireNonNull(cache, "cache");
+        Long maximumSize = cache.policy().eviction().map(Eviction::getMaximum).orElse(null);
+        return new CacheStatistics(cacheName, cache.estimatedSize(), maximumSize, cache.stats());
+    }
+
+    /**
+     * A factory method for a cache which is not bounded by size and only counts hits and misses
+     *
+     * @param cacheName
+     *     the cache name
+     * @param size
+     *     the number of entries in the cache
+     * @param hitCount
+     *     the number of lookups which found an entry
+     * @param missCount
+     *     the number of lookups which did not find an entry
+     * @return
+     *     a snapshot of the size and statistics of the cache
+     */
+    public static CacheStatistics of(String cacheName, long size, long hitCount, long missCount) {
+        return new CacheStatistics(cacheName, size, null, CacheStats.of(hitCount, missCount, 0, 0, 0, 0, 0));
+    }
+}
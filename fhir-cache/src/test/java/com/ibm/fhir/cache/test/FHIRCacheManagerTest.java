@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -8,6 +8,7 @@ package com.ibm.fhir.cache.test;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.logging.Logger;
 
 import org.testng.Assert;
@@ -17,6 +18,7 @@ import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.ibm.fhir.cache.CacheManager;
 import com.ibm.fhir.cache.CacheManager.Configuration;
+import com.ibm.fhir.cache.CacheStatistics;
 
 public class FHIRCacheManagerTest {
     private static final Logger LOG = Logger.getLogger(FHIRCacheManagerTest.class.getName());
@@ -74,4 +76,33 @@ public class FHIRCacheManagerTest {
         CacheManager.removeCache("testCache");
         Assert.assertNull(CacheManager.getCache("testCache"));
     }
+
+    @Test
+    public void testCacheStatistics() {
+        CacheManager.getCache("testTimeCache", Configuration.of(Duration.of(1000, ChronoUnit.MILLIS)));
+        Cache<String, Integer> sizeCache = CacheManager.getCache("testSizeCache", Configuration.of(128));
+
+        sizeCache.put("1", 1);
+        sizeCache.getIfPresent("1");
+        sizeCache.getIfPresent("2");
+
+        List<CacheStatistics> statistics = CacheManager.getCacheStatistics();
+        Assert.assertEquals(statistics.size(), 2);
+
+        CacheStatistics sizeStatistics = statistics.get(0);
+        Assert.assertEquals(sizeStatistics.getCacheName(), "testSizeCache");
+        Assert.assertEquals(sizeStatistics.getEstimatedSize(), 1);
+        Assert.assertEquals(sizeStatistics.getMaximumSize(), Long.valueOf(128));
+        Assert.assertEquals(sizeStatistics.getStats().hitCount(), 1);
+        Assert.assertEquals(sizeStatistics.getStats().missCount(), 1);
+
+        CacheStatistics timeStatistics = statistics.get(1);
+        Assert.assertEquals(timeStatistics.getCacheName(), "testTimeCache");
+        Assert.assertEquals(timeStatistics.getEstimatedSize(), 0);
+        Assert.assertNull(timeStatistics.getMaximumSize());
+
+        CacheManager.removeCache("testTimeCache");
+        CacheManager.removeCache("testSizeCache");
+        Assert.assertTrue(CacheManager.getCacheStatistics().isEmpty());
+    }
 }
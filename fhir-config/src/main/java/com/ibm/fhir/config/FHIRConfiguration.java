@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016, 2021
+ * (C) Copyright IBM Corp. 2016, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -38,14 +38,20 @@ public class FHIRConfiguration {
     public static final String PROPERTY_SERVER_RESOLVE_FUNCTION_ENABLED = "fhirServer/core/serverResolveFunctionEnabled";
     public static final String PROPERTY_CAPABILITY_STATEMENT_CACHE = "fhirServer/core/capabilityStatementCacheTimeout";
     public static final String PROPERTY_EXTENDED_CODEABLE_CONCEPT_VALIDATION = "fhirServer/core/extendedCodeableConceptValidation";
+    public static final String PROPERTY_JSON_STREAMING_PARSER = "fhirServer/core/jsonStreamingParser";
     public static final String PROPERTY_DISABLED_OPERATIONS = "fhirServer/core/disabledOperations";
     public static final String PROPERTY_DEFAULT_PAGE_SIZE = "fhirServer/core/defaultPageSize";
     public static final String PROPERTY_MAX_PAGE_SIZE = "fhirServer/core/maxPageSize";
     public static final String PROPERTY_MAX_PAGE_INCLUDE_COUNT = "fhirServer/core/maxPageIncludeCount";
+    public static final String PROPERTY_BATCH_PARALLELISM = "fhirServer/core/batchParallelism";
     public static final String PROPERTY_CAPABILITIES_URL = "fhirServer/core/capabilitiesUrl";
+    public static final String PROPERTY_RAW_RESOURCE_READ_ENABLED = "fhirServer/core/rawResourceReadEnabled";
+    public static final String PROPERTY_JSON_FRAGMENT_CACHE_ENABLED = "fhirServer/core/jsonFragmentCacheEnabled";
 
     // Validation properties
     public static final String PROPERTY_VALIDATION_FAIL_FAST = "fhirServer/validation/failFast";
+    public static final String PROPERTY_VALIDATION_PARALLEL = "fhirServer/validation/parallel";
+    public static final String PROPERTY_VALIDATION_RESULT_CACHE_ENABLED = "fhirServer/validation/resultCacheEnabled";
 
     // Terminology service properties
     public static final String PROPERTY_TERM_SERVICE_CAPABILITIES_URL = "fhirServer/term/capabilitiesUrl";
@@ -114,7 +120,13 @@ public class FHIRConfiguration {
     public static final String PROPERTY_PERSISTENCE_FACTORY = "fhirServer/persistence/factoryClassname";
     public static final String PROPERTY_DATASOURCES = "fhirServer/persistence/datasources";
     public static final String PROPERTY_JDBC_ENABLE_READ_ONLY_REPLICAS = "fhirServer/persistence/jdbc/enableReadOnlyReplicas";
+    public static final String PROPERTY_JDBC_SEARCH_COUNT_CACHE_TTL = "fhirServer/persistence/jdbc/searchCountCacheTtl";
+    public static final String PROPERTY_JDBC_SEARCH_SNAPSHOT_MAX_SIZE = "fhirServer/persistence/jdbc/searchSnapshotMaxSize";
+    public static final String PROPERTY_JDBC_SEARCH_SNAPSHOT_TTL = "fhirServer/persistence/jdbc/searchSnapshotTtl";
+    public static final String PROPERTY_JDBC_SEARCH_BIND_TOKEN_VALUE_IDS = "fhirServer/persistence/jdbc/searchBindTokenValueIds";
     public static final String PROPERTY_PERSISTENCE_PAYLOAD = "fhirServer/persistence/payload";
+    public static final String PROPERTY_PAYLOAD_WRITE_THREADS = "fhirServer/persistence/common/payloadWriteThreads";
+    public static final String PROPERTY_PAYLOAD_WRITE_QUEUE_SIZE = "fhirServer/persistence/common/payloadWriteQueueSize";
 
     // Optimizer options within a datasource definition
     public static final String PROPERTY_JDBC_SEARCH_OPTIMIZER_OPTIONS = "searchOptimizerOptions";
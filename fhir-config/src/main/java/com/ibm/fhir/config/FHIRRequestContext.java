@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2017, 2021
+ * (C) Copyright IBM Corp. 2017, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -85,6 +86,26 @@ public class FHIRRequestContext {
         setDataStoreId(dataStoreId);
     }
 
+    /**
+     * Copy constructor. The copy belongs to the same request (it has the same request unique id),
+     * but changes to the copy, including its extended operation properties, aren't visible in
+     * the original and vice versa.
+     * @param other
+     */
+    private FHIRRequestContext(FHIRRequestContext other) {
+        this.tenantId = other.tenantId;
+        this.dataStoreId = other.dataStoreId;
+        this.requestUniqueId = other.requestUniqueId;
+        this.originalRequestUri = other.originalRequestUri;
+        this.httpHeaders = other.httpHeaders;
+        this.readOnly = other.readOnly;
+        this.bulk = other.bulk;
+        this.handlingPreference = other.handlingPreference;
+        this.returnPreference = other.returnPreference;
+        this.returnPreferenceDefault = other.returnPreferenceDefault;
+        this.operationProperties = new HashMap<>(other.operationProperties);
+    }
+
     public String getTenantId() {
         return tenantId;
     }
@@ -186,6 +207,29 @@ public class FHIRRequestContext {
         return result;
     }
 
+    /**
+     * Wraps the given task so that it runs with a copy of the FHIRRequestContext of the current thread,
+     * taken when this method is called. Use this to hand work for the current request to another thread.
+     * Each wrapped task gets its own copy, so tasks running concurrently don't see each other's changes.
+     * The context of the thread which runs the task is restored when the task completes, so the task
+     * may also be run by the calling thread.
+     * @param <T>
+     * @param task
+     * @return the wrapped task
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        final FHIRRequestContext copy = new FHIRRequestContext(get());
+        return () -> {
+            final FHIRRequestContext previous = contexts.get();
+            set(copy);
+            try {
+                return task.call();
+            } finally {
+                set(previous);
+            }
+        };
+    }
+
     /**
      * Removes the FHIRRequestContext that's set on the current thread.
      * This method is called when the FHIR Server is finished processing a request.
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2017,2019
+ * (C) Copyright IBM Corp. 2017, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -8,11 +8,18 @@ package com.ibm.fhir.config.test;
 
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertSame;
 import static org.testng.AssertJUnit.assertTrue;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.testng.annotations.Test;
 
 import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.core.HTTPReturnPreference;
 
 public class FHIRRequestContextTest {
     
@@ -95,4 +102,45 @@ public class FHIRRequestContextTest {
         t.join(1000);
         assertTrue(test.getTestPassed());
     }
+
+    @Test
+    public void testPropagate() throws Exception {
+        FHIRRequestContext original = new FHIRRequestContext("tenant1", "dsid1");
+        original.setReturnPreference(HTTPReturnPreference.MINIMAL);
+        original.setExtendedOperationProperties("name", "value");
+        FHIRRequestContext.set(original);
+
+        Callable<FHIRRequestContext> task1 = FHIRRequestContext.propagate(() -> {
+            FHIRRequestContext ctxt = FHIRRequestContext.get();
+            ctxt.setReturnPreference(HTTPReturnPreference.REPRESENTATION);
+            ctxt.setExtendedOperationProperties("name", "changed");
+            return ctxt;
+        });
+        Callable<FHIRRequestContext> task2 = FHIRRequestContext.propagate(() -> FHIRRequestContext.get());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            FHIRRequestContext ctxt1 = executor.submit(task1).get();
+            FHIRRequestContext ctxt2 = executor.submit(task2).get();
+
+            // each task runs with its own copy of the context of the calling thread
+            assertNotSame(original, ctxt1);
+            assertNotSame(ctxt1, ctxt2);
+            assertEquals("tenant1", ctxt2.getTenantId());
+            assertEquals("dsid1", ctxt2.getDataStoreId());
+            assertEquals(original.getRequestUniqueId(), ctxt2.getRequestUniqueId());
+
+            // changes made by one task are not visible to the caller or to other tasks
+            assertEquals(HTTPReturnPreference.MINIMAL, original.getReturnPreference());
+            assertEquals("value", original.getExtendedOperationProperties("name"));
+            assertEquals(HTTPReturnPreference.MINIMAL, ctxt2.getReturnPreference());
+            assertEquals("value", ctxt2.getExtendedOperationProperties("name"));
+        } finally {
+            executor.shutdown();
+        }
+
+        // a task run by the calling thread restores the context of the calling thread
+        FHIRRequestContext.propagate(() -> null).call();
+        assertSame(original, FHIRRequestContext.get());
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016, 2021
+ * (C) Copyright IBM Corp. 2016, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -52,6 +52,12 @@ public interface FHIRPagingContext {
      */
     Integer getTotalCount();
 
+    /**
+     * @return true if the total count is a planner estimate rather than an exact count
+     * @see <a href="https://www.hl7.org/fhir/r4/search.html#total">https://www.hl7.org/fhir/r4/search.html#total</a>
+     */
+    boolean isTotalCountEstimated();
+
     /**
      * @return the number of matching resources returned for the corresponding query
      * @see <a href="https://www.hl7.org/fhir/r4/search.html#count">https://www.hl7.org/fhir/r4/search.html#count</a>
@@ -101,6 +107,11 @@ public interface FHIRPagingContext {
      */
     void setTotalCount(int totalCount);
 
+    /**
+     * @param totalCountEstimated whether the total count is a planner estimate rather than an exact count
+     */
+    void setTotalCountEstimated(boolean totalCountEstimated);
+
     /**
      * @param matchCount the number of matching resources returned for the corresponding query
      * @see <a href="https://www.hl7.org/fhir/r4/search.html#count">https://www.hl7.org/fhir/r4/search.html#count</a>
@@ -118,4 +129,26 @@ public interface FHIRPagingContext {
      * @param lenient whether the request should be handled with leniency
      */
     void setLenient(boolean lenient);
+
+    /**
+     * @return the opaque cursor passed with the request, or null if the request has no cursor
+     * @implNote a cursor allows the persistence layer to seek directly to the start of the requested page
+     *           instead of skipping over the rows of all previous pages
+     */
+    String getCursor();
+
+    /**
+     * @param cursor the opaque cursor passed with the request
+     */
+    void setCursor(String cursor);
+
+    /**
+     * @return the opaque cursor for the next page of results, or null if the persistence layer did not produce one
+     */
+    String getNextCursor();
+
+    /**
+     * @param nextCursor the opaque cursor for the next page of results
+     */
+    void setNextCursor(String nextCursor);
 }
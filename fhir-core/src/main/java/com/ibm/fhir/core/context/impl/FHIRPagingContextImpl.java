@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016, 2021
+ * (C) Copyright IBM Corp. 2016, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -18,8 +18,11 @@ public class FHIRPagingContextImpl implements FHIRPagingContext {
     protected int maxPageSize;
     protected int maxPageIncludeCount;
     protected Integer totalCount;
+    protected boolean totalCountEstimated;
     protected int matchCount;
     protected boolean lenient = true;
+    protected String cursor;
+    protected String nextCursor;
 
     /**
      * Create a FHIRPagingContextImpl with the default values:
@@ -69,6 +72,11 @@ public class FHIRPagingContextImpl implements FHIRPagingContext {
         return totalCount;
     }
 
+    @Override
+    public boolean isTotalCountEstimated() {
+        return totalCountEstimated;
+    }
+
     @Override
     public int getMatchCount() {
         return matchCount;
@@ -104,6 +112,11 @@ public class FHIRPagingContextImpl implements FHIRPagingContext {
         this.totalCount = totalCount;
     }
 
+    @Override
+    public void setTotalCountEstimated(boolean totalCountEstimated) {
+        this.totalCountEstimated = totalCountEstimated;
+    }
+
     @Override
     public void setMatchCount(int matchCount) {
         this.matchCount = matchCount;
@@ -118,4 +131,24 @@ public class FHIRPagingContextImpl implements FHIRPagingContext {
     public void setLenient(boolean lenient) {
         this.lenient = lenient;
     }
+
+    @Override
+    public String getCursor() {
+        return cursor;
+    }
+
+    @Override
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    @Override
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    @Override
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -34,11 +34,50 @@ public class QueryUtil {
      * @throws SQLException
      */
     public static PreparedStatement prepareSelect(Connection connection, Select select, IDatabaseTranslator translator) throws SQLException {
+        return prepare(connection, "", select, translator);
+    }
+
+    /**
+     * Prepares a statement which asks the database for the access plan of the given
+     * Select statement and sets any bind parameters. Caller must close the returned
+     * statement.
+     * @param connection
+     * @param explain the database-specific explain prefix, e.g. "EXPLAIN "
+     * @param select
+     * @param translator
+     * @return the statement ready to execute, with parameter markers bound
+     * @throws SQLException
+     */
+    public static PreparedStatement prepareExplain(Connection connection, String explain, Select select, IDatabaseTranslator translator) throws SQLException {
+        return prepare(connection, explain, select, translator);
+    }
+
+    /**
+     * Renders the given Select statement along with the values of its bind markers.
+     * Two statements have equal keys if they would run the same query with the same
+     * bind values, so the key can be used to cache query results.
+     * @param select
+     * @param translator
+     * @return a list holding the query string followed by the value of each bind marker
+     */
+    public static List<String> getQueryKey(Select select, IDatabaseTranslator translator) {
+        final List<BindMarkerNode> bindMarkers = new ArrayList<>();
+        final StringStatementRenderer statementRenderer = new StringStatementRenderer(translator, bindMarkers, false);
+        final String query = select.render(statementRenderer);
+        final List<String> result = new ArrayList<>(bindMarkers.size() + 1);
+        result.add(query);
+        for (BindMarkerNode bindMarker: bindMarkers) {
+            result.add(bindMarker.toValueString(null));
+        }
+        return result;
+    }
+
+    private static PreparedStatement prepare(Connection connection, String prefix, Select select, IDatabaseTranslator translator) throws SQLException {
 
         // Render the statement to a database-specific string
         final List<BindMarkerNode> bindMarkers = new ArrayList<>();
         final StringStatementRenderer statementRenderer = new StringStatementRenderer(translator, bindMarkers, true);
-        final String query = select.render(statementRenderer);
+        final String query = prefix + select.render(statementRenderer);
 
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("bind marker count: " + bindMarkers.size());
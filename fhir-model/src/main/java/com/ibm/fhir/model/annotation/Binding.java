@@ -1,15 +1,17 @@
 /*
- * (C) Copyright IBM Corp. 2019, 2021
+ * (C) Copyright IBM Corp. 2019, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 
 package com.ibm.fhir.model.annotation;
 
+import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.Objects;
 
 import com.ibm.fhir.model.type.code.BindingStrength;
 
@@ -73,4 +75,108 @@ public @interface Binding {
      * @return the maximum allowable value set
      */
     String maxValueSet() default "";
-}
\ No newline at end of file
+
+    /**
+     * A factory class for programmatically creating Binding instances using an anonymous inner class
+     */
+    final class Factory {
+        private Factory() { }
+
+        public static Binding createBinding(
+                String bindingName,
+                BindingStrength.Value strength,
+                String description,
+                String valueSet,
+                String inheritedExtensibleValueSet,
+                String minValueSet,
+                String maxValueSet) {
+            Objects.requireNonNull(strength, "strength");
+            return new Binding() {
+                @Override
+                public String bindingName() {
+                    return bindingName;
+                }
+
+                @Override
+                public BindingStrength.Value strength() {
+                    return strength;
+                }
+
+                @Override
+                public String description() {
+                    return description;
+                }
+
+                @Override
+                public String valueSet() {
+                    return valueSet;
+                }
+
+                @Override
+                public String inheritedExtensibleValueSet() {
+                    return inheritedExtensibleValueSet;
+                }
+
+                @Override
+                public String minValueSet() {
+                    return minValueSet;
+                }
+
+                @Override
+                public String maxValueSet() {
+                    return maxValueSet;
+                }
+
+                @Override
+                public Class<? extends Annotation> annotationType() {
+                    return Binding.class;
+                }
+
+                @Override
+                public boolean equals(Object obj) {
+                    if (this == obj) {
+                        return true;
+                    }
+                    if (!(obj instanceof Binding)) {
+                        return false;
+                    }
+                    Binding other = (Binding) obj;
+                    return Objects.equals(bindingName, other.bindingName()) &&
+                        Objects.equals(strength, other.strength()) &&
+                        Objects.equals(description, other.description()) &&
+                        Objects.equals(valueSet, other.valueSet()) &&
+                        Objects.equals(inheritedExtensibleValueSet, other.inheritedExtensibleValueSet()) &&
+                        Objects.equals(minValueSet, other.minValueSet()) &&
+                        Objects.equals(maxValueSet, other.maxValueSet());
+                }
+
+                @Override
+                public int hashCode() {
+                    return Objects.hash(
+                        bindingName,
+                        strength,
+                        description,
+                        valueSet,
+                        inheritedExtensibleValueSet,
+                        minValueSet,
+                        maxValueSet);
+                }
+
+                @Override
+                public String toString() {
+                    return new StringBuilder()
+                        .append("@com.ibm.fhir.model.annotation.Binding(")
+                        .append("bindingName=\"").append(bindingName).append("\", ")
+                        .append("strength=").append(strength).append(", ")
+                        .append("description=\"").append(description).append("\", ")
+                        .append("valueSet=\"").append(valueSet).append("\", ")
+                        .append("inheritedExtensibleValueSet=\"").append(inheritedExtensibleValueSet).append("\", ")
+                        .append("minValueSet=\"").append(minValueSet).append("\", ")
+                        .append("maxValueSet=\"").append(maxValueSet).append("\"")
+                        .append(")")
+                        .toString();
+                }
+            };
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019, 2021
+ * (C) Copyright IBM Corp. 2019, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -51,12 +51,19 @@ public final class FHIRModelConfig {
      */
     public static final String PROPERTY_CHECK_CONTROL_CHARS = "com.ibm.fhir.model.checkControlChars";
 
+    /**
+     * Used to determine whether stored JSON payloads are read with the event-streaming FHIRJsonStreamingParser
+     * instead of the FHIRJsonParser
+     */
+    public static final String PROPERTY_JSON_STREAMING_PARSER = "com.ibm.fhir.model.jsonStreamingParser";
+
     private static final Format DEFAULT_TO_STRING_FORMAT = Format.JSON;
     private static final int DEFAULT_TO_STRING_INDENT_AMOUNT = 2;
     private static final boolean DEFAULT_TO_STRING_PRETTY_PRINTING = true;
     private static final boolean DEFAULT_CHECK_REFERENCE_TYPES = true;
     private static final boolean DEFAULT_CHECK_UNICODE_CONTROL_CHARS = true;
     private static final boolean DEFAULT_EXTENDED_CODEABLE_CONCEPT_VALIDATION = true;
+    private static final boolean DEFAULT_JSON_STREAMING_PARSER = false;
 
     private static final Map<String, Object> properties = new ConcurrentHashMap<>();
 
@@ -110,6 +117,14 @@ public final class FHIRModelConfig {
         return getPropertyOrDefault(PROPERTY_EXTENDED_CODEABLE_CONCEPT_VALIDATION, DEFAULT_EXTENDED_CODEABLE_CONCEPT_VALIDATION, Boolean.class);
     }
 
+    public static void setJsonStreamingParser(boolean jsonStreamingParser) {
+        setProperty(PROPERTY_JSON_STREAMING_PARSER, jsonStreamingParser);
+    }
+
+    public static boolean getJsonStreamingParser() {
+        return getPropertyOrDefault(PROPERTY_JSON_STREAMING_PARSER, DEFAULT_JSON_STREAMING_PARSER, Boolean.class);
+    }
+
     public static void setProperty(String name, Object value) {
         properties.put(requireNonNull(name), requireNonNull(value));
     }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019, 2021
+ * (C) Copyright IBM Corp. 2019, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -10,7 +10,12 @@ import static com.ibm.fhir.model.util.JsonSupport.nonClosingOutputStream;
 import static com.ibm.fhir.model.util.JsonSupport.nonClosingWriter;
 import static com.ibm.fhir.model.util.ModelSupport.isPrimitiveType;
 
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
@@ -40,8 +45,16 @@ import jakarta.json.stream.JsonGenerator;
 import jakarta.json.stream.JsonGeneratorFactory;
 
 public class FHIRJsonGenerator extends FHIRAbstractGenerator {
+    /**
+     * Property name for a {@link JsonFragmentCache} holding the serialized form of frequently written model objects.
+     * The cache is ignored when pretty printing.
+     */
+    public static final java.lang.String PROPERTY_FRAGMENT_CACHE = "com.ibm.fhir.model.generator.fragmentCache";
+
     private static final JsonGeneratorFactory GENERATOR_FACTORY = Json.createGeneratorFactory(null);
     private static final JsonGeneratorFactory PRETTY_PRINTING_GENERATOR_FACTORY = Json.createGeneratorFactory(Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+    private static final java.lang.String PLACEHOLDER = "";
+    private static final int PLACEHOLDER_LENGTH = "\"\"".length();
 
     protected FHIRJsonGenerator(boolean prettyPrinting) {
         super(prettyPrinting);
@@ -50,8 +63,10 @@ public class FHIRJsonGenerator extends FHIRAbstractGenerator {
     @Override
     public void generate(Visitable visitable, OutputStream out) throws FHIRGeneratorException {
         GeneratingVisitor visitor = null;
-        try (JsonGenerator generator = getGeneratorFactory().createGenerator(nonClosingOutputStream(out), StandardCharsets.UTF_8)) {
-            visitor = new JsonGeneratingVisitor(generator);
+        JsonFragmentCache fragmentCache = getFragmentCache();
+        FragmentSink sink = (fragmentCache != null) ? new OutputStreamFragmentSink(nonClosingOutputStream(out)) : null;
+        try (JsonGenerator generator = getGeneratorFactory().createGenerator((sink != null) ? (OutputStream) sink : nonClosingOutputStream(out), StandardCharsets.UTF_8)) {
+            visitor = new JsonGeneratingVisitor(generator, fragmentCache, sink, null);
             visitable.accept(visitor);
             generator.flush();
         } catch (Exception e) {
@@ -62,8 +77,10 @@ public class FHIRJsonGenerator extends FHIRAbstractGenerator {
     @Override
     public void generate(Visitable visitable, Writer writer) throws FHIRGeneratorException {
         GeneratingVisitor visitor = null;
-        try (JsonGenerator generator = getGeneratorFactory().createGenerator(nonClosingWriter(writer))) {
-            visitor = new JsonGeneratingVisitor(generator);
+        JsonFragmentCache fragmentCache = getFragmentCache();
+        FragmentSink sink = (fragmentCache != null) ? new WriterFragmentSink(nonClosingWriter(writer)) : null;
+        try (JsonGenerator generator = getGeneratorFactory().createGenerator((sink != null) ? (Writer) sink : nonClosingWriter(writer))) {
+            visitor = new JsonGeneratingVisitor(generator, fragmentCache, sink, null);
             visitable.accept(visitor);
             generator.flush();
         } catch (Exception e) {
@@ -76,11 +93,211 @@ public class FHIRJsonGenerator extends FHIRAbstractGenerator {
         return prettyPrinting;
     }
 
+    @Override
+    public boolean isPropertySupported(java.lang.String name) {
+        return PROPERTY_FRAGMENT_CACHE.equals(name);
+    }
+
+    /**
+     * The fragment cache is not used when pretty printing, because the cached fragments are compact
+     */
+    private JsonFragmentCache getFragmentCache() {
+        if (prettyPrinting) {
+            return null;
+        }
+        return (JsonFragmentCache) getProperty(PROPERTY_FRAGMENT_CACHE);
+    }
+
+    /**
+     * Generate the compact JSON serialization of a visitable for the fragment cache
+     */
+    private static byte[] generateFragment(Visitable visitable, JsonFragmentCache fragmentCache) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStreamFragmentSink sink = new OutputStreamFragmentSink(out);
+        try (JsonGenerator generator = GENERATOR_FACTORY.createGenerator(sink, StandardCharsets.UTF_8)) {
+            visitable.accept(new JsonGeneratingVisitor(generator, fragmentCache, sink, visitable));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * The destination of a generator which can replace a placeholder value written by the generator with a fragment.
+     *
+     * <p>A placeholder is used so that the generator writes the separator and field name of the element and keeps
+     * track of its own state as usual; the sink then writes the fragment in place of the empty string value.
+     */
+    private interface FragmentSink {
+        /**
+         * Hold back subsequent output (including flushes) until {@link #endCapture(byte[])} is called
+         */
+        void startCapture();
+
+        /**
+         * Write the output held back since {@link #startCapture()}, replacing the trailing placeholder value with
+         * the passed fragment
+         */
+        void endCapture(byte[] fragment) throws IOException;
+    }
+
+    private static final class OutputStreamFragmentSink extends FilterOutputStream implements FragmentSink {
+        private final ByteArrayOutputStream captured = new ByteArrayOutputStream(64);
+        private boolean capturing = false;
+
+        private OutputStreamFragmentSink(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (capturing) {
+                captured.write(b);
+            } else {
+                out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (capturing) {
+                captured.write(b, off, len);
+            } else {
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!capturing) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void startCapture() {
+            capturing = true;
+        }
+
+        @Override
+        public void endCapture(byte[] fragment) throws IOException {
+            capturing = false;
+            // the captured output ends with the placeholder value ""
+            out.write(captured.toByteArray(), 0, captured.size() - PLACEHOLDER_LENGTH);
+            out.write(fragment);
+            captured.reset();
+        }
+    }
+
+    private static final class WriterFragmentSink extends FilterWriter implements FragmentSink {
+        private final StringBuilder captured = new StringBuilder(64);
+        private boolean capturing = false;
+
+        private WriterFragmentSink(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (capturing) {
+                captured.append((char) c);
+            } else {
+                out.write(c);
+            }
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            if (capturing) {
+                captured.append(cbuf, off, len);
+            } else {
+                out.write(cbuf, off, len);
+            }
+        }
+
+        @Override
+        public void write(java.lang.String str, int off, int len) throws IOException {
+            if (capturing) {
+                captured.append(str, off, off + len);
+            } else {
+                out.write(str, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!capturing) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void startCapture() {
+            capturing = true;
+        }
+
+        @Override
+        public void endCapture(byte[] fragment) throws IOException {
+            capturing = false;
+            // the captured output ends with the placeholder value ""
+            out.append(captured, 0, captured.length() - PLACEHOLDER_LENGTH);
+            out.write(new java.lang.String(fragment, StandardCharsets.UTF_8));
+            captured.setLength(0);
+        }
+    }
+
     private static class JsonGeneratingVisitor extends GeneratingVisitor {
         private final JsonGenerator generator;
-
-        private JsonGeneratingVisitor(JsonGenerator generator) {
+        private final JsonFragmentCache fragmentCache;
+        private final FragmentSink sink;
+        // the visitable whose fragment is being generated; never replaced by its own fragment
+        private final Visitable root;
+        // the visitable which was replaced by its fragment and whose children are skipped
+        private Visitable spliced;
+
+        private JsonGeneratingVisitor(JsonGenerator generator, JsonFragmentCache fragmentCache, FragmentSink sink, Visitable root) {
             this.generator = generator;
+            this.fragmentCache = fragmentCache;
+            this.sink = sink;
+            this.root = root;
+        }
+
+        /**
+         * Write the cached fragment of the passed visitable in place of its content, if there is one
+         *
+         * @return true if the fragment was written
+         */
+        private boolean splice(java.lang.String elementName, int elementIndex, Visitable visitable) {
+            if (fragmentCache == null || visitable == root || !fragmentCache.isCacheable(visitable)) {
+                return false;
+            }
+            byte[] fragment = fragmentCache.get(visitable, v -> generateFragment(v, fragmentCache));
+            if (fragment == null) {
+                return false;
+            }
+            try {
+                generator.flush();
+                sink.startCapture();
+                if (getDepth() > 1 && elementIndex == -1) {
+                    generator.write(elementName, PLACEHOLDER);
+                } else {
+                    generator.write(PLACEHOLDER);
+                }
+                generator.flush();
+                sink.endCapture(fragment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            spliced = visitable;
+            return true;
+        }
+
+        @Override
+        public boolean visit(java.lang.String elementName, int elementIndex, Element element) {
+            return spliced == null;
+        }
+
+        @Override
+        public boolean visit(java.lang.String elementName, int elementIndex, Resource resource) {
+            return spliced == null;
         }
 
         private void generate(Element element) {
@@ -255,6 +472,10 @@ public class FHIRJsonGenerator extends FHIRAbstractGenerator {
 
         @Override
         public void doVisitEnd(java.lang.String elementName, int elementIndex, Element element) {
+            if (spliced == element) {
+                spliced = null;
+                return;
+            }
             Class<?> elementType = element.getClass();
             if (isPrimitiveType(elementType)) {
                 if (isChoiceElement(elementName)) {
@@ -295,6 +516,10 @@ public class FHIRJsonGenerator extends FHIRAbstractGenerator {
 
         @Override
         public void doVisitEnd(java.lang.String elementName, int elementIndex, Resource resource) {
+            if (spliced == resource) {
+                spliced = null;
+                return;
+            }
             generator.writeEnd();
         }
 
@@ -305,6 +530,9 @@ public class FHIRJsonGenerator extends FHIRAbstractGenerator {
                 if (isChoiceElement(elementName)) {
                     elementName = getChoiceElementName(elementName, element.getClass());
                 }
+                if (splice(elementName, elementIndex, element)) {
+                    return;
+                }
                 writeStartObject(elementName, elementIndex);
             } else if (getDepth() == 1) {
                 generator.writeStartObject();
@@ -320,6 +548,9 @@ public class FHIRJsonGenerator extends FHIRAbstractGenerator {
 
         @Override
         public void doVisitStart(java.lang.String elementName, int elementIndex, Resource resource) {
+            if (splice(elementName, elementIndex, resource)) {
+                return;
+            }
             writeStartObject(elementName, elementIndex);
             Class<?> resourceType = resource.getClass();
             java.lang.String resourceTypeName = resourceType.getSimpleName();
@@ -0,0 +1,142 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.generator;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.ibm.fhir.model.visitor.Visitable;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A cache of the compact JSON serialization of immutable model objects, keyed by object identity.
+ *
+ * <p>When set on a {@link FHIRJsonGenerator} via {@link FHIRJsonGenerator#PROPERTY_FRAGMENT_CACHE}, the generator
+ * writes the cached bytes of a matching Resource or complex Element verbatim instead of visiting its children again.
+ * This is only worthwhile for large subtrees which are written many times from the same instance, such as
+ * conformance resources held by the registry or a cached CapabilityStatement.
+ *
+ * <p>A fragment is only generated the second time an instance is written, so that objects which are written
+ * once don't pay for an additional copy. Keys are weakly referenced, so entries disappear once the model object
+ * is no longer reachable elsewhere.
+ */
+@ThreadSafe
+public class JsonFragmentCache {
+    private static final byte[] SEEN = new byte[0];
+
+    private final Predicate<? super Visitable> cacheable;
+    private final Map<IdentityKey, byte[]> fragments = new HashMap<>();
+    private final ReferenceQueue<Visitable> queue = new ReferenceQueue<>();
+
+    /**
+     * @param cacheable
+     *     selects the Resources and complex Elements for which fragments should be cached;
+     *     must only select objects which will be written many times
+     */
+    public JsonFragmentCache(Predicate<? super Visitable> cacheable) {
+        this.cacheable = Objects.requireNonNull(cacheable, "cacheable");
+    }
+
+    /**
+     * @return true if the fragment for the passed visitable may be cached
+     */
+    public boolean isCacheable(Visitable visitable) {
+        return cacheable.test(visitable);
+    }
+
+    /**
+     * Get the fragment for the passed visitable, generating it if this is not the first time it was requested.
+     *
+     * @return the compact JSON serialization of the visitable, or null if it should be generated as usual
+     */
+    byte[] get(Visitable visitable, Function<Visitable, byte[]> generator) {
+        IdentityKey key = new IdentityKey(visitable, null);
+        synchronized (fragments) {
+            expunge();
+            byte[] fragment = fragments.get(key);
+            if (fragment == null) {
+                fragments.put(new IdentityKey(visitable, queue), SEEN);
+                return null;
+            }
+            if (fragment != SEEN) {
+                return fragment;
+            }
+        }
+
+        // generate outside the lock; a concurrent writer may generate the same fragment
+        byte[] fragment = generator.apply(visitable);
+        synchronized (fragments) {
+            fragments.put(new IdentityKey(visitable, queue), fragment);
+        }
+        return fragment;
+    }
+
+    /**
+     * @return the number of model objects tracked by this cache, including those which have been seen but not cached yet
+     */
+    public int size() {
+        synchronized (fragments) {
+            expunge();
+            return fragments.size();
+        }
+    }
+
+    /**
+     * Remove all fragments from this cache
+     */
+    public void clear() {
+        synchronized (fragments) {
+            fragments.clear();
+            while (queue.poll() != null) {
+                // drain
+            }
+        }
+    }
+
+    private void expunge() {
+        Reference<? extends Visitable> ref;
+        while ((ref = queue.poll()) != null) {
+            fragments.remove(ref);
+        }
+    }
+
+    /**
+     * A weak reference which is equal to other keys referring to the same object
+     */
+    private static final class IdentityKey extends WeakReference<Visitable> {
+        private final int hash;
+
+        private IdentityKey(Visitable visitable, ReferenceQueue<Visitable> queue) {
+            super(visitable, queue);
+            this.hash = System.identityHashCode(visitable);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof IdentityKey)) {
+                return false;
+            }
+            Visitable referent = get();
+            return referent != null && referent == ((IdentityKey) obj).get();
+        }
+    }
+}
@@ -0,0 +1,727 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.parser;
+
+import static com.ibm.fhir.model.util.JsonSupport.nonClosingInputStream;
+import static com.ibm.fhir.model.util.JsonSupport.nonClosingReader;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+import java.util.StringJoiner;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParser.Event;
+import jakarta.json.stream.JsonParserFactory;
+
+import com.ibm.fhir.model.builder.AbstractBuilder;
+import com.ibm.fhir.model.parser.exception.FHIRParserException;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.Decimal;
+import com.ibm.fhir.model.type.Element;
+import com.ibm.fhir.model.type.Extension;
+import com.ibm.fhir.model.util.ElementFilter;
+import com.ibm.fhir.model.util.ModelSupport;
+import com.ibm.fhir.model.util.ModelSupport.ElementInfo;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * A FHIR JSON parser which builds model objects directly from the events of a {@link JsonParser} instead of
+ * reading the input into a {@link JsonObject} first, so the input is never held in memory twice.
+ *
+ * <p>When used through {@link #parseAndFilter(InputStream, Collection)}, top-level elements which are not retained by
+ * the {@link ElementFilter} are skipped at the token level rather than being parsed and then discarded.
+ *
+ * <p>The parser produces the same model objects and enforces the same structural rules as {@link FHIRJsonParser}.
+ * Elements are resolved from {@link ModelSupport} metadata and builder methods are bound once per model class.
+ * A resource whose first key is not "resourceType" cannot be typed from the stream, so that resource alone
+ * is buffered and handed to {@link FHIRJsonParser}.
+ */
+@NotThreadSafe
+public class FHIRJsonStreamingParser extends FHIRAbstractParser {
+    private static final JsonParserFactory JSON_PARSER_FACTORY = Json.createParserFactory(null);
+
+    private static final ClassValue<TypeInfo> TYPE_INFO = new ClassValue<TypeInfo>() {
+        @Override
+        protected TypeInfo computeValue(Class<?> type) {
+            return new TypeInfo(type);
+        }
+    };
+
+    private final Stack<String> stack = new Stack<>();
+
+    FHIRJsonStreamingParser() {
+        // only visible to subclasses or classes/interfaces in the same package (e.g. FHIRParser)
+    }
+
+    @Override
+    public <T extends Resource> T parse(InputStream in) throws FHIRParserException {
+        return parseAndFilter(in, null);
+    }
+
+    /**
+     * Read a resource from the passed InputStream and filter its top-level elements to the collection of elementsToInclude.
+     * This method does not close the passed InputStream.
+     *
+     * @param <T>
+     *     The resource type to read
+     * @param in
+     *     An input stream with the JSON contents of a FHIR resource
+     * @param elementsToInclude
+     *     The top-level elements to include or null to indicate that no filter should be applied
+     * @return
+     * @throws FHIRParserException
+     *     if the resource could not be parsed for any reason
+     */
+    public <T extends Resource> T parseAndFilter(InputStream in, Collection<String> elementsToInclude) throws FHIRParserException {
+        try (JsonParser parser = JSON_PARSER_FACTORY.createParser(nonClosingInputStream(in), StandardCharsets.UTF_8)) {
+            return parseAndFilter(parser, elementsToInclude);
+        } catch (FHIRParserException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FHIRParserException(e.getMessage(), getPath(), e);
+        }
+    }
+
+    @Override
+    public <T extends Resource> T parse(Reader reader) throws FHIRParserException {
+        return parseAndFilter(reader, null);
+    }
+
+    /**
+     * Read a resource using the passed Reader and filter its top-level elements to the collection of elementsToInclude.
+     * This method does not close the passed Reader.
+     *
+     * @param <T>
+     *     The resource type to read
+     * @param reader
+     *     A reader with the JSON contents of a FHIR resource
+     * @param elementsToInclude
+     *     The top-level elements to include or null to indicate that no filter should be applied
+     * @return
+     * @throws FHIRParserException
+     *     if the resource could not be parsed for any reason
+     */
+    public <T extends Resource> T parseAndFilter(Reader reader, Collection<String> elementsToInclude) throws FHIRParserException {
+        try (JsonParser parser = JSON_PARSER_FACTORY.createParser(nonClosingReader(reader))) {
+            return parseAndFilter(parser, elementsToInclude);
+        } catch (FHIRParserException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FHIRParserException(e.getMessage(), getPath(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Resource> T parseAndFilter(JsonParser parser, Collection<String> elementsToInclude) throws FHIRParserException {
+        stack.clear();
+        Event event = parser.hasNext() ? parser.next() : null;
+        if (event != Event.START_OBJECT) {
+            throw new IllegalArgumentException("Expected: OBJECT but found: " + getValueType(event));
+        }
+        Resource resource = parseResource(parser, null, -1, elementsToInclude);
+        if (parser.hasNext()) {
+            throw new IllegalArgumentException("Unexpected content after the end of the resource");
+        }
+        return (T) resource;
+    }
+
+    /**
+     * Parse a resource whose START_OBJECT event has already been consumed
+     */
+    private Resource parseResource(JsonParser parser, String elementName, int elementIndex, Collection<String> elementsToInclude) throws FHIRParserException {
+        Event event = parser.next();
+        if (event == Event.KEY_NAME && "resourceType".equals(parser.getString())) {
+            event = parser.next();
+            if (event != Event.VALUE_STRING) {
+                throw new IllegalArgumentException("Expected: STRING but found: " + getValueType(event) + " for element: resourceType");
+            }
+            String resourceTypeName = parser.getString();
+            Class<?> resourceType = ModelSupport.getResourceType(resourceTypeName);
+            if (resourceType == null) {
+                throw new IllegalArgumentException("Invalid resource type: '" + resourceTypeName + "'");
+            }
+            ElementFilter elementFilter = (elementsToInclude != null) ? new ElementFilter(resourceType, elementsToInclude) : null;
+            return (Resource) parseObject(parser, resourceType, (elementName != null) ? elementName : resourceType.getSimpleName(),
+                elementIndex, elementFilter);
+        }
+        return parseBufferedResource(parser, event, elementName, elementIndex, elementsToInclude);
+    }
+
+    /**
+     * The resource type isn't known until the whole object has been read, so buffer it and delegate to FHIRJsonParser
+     */
+    private Resource parseBufferedResource(JsonParser parser, Event event, String elementName, int elementIndex,
+            Collection<String> elementsToInclude) throws FHIRParserException {
+        JsonObjectBuilder objectBuilder = Json.createObjectBuilder();
+        Set<String> keys = new HashSet<>();
+        while (event != Event.END_OBJECT) {
+            String key = parser.getString();
+            checkForDuplicateKey(keys, key);
+            parser.next();
+            objectBuilder.add(key, parser.getValue());
+            event = parser.next();
+        }
+
+        FHIRJsonParser delegate = new FHIRJsonParser();
+        delegate.setValidating(validating);
+        delegate.setIgnoringUnrecognizedElements(ignoringUnrecognizedElements);
+        if (elementName == null) {
+            return delegate.parseAndFilter(objectBuilder.build(), elementsToInclude);
+        }
+        stackPush(elementName, elementIndex);
+        try {
+            Resource resource = delegate.parseAndFilter(objectBuilder.build(), elementsToInclude);
+            stackPop();
+            return resource;
+        } catch (FHIRParserException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parse a complex element or resource whose START_OBJECT event (and "resourceType" member) has already been consumed
+     */
+    private Object parseObject(JsonParser parser, Class<?> type, String elementName, int elementIndex, ElementFilter elementFilter)
+            throws FHIRParserException {
+        stackPush(elementName, elementIndex);
+        TypeInfo typeInfo = TYPE_INFO.get(type);
+        AbstractBuilder<?> builder = typeInfo.createBuilder();
+        builder.setValidating(validating);
+
+        Set<String> keys = new HashSet<>();
+        if (typeInfo.resource) {
+            keys.add("resourceType");
+        }
+        Slot[] slots = new Slot[typeInfo.slotCount];
+
+        Event event;
+        while ((event = parser.next()) != Event.END_OBJECT) {
+            String key = parser.getString();
+            checkForDuplicateKey(keys, key);
+            event = parser.next();
+
+            KeyInfo keyInfo = typeInfo.keys.get(key);
+            if (elementFilter != null && !elementFilter.includes(key)) {
+                skipValue(parser, event);
+                continue;
+            }
+            if (keyInfo == null) {
+                if (!ignoringUnrecognizedElements && !"resourceType".equals(key) && !"fhir_comments".equals(key)) {
+                    throw new IllegalArgumentException("Unrecognized element: '" + key + "'");
+                }
+                skipValue(parser, event);
+                continue;
+            }
+
+            Slot slot = slots[keyInfo.slot];
+            if (slot == null) {
+                slot = new Slot();
+                slots[keyInfo.slot] = slot;
+            }
+            if (keyInfo.extension) {
+                slot.setExtensionKey(keyInfo);
+                slot.extension = parseExtensionValue(parser, event, keyInfo);
+            } else {
+                slot.setValueKey(keyInfo);
+                slot.value = keyInfo.primitive ? parsePrimitiveValue(parser, event, keyInfo) : parseComplexValue(parser, event, keyInfo);
+            }
+        }
+
+        for (int i = 0; i < slots.length; i++) {
+            Slot slot = slots[i];
+            if (slot != null) {
+                Object value = slot.buildValue();
+                if (value != null) {
+                    typeInfo.setters[i].accept(builder, value);
+                }
+            }
+        }
+
+        Object result = builder.build();
+        stackPop();
+        return result;
+    }
+
+    private Object parseComplexValue(JsonParser parser, Event event, KeyInfo keyInfo) throws FHIRParserException {
+        if (!keyInfo.repeating) {
+            return parseComplexItem(parser, event, keyInfo, -1);
+        }
+        if (event != Event.START_ARRAY) {
+            throw new IllegalArgumentException("Expected: ARRAY but found: " + getValueType(event) + " for element: " + keyInfo.key);
+        }
+        List<Object> values = new ArrayList<>();
+        while ((event = parser.next()) != Event.END_ARRAY) {
+            values.add(parseComplexItem(parser, event, keyInfo, values.size()));
+        }
+        return values;
+    }
+
+    private Object parseComplexItem(JsonParser parser, Event event, KeyInfo keyInfo, int elementIndex) throws FHIRParserException {
+        if (keyInfo.type == String.class) {
+            if (event != Event.VALUE_STRING) {
+                throw new IllegalArgumentException("Expected: STRING but found: " + getValueType(event) + " for element: " + keyInfo.key);
+            }
+            return parser.getString();
+        }
+        if (event != Event.START_OBJECT) {
+            throw new IllegalArgumentException("Expected: OBJECT but found: " + getValueType(event) + " for element: " + keyInfo.key);
+        }
+        if (keyInfo.type == Resource.class) {
+            return parseResource(parser, keyInfo.key, elementIndex, null);
+        }
+        return parseObject(parser, keyInfo.type, keyInfo.key, elementIndex, null);
+    }
+
+    private Object parsePrimitiveValue(JsonParser parser, Event event, KeyInfo keyInfo) {
+        if (!keyInfo.repeating) {
+            return readPrimitive(parser, event, keyInfo, -1);
+        }
+        if (event != Event.START_ARRAY) {
+            throw new IllegalArgumentException("Expected: ARRAY but found: " + getValueType(event) + " for element: " + keyInfo.key);
+        }
+        List<Object> values = new ArrayList<>();
+        while ((event = parser.next()) != Event.END_ARRAY) {
+            values.add(readPrimitive(parser, event, keyInfo, values.size()));
+        }
+        return values;
+    }
+
+    private Object readPrimitive(JsonParser parser, Event event, KeyInfo keyInfo, int elementIndex) {
+        if (event == Event.VALUE_NULL && elementIndex != -1) {
+            return null;
+        }
+        switch (keyInfo.kind) {
+        case BOOLEAN:
+            if (event == Event.VALUE_TRUE || event == Event.VALUE_FALSE) {
+                return (event == Event.VALUE_TRUE) ? Boolean.TRUE : Boolean.FALSE;
+            }
+            throw new IllegalArgumentException("Expected: TRUE or FALSE but found: " + getValueType(event) + " for element: " + keyInfo.key);
+        case INTEGER:
+            if (event == Event.VALUE_NUMBER) {
+                stackPush(keyInfo.key, elementIndex);
+                Integer value = parser.getBigDecimal().intValueExact();
+                stackPop();
+                return value;
+            }
+            throw new IllegalArgumentException("Expected: NUMBER but found: " + getValueType(event) + " for element: " + keyInfo.key);
+        case DECIMAL:
+            if (event == Event.VALUE_NUMBER) {
+                return parser.getBigDecimal();
+            }
+            throw new IllegalArgumentException("Expected: NUMBER but found: " + getValueType(event) + " for element: " + keyInfo.key);
+        case STRING:
+        default:
+            if (event == Event.VALUE_STRING) {
+                return parser.getString();
+            }
+            throw new IllegalArgumentException("Expected: STRING but found: " + getValueType(event) + " for element: " + keyInfo.key);
+        }
+    }
+
+    private Object parseExtensionValue(JsonParser parser, Event event, KeyInfo keyInfo) throws FHIRParserException {
+        if (!keyInfo.repeating) {
+            return parseElementPart(parser, event, keyInfo, -1);
+        }
+        if (event != Event.START_ARRAY) {
+            throw new IllegalArgumentException("Expected: ARRAY but found: " + getValueType(event) + " for element: " + keyInfo.key);
+        }
+        List<Object> values = new ArrayList<>();
+        while ((event = parser.next()) != Event.END_ARRAY) {
+            values.add(parseElementPart(parser, event, keyInfo, values.size()));
+        }
+        return values;
+    }
+
+    /**
+     * Parse the id and extensions of a primitive value from the object with the "_" prefixed key
+     */
+    private ElementPart parseElementPart(JsonParser parser, Event event, KeyInfo keyInfo, int elementIndex) throws FHIRParserException {
+        if (event == Event.VALUE_NULL && elementIndex != -1) {
+            return null;
+        }
+        if (event != Event.START_OBJECT) {
+            throw new IllegalArgumentException("Expected: OBJECT but found: " + getValueType(event) + " for element: " + keyInfo.key);
+        }
+        stackPush(keyInfo.valueKey, elementIndex);
+        ElementPart elementPart = new ElementPart();
+        Set<String> keys = new HashSet<>();
+        while ((event = parser.next()) != Event.END_OBJECT) {
+            String key = parser.getString();
+            checkForDuplicateKey(keys, key);
+            event = parser.next();
+            if ("id".equals(key)) {
+                if (event != Event.VALUE_STRING) {
+                    throw new IllegalArgumentException("Expected: STRING but found: " + getValueType(event) + " for element: id");
+                }
+                elementPart.id = parser.getString();
+            } else if ("extension".equals(key)) {
+                if (event != Event.START_ARRAY) {
+                    throw new IllegalArgumentException("Expected: ARRAY but found: " + getValueType(event) + " for element: extension");
+                }
+                elementPart.extension = new ArrayList<>();
+                while ((event = parser.next()) != Event.END_ARRAY) {
+                    if (event != Event.START_OBJECT) {
+                        throw new IllegalArgumentException("Expected: OBJECT but found: " + getValueType(event) + " for element: extension");
+                    }
+                    elementPart.extension.add((Extension) parseObject(parser, Extension.class, "extension", elementPart.extension.size(), null));
+                }
+            } else if (!ignoringUnrecognizedElements && !"resourceType".equals(key) && !"fhir_comments".equals(key)) {
+                throw new IllegalArgumentException("Unrecognized element: '" + key + "'");
+            } else {
+                skipValue(parser, event);
+            }
+        }
+        stackPop();
+        return elementPart;
+    }
+
+    private Element buildPrimitive(KeyInfo keyInfo, Object value, ElementPart elementPart, int elementIndex) {
+        if (value == null && elementPart == null) {
+            return null;
+        }
+        stackPush(keyInfo.valueKey, elementIndex);
+        TypeInfo typeInfo = TYPE_INFO.get(keyInfo.type);
+        Element.Builder builder = (Element.Builder) typeInfo.createBuilder();
+        builder.setValidating(validating);
+        if (elementPart != null) {
+            builder.id(elementPart.id);
+            if (elementPart.extension != null) {
+                builder.extension(elementPart.extension);
+            }
+        }
+        if (value != null) {
+            typeInfo.valueSetter.accept(builder, value);
+        }
+        Element element = builder.build();
+        stackPop();
+        return element;
+    }
+
+    private void skipValue(JsonParser parser, Event event) {
+        if (event == Event.START_OBJECT) {
+            parser.skipObject();
+        } else if (event == Event.START_ARRAY) {
+            parser.skipArray();
+        }
+    }
+
+    private void checkForDuplicateKey(Set<String> keys, String key) {
+        if (!keys.add(key)) {
+            throw new IllegalArgumentException("Duplicate key: '" + key + "'");
+        }
+    }
+
+    private static JsonValue.ValueType getValueType(Event event) {
+        if (event == null) {
+            return null;
+        }
+        switch (event) {
+        case START_OBJECT:
+            return JsonValue.ValueType.OBJECT;
+        case START_ARRAY:
+            return JsonValue.ValueType.ARRAY;
+        case VALUE_STRING:
+            return JsonValue.ValueType.STRING;
+        case VALUE_NUMBER:
+            return JsonValue.ValueType.NUMBER;
+        case VALUE_TRUE:
+            return JsonValue.ValueType.TRUE;
+        case VALUE_FALSE:
+            return JsonValue.ValueType.FALSE;
+        case VALUE_NULL:
+        default:
+            return JsonValue.ValueType.NULL;
+        }
+    }
+
+    private void stackPush(String elementName, int elementIndex) {
+        if (elementIndex != -1) {
+            stack.push(elementName + "[" + elementIndex + "]");
+        } else {
+            stack.push(elementName);
+        }
+    }
+
+    private void stackPop() {
+        stack.pop();
+    }
+
+    private String getPath() {
+        StringJoiner joiner = new StringJoiner(".");
+        for (String s : stack) {
+            joiner.add(s);
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * The id and extensions of a primitive value
+     */
+    private static final class ElementPart {
+        private String id;
+        private List<Extension> extension;
+    }
+
+    /**
+     * The values read from the JSON keys of a single element of the object being parsed
+     */
+    private final class Slot {
+        private KeyInfo valueKey;
+        private KeyInfo extensionKey;
+        private Object value;
+        private Object extension;
+
+        private void setValueKey(KeyInfo keyInfo) {
+            if (valueKey != null) {
+                throw new IllegalArgumentException("Only one choice element key of the form: " + keyInfo.elementName + "[x] is allowed");
+            }
+            checkConsistent(keyInfo, extensionKey);
+            valueKey = keyInfo;
+        }
+
+        private void setExtensionKey(KeyInfo keyInfo) {
+            if (extensionKey != null) {
+                throw new IllegalArgumentException("Only one choice element key of the form: _" + keyInfo.elementName + "[x] is allowed");
+            }
+            checkConsistent(valueKey, keyInfo);
+            extensionKey = keyInfo;
+        }
+
+        private void checkConsistent(KeyInfo valueKey, KeyInfo extensionKey) {
+            if (valueKey != null && extensionKey != null && valueKey.type != extensionKey.type) {
+                throw new IllegalArgumentException("Choice element keys: " + valueKey.key + " and " + extensionKey.key + " are not consistent");
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object buildValue() {
+            KeyInfo keyInfo = (valueKey != null) ? valueKey : extensionKey;
+            if (!keyInfo.primitive) {
+                return value;
+            }
+            if (!keyInfo.repeating) {
+                return buildPrimitive(keyInfo, value, (ElementPart) extension, -1);
+            }
+            if (value == null) {
+                throw new IllegalArgumentException("Found array with key '" + extensionKey.key + "' but could not find matching array with key: '" +
+                        keyInfo.valueKey + "'");
+            }
+            List<Object> values = (List<Object>) value;
+            List<Object> extensions = (List<Object>) extension;
+            List<Element> result = new ArrayList<>(values.size());
+            for (int i = 0; i < values.size(); i++) {
+                ElementPart elementPart = null;
+                if (extensions != null) {
+                    if (i >= extensions.size()) {
+                        throw new IllegalArgumentException("Could not find element at index: " + i);
+                    }
+                    elementPart = (ElementPart) extensions.get(i);
+                }
+                result.add(buildPrimitive(keyInfo, values.get(i), elementPart, i));
+            }
+            return result;
+        }
+    }
+
+    private enum Kind {
+        BOOLEAN,
+        INTEGER,
+        DECIMAL,
+        STRING
+    }
+
+    /**
+     * Describes a single JSON key of a model class
+     */
+    private static final class KeyInfo {
+        private final String key;
+        private final String valueKey;
+        private final String elementName;
+        private final int slot;
+        private final Class<?> type;
+        private final boolean repeating;
+        private final boolean primitive;
+        private final boolean extension;
+        private final Kind kind;
+
+        private KeyInfo(String valueKey, ElementInfo elementInfo, int slot, Class<?> type, boolean extension) {
+            this.key = extension ? "_" + valueKey : valueKey;
+            this.valueKey = valueKey;
+            this.elementName = elementInfo.getName();
+            this.slot = slot;
+            this.type = type;
+            this.repeating = elementInfo.isRepeating();
+            this.primitive = ModelSupport.isPrimitiveType(type);
+            this.extension = extension;
+            this.kind = getKind(type);
+        }
+
+        private static Kind getKind(Class<?> type) {
+            if (com.ibm.fhir.model.type.Boolean.class.equals(type)) {
+                return Kind.BOOLEAN;
+            }
+            if (com.ibm.fhir.model.type.Integer.class.isAssignableFrom(type)) {
+                return Kind.INTEGER;
+            }
+            if (Decimal.class.equals(type)) {
+                return Kind.DECIMAL;
+            }
+            return Kind.STRING;
+        }
+    }
+
+    /**
+     * The JSON keys and bound builder methods of a model class
+     */
+    private static final class TypeInfo {
+        private final boolean resource;
+        private final Supplier<AbstractBuilder<?>> builderFactory;
+        private final Map<String, KeyInfo> keys;
+        private final BiConsumer<Object, Object>[] setters;
+        private final int slotCount;
+        private final BiConsumer<Object, Object> valueSetter;
+
+        @SuppressWarnings("unchecked")
+        private TypeInfo(Class<?> type) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            this.resource = Resource.class.isAssignableFrom(type);
+            this.builderFactory = createBuilderFactory(lookup, type);
+            Class<?> builderType = getBuilderType(type);
+
+            if (ModelSupport.isPrimitiveType(type)) {
+                this.keys = Collections.emptyMap();
+                this.setters = new BiConsumer[0];
+                this.slotCount = 0;
+                this.valueSetter = createSetter(lookup, builderType, "value", getValueType(KeyInfo.getKind(type)));
+                return;
+            }
+
+            Collection<ElementInfo> elementInfos = ModelSupport.getElementInfo(type);
+            Map<String, KeyInfo> keys = new HashMap<>();
+            List<BiConsumer<Object, Object>> setters = new ArrayList<>();
+            for (ElementInfo elementInfo : elementInfos) {
+                int slot = setters.size();
+                String name = elementInfo.getName();
+                if (elementInfo.isChoice()) {
+                    for (Class<?> choiceType : elementInfo.getChoiceTypes()) {
+                        addKeys(keys, ModelSupport.getChoiceElementName(name, choiceType), elementInfo, slot, choiceType);
+                    }
+                    setters.add(createSetter(lookup, builderType, getMethodName(name), Element.class));
+                } else {
+                    addKeys(keys, name, elementInfo, slot, elementInfo.getType());
+                    Class<?> parameterType = elementInfo.isRepeating() ? Collection.class : elementInfo.getType();
+                    setters.add(createSetter(lookup, builderType, getMethodName(name), parameterType));
+                }
+            }
+            this.keys = keys;
+            this.setters = setters.toArray(new BiConsumer[setters.size()]);
+            this.slotCount = setters.size();
+            this.valueSetter = null;
+        }
+
+        private AbstractBuilder<?> createBuilder() {
+            return builderFactory.get();
+        }
+
+        private static void addKeys(Map<String, KeyInfo> keys, String key, ElementInfo elementInfo, int slot, Class<?> type) {
+            keys.put(key, new KeyInfo(key, elementInfo, slot, type, false));
+            if (ModelSupport.isPrimitiveType(type)) {
+                keys.put("_" + key, new KeyInfo(key, elementInfo, slot, type, true));
+            }
+        }
+
+        private static Class<?> getValueType(Kind kind) {
+            switch (kind) {
+            case BOOLEAN:
+                return Boolean.class;
+            case INTEGER:
+                return Integer.class;
+            case DECIMAL:
+                return BigDecimal.class;
+            case STRING:
+            default:
+                return String.class;
+            }
+        }
+
+        private static String getMethodName(String elementName) {
+            return "class".equals(elementName) ? "clazz" : elementName;
+        }
+
+        private static Class<?> getBuilderType(Class<?> type) {
+            try {
+                return type.getMethod("builder").getReturnType();
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("No builder for type " + type.getName(), e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Supplier<AbstractBuilder<?>> createBuilderFactory(MethodHandles.Lookup lookup, Class<?> type) {
+            try {
+                MethodHandle handle = lookup.unreflect(type.getMethod("builder"));
+                CallSite callSite = LambdaMetafactory.metafactory(lookup,
+                    "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    handle,
+                    handle.type());
+                return (Supplier<AbstractBuilder<?>>) callSite.getTarget().invokeExact();
+            } catch (Throwable t) {
+                throw new IllegalStateException("Unable to bind builder factory for type " + type.getName(), t);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static BiConsumer<Object, Object> createSetter(MethodHandles.Lookup lookup, Class<?> builderType, String methodName,
+                Class<?> parameterType) {
+            try {
+                Method method;
+                try {
+                    method = builderType.getMethod(methodName, parameterType);
+                } catch (NoSuchMethodException e) {
+                    // element names which are Java keywords are prefixed with an underscore
+                    method = builderType.getMethod("_" + methodName, parameterType);
+                }
+                MethodHandle handle = lookup.unreflect(method);
+                CallSite callSite = LambdaMetafactory.metafactory(lookup,
+                    "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    handle,
+                    MethodType.methodType(void.class, builderType, parameterType));
+                return (BiConsumer<Object, Object>) callSite.getTarget().invokeExact();
+            } catch (Throwable t) {
+                throw new IllegalStateException("Unable to bind builder method '" + methodName + "' of type " + builderType.getName(), t);
+            }
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019, 2021
+ * (C) Copyright IBM Corp. 2019, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -138,4 +138,25 @@ public interface FHIRParser {
             throw new IllegalArgumentException("Unsupported format: " + format);
         }
     }
+
+    /**
+     * Create a FHIRParser for the given format which builds the resource directly from the stream of input tokens
+     * rather than reading the input into an intermediate document first.
+     *
+     * @param format
+     * @return
+     * @throws IllegalArgumentException if {@code format} is not supported
+     */
+    static FHIRParser streamingParser(Format format) {
+        switch (format) {
+        case JSON:
+            return new FHIRJsonStreamingParser();
+        case XML:
+            // FHIRXMLParser is already driven by XMLStreamReader events
+            return new FHIRXMLParser();
+        case RDF:
+        default:
+            throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+    }
 }
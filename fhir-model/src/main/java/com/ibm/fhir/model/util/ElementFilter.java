@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2018, 2021
+ * (C) Copyright IBM Corp. 2018, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -38,6 +38,18 @@ public class ElementFilter implements Function<JsonObject, JsonObject> {
         includeElements.addAll(elements);
     }
 
+    /**
+     * Whether the top-level element with the passed JSON key is retained by this filter
+     *
+     * @param key
+     *     the JSON key of a top-level element
+     * @return
+     *     true if the element is retained, otherwise false
+     */
+    public boolean includes(String key) {
+        return includeElements.contains(key);
+    }
+
     @Override
     public JsonObject apply(JsonObject jsonObject) {
         JsonObjectBuilder builder = BUILDER_FACTORY.createObjectBuilder();
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019, 2021
+ * (C) Copyright IBM Corp. 2019, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -9,6 +9,11 @@ package com.ibm.fhir.model.util;
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
@@ -32,7 +37,9 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -105,6 +112,7 @@ import com.ibm.fhir.model.type.Url;
 import com.ibm.fhir.model.type.UsageContext;
 import com.ibm.fhir.model.type.Uuid;
 import com.ibm.fhir.model.type.Xhtml;
+import com.ibm.fhir.model.type.code.BindingStrength;
 
 public final class ModelSupport {
     private static final Logger log = Logger.getLogger(ModelSupport.class.getName());
@@ -802,12 +810,22 @@ public final class ModelSupport {
         com.ibm.fhir.model.resource.VisionPrescription.LensSpecification.class,
         com.ibm.fhir.model.resource.VisionPrescription.LensSpecification.Prism.class
             );
-    private static final Map<Class<?>, Map<String, ElementInfo>> MODEL_CLASS_ELEMENT_INFO_MAP = buildModelClassElementInfoMap();
-    private static final Map<String, Class<? extends Resource>> RESOURCE_TYPE_MAP = buildResourceTypeMap();
-    private static final Set<Class<? extends Resource>> CONCRETE_RESOURCE_TYPES = getResourceTypes().stream()
-            .filter(rt -> !isAbstract(rt))
-            .collect(Collectors.toSet());
-    private static final Map<Class<?>, List<Constraint>> MODEL_CLASS_CONSTRAINT_MAP = buildModelClassConstraintMap();
+    private static final Map<Class<?>, Map<String, ElementInfo>> MODEL_CLASS_ELEMENT_INFO_MAP;
+    private static final Map<Class<?>, ElementInfo[]> MODEL_CLASS_ELEMENT_INFO_TABLE_MAP;
+    private static final Map<String, Class<? extends Resource>> RESOURCE_TYPE_MAP;
+    private static final Set<Class<? extends Resource>> CONCRETE_RESOURCE_TYPES;
+    private static final Map<Class<?>, List<Constraint>> MODEL_CLASS_CONSTRAINT_MAP;
+    static {
+        // the build-time generated metadata is only needed while this class is initialized
+        ModelSupportTable modelSupportTable = loadModelSupportTable();
+        MODEL_CLASS_ELEMENT_INFO_MAP = buildModelClassElementInfoMap(modelSupportTable);
+        MODEL_CLASS_ELEMENT_INFO_TABLE_MAP = buildModelClassElementInfoTableMap();
+        RESOURCE_TYPE_MAP = buildResourceTypeMap();
+        CONCRETE_RESOURCE_TYPES = getResourceTypes().stream()
+                .filter(rt -> !isAbstract(rt))
+                .collect(Collectors.toSet());
+        MODEL_CLASS_CONSTRAINT_MAP = buildModelClassConstraintMap(modelSupportTable);
+    }
     // LinkedHashSet is used just to preserve the order, for convenience only
     private static final Set<Class<? extends Element>> CHOICE_ELEMENT_TYPES = new LinkedHashSet<>(Arrays.asList(
             Base64Binary.class,
@@ -935,6 +953,9 @@ public final class ModelSupport {
 
         private final Set<String> choiceElementNames;
 
+        // bound lazily on first use so that we only pay for the elements which are actually navigated
+        private volatile Function<Object, Object> getter;
+
         ElementInfo(String name,
                 Class<?> type,
                 Class<?> declaringType,
@@ -1021,6 +1042,91 @@ public final class ModelSupport {
         public Set<String> getChoiceElementNames() {
             return choiceElementNames;
         }
+
+        /**
+         * Get the value of this element from the passed model object by calling its getter directly.
+         *
+         * <p>The getter is bound once (via {@link LambdaMetafactory}) and then shared by the declaring type and all
+         * of its subtypes, so repeated calls do not involve any reflection.
+         *
+         * @param modelObject
+         *     an instance of the declaring type (or one of its subtypes)
+         * @return
+         *     the value of this element; a List for repeating elements, otherwise the element value or null
+         * @throws ClassCastException
+         *     if the passed modelObject is not an instance of the declaring type
+         */
+        public Object getValue(Object modelObject) {
+            Function<Object, Object> getter = this.getter;
+            if (getter == null) {
+                getter = createGetter(declaringType, name);
+                this.getter = getter;
+            }
+            return getter.apply(modelObject);
+        }
+    }
+
+    /**
+     * @return the build-time generated model support table, or null if it is not available and the model
+     *     annotations must be read through reflection instead
+     */
+    private static ModelSupportTable loadModelSupportTable() {
+        try {
+            ModelSupportTable table = ModelSupportTable.load(ModelSupport.class.getClassLoader());
+            if (table == null) {
+                log.fine("Model support table not found; reading the model annotations instead");
+            }
+            return table;
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Unable to read the model support table; reading the model annotations instead", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the table record for the passed model class, or null if there is no table or the class was not
+     *     compiled with the model
+     */
+    private static ModelSupportTable.ClassRecord getClassRecord(ModelSupportTable modelSupportTable, Class<?> modelClass) {
+        return (modelSupportTable != null) ? modelSupportTable.get(modelClass.getName()) : null;
+    }
+
+    private static Class<?> forName(String typeName) {
+        switch (typeName) {
+        case "boolean": return boolean.class;
+        case "byte": return byte.class;
+        case "char": return char.class;
+        case "short": return short.class;
+        case "int": return int.class;
+        case "long": return long.class;
+        case "float": return float.class;
+        case "double": return double.class;
+        default:
+            try {
+                return Class.forName(typeName, false, ModelSupport.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    private static Set<Class<?>> forNames(List<String> typeNames) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (String typeName : typeNames) {
+            types.add(forName(typeName));
+        }
+        return Collections.unmodifiableSet(types);
+    }
+
+    private static Binding createBinding(ModelSupportTable.BindingRecord binding) {
+        return Binding.Factory.createBinding(
+            binding.bindingName,
+            BindingStrength.Value.valueOf(binding.strength),
+            binding.description,
+            binding.valueSet,
+            binding.inheritedExtensibleValueSet,
+            binding.minValueSet,
+            binding.maxValueSet);
     }
 
     private static Map<String, Class<?>> buildCodeSubtypeMap() {
@@ -1052,12 +1158,27 @@ public final class ModelSupport {
         return Collections.unmodifiableMap(concreteTypeMap);
     }
 
-    private static Map<Class<?>, List<Constraint>> buildModelClassConstraintMap() {
+    private static Map<Class<?>, List<Constraint>> buildModelClassConstraintMap(ModelSupportTable modelSupportTable) {
         Map<Class<?>, List<Constraint>> modelClassConstraintMap = new LinkedHashMap<>(1024);
         List<ModelConstraintProvider> providers = ConstraintProvider.providers(ModelConstraintProvider.class);
         for (Class<?> modelClass : getModelClasses()) {
             List<Constraint> constraints = new ArrayList<>();
             for (Class<?> clazz : getClosure(modelClass)) {
+                ModelSupportTable.ClassRecord classRecord = getClassRecord(modelSupportTable, clazz);
+                if (classRecord != null) {
+                    for (ModelSupportTable.ConstraintRecord constraint : classRecord.constraints) {
+                        constraints.add(Constraint.Factory.createConstraint(
+                            constraint.id,
+                            constraint.level,
+                            constraint.location,
+                            constraint.description,
+                            constraint.expression,
+                            constraint.source,
+                            constraint.modelChecked,
+                            constraint.generated));
+                    }
+                    continue;
+                }
                 for (Constraint constraint : clazz.getDeclaredAnnotationsByType(Constraint.class)) {
                     constraints.add(Constraint.Factory.createConstraint(
                         constraint.id(),
@@ -1083,15 +1204,57 @@ public final class ModelSupport {
         return Collections.unmodifiableMap(modelClassConstraintMap);
     }
 
-    private static Map<Class<?>, Map<String, ElementInfo>> buildModelClassElementInfoMap() {
+    private static Map<Class<?>, Map<String, ElementInfo>> buildModelClassElementInfoMap(ModelSupportTable modelSupportTable) {
         Map<Class<?>, Map<String, ElementInfo>> modelClassElementInfoMap = new LinkedHashMap<>(1024);
         for(Class<?> modelClass : MODEL_CLASSES) {
-            Map<String, ElementInfo> elementInfoMap = getElementInfoMap(modelClass, modelClassElementInfoMap);
+            Map<String, ElementInfo> elementInfoMap = getElementInfoMap(modelSupportTable, modelClass, modelClassElementInfoMap);
             modelClassElementInfoMap.put(modelClass, Collections.unmodifiableMap(elementInfoMap));
         }
         return Collections.unmodifiableMap(modelClassElementInfoMap);
     }
 
+    private static Map<Class<?>, ElementInfo[]> buildModelClassElementInfoTableMap() {
+        Map<Class<?>, ElementInfo[]> modelClassElementInfoTableMap = new HashMap<>(1024);
+        for (Map.Entry<Class<?>, Map<String, ElementInfo>> entry : MODEL_CLASS_ELEMENT_INFO_MAP.entrySet()) {
+            modelClassElementInfoTableMap.put(entry.getKey(), entry.getValue().values().toArray(new ElementInfo[0]));
+        }
+        return Collections.unmodifiableMap(modelClassElementInfoTableMap);
+    }
+
+    private static ElementInfo[] getElementInfoTable(Class<?> modelClass) {
+        ElementInfo[] table = MODEL_CLASS_ELEMENT_INFO_TABLE_MAP.get(modelClass);
+        if (table == null && modelClass != null && Code.class.isAssignableFrom(modelClass)) {
+            // code subtypes don't declare any elements of their own
+            table = MODEL_CLASS_ELEMENT_INFO_TABLE_MAP.get(Code.class);
+        }
+        return table;
+    }
+
+    /**
+     * Create a function which calls the getter for the element with the passed name on instances of the passed
+     * declaring type.
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> createGetter(Class<?> declaringType, String elementName) {
+        String fieldName = "class".equals(elementName) ? "clazz" : elementName;
+        String getterName = "get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle getterHandle = lookup.findVirtual(declaringType, getterName,
+                MethodType.methodType(declaringType.getMethod(getterName).getReturnType()));
+            CallSite callSite = LambdaMetafactory.metafactory(lookup,
+                "apply",
+                MethodType.methodType(Function.class),
+                MethodType.methodType(Object.class, Object.class),
+                getterHandle,
+                getterHandle.type());
+            return (Function<Object, Object>) callSite.getTarget().invokeExact();
+        } catch (Throwable t) {
+            throw new IllegalStateException("Unable to bind getter '" + getterName + "' for element '" + elementName +
+                "' of type " + declaringType.getName(), t);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private static Map<String, Class<? extends Resource>> buildResourceTypeMap() {
         Map<String, Class<? extends Resource>> resourceTypeMap = new LinkedHashMap<>(256);
@@ -1103,7 +1266,7 @@ public final class ModelSupport {
         return Collections.unmodifiableMap(resourceTypeMap);
     }
 
-    private static Map<String, ElementInfo> getElementInfoMap(Class<?> modelClass,
+    private static Map<String, ElementInfo> getElementInfoMap(ModelSupportTable modelSupportTable, Class<?> modelClass,
             Map<Class<?>, Map<String,ElementInfo>> elementInfoMapCache) {
         Map<String, ElementInfo> elementInfoMap = new LinkedHashMap<>();
 
@@ -1115,6 +1278,29 @@ public final class ModelSupport {
                 continue;
             }
 
+            // Else use the build-time generated table to construct ElementInfo for all fields in this class
+            ModelSupportTable.ClassRecord classRecord = getClassRecord(modelSupportTable, clazz);
+            if (classRecord != null) {
+                for (ModelSupportTable.FieldRecord field : classRecord.fields) {
+                    String elementName = getElementName(field.fieldName);
+                    elementInfoMap.put(elementName, new ElementInfo(
+                            elementName,
+                            forName(field.typeName),
+                            clazz,
+                            field.required,
+                            field.repeating,
+                            field.choiceTypeNames != null,
+                            (field.choiceTypeNames != null) ? forNames(field.choiceTypeNames) : Collections.emptySet(),
+                            field.referenceTypes != null,
+                            (field.referenceTypes != null) ? Collections.unmodifiableSet(new LinkedHashSet<>(field.referenceTypes)) : Collections.emptySet(),
+                            (field.binding != null) ? createBinding(field.binding) : null,
+                            field.summary
+                        )
+                    );
+                }
+                continue;
+            }
+
             // Else use reflection and model annotations to construct ElementInfo for all fields in this class
             for (Field field : clazz.getDeclaredFields()) {
                 int modifiers = field.getModifiers();
@@ -1251,6 +1437,64 @@ public final class ModelSupport {
         return MODEL_CLASS_ELEMENT_INFO_MAP.getOrDefault(modelClass, Collections.emptyMap()).values();
     }
 
+    /**
+     * @return the index of the element with name elementName in the element table of the passed modelClass or -1 if
+     *         the passed modelClass is not a FHIR model class or does not contain an element with this name
+     * @implNote callers on a hot path should resolve the index once per (modelClass, elementName) and reuse it
+     * @see #getElementValue(Object, int)
+     */
+    public static int getElementIndex(Class<?> modelClass, String elementName) {
+        ElementInfo[] table = getElementInfoTable(modelClass);
+        if (table != null) {
+            for (int i = 0; i < table.length; i++) {
+                if (table[i].getName().equals(elementName)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of elements in the element table of the passed modelClass or 0 if the passed modelClass is not
+     *         a FHIR model class
+     */
+    public static int getElementCount(Class<?> modelClass) {
+        ElementInfo[] table = getElementInfoTable(modelClass);
+        return (table != null) ? table.length : 0;
+    }
+
+    /**
+     * @return ElementInfo for the element at the passed index in the element table of the passed modelClass
+     * @throws IllegalArgumentException
+     *     if the passed modelClass is not a FHIR model class
+     * @throws ArrayIndexOutOfBoundsException
+     *     if the passed index is out of range
+     */
+    public static ElementInfo getElementInfo(Class<?> modelClass, int index) {
+        ElementInfo[] table = getElementInfoTable(modelClass);
+        if (table == null) {
+            throw new IllegalArgumentException("Not a FHIR model class: " + modelClass.getName());
+        }
+        return table[index];
+    }
+
+    /**
+     * Get the value of the element at the passed index in the element table of the model object's class. The element
+     * table has the same order as {@link #getElementInfo(Class)} and the getters are bound once per element, so this
+     * is an array lookup followed by a direct getter call.
+     *
+     * @param modelObject
+     *     the model object (an instance of a FHIR model class)
+     * @param index
+     *     the index of the element as returned by {@link #getElementIndex(Class, String)}
+     * @return
+     *     the value of the element; a List for repeating elements, otherwise the element value or null
+     */
+    public static Object getElementValue(Object modelObject, int index) {
+        return getElementInfo(modelObject.getClass(), index).getValue(modelObject);
+    }
+
     /**
      * @return ElementInfo for the choice element with the passed typeSpecificElementName of the passed modelClass or
      *         null if the modelClass does not contain a choice element that can have this typeSpecificElementName
@@ -0,0 +1,265 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The element and constraint metadata of the model classes in a compact binary form.
+ *
+ * <p>The table is written by {@link ModelSupportTableProcessor} while the model is compiled and read by
+ * {@link ModelSupport} during class initialization, so that the metadata does not need to be collected from the
+ * model annotations through reflection at runtime.
+ *
+ * <p>This class only depends on the JDK so that it can be compiled together with the processor, ahead of the model.
+ */
+final class ModelSupportTable {
+    static final String RESOURCE_PACKAGE = "com.ibm.fhir.model.util";
+    static final String RESOURCE_NAME = "modelSupportTable";
+
+    private static final int MAGIC = 0x46484952;
+    private static final int VERSION = 1;
+
+    private final Map<String, ClassRecord> classRecords;
+
+    ModelSupportTable() {
+        this.classRecords = new LinkedHashMap<>();
+    }
+
+    private ModelSupportTable(Map<String, ClassRecord> classRecords) {
+        this.classRecords = classRecords;
+    }
+
+    /**
+     * @return the record for the model class with the passed binary name, or null if the table has no such class
+     */
+    ClassRecord get(String className) {
+        return classRecords.get(className);
+    }
+
+    void put(String className, ClassRecord classRecord) {
+        classRecords.put(className, classRecord);
+    }
+
+    boolean isEmpty() {
+        return classRecords.isEmpty();
+    }
+
+    int size() {
+        return classRecords.size();
+    }
+
+    /**
+     * Read the table from the classpath
+     *
+     * @return the table, or null if there is no table on the classpath (e.g. the model was compiled without the processor)
+     * @throws IOException if the table could not be read
+     */
+    static ModelSupportTable load(ClassLoader classLoader) throws IOException {
+        try (InputStream in = classLoader.getResourceAsStream(RESOURCE_PACKAGE.replace('.', '/') + "/" + RESOURCE_NAME)) {
+            if (in == null) {
+                return null;
+            }
+            return read(in);
+        }
+    }
+
+    static ModelSupportTable read(InputStream in) throws IOException {
+        DataInputStream dis = new DataInputStream(new BufferedInputStream(in));
+        if (dis.readInt() != MAGIC || dis.readInt() != VERSION) {
+            throw new IOException("Unsupported model support table format");
+        }
+        int classCount = dis.readInt();
+        Map<String, ClassRecord> classRecords = new LinkedHashMap<>(classCount * 2);
+        for (int i = 0; i < classCount; i++) {
+            String className = dis.readUTF();
+            int fieldCount = dis.readInt();
+            List<FieldRecord> fields = new ArrayList<>(fieldCount);
+            for (int j = 0; j < fieldCount; j++) {
+                FieldRecord field = new FieldRecord(dis.readUTF(), dis.readUTF());
+                field.required = dis.readBoolean();
+                field.summary = dis.readBoolean();
+                field.repeating = dis.readBoolean();
+                field.choiceTypeNames = readStrings(dis);
+                field.referenceTypes = readStrings(dis);
+                if (dis.readBoolean()) {
+                    field.binding = new BindingRecord(
+                        dis.readUTF(), dis.readUTF(), dis.readUTF(), dis.readUTF(), dis.readUTF(), dis.readUTF(), dis.readUTF());
+                }
+                fields.add(field);
+            }
+            int constraintCount = dis.readInt();
+            List<ConstraintRecord> constraints = new ArrayList<>(constraintCount);
+            for (int j = 0; j < constraintCount; j++) {
+                constraints.add(new ConstraintRecord(
+                    dis.readUTF(), dis.readUTF(), dis.readUTF(), dis.readUTF(), dis.readUTF(), dis.readUTF(),
+                    dis.readBoolean(), dis.readBoolean()));
+            }
+            classRecords.put(className, new ClassRecord(fields, constraints));
+        }
+        return new ModelSupportTable(classRecords);
+    }
+
+    void write(OutputStream out) throws IOException {
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out));
+        dos.writeInt(MAGIC);
+        dos.writeInt(VERSION);
+        dos.writeInt(classRecords.size());
+        for (Map.Entry<String, ClassRecord> entry : classRecords.entrySet()) {
+            dos.writeUTF(entry.getKey());
+            ClassRecord classRecord = entry.getValue();
+            dos.writeInt(classRecord.fields.size());
+            for (FieldRecord field : classRecord.fields) {
+                dos.writeUTF(field.fieldName);
+                dos.writeUTF(field.typeName);
+                dos.writeBoolean(field.required);
+                dos.writeBoolean(field.summary);
+                dos.writeBoolean(field.repeating);
+                writeStrings(dos, field.choiceTypeNames);
+                writeStrings(dos, field.referenceTypes);
+                dos.writeBoolean(field.binding != null);
+                if (field.binding != null) {
+                    BindingRecord binding = field.binding;
+                    dos.writeUTF(binding.bindingName);
+                    dos.writeUTF(binding.strength);
+                    dos.writeUTF(binding.description);
+                    dos.writeUTF(binding.valueSet);
+                    dos.writeUTF(binding.inheritedExtensibleValueSet);
+                    dos.writeUTF(binding.minValueSet);
+                    dos.writeUTF(binding.maxValueSet);
+                }
+            }
+            dos.writeInt(classRecord.constraints.size());
+            for (ConstraintRecord constraint : classRecord.constraints) {
+                dos.writeUTF(constraint.id);
+                dos.writeUTF(constraint.level);
+                dos.writeUTF(constraint.location);
+                dos.writeUTF(constraint.description);
+                dos.writeUTF(constraint.expression);
+                dos.writeUTF(constraint.source);
+                dos.writeBoolean(constraint.modelChecked);
+                dos.writeBoolean(constraint.generated);
+            }
+        }
+        dos.flush();
+    }
+
+    /**
+     * A null list is written as -1 so that "not a choice/reference element" and "no types" can be told apart
+     */
+    private static void writeStrings(DataOutputStream dos, List<String> strings) throws IOException {
+        if (strings == null) {
+            dos.writeInt(-1);
+            return;
+        }
+        dos.writeInt(strings.size());
+        for (String s : strings) {
+            dos.writeUTF(s);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream dis) throws IOException {
+        int count = dis.readInt();
+        if (count == -1) {
+            return null;
+        }
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(dis.readUTF());
+        }
+        return Collections.unmodifiableList(strings);
+    }
+
+    /**
+     * The instance fields and constraints declared by a single model class (not including those of its supertypes)
+     */
+    static final class ClassRecord {
+        final List<FieldRecord> fields;
+        final List<ConstraintRecord> constraints;
+
+        ClassRecord(List<FieldRecord> fields, List<ConstraintRecord> constraints) {
+            this.fields = fields;
+            this.constraints = constraints;
+        }
+    }
+
+    static final class FieldRecord {
+        final String fieldName;
+        // binary class name, array descriptor or primitive type name; the element type for repeating elements
+        final String typeName;
+        boolean required;
+        boolean summary;
+        boolean repeating;
+        // null if the field is not a choice element
+        List<String> choiceTypeNames;
+        // null if the field is not a reference element
+        List<String> referenceTypes;
+        // null if the field has no binding
+        BindingRecord binding;
+
+        FieldRecord(String fieldName, String typeName) {
+            this.fieldName = fieldName;
+            this.typeName = typeName;
+        }
+    }
+
+    static final class BindingRecord {
+        final String bindingName;
+        // the name of the BindingStrength.Value constant
+        final String strength;
+        final String description;
+        final String valueSet;
+        final String inheritedExtensibleValueSet;
+        final String minValueSet;
+        final String maxValueSet;
+
+        BindingRecord(String bindingName, String strength, String description, String valueSet,
+                String inheritedExtensibleValueSet, String minValueSet, String maxValueSet) {
+            this.bindingName = bindingName;
+            this.strength = strength;
+            this.description = description;
+            this.valueSet = valueSet;
+            this.inheritedExtensibleValueSet = inheritedExtensibleValueSet;
+            this.minValueSet = minValueSet;
+            this.maxValueSet = maxValueSet;
+        }
+    }
+
+    static final class ConstraintRecord {
+        final String id;
+        final String level;
+        final String location;
+        final String description;
+        final String expression;
+        final String source;
+        final boolean modelChecked;
+        final boolean generated;
+
+        ConstraintRecord(String id, String level, String location, String description, String expression,
+                String source, boolean modelChecked, boolean generated) {
+            this.id = id;
+            this.level = level;
+            this.location = location;
+            this.description = description;
+            this.expression = expression;
+            this.source = source;
+            this.modelChecked = modelChecked;
+            this.generated = generated;
+        }
+    }
+}
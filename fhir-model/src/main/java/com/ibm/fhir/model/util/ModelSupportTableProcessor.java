@@ -0,0 +1,283 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import com.ibm.fhir.model.util.ModelSupportTable.BindingRecord;
+import com.ibm.fhir.model.util.ModelSupportTable.ClassRecord;
+import com.ibm.fhir.model.util.ModelSupportTable.ConstraintRecord;
+import com.ibm.fhir.model.util.ModelSupportTable.FieldRecord;
+
+/**
+ * An annotation processor which collects the element and constraint metadata of the model classes while they are
+ * compiled and writes it to the class output as a {@link ModelSupportTable}.
+ *
+ * <p>The metadata is taken from the same declarations and annotations that {@link ModelSupport} would otherwise
+ * read through reflection: the non-static, non-volatile fields of each model class and their {@code Required},
+ * {@code Summary}, {@code Choice}, {@code ReferenceTarget} and {@code Binding} annotations, and the {@code Constraint}
+ * annotations of the class.
+ *
+ * <p>This processor is configured for the fhir-model build only. It must not depend on the model classes, because
+ * it is compiled before them.
+ */
+@SupportedAnnotationTypes("*")
+public class ModelSupportTableProcessor extends AbstractProcessor {
+    private static final String ANNOTATION_PACKAGE = "com.ibm.fhir.model.annotation.";
+    private static final String ELEMENT = "com.ibm.fhir.model.type.Element";
+    private static final String RESOURCE = "com.ibm.fhir.model.resource.Resource";
+
+    private final ModelSupportTable table = new ModelSupportTable();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!table.isEmpty()) {
+                writeTable();
+            }
+            return false;
+        }
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                collect((TypeElement) element);
+            }
+        }
+        return false;
+    }
+
+    private void writeTable() {
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT,
+                ModelSupportTable.RESOURCE_PACKAGE, ModelSupportTable.RESOURCE_NAME);
+            try (OutputStream out = resource.openOutputStream()) {
+                table.write(out);
+            }
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                "Wrote model support table for " + table.size() + " model classes");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                "Unable to write model support table: " + e.getMessage());
+        }
+    }
+
+    private void collect(TypeElement type) {
+        if (isModelClass(type)) {
+            table.put(processingEnv.getElementUtils().getBinaryName(type).toString(),
+                new ClassRecord(getFieldRecords(type), getConstraintRecords(type)));
+        }
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed instanceof TypeElement) {
+                collect((TypeElement) enclosed);
+            }
+        }
+    }
+
+    private boolean isModelClass(TypeElement type) {
+        while (type != null) {
+            String name = type.getQualifiedName().toString();
+            if (ELEMENT.equals(name) || RESOURCE.equals(name)) {
+                return true;
+            }
+            TypeMirror superclass = type.getSuperclass();
+            type = (superclass.getKind() == TypeKind.DECLARED) ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return false;
+    }
+
+    private List<FieldRecord> getFieldRecords(TypeElement type) {
+        List<FieldRecord> fields = new ArrayList<>();
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed.getKind() != ElementKind.FIELD) {
+                continue;
+            }
+            Set<Modifier> modifiers = enclosed.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.VOLATILE)) {
+                continue;
+            }
+            VariableElement field = (VariableElement) enclosed;
+            TypeMirror fieldType = field.asType();
+            boolean repeating = isList(fieldType);
+            if (repeating) {
+                fieldType = ((DeclaredType) fieldType).getTypeArguments().get(0);
+            }
+
+            FieldRecord record = new FieldRecord(field.getSimpleName().toString(), getTypeName(fieldType));
+            record.repeating = repeating;
+            record.required = getAnnotation(field, "Required") != null;
+            record.summary = getAnnotation(field, "Summary") != null;
+
+            AnnotationMirror choice = getAnnotation(field, "Choice");
+            if (choice != null) {
+                List<String> choiceTypeNames = new ArrayList<>();
+                for (AnnotationValue value : getValues(choice, "value")) {
+                    choiceTypeNames.add(getTypeName((TypeMirror) value.getValue()));
+                }
+                record.choiceTypeNames = choiceTypeNames;
+            }
+
+            AnnotationMirror referenceTarget = getAnnotation(field, "ReferenceTarget");
+            if (referenceTarget != null) {
+                List<String> referenceTypes = new ArrayList<>();
+                for (AnnotationValue value : getValues(referenceTarget, "value")) {
+                    referenceTypes.add((String) value.getValue());
+                }
+                record.referenceTypes = referenceTypes;
+            }
+
+            AnnotationMirror binding = getAnnotation(field, "Binding");
+            if (binding != null) {
+                record.binding = new BindingRecord(
+                    getString(binding, "bindingName"),
+                    ((VariableElement) getValue(binding, "strength").getValue()).getSimpleName().toString(),
+                    getString(binding, "description"),
+                    getString(binding, "valueSet"),
+                    getString(binding, "inheritedExtensibleValueSet"),
+                    getString(binding, "minValueSet"),
+                    getString(binding, "maxValueSet"));
+            }
+            fields.add(record);
+        }
+        return fields;
+    }
+
+    private List<ConstraintRecord> getConstraintRecords(TypeElement type) {
+        List<AnnotationMirror> constraints = new ArrayList<>();
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            String name = getName(annotation);
+            if ((ANNOTATION_PACKAGE + "Constraint").equals(name)) {
+                constraints.add(annotation);
+            } else if ((ANNOTATION_PACKAGE + "Constraints").equals(name)) {
+                // repeated annotations are wrapped in their container annotation
+                for (AnnotationValue value : getValues(annotation, "value")) {
+                    constraints.add((AnnotationMirror) value.getValue());
+                }
+            }
+        }
+        List<ConstraintRecord> records = new ArrayList<>(constraints.size());
+        for (AnnotationMirror constraint : constraints) {
+            records.add(new ConstraintRecord(
+                getString(constraint, "id"),
+                getString(constraint, "level"),
+                getString(constraint, "location"),
+                getString(constraint, "description"),
+                getString(constraint, "expression"),
+                getString(constraint, "source"),
+                (Boolean) getValue(constraint, "modelChecked").getValue(),
+                (Boolean) getValue(constraint, "generated").getValue()));
+        }
+        return records;
+    }
+
+    private boolean isList(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                && "java.util.List".equals(((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString());
+    }
+
+    /**
+     * @return the binary name of a class, the descriptor of an array type or the name of a primitive type,
+     *     in the same form that is accepted by {@link Class#forName(String)} (apart from primitive types)
+     */
+    private String getTypeName(TypeMirror type) {
+        switch (type.getKind()) {
+        case DECLARED:
+            return processingEnv.getElementUtils().getBinaryName((TypeElement) ((DeclaredType) type).asElement()).toString();
+        case ARRAY:
+            return "[" + getDescriptor(((ArrayType) type).getComponentType());
+        default:
+            // primitive
+            return type.toString();
+        }
+    }
+
+    private String getDescriptor(TypeMirror type) {
+        switch (type.getKind()) {
+        case BOOLEAN: return "Z";
+        case BYTE: return "B";
+        case CHAR: return "C";
+        case SHORT: return "S";
+        case INT: return "I";
+        case LONG: return "J";
+        case FLOAT: return "F";
+        case DOUBLE: return "D";
+        case ARRAY: return "[" + getDescriptor(((ArrayType) type).getComponentType());
+        default:
+            return "L" + getTypeName(type) + ";";
+        }
+    }
+
+    private AnnotationMirror getAnnotation(Element element, String simpleName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if ((ANNOTATION_PACKAGE + simpleName).equals(getName(annotation))) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private String getName(AnnotationMirror annotation) {
+        return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    /**
+     * @return the value of the annotation member with the passed name, including default values
+     */
+    private AnnotationValue getValue(AnnotationMirror annotation, String memberName) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                processingEnv.getElementUtils().getElementValuesWithDefaults(annotation);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (memberName.equals(entry.getKey().getSimpleName().toString())) {
+                return entry.getValue();
+            }
+        }
+        throw new IllegalArgumentException("Annotation " + getName(annotation) + " has no member '" + memberName + "'");
+    }
+
+    private String getString(AnnotationMirror annotation, String memberName) {
+        return (String) getValue(annotation, memberName).getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<? extends AnnotationValue> getValues(AnnotationMirror annotation, String memberName) {
+        Object value = getValue(annotation, memberName).getValue();
+        if (value instanceof List) {
+            return (List<? extends AnnotationValue>) value;
+        }
+        // a single value given without braces
+        return Collections.singletonList(getValue(annotation, memberName));
+    }
+}
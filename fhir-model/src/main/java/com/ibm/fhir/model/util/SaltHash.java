@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -71,6 +71,11 @@ public class SaltHash {
         }
     }
 
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(salt) + Arrays.hashCode(hash);
+    }
+
     @Override
     public String toString() {
         StringBuilder result = new StringBuilder();
@@ -0,0 +1,81 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.spec.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.examples.ExamplesUtil;
+import com.ibm.fhir.examples.Index;
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.parser.FHIRParser;
+import com.ibm.fhir.model.parser.exception.FHIRParserException;
+import com.ibm.fhir.model.resource.Resource;
+
+/**
+ * Parse each JSON example, valid and invalid, with both the FHIRJsonParser and the FHIRJsonStreamingParser
+ * and check that they produce the same resource or fail with the same error
+ */
+public class JsonStreamingParserExamplesTest {
+
+    @DataProvider(name = "examples")
+    public static Object[][] examples() throws Exception {
+        String index = System.getProperty(JsonStreamingParserExamplesTest.class.getName()
+            + ".index", Index.ALL_JSON.name());
+
+        // Each line of the index file is an expected outcome and the path to an example resource
+        List<Object[]> examples = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(ExamplesUtil.indexReader(Index.valueOf(index)))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] tokens = line.split("\\s+");
+                if (tokens.length == 2 && tokens[1].toUpperCase().endsWith(".JSON")) {
+                    examples.add(new Object[] { tokens[1] });
+                }
+            }
+        }
+        return examples.toArray(new Object[0][]);
+    }
+
+    @Test(dataProvider = "examples")
+    public void testParse(String file) throws Exception {
+        Resource expected = null;
+        FHIRParserException expectedException = null;
+        try (Reader reader = ExamplesUtil.resourceReader(file)) {
+            expected = FHIRParser.parser(Format.JSON).parse(reader);
+        } catch (FHIRParserException e) {
+            expectedException = e;
+        }
+
+        Resource actual = null;
+        FHIRParserException actualException = null;
+        try (Reader reader = ExamplesUtil.resourceReader(file)) {
+            actual = FHIRParser.streamingParser(Format.JSON).parse(reader);
+        } catch (FHIRParserException e) {
+            actualException = e;
+        }
+
+        if (expectedException == null && actualException == null) {
+            assertEquals(actual, expected, file);
+        } else if (expectedException != null && actualException != null) {
+            assertEquals(actualException.getMessage(), expectedException.getMessage(), file);
+            assertEquals(actualException.getPath(), expectedException.getPath(), file);
+        } else if (expectedException != null) {
+            fail(file + ": FHIRJsonParser failed but FHIRJsonStreamingParser did not", expectedException);
+        } else {
+            fail(file + ": FHIRJsonStreamingParser failed but FHIRJsonParser did not", actualException);
+        }
+    }
+}
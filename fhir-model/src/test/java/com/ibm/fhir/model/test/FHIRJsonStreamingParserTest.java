@@ -0,0 +1,205 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.test;
+
+import static com.ibm.fhir.model.type.String.string;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.generator.FHIRGenerator;
+import com.ibm.fhir.model.parser.FHIRJsonParser;
+import com.ibm.fhir.model.parser.FHIRJsonStreamingParser;
+import com.ibm.fhir.model.parser.FHIRParser;
+import com.ibm.fhir.model.parser.exception.FHIRParserException;
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.Observation;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.Boolean;
+import com.ibm.fhir.model.type.Code;
+import com.ibm.fhir.model.type.CodeableConcept;
+import com.ibm.fhir.model.type.Coding;
+import com.ibm.fhir.model.type.Date;
+import com.ibm.fhir.model.type.DateTime;
+import com.ibm.fhir.model.type.Decimal;
+import com.ibm.fhir.model.type.Extension;
+import com.ibm.fhir.model.type.HumanName;
+import com.ibm.fhir.model.type.Integer;
+import com.ibm.fhir.model.type.Meta;
+import com.ibm.fhir.model.type.Narrative;
+import com.ibm.fhir.model.type.Quantity;
+import com.ibm.fhir.model.type.Reference;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.Xhtml;
+import com.ibm.fhir.model.type.code.BundleType;
+import com.ibm.fhir.model.type.code.NarrativeStatus;
+import com.ibm.fhir.model.type.code.ObservationStatus;
+
+/**
+ * Tests that the {@link FHIRJsonStreamingParser} builds the same resources as the {@link FHIRJsonParser}
+ */
+public class FHIRJsonStreamingParserTest {
+    private static Patient patient(int i) {
+        return Patient.builder()
+                .id("p" + i)
+                .meta(Meta.builder().versionId(com.ibm.fhir.model.type.Id.of("1")).build())
+                .text(Narrative.builder()
+                    .status(NarrativeStatus.GENERATED)
+                    .div(Xhtml.of("<div xmlns=\"http://www.w3.org/1999/xhtml\">Patient " + i + "</div>"))
+                    .build())
+                .contained(Observation.builder()
+                    .id("o" + i)
+                    .status(ObservationStatus.FINAL)
+                    .code(CodeableConcept.builder().text(string("weight")).build())
+                    .value(Quantity.builder().value(Decimal.of(new BigDecimal("70.50"))).unit(string("kg")).build())
+                    .build())
+                .extension(Extension.builder()
+                    .url("http://example.com/extension")
+                    .value(Integer.of(i))
+                    .build())
+                .active(Boolean.TRUE)
+                .name(HumanName.builder()
+                    .family(string("Doe"))
+                    .given(string("John"))
+                    .given(com.ibm.fhir.model.type.String.builder()
+                        .id("g2")
+                        .extension(Extension.builder().url("http://example.com/nickname").value(string("Jack")).build())
+                        .build())
+                    .given(string("Paul"))
+                    .build())
+                .birthDate(Date.builder()
+                    .value("1970-01-01")
+                    .extension(Extension.builder().url("http://example.com/birthTime").value(DateTime.of("1970-01-01T08:00:00Z")).build())
+                    .build())
+                .deceased(Boolean.FALSE)
+                .generalPractitioner(Reference.builder().reference(string("#o" + i)).build())
+                .build();
+    }
+
+    private static String generate(Resource resource) throws Exception {
+        StringWriter writer = new StringWriter();
+        FHIRGenerator.generator(Format.JSON).generate(resource, writer);
+        return writer.toString();
+    }
+
+    private static FHIRJsonStreamingParser streamingParser() {
+        return FHIRParser.streamingParser(Format.JSON).as(FHIRJsonStreamingParser.class);
+    }
+
+    @Test
+    public void testSameAsJsonParser() throws Exception {
+        Bundle.Builder builder = Bundle.builder().type(BundleType.COLLECTION);
+        for (int i = 0; i < 100; i++) {
+            builder.entry(Bundle.Entry.builder().fullUrl(Uri.of("urn:uuid:" + i)).resource(patient(i)).build());
+        }
+        Bundle bundle = builder.build();
+        String json = generate(bundle);
+
+        Bundle expected = FHIRParser.parser(Format.JSON).parse(new StringReader(json));
+        Bundle actual = streamingParser().parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(actual, bundle);
+        assertEquals(actual, expected);
+        assertEquals(generate(actual), json);
+    }
+
+    @Test
+    public void testChoiceAndPrimitiveExtension() throws Exception {
+        String json = "{\"resourceType\":\"Observation\",\"status\":\"final\",\"_status\":{\"id\":\"s\"},"
+                + "\"code\":{\"coding\":[{\"system\":\"http://loinc.org\",\"code\":\"29463-7\"}]},"
+                + "\"valueString\":\"x\",\"_valueString\":{\"extension\":[{\"url\":\"http://example.com\",\"valueBoolean\":true}]}}";
+        Observation expected = FHIRParser.parser(Format.JSON).parse(new StringReader(json));
+        Observation actual = streamingParser().parse(new StringReader(json));
+        assertEquals(actual, expected);
+        assertEquals(actual.getStatus().getId(), "s");
+        assertEquals(actual.getValue().as(com.ibm.fhir.model.type.String.class).getValue(), "x");
+        assertEquals(actual.getValue().getExtension().size(), 1);
+        assertEquals(actual.getCode().getCoding().get(0), Coding.builder().system(Uri.of("http://loinc.org")).code(Code.of("29463-7")).build());
+    }
+
+    @Test
+    public void testResourceTypeNotFirst() throws Exception {
+        String json = "{\"resourceType\":\"Patient\",\"id\":\"1\",\"contained\":[{\"id\":\"o\",\"resourceType\":\"Observation\","
+                + "\"status\":\"final\",\"code\":{\"text\":\"weight\"}}],\"active\":true}";
+        Patient expected = FHIRParser.parser(Format.JSON).parse(new StringReader(json));
+        Patient actual = streamingParser().parse(new StringReader(json));
+        assertEquals(actual, expected);
+        assertTrue(actual.getContained().get(0) instanceof Observation);
+
+        json = "{\"id\":\"1\",\"resourceType\":\"Patient\",\"active\":true,\"gender\":\"male\"}";
+        actual = streamingParser().parseAndFilter(new StringReader(json), Arrays.asList("active"));
+        assertEquals(actual.getId(), "1");
+        assertNotNull(actual.getActive());
+        assertNull(actual.getGender());
+    }
+
+    @Test
+    public void testParseAndFilter() throws Exception {
+        String json = generate(patient(1));
+        Patient expected = FHIRParser.parser(Format.JSON).as(FHIRJsonParser.class).parseAndFilter(new StringReader(json), Arrays.asList("name"));
+        Patient actual = streamingParser().parseAndFilter(new StringReader(json), Arrays.asList("name"));
+        assertEquals(actual, expected);
+        assertEquals(actual.getName().size(), 1);
+        assertTrue(actual.getContained().isEmpty());
+        assertNull(actual.getBirthDate());
+        assertNotNull(actual.getMeta());
+    }
+
+    @Test
+    public void testUnrecognizedElement() throws Exception {
+        String json = "{\"resourceType\":\"Patient\",\"hamburger\":{\"a\":[1,2]},\"active\":true}";
+        try {
+            streamingParser().parse(new StringReader(json));
+            fail();
+        } catch (FHIRParserException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+            assertEquals(e.getCause().getMessage(), "Unrecognized element: 'hamburger'");
+            assertEquals(e.getPath(), "Patient");
+        }
+
+        FHIRParser parser = streamingParser();
+        parser.setIgnoringUnrecognizedElements(true);
+        Patient patient = parser.parse(new StringReader(json));
+        assertEquals(patient.getActive(), Boolean.TRUE);
+    }
+
+    @Test
+    public void testInvalidInput() throws Exception {
+        assertInvalid("{\"resourceType\":\"Patient\",\"active\":true,\"active\":false}", "Duplicate key: 'active'");
+        assertInvalid("{\"resourceType\":\"Hamburger\"}", "Invalid resource type: 'Hamburger'");
+        assertInvalid("{\"resourceType\":\"Patient\",\"active\":\"yes\"}", "Expected: TRUE or FALSE but found: STRING for element: active");
+        assertInvalid("{\"resourceType\":\"Patient\",\"deceasedBoolean\":true,\"deceasedDateTime\":\"2020\"}",
+            "Only one choice element key of the form: deceased[x] is allowed");
+        assertInvalid("{\"resourceType\":\"Patient\",\"deceasedBoolean\":true,\"_deceasedDateTime\":{\"id\":\"x\"}}",
+            "Choice element keys: deceasedBoolean and _deceasedDateTime are not consistent");
+        assertInvalid("{\"resourceType\":\"Patient\",\"name\":[{\"_given\":[{\"id\":\"x\"}]}]}",
+            "Found array with key '_given' but could not find matching array with key: 'given'");
+        assertInvalid("{\"resourceType\":\"Patient\",\"name\":[{\"given\":[\"a\",\"b\"],\"_given\":[{\"id\":\"x\"}]}]}",
+            "Could not find element at index: 1");
+    }
+
+    private void assertInvalid(String json, String message) {
+        try {
+            streamingParser().parse(new StringReader(json));
+            fail();
+        } catch (FHIRParserException e) {
+            assertEquals(e.getCause().getMessage(), message);
+        }
+    }
+}
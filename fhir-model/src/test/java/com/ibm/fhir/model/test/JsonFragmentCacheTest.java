@@ -0,0 +1,119 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.test;
+
+import static com.ibm.fhir.model.type.String.string;
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.generator.FHIRGenerator;
+import com.ibm.fhir.model.generator.FHIRJsonGenerator;
+import com.ibm.fhir.model.generator.JsonFragmentCache;
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.Observation;
+import com.ibm.fhir.model.resource.ValueSet;
+import com.ibm.fhir.model.type.Code;
+import com.ibm.fhir.model.type.CodeableConcept;
+import com.ibm.fhir.model.type.Coding;
+import com.ibm.fhir.model.type.Extension;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.code.BundleType;
+import com.ibm.fhir.model.type.code.ObservationStatus;
+import com.ibm.fhir.model.type.code.PublicationStatus;
+import com.ibm.fhir.model.visitor.Visitable;
+
+/**
+ * Tests that splicing cached fragments produces the same output as generating the whole model object
+ */
+public class JsonFragmentCacheTest {
+    private static final CodeableConcept CONCEPT = CodeableConcept.builder()
+            .coding(Coding.builder().system(Uri.of("http://loinc.org")).code(Code.of("1234-5")).display(string("Test \"quoted\" é")).build())
+            .text(string("Test"))
+            .build();
+
+    private static final ValueSet VALUE_SET = ValueSet.builder()
+            .id("vs1")
+            .url(Uri.of("http://example.com/ValueSet/vs1"))
+            .status(PublicationStatus.ACTIVE)
+            .extension(Extension.builder().url("http://example.com/ext").value(CONCEPT).build())
+            .build();
+
+    private static Bundle bundle() {
+        Observation observation = Observation.builder()
+                .status(ObservationStatus.FINAL)
+                .code(CONCEPT)
+                .value(CONCEPT)
+                .category(CONCEPT, CONCEPT)
+                .build();
+        return Bundle.builder()
+                .type(BundleType.COLLECTION)
+                .entry(Bundle.Entry.builder().resource(VALUE_SET).build())
+                .entry(Bundle.Entry.builder().resource(observation).build())
+                .entry(Bundle.Entry.builder().resource(VALUE_SET).build())
+                .build();
+    }
+
+    private static String generate(Visitable visitable, JsonFragmentCache cache, boolean useWriter) throws Exception {
+        FHIRGenerator generator = FHIRGenerator.generator(Format.JSON);
+        if (cache != null) {
+            generator.setProperty(FHIRJsonGenerator.PROPERTY_FRAGMENT_CACHE, cache);
+        }
+        if (useWriter) {
+            StringWriter writer = new StringWriter();
+            generator.generate(visitable, writer);
+            return writer.toString();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.generate(visitable, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testSplicedOutput() throws Exception {
+        Bundle bundle = bundle();
+        String expected = generate(bundle, null, false);
+
+        JsonFragmentCache cache = new JsonFragmentCache(v -> v == VALUE_SET || v == CONCEPT);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(generate(bundle, cache, false), expected);
+            assertEquals(generate(bundle, cache, true), expected);
+        }
+        assertEquals(cache.size(), 2);
+    }
+
+    @Test
+    public void testTopLevel() throws Exception {
+        String expected = generate(VALUE_SET, null, false);
+
+        JsonFragmentCache cache = new JsonFragmentCache(v -> v instanceof ValueSet);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(generate(VALUE_SET, cache, false), expected);
+            assertEquals(generate(VALUE_SET, cache, true), expected);
+        }
+        assertEquals(generate(CONCEPT, cache, false), generate(CONCEPT, null, false));
+    }
+
+    @Test
+    public void testPrettyPrinting() throws Exception {
+        JsonFragmentCache cache = new JsonFragmentCache(v -> true);
+        FHIRGenerator generator = FHIRGenerator.generator(Format.JSON, true);
+        generator.setProperty(FHIRJsonGenerator.PROPERTY_FRAGMENT_CACHE, cache);
+        StringWriter writer = new StringWriter();
+        generator.generate(VALUE_SET, writer);
+
+        StringWriter expected = new StringWriter();
+        FHIRGenerator.generator(Format.JSON, true).generate(VALUE_SET, expected);
+        assertEquals(writer.toString(), expected.toString());
+        assertEquals(cache.size(), 0);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.util.test;
+
+import static com.ibm.fhir.model.type.String.string;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+import java.util.Collections;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.resource.Encounter;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.resource.StructureDefinition;
+import com.ibm.fhir.model.type.Boolean;
+import com.ibm.fhir.model.type.Coding;
+import com.ibm.fhir.model.type.Date;
+import com.ibm.fhir.model.type.HumanName;
+import com.ibm.fhir.model.type.code.EncounterStatus;
+import com.ibm.fhir.model.util.ModelSupport;
+import com.ibm.fhir.model.util.ModelSupport.ElementInfo;
+
+public class ElementAccessorTest {
+    @Test
+    public void testElementValue() {
+        HumanName name = HumanName.builder().family(string("Doe")).build();
+        Patient patient = Patient.builder()
+                .id("1")
+                .birthDate(Date.of("1970-01-01"))
+                .name(name)
+                .build();
+
+        int birthDate = ModelSupport.getElementIndex(Patient.class, "birthDate");
+        assertSame(ModelSupport.getElementValue(patient, birthDate), patient.getBirthDate());
+        assertEquals(ModelSupport.getElementValue(patient, ModelSupport.getElementIndex(Patient.class, "name")), Collections.singletonList(name));
+        assertNull(ModelSupport.getElementValue(patient, ModelSupport.getElementIndex(Patient.class, "gender")));
+
+        // inherited element
+        assertSame(ModelSupport.getElementValue(patient, ModelSupport.getElementIndex(Patient.class, "id")), patient.getId());
+        assertEquals(ModelSupport.getElementIndex(Patient.class, "bogus"), -1);
+        assertEquals(ModelSupport.getElementIndex(String.class, "value"), -1);
+
+        // code subtypes share the element table of Code
+        assertEquals(ModelSupport.getElementValue(EncounterStatus.FINISHED, ModelSupport.getElementIndex(EncounterStatus.class, "value")), "finished");
+    }
+
+    @Test
+    public void testKeywordElements() {
+        Coding clazz = Coding.builder().code(com.ibm.fhir.model.type.Code.of("AMB")).build();
+        Encounter encounter = Encounter.builder()
+                .status(EncounterStatus.FINISHED)
+                .clazz(clazz)
+                .build();
+        assertSame(ModelSupport.getElementValue(encounter, ModelSupport.getElementIndex(Encounter.class, "class")), clazz);
+
+        ElementInfo elementInfo = ModelSupport.getElementInfo(StructureDefinition.class, "abstract");
+        StructureDefinition structureDefinition = StructureDefinition.builder()
+                .url(com.ibm.fhir.model.type.Uri.of("http://example.com"))
+                .name(string("example"))
+                .status(com.ibm.fhir.model.type.code.PublicationStatus.DRAFT)
+                .kind(com.ibm.fhir.model.type.code.StructureDefinitionKind.RESOURCE)
+                ._abstract(Boolean.FALSE)
+                .type(com.ibm.fhir.model.type.Uri.of("Patient"))
+                .build();
+        assertSame(elementInfo.getValue(structureDefinition), Boolean.FALSE);
+    }
+
+    @Test
+    public void testAllElementsBind() {
+        for (Class<?> modelClass : ModelSupport.getModelClasses()) {
+            for (int i = 0; i < ModelSupport.getElementCount(modelClass); i++) {
+                ElementInfo elementInfo = ModelSupport.getElementInfo(modelClass, i);
+                assertEquals(ModelSupport.getElementIndex(modelClass, elementInfo.getName()), i);
+                try {
+                    // binds the getter; calling it on null is expected to fail only after binding succeeds
+                    elementInfo.getValue(null);
+                    fail("Expected NullPointerException for " + modelClass.getName() + "." + elementInfo.getName());
+                } catch (NullPointerException e) {
+                    // expected
+                }
+            }
+        }
+    }
+}
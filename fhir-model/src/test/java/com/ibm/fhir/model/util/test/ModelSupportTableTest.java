@@ -0,0 +1,114 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.util.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.annotation.Binding;
+import com.ibm.fhir.model.annotation.Choice;
+import com.ibm.fhir.model.annotation.Constraint;
+import com.ibm.fhir.model.annotation.ReferenceTarget;
+import com.ibm.fhir.model.annotation.Required;
+import com.ibm.fhir.model.annotation.Summary;
+import com.ibm.fhir.model.constraint.spi.ConstraintProvider;
+import com.ibm.fhir.model.constraint.spi.ModelConstraintProvider;
+import com.ibm.fhir.model.util.ModelSupport;
+import com.ibm.fhir.model.util.ModelSupport.ElementInfo;
+
+/**
+ * Tests that the metadata which ModelSupport reads from the build-time generated table matches the model annotations
+ */
+public class ModelSupportTableTest {
+    @Test
+    public void testTableExists() throws Exception {
+        try (InputStream in = ModelSupport.class.getClassLoader().getResourceAsStream("com/ibm/fhir/model/util/modelSupportTable")) {
+            assertNotNull(in, "the model support table was not generated");
+        }
+    }
+
+    @Test
+    public void testElementInfo() {
+        for (Class<?> modelClass : ModelSupport.getModelClasses()) {
+            List<String> expectedNames = new ArrayList<>();
+            for (Class<?> clazz : ModelSupport.getClosure(modelClass)) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isVolatile(modifiers)) {
+                        continue;
+                    }
+                    String elementName = ModelSupport.getElementName(field);
+                    expectedNames.add(elementName);
+
+                    String path = modelClass.getName() + "." + elementName;
+                    ElementInfo elementInfo = ModelSupport.getElementInfo(modelClass, elementName);
+                    assertNotNull(elementInfo, path);
+                    Class<?> type = (field.getGenericType() instanceof ParameterizedType) ?
+                            (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0] : field.getType();
+                    assertEquals(elementInfo.getType(), type, path);
+                    assertEquals(elementInfo.getDeclaringType(), clazz, path);
+                    assertEquals(elementInfo.isRequired(), field.isAnnotationPresent(Required.class), path);
+                    assertEquals(elementInfo.isSummary(), field.isAnnotationPresent(Summary.class), path);
+                    assertEquals(elementInfo.isRepeating(), List.class.equals(field.getType()), path);
+                    assertEquals(elementInfo.isChoice(), field.isAnnotationPresent(Choice.class), path);
+                    if (elementInfo.isChoice()) {
+                        assertEquals(new ArrayList<>(elementInfo.getChoiceTypes()), Arrays.asList(field.getAnnotation(Choice.class).value()), path);
+                    }
+                    assertEquals(elementInfo.isReference(), field.isAnnotationPresent(ReferenceTarget.class), path);
+                    if (elementInfo.isReference()) {
+                        assertEquals(elementInfo.getReferenceTypes(), new LinkedHashSet<>(Arrays.asList(field.getAnnotation(ReferenceTarget.class).value())), path);
+                    }
+                    Binding binding = field.getAnnotation(Binding.class);
+                    if (binding == null) {
+                        assertEquals(elementInfo.getBinding(), null, path);
+                    } else {
+                        assertEquals(elementInfo.getBinding(), binding, path);
+                    }
+                }
+            }
+            assertEquals(ModelSupport.getElementNames(modelClass).stream().collect(Collectors.toList()), expectedNames, modelClass.getName());
+        }
+    }
+
+    @Test
+    public void testConstraints() {
+        List<ModelConstraintProvider> providers = ConstraintProvider.providers(ModelConstraintProvider.class);
+        for (Class<?> modelClass : ModelSupport.getModelClasses()) {
+            if (providers.stream().anyMatch(provider -> provider.appliesTo(modelClass))) {
+                // constraint providers may remove or add constraints
+                continue;
+            }
+            List<String> expected = new ArrayList<>();
+            for (Class<?> clazz : ModelSupport.getClosure(modelClass)) {
+                for (Constraint constraint : clazz.getDeclaredAnnotationsByType(Constraint.class)) {
+                    expected.add(toString(constraint));
+                }
+            }
+            List<String> actual = ModelSupport.getConstraints(modelClass).stream()
+                    .map(ModelSupportTableTest::toString)
+                    .collect(Collectors.toList());
+            assertEquals(actual, expected, modelClass.getName());
+        }
+    }
+
+    private static String toString(Constraint constraint) {
+        return String.join("|", constraint.id(), constraint.level(), constraint.location(), constraint.description(),
+            constraint.expression(), constraint.source(), String.valueOf(constraint.modelChecked()), String.valueOf(constraint.generated()));
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019, 2020
+ * (C) Copyright IBM Corp. 2019, 2022
  * 
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Objects;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -20,12 +21,17 @@ public abstract class FHIRPathAbstractNode implements FHIRPathNode {
     protected final FHIRPathSystemValue value;
     protected final Collection<FHIRPathNode> children;
     
+    // non-null for nodes of a lazy FHIRPathTree; the children are computed on first access and memoized
+    private final Supplier<Collection<FHIRPathNode>> childrenSupplier;
+    private volatile Collection<FHIRPathNode> computedChildren;
+    
     protected FHIRPathAbstractNode(Builder builder) {
         name = builder.name;
         path = builder.path;
         type = Objects.requireNonNull(builder.type);
         value = builder.value;
         children = Collections.unmodifiableCollection(builder.children);
+        childrenSupplier = builder.childrenSupplier;
     }
     
     @Override
@@ -55,7 +61,20 @@ public abstract class FHIRPathAbstractNode implements FHIRPathNode {
     
     @Override
     public Collection<FHIRPathNode> children() {
-        return children;
+        if (childrenSupplier == null) {
+            return children;
+        }
+        Collection<FHIRPathNode> result = computedChildren;
+        if (result == null) {
+            synchronized (this) {
+                result = computedChildren;
+                if (result == null) {
+                    result = Collections.unmodifiableCollection(childrenSupplier.get());
+                    computedChildren = result;
+                }
+            }
+        }
+        return result;
     }
     
     @Override
@@ -95,6 +114,7 @@ public abstract class FHIRPathAbstractNode implements FHIRPathNode {
         protected String path;
         protected FHIRPathSystemValue value;
         protected Collection<FHIRPathNode> children = new ArrayList<>();
+        protected Supplier<Collection<FHIRPathNode>> childrenSupplier;
         
         protected Builder(FHIRPathType type) {
             super();
@@ -135,6 +155,19 @@ public abstract class FHIRPathAbstractNode implements FHIRPathNode {
             return this;
         }
         
+        /**
+         * Compute the children of the node on first access instead of using the children added to this builder
+         *
+         * @param childrenSupplier
+         *     the supplier of the children collection; called at most once per node
+         * @return
+         *     this builder instance
+         */
+        Builder children(Supplier<Collection<FHIRPathNode>> childrenSupplier) {
+            this.childrenSupplier = childrenSupplier;
+            return this;
+        }
+        
         @Override
         public abstract FHIRPathNode build();
     }
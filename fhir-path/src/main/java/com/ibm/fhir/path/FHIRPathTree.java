@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019, 2021
+ * (C) Copyright IBM Corp. 2019, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -12,28 +12,45 @@ import java.time.LocalTime;
 import java.time.Year;
 import java.time.YearMonth;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import com.ibm.fhir.model.resource.Resource;
 import com.ibm.fhir.model.type.Element;
 import com.ibm.fhir.model.type.Quantity;
+import com.ibm.fhir.model.util.ModelSupport;
+import com.ibm.fhir.model.util.ModelSupport.ElementInfo;
 import com.ibm.fhir.model.visitor.PathAwareVisitor;
+import com.ibm.fhir.model.visitor.Visitable;
 
 /**
  * A tree of {@link FHIRPathNode} nodes created from a {@link Resource} or an {@link Element}
+ *
+ * <p>Trees created with {@link #tree(Resource)} or {@link #tree(Element)} are built eagerly. Trees created with
+ * {@link #lazyTree(Resource)} or {@link #lazyTree(Element)} only create the root node up front; the children
+ * of each node are created (and memoized) the first time they are requested.
  */
 public class FHIRPathTree {
     private FHIRPathNode root;
     private Map<String, FHIRPathNode> pathNodeMap;
+    private final boolean lazy;
 
-    private FHIRPathTree() { }
+    private FHIRPathTree() {
+        this(false);
+    }
+
+    private FHIRPathTree(boolean lazy) {
+        this.lazy = lazy;
+    }
 
     private void setRoot(FHIRPathNode root) {
         this.root = root;
@@ -63,7 +80,21 @@ public class FHIRPathTree {
      *     the node at the location given by the path parameter if exists, otherwise null
      */
     public FHIRPathNode getNode(String path) {
-        return pathNodeMap.get(path);
+        FHIRPathNode node = pathNodeMap.get(path);
+        if (node == null && lazy) {
+            node = findNode(path);
+        }
+        return node;
+    }
+
+    /**
+     * Indicates whether the nodes of this FHIRPathTree are created on demand
+     *
+     * @return
+     *     true if this FHIRPathTree is lazy, otherwise false
+     */
+    public boolean isLazy() {
+        return lazy;
     }
 
     /**
@@ -81,7 +112,7 @@ public class FHIRPathTree {
 
         int index = node.path().lastIndexOf(".");
         if (index != -1) {
-            return pathNodeMap.get(node.path().substring(0, index));
+            return getNode(node.path().substring(0, index));
         }
 
         return null;
@@ -182,6 +213,189 @@ public class FHIRPathTree {
         return tree;
     }
 
+    /**
+     * Static factory method for creating lazy FHIRPathTree instances from a {@link Resource}
+     *
+     * <p>Only the nodes that are actually navigated (for example, by evaluating an expression against the tree)
+     * are created, which makes lazy trees well suited to evaluating a handful of expressions against large resources.
+     *
+     * @param resource
+     *     the resource
+     * @return
+     *     a new lazy FHIRPathTree instance
+     */
+    public static FHIRPathTree lazyTree(Resource resource) {
+        Objects.requireNonNull(resource);
+        return lazyTree((Visitable) resource);
+    }
+
+    /**
+     * Static factory method for creating lazy FHIRPathTree instances from an {@link Element}
+     *
+     * @param element
+     *     the element
+     * @return
+     *     a new lazy FHIRPathTree instance
+     * @see #lazyTree(Resource)
+     */
+    public static FHIRPathTree lazyTree(Element element) {
+        Objects.requireNonNull(element);
+        return lazyTree((Visitable) element);
+    }
+
+    private static FHIRPathTree lazyTree(Visitable visitable) {
+        FHIRPathTree tree = new FHIRPathTree(true);
+
+        // nodes are added to the map as they are created, possibly from multiple threads
+        tree.pathNodeMap = new ConcurrentHashMap<>();
+
+        String typeName = ModelSupport.getTypeName(visitable.getClass());
+        tree.setRoot(tree.createNode(visitable, typeName, typeName));
+
+        return tree;
+    }
+
+    /**
+     * Navigate from the root to the node at the location given by the path parameter, creating nodes along the way
+     */
+    private FHIRPathNode findNode(String path) {
+        FHIRPathNode node = root;
+        while (node != null && !path.equals(node.path())) {
+            FHIRPathNode next = null;
+            for (FHIRPathNode child : node.children()) {
+                String childPath = child.path();
+                if (childPath != null && path.startsWith(childPath) &&
+                        (path.length() == childPath.length() || path.charAt(childPath.length()) == '.')) {
+                    next = child;
+                    break;
+                }
+            }
+            node = next;
+        }
+        return node;
+    }
+
+    /**
+     * Create a node whose children are computed on first access. The node value is computed up front using the same
+     * rules as the {@link BuildingVisitor}: the last non-null system value of the model object wins.
+     */
+    private FHIRPathNode createNode(Visitable visitable, String name, String path) {
+        FHIRPathAbstractNode.Builder builder;
+        FHIRPathSystemValue initialValue = null;
+        if (visitable instanceof Resource) {
+            builder = FHIRPathResourceNode.builder((Resource) visitable).tree(this);
+        } else if (visitable instanceof Quantity) {
+            Quantity quantity = (Quantity) visitable;
+            builder = FHIRPathQuantityNode.builder(quantity).tree(this);
+            initialValue = FHIRPathQuantityValue.quantityValue(quantity);
+        } else {
+            builder = FHIRPathElementNode.builder((Element) visitable).tree(this);
+        }
+
+        Class<?> modelClass = visitable.getClass();
+        FHIRPathSystemValue value = initialValue;
+        int valueIndex = -1;
+        for (int i = 0; i < ModelSupport.getElementCount(modelClass); i++) {
+            ElementInfo elementInfo = ModelSupport.getElementInfo(modelClass, i);
+            Object elementValue = elementInfo.getValue(visitable);
+            if (elementValue != null && !(elementValue instanceof Visitable) && !(elementValue instanceof List)) {
+                FHIRPathSystemValue systemValue = systemValue(elementInfo.getName(), elementValue);
+                if (systemValue != null) {
+                    value = systemValue;
+                    valueIndex = i;
+                }
+            }
+        }
+
+        final FHIRPathSystemValue nodeValue = value;
+        final FHIRPathSystemValue nodeInitialValue = initialValue;
+        final int nodeValueIndex = valueIndex;
+
+        builder.name(name).path(path);
+        if (nodeValue != null) {
+            builder.value(nodeValue);
+        }
+        builder.children(() -> createChildren(visitable, path, nodeInitialValue, nodeValue, nodeValueIndex));
+
+        FHIRPathNode node = builder.build();
+        pathNodeMap.put(path, node);
+
+        return node;
+    }
+
+    /**
+     * Create the children of the passed model object in the same order as the {@link BuildingVisitor}
+     */
+    private List<FHIRPathNode> createChildren(Visitable visitable, String path, FHIRPathSystemValue initialValue,
+            FHIRPathSystemValue value, int valueIndex) {
+        List<FHIRPathNode> children = new ArrayList<>();
+
+        FHIRPathSystemValue current = initialValue;
+        if (current != null) {
+            children.add(current);
+        }
+
+        Class<?> modelClass = visitable.getClass();
+        for (int i = 0; i < ModelSupport.getElementCount(modelClass); i++) {
+            ElementInfo elementInfo = ModelSupport.getElementInfo(modelClass, i);
+            Object elementValue = elementInfo.getValue(visitable);
+            if (elementValue == null) {
+                continue;
+            }
+            String elementName = elementInfo.getName();
+            if (elementValue instanceof List) {
+                int elementIndex = 0;
+                for (Object item : (List<?>) elementValue) {
+                    children.add(createNode((Visitable) item, elementName, childPath(path, elementName, elementIndex++)));
+                }
+            } else if (elementValue instanceof Visitable) {
+                children.add(createNode((Visitable) elementValue, elementName, childPath(path, elementName, -1)));
+            } else {
+                FHIRPathSystemValue systemValue = (i == valueIndex) ? value : systemValue(elementName, elementValue);
+                if (systemValue != null) {
+                    // mirrors FHIRPathAbstractNode.Builder.value(FHIRPathSystemValue)
+                    children.remove(current);
+                    current = systemValue;
+                    children.add(current);
+                }
+            }
+        }
+
+        return children;
+    }
+
+    private static String childPath(String path, String elementName, int elementIndex) {
+        if (ModelSupport.isKeyword(elementName)) {
+            elementName = ModelSupport.delimit(elementName);
+        }
+        return (elementIndex != -1) ? path + "." + elementName + "[" + elementIndex + "]" : path + "." + elementName;
+    }
+
+    private static FHIRPathSystemValue systemValue(String elementName, Object value) {
+        if (value instanceof java.lang.String) {
+            return FHIRPathStringValue.stringValue(elementName, (java.lang.String) value);
+        } else if (value instanceof java.lang.Boolean) {
+            return FHIRPathBooleanValue.booleanValue(elementName, (java.lang.Boolean) value);
+        } else if (value instanceof java.lang.Integer) {
+            return FHIRPathIntegerValue.integerValue(elementName, (java.lang.Integer) value);
+        } else if (value instanceof BigDecimal) {
+            return FHIRPathDecimalValue.decimalValue(elementName, (BigDecimal) value);
+        } else if (value instanceof byte[]) {
+            return FHIRPathStringValue.stringValue(elementName, Base64.getEncoder().encodeToString((byte[]) value));
+        } else if (value instanceof ZonedDateTime) {
+            return FHIRPathDateTimeValue.dateTimeValue(elementName, (ZonedDateTime) value);
+        } else if (value instanceof LocalDate) {
+            return FHIRPathDateTimeValue.dateTimeValue(elementName, (LocalDate) value);
+        } else if (value instanceof YearMonth) {
+            return FHIRPathDateTimeValue.dateTimeValue(elementName, (YearMonth) value);
+        } else if (value instanceof Year) {
+            return FHIRPathDateTimeValue.dateTimeValue(elementName, (Year) value);
+        } else if (value instanceof LocalTime) {
+            return FHIRPathTimeValue.timeValue(elementName, (LocalTime) value);
+        }
+        return null;
+    }
+
     private static class BuildingVisitor extends PathAwareVisitor {
         private final FHIRPathTree tree;
 
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019, 2021
+ * (C) Copyright IBM Corp. 2019, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -44,10 +44,12 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -61,6 +63,7 @@ import java.util.stream.Collectors;
 
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.tree.ParseTree;
 
 import com.ibm.fhir.cache.CacheKey;
 import com.ibm.fhir.model.annotation.Constraint;
@@ -98,8 +101,8 @@ public class FHIRPathEvaluator {
     public static final Collection<FHIRPathNode> SINGLETON_TRUE = singleton(FHIRPathBooleanValue.TRUE);
     public static final Collection<FHIRPathNode> SINGLETON_FALSE = singleton(FHIRPathBooleanValue.FALSE);
 
-    private static final int EXPRESSION_CONTEXT_CACHE_MAX_ENTRIES = 512;
-    private static final Map<String, ExpressionContext> EXPRESSION_CONTEXT_CACHE = createCacheAsMap(EXPRESSION_CONTEXT_CACHE_MAX_ENTRIES);
+    private static final int COMPILED_EXPRESSION_CACHE_MAX_ENTRIES = 4096;
+    private static final Map<String, CompiledExpression> COMPILED_EXPRESSION_CACHE = createCacheAsMap(COMPILED_EXPRESSION_CACHE_MAX_ENTRIES);
 
     private final EvaluatingVisitor visitor = new EvaluatingVisitor();
 
@@ -249,12 +252,79 @@ public class FHIRPathEvaluator {
     public Collection<FHIRPathNode> evaluate(EvaluationContext evaluationContext, String expr, Collection<FHIRPathNode> initialContext) throws FHIRPathException {
         Objects.requireNonNull(evaluationContext);
         Objects.requireNonNull(initialContext);
+        try {
+            return evaluate(evaluationContext, getCompiledExpression(expr), initialContext);
+        } catch (FHIRPathException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FHIRPathException("An error occurred while evaluating expression: " + expr, e);
+        }
+    }
+
+    /**
+     * Evaluate a compiled FHIRPath expression using an existing evaluation context
+     *
+     * @param evaluationContext
+     *     the evaluation context
+     * @param expr
+     *     the compiled FHIRPath expression to evaluate
+     * @return
+     *     the result of evaluation as a non-null, potentially empty collection of FHIRPath nodes
+     * @throws NullPointerException
+     *     if any of the parameters are null
+     * @throws FHIRPathException
+     *     if an exception occurs during evaluation
+     */
+    public Collection<FHIRPathNode> evaluate(EvaluationContext evaluationContext, CompiledExpression expr) throws FHIRPathException {
+        return evaluate(evaluationContext, expr, evaluationContext.getTree().getRoot());
+    }
+
+    /**
+     * Evaluate a compiled FHIRPath expression using an existing evaluation context against a FHIRPath node
+     *
+     * @param evaluationContext
+     *     the evaluation context
+     * @param expr
+     *     the compiled FHIRPath expression to evaluate
+     * @param node
+     *     the FHIRPath node
+     * @return
+     *     the result of evaluation as a non-null, potentially empty collection of FHIRPath nodes
+     * @throws NullPointerException
+     *     if any of the parameters are null
+     * @throws FHIRPathException
+     *     if an exception occurs during evaluation
+     */
+    public Collection<FHIRPathNode> evaluate(EvaluationContext evaluationContext, CompiledExpression expr, FHIRPathNode node) throws FHIRPathException {
+        return evaluate(evaluationContext, expr, singleton(node));
+    }
+
+    /**
+     * Evaluate a compiled FHIRPath expression using an existing EvaluationContext against a collection of FHIRPath nodes
+     *
+     * @param evaluationContext
+     *     the evaluation context
+     * @param expr
+     *     the compiled FHIRPath expression to evaluate
+     * @param initialContext
+     *     the initial context as a non-null, potentially empty collection of FHIRPath nodes
+     * @return
+     *     the result of evaluation as a collection of FHIRPath nodes
+     * @throws NullPointerException
+     *     if any of the parameters are null
+     * @throws FHIRPathException
+     *     if an exception occurs during evaluation
+     */
+    public Collection<FHIRPathNode> evaluate(EvaluationContext evaluationContext, CompiledExpression expr, Collection<FHIRPathNode> initialContext) throws FHIRPathException {
+        Objects.requireNonNull(evaluationContext);
+        Objects.requireNonNull(expr);
+        Objects.requireNonNull(initialContext);
         try {
             evaluationContext.setExternalConstant("context", initialContext);
             setDateTimeConstants(evaluationContext);
-            return visitor.evaluate(evaluationContext, getExpressionContext(expr), initialContext);
+            return visitor.evaluate(evaluationContext, expr, initialContext);
         } catch (Exception e) {
-            throw new FHIRPathException("An error occurred while evaluating expression: " + expr, e);
+            throw new FHIRPathException("An error occurred while evaluating expression: " + expr.getExpression(), e);
         }
     }
 
@@ -265,8 +335,32 @@ public class FHIRPathEvaluator {
         evaluationContext.setExternalConstant("timeOfDay", singleton(timeValue(LocalTime.from(now))));
     }
 
-    private static ExpressionContext getExpressionContext(String expr) {
-        return EXPRESSION_CONTEXT_CACHE.computeIfAbsent(Objects.requireNonNull(expr), FHIRPathUtil::compile);
+    private static CompiledExpression getCompiledExpression(String expr) {
+        return COMPILED_EXPRESSION_CACHE.computeIfAbsent(Objects.requireNonNull(expr), CompiledExpression::new);
+    }
+
+    /**
+     * Compile a FHIRPath expression into an immutable, thread-safe form which can be evaluated
+     * repeatedly by any {@link FHIRPathEvaluator} instance. Compiled expressions are cached,
+     * so compiling the same expression more than once returns the same instance while it
+     * remains in the cache.
+     *
+     * @param expr
+     *     the FHIRPath expression to compile
+     * @return
+     *     the compiled expression
+     * @throws NullPointerException
+     *     if the expression is null
+     * @throws FHIRPathException
+     *     if the expression is not a valid FHIRPath expression
+     */
+    public static CompiledExpression compile(String expr) throws FHIRPathException {
+        Objects.requireNonNull(expr);
+        try {
+            return getCompiledExpression(expr);
+        } catch (Exception e) {
+            throw new FHIRPathException("An error occurred while compiling expression: " + expr, e);
+        }
     }
 
     /**
@@ -291,17 +385,42 @@ public class FHIRPathEvaluator {
         private final Stack<Collection<FHIRPathNode>> contextStack = new Stack<>();
 
         private EvaluationContext evaluationContext;
+        private CompiledExpression compiledExpression;
         private int indentLevel = 0;
 
         private EvaluatingVisitor() { }
 
-        private Collection<FHIRPathNode> evaluate(EvaluationContext evaluationContext, ExpressionContext expressionContext, Collection<FHIRPathNode> initialContext) {
+        private Collection<FHIRPathNode> evaluate(EvaluationContext evaluationContext, CompiledExpression compiledExpression, Collection<FHIRPathNode> initialContext) {
             reset();
             this.evaluationContext = evaluationContext;
-            contextStack.push(initialContext);
-            Collection<FHIRPathNode> result = expressionContext.accept(this);
-            contextStack.pop();
-            return Collections.unmodifiableCollection(result);
+            this.compiledExpression = compiledExpression;
+            try {
+                contextStack.push(initialContext);
+                Collection<FHIRPathNode> result = compiledExpression.getExpressionContext().accept(this);
+                contextStack.pop();
+                return Collections.unmodifiableCollection(result);
+            } finally {
+                this.compiledExpression = null;
+            }
+        }
+
+        /**
+         * Evaluate a literal term once, at compile time, so that its value can be shared by every evaluation
+         */
+        private Collection<FHIRPathNode> fold(FHIRPathParser.LiteralTermContext ctx) {
+            reset();
+            this.evaluationContext = new EvaluationContext();
+            return visitChildren(ctx);
+        }
+
+        /**
+         * Resolve the type identified by a type name argument, e.g. the argument of ofType(...)
+         */
+        private FHIRPathType getType(ExpressionContext typeName) {
+            if (compiledExpression != null && compiledExpression.hasType(typeName)) {
+                return compiledExpression.getType(typeName);
+            }
+            return FHIRPathType.from(typeName.getText().replace("`", ""));
         }
 
         private EvaluationContext getEvaluationContext() {
@@ -336,10 +455,9 @@ public class FHIRPathEvaluator {
             }
             Collection<FHIRPathNode> result = new ArrayList<>();
             ExpressionContext typeName = arguments.get(0);
-            String identifier = typeName.getText().replace("`", "");
-            FHIRPathType type = FHIRPathType.from(identifier);
+            FHIRPathType type = getType(typeName);
             if (type == null) {
-                throw new IllegalArgumentException(String.format("Argument '%s' cannot be resolved to a valid type identifier", identifier));
+                throw new IllegalArgumentException(String.format("Argument '%s' cannot be resolved to a valid type identifier", typeName.getText().replace("`", "")));
             }
             for (FHIRPathNode node : getCurrentContext()) {
                 FHIRPathType nodeType = node.type();
@@ -425,8 +543,7 @@ public class FHIRPathEvaluator {
             }
 
             ExpressionContext typeName = arguments.iterator().next();
-            String identifier = typeName.getText().replace("`", "");
-            FHIRPathType type = FHIRPathType.from(identifier);
+            FHIRPathType type = getType(typeName);
             if (type == null) {
                 return SINGLETON_FALSE;
             }
@@ -440,10 +557,9 @@ public class FHIRPathEvaluator {
             }
             Collection<FHIRPathNode> result = new ArrayList<>();
             ExpressionContext typeName = arguments.get(0);
-            String identifier = typeName.getText().replace("`", "");
-            FHIRPathType type = FHIRPathType.from(identifier);
+            FHIRPathType type = getType(typeName);
             if (type == null) {
-                throw new IllegalArgumentException(String.format("Argument '%s' cannot be resolved to a valid type identifier", identifier));
+                throw new IllegalArgumentException(String.format("Argument '%s' cannot be resolved to a valid type identifier", typeName.getText().replace("`", "")));
             }
             for (FHIRPathNode node : getCurrentContext()) {
                 FHIRPathType nodeType = node.type();
@@ -1012,7 +1128,10 @@ public class FHIRPathEvaluator {
         @Override
         public Collection<FHIRPathNode> visitLiteralTerm(FHIRPathParser.LiteralTermContext ctx) {
             beforeEvaluation(ctx);
-            Collection<FHIRPathNode> result = LITERAL_CACHE.computeIfAbsent(ctx.getText(), t -> visitChildren(ctx));
+            Collection<FHIRPathNode> result = (compiledExpression != null) ? compiledExpression.getLiteral(ctx) : null;
+            if (result == null) {
+                result = LITERAL_CACHE.computeIfAbsent(ctx.getText(), t -> visitChildren(ctx));
+            }
             return afterEvaluation(ctx, result);
         }
 
@@ -1153,10 +1272,16 @@ public class FHIRPathEvaluator {
 
             String functionName = getString(visit(ctx.identifier()));
 
-            List<ExpressionContext> arguments = new ArrayList<ExpressionContext>();
-            ParamListContext paramList = ctx.paramList();
-            if (paramList != null) {
-                arguments.addAll(ctx.paramList().expression());
+            CompiledFunction compiledFunction = (compiledExpression != null) ? compiledExpression.getFunction(ctx) : null;
+            List<ExpressionContext> arguments;
+            if (compiledFunction != null) {
+                arguments = compiledFunction.getArguments();
+            } else {
+                arguments = new ArrayList<ExpressionContext>();
+                ParamListContext paramList = ctx.paramList();
+                if (paramList != null) {
+                    arguments.addAll(ctx.paramList().expression());
+                }
             }
 
             Collection<FHIRPathNode> currentContext = getCurrentContext();
@@ -1190,7 +1315,8 @@ public class FHIRPathEvaluator {
                 result = where(arguments);
                 break;
             default:
-                FHIRPathFunction function = FHIRPathFunction.registry().getFunction(functionName);
+                FHIRPathFunction function = (compiledFunction != null && compiledFunction.getFunction() != null) ?
+                        compiledFunction.getFunction() : FHIRPathFunction.registry().getFunction(functionName);
                 if (function == null) {
                     throw new IllegalArgumentException("Function: '" + functionName + "' not found");
                 }
@@ -1261,11 +1387,18 @@ public class FHIRPathEvaluator {
         @Override
         public Collection<FHIRPathNode> visitIdentifier(FHIRPathParser.IdentifierContext ctx) {
             beforeEvaluation(ctx);
-            String text = ctx.getText();
-            Collection<FHIRPathNode> result = IDENTIFIER_CACHE.computeIfAbsent(text, t -> singleton(stringValue(text.startsWith("`") ? text.substring(1, text.length() - 1) : text)));
+            Collection<FHIRPathNode> result = (compiledExpression != null) ? compiledExpression.getIdentifier(ctx) : null;
+            if (result == null) {
+                String text = ctx.getText();
+                result = IDENTIFIER_CACHE.computeIfAbsent(text, t -> singleton(stringValue(identifier(text))));
+            }
             return afterEvaluation(ctx, result);
         }
 
+        private static String identifier(String text) {
+            return text.startsWith("`") ? text.substring(1, text.length() - 1) : text;
+        }
+
         private String indent() {
             StringBuilder builder = new StringBuilder();
             for (int i = 0; i < indentLevel; i++) {
@@ -1301,6 +1434,129 @@ public class FHIRPathEvaluator {
         }
     }
 
+    /**
+     * An immutable, thread-safe FHIRPath expression which has been parsed and prepared for
+     * evaluation. Literal terms are evaluated once and shared, identifiers are pre-resolved,
+     * and function invocations have their argument lists and {@link FHIRPathFunction}
+     * implementations resolved ahead of time.
+     */
+    public static final class CompiledExpression {
+        private static final Set<String> TYPE_FUNCTIONS = new HashSet<>(Arrays.asList("as", "is", "ofType"));
+        private static final Set<String> BUILT_IN_FUNCTIONS = new HashSet<>(Arrays.asList("all", "as", "exists", "iif", "is", "ofType", "select", "trace", "where"));
+
+        private final String expression;
+        private final ExpressionContext expressionContext;
+
+        // pre-evaluated values, keyed by parse tree node
+        private final Map<ParseTree, Collection<FHIRPathNode>> literals = new IdentityHashMap<>();
+        private final Map<ParseTree, Collection<FHIRPathNode>> identifiers = new IdentityHashMap<>();
+        private final Map<ParseTree, CompiledFunction> functions = new IdentityHashMap<>();
+        private final Map<ParseTree, FHIRPathType> types = new IdentityHashMap<>();
+
+        private CompiledExpression(String expression) {
+            this.expression = expression;
+            this.expressionContext = FHIRPathUtil.compile(expression);
+            compile(expressionContext, new EvaluatingVisitor());
+        }
+
+        private void compile(ParseTree tree, EvaluatingVisitor folder) {
+            if (tree instanceof FHIRPathParser.LiteralTermContext) {
+                try {
+                    literals.put(tree, folder.fold((FHIRPathParser.LiteralTermContext) tree));
+                } catch (RuntimeException e) {
+                    // leave it to be reported if and when the literal is actually evaluated
+                    if (log.isLoggable(Level.FINE)) {
+                        log.log(Level.FINE, "Unable to fold literal '" + tree.getText() + "' in expression: " + expression, e);
+                    }
+                }
+            } else if (tree instanceof FHIRPathParser.IdentifierContext) {
+                identifiers.put(tree, singleton(stringValue(EvaluatingVisitor.identifier(tree.getText()))));
+            } else if (tree instanceof FHIRPathParser.FunctionContext) {
+                FHIRPathParser.FunctionContext ctx = (FHIRPathParser.FunctionContext) tree;
+                String functionName = EvaluatingVisitor.identifier(ctx.identifier().getText());
+                List<ExpressionContext> arguments = (ctx.paramList() != null) ?
+                        Collections.unmodifiableList(new ArrayList<>(ctx.paramList().expression())) : Collections.emptyList();
+                FHIRPathFunction function = BUILT_IN_FUNCTIONS.contains(functionName) ? null : FHIRPathFunction.registry().getFunction(functionName);
+                functions.put(tree, new CompiledFunction(arguments, function));
+                if (TYPE_FUNCTIONS.contains(functionName) && arguments.size() == 1) {
+                    ExpressionContext typeName = arguments.get(0);
+                    types.put(typeName, FHIRPathType.from(typeName.getText().replace("`", "")));
+                }
+            }
+            for (int i = 0; i < tree.getChildCount(); i++) {
+                compile(tree.getChild(i), folder);
+            }
+        }
+
+        /**
+         * Get the source text of this expression
+         *
+         * @return
+         *     the source text of this expression
+         */
+        public String getExpression() {
+            return expression;
+        }
+
+        /**
+         * Get the parse tree of this expression
+         *
+         * @return
+         *     the parse tree of this expression
+         */
+        public ExpressionContext getExpressionContext() {
+            return expressionContext;
+        }
+
+        private Collection<FHIRPathNode> getLiteral(ParseTree ctx) {
+            return literals.get(ctx);
+        }
+
+        private Collection<FHIRPathNode> getIdentifier(ParseTree ctx) {
+            return identifiers.get(ctx);
+        }
+
+        private CompiledFunction getFunction(ParseTree ctx) {
+            return functions.get(ctx);
+        }
+
+        private boolean hasType(ParseTree ctx) {
+            return types.containsKey(ctx);
+        }
+
+        private FHIRPathType getType(ParseTree ctx) {
+            return types.get(ctx);
+        }
+
+        @Override
+        public String toString() {
+            return expression;
+        }
+    }
+
+    /**
+     * A function invocation with its arguments and implementation resolved at compile time
+     */
+    private static final class CompiledFunction {
+        private final List<ExpressionContext> arguments;
+
+        // null for the functions implemented by the evaluator itself (e.g. where, select)
+        private final FHIRPathFunction function;
+
+        private CompiledFunction(List<ExpressionContext> arguments, FHIRPathFunction function) {
+            this.arguments = arguments;
+            this.function = function;
+        }
+
+        private List<ExpressionContext> getArguments() {
+            return arguments;
+        }
+
+        private FHIRPathFunction getFunction() {
+            return function;
+        }
+    }
+
     /**
      * A context object used to pass information to/from the FHIRPath evaluation engine
      */
@@ -1341,8 +1597,6 @@ public class FHIRPathEvaluator {
          */
         public EvaluationContext(Resource resource) {
             this(FHIRPathTree.tree(resource));
-            externalConstantMap.put("rootResource", singleton(tree.getRoot()));
-            externalConstantMap.put("resource", singleton(tree.getRoot()));
         }
 
         /**
@@ -1355,8 +1609,39 @@ public class FHIRPathEvaluator {
             this(FHIRPathTree.tree(element));
         }
 
-        private EvaluationContext(FHIRPathTree tree) {
+        /**
+         * Create an evaluation context for the passed FHIRPath tree, for example a lazy tree created with
+         * {@link FHIRPathTree#lazyTree(Resource)}.
+         * If the root of the tree is a resource node, then %resource and %rootResource external constants are set to it,
+         * but these can be overridden.
+         *
+         * @param tree
+         *     the FHIRPath tree
+         */
+        public EvaluationContext(FHIRPathTree tree) {
             this.tree = tree;
+            if (tree != null && tree.getRoot().isResourceNode()) {
+                externalConstantMap.put("rootResource", singleton(tree.getRoot()));
+                externalConstantMap.put("resource", singleton(tree.getRoot()));
+            }
+        }
+
+        /**
+         * Create an evaluation context with the same FHIRPath tree, external constants, evaluation listeners and
+         * resolve relative references indicator as the passed evaluation context, for example to evaluate
+         * expressions against the same tree from another thread.
+         *
+         * <p>Supplemental issues, the constraint currently under evaluation and cached function results are not copied.
+         * Evaluation listeners are shared and must be threadsafe if the contexts are used concurrently.
+         *
+         * @param evaluationContext
+         *     the evaluation context to copy
+         */
+        public EvaluationContext(EvaluationContext evaluationContext) {
+            this.tree = evaluationContext.tree;
+            this.externalConstantMap.putAll(evaluationContext.externalConstantMap);
+            this.listeners.addAll(evaluationContext.listeners);
+            this.resolveRelativeReferences = evaluationContext.resolveRelativeReferences;
         }
 
         /**
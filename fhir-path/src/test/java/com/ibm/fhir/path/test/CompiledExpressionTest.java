@@ -0,0 +1,82 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.path.test;
+
+import static com.ibm.fhir.path.evaluator.FHIRPathEvaluator.SINGLETON_TRUE;
+import static com.ibm.fhir.path.util.FHIRPathUtil.empty;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.path.FHIRPathNode;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator.CompiledExpression;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator.EvaluationContext;
+import com.ibm.fhir.path.exception.FHIRPathException;
+
+public class CompiledExpressionTest {
+    private static final String[] EXPRESSIONS = {
+        "1 + 2",
+        "(1 | 2 | 3).where($this > 1)",
+        "(1 | 2).select($this * 2)",
+        "1.is(Integer)",
+        "'abc'.ofType(String)",
+        "iif(true, 'x', 'y')",
+        "2.5 'mg'",
+        "@2020-01-01 < @2021-01-01"
+    };
+
+    @Test
+    public void testCompileReturnsCachedInstance() throws Exception {
+        CompiledExpression first = FHIRPathEvaluator.compile("1 + 2");
+        CompiledExpression second = FHIRPathEvaluator.compile("1 + 2");
+        assertSame(first, second);
+        assertEquals(first.getExpression(), "1 + 2");
+    }
+
+    @Test
+    public void testCompiledMatchesInterpreted() throws Exception {
+        FHIRPathEvaluator evaluator = FHIRPathEvaluator.evaluator();
+        for (String expr : EXPRESSIONS) {
+            Collection<FHIRPathNode> expected = evaluator.evaluate(expr);
+            Collection<FHIRPathNode> actual = evaluator.evaluate(new EvaluationContext(), FHIRPathEvaluator.compile(expr), empty());
+            assertEquals(new ArrayList<>(actual), new ArrayList<>(expected), expr);
+        }
+    }
+
+    @Test
+    public void testCompiledSharedAcrossThreads() throws Exception {
+        final CompiledExpression compiled = FHIRPathEvaluator.compile("(1 | 2 | 3).where($this > 1).exists() and 'a' + 'b' = 'ab'");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Collection<FHIRPathNode>>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                Callable<Collection<FHIRPathNode>> task = () -> FHIRPathEvaluator.evaluator().evaluate(new EvaluationContext(), compiled, empty());
+                futures.add(executor.submit(task));
+            }
+            for (Future<Collection<FHIRPathNode>> future : futures) {
+                assertEquals(new ArrayList<>(future.get()), new ArrayList<>(SINGLETON_TRUE));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = FHIRPathException.class)
+    public void testCompileInvalidExpression() throws Exception {
+        FHIRPathEvaluator.compile("1 +");
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.path.test;
+
+import static com.ibm.fhir.model.type.String.string;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.resource.Encounter;
+import com.ibm.fhir.model.resource.Observation;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.Base64Binary;
+import com.ibm.fhir.model.type.Code;
+import com.ibm.fhir.model.type.CodeableConcept;
+import com.ibm.fhir.model.type.Coding;
+import com.ibm.fhir.model.type.Date;
+import com.ibm.fhir.model.type.Decimal;
+import com.ibm.fhir.model.type.Extension;
+import com.ibm.fhir.model.type.HumanName;
+import com.ibm.fhir.model.type.Narrative;
+import com.ibm.fhir.model.type.Quantity;
+import com.ibm.fhir.model.type.Reference;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.Xhtml;
+import com.ibm.fhir.model.type.code.EncounterStatus;
+import com.ibm.fhir.model.type.code.NarrativeStatus;
+import com.ibm.fhir.model.type.code.ObservationStatus;
+import com.ibm.fhir.path.FHIRPathNode;
+import com.ibm.fhir.path.FHIRPathTree;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator.EvaluationContext;
+
+public class LazyFHIRPathTreeTest {
+    private static Observation observation() {
+        Patient patient = Patient.builder()
+                .id("p1")
+                .text(Narrative.builder()
+                    .status(NarrativeStatus.GENERATED)
+                    .div(Xhtml.of("<div xmlns=\"http://www.w3.org/1999/xhtml\">text</div>"))
+                    .build())
+                .extension(Extension.builder()
+                    .url("http://example.com/ext")
+                    .value(Base64Binary.builder().value(new byte[] { 1, 2, 3 }).build())
+                    .build())
+                .name(HumanName.builder().family(string("Doe")).given(string("John"), string("J")).build())
+                .name(HumanName.builder().family(string("Roe")).build())
+                .birthDate(Date.builder().id("bd").value("1970-01").build())
+                .build();
+        return Observation.builder()
+                .status(ObservationStatus.FINAL)
+                .contained(patient)
+                .code(CodeableConcept.builder()
+                    .coding(Coding.builder().system(Uri.of("http://loinc.org")).code(Code.of("29463-7")).build())
+                    .build())
+                .subject(Reference.builder().reference(string("#p1")).build())
+                .value(Quantity.builder()
+                    .value(Decimal.of(new BigDecimal("70.5")))
+                    .unit(string("kg"))
+                    .system(Uri.of("http://unitsofmeasure.org"))
+                    .code(Code.of("kg"))
+                    .build())
+                .build();
+    }
+
+    private static Encounter encounter() {
+        return Encounter.builder()
+                .status(EncounterStatus.FINISHED)
+                .clazz(Coding.builder().code(Code.of("AMB")).build())
+                .build();
+    }
+
+    @Test
+    public void testLazyTreeMatchesEagerTree() {
+        for (Resource resource : new Resource[] { observation(), encounter() }) {
+            FHIRPathTree lazyTree = FHIRPathTree.lazyTree(resource);
+            assertTrue(lazyTree.isLazy());
+            assertFalse(FHIRPathTree.tree(resource).isLazy());
+            assertSameStructure(lazyTree.getRoot(), FHIRPathTree.tree(resource).getRoot());
+        }
+    }
+
+    @Test
+    public void testGetNode() {
+        Observation observation = observation();
+        FHIRPathTree tree = FHIRPathTree.lazyTree(observation);
+
+        FHIRPathNode family = tree.getNode("Observation.contained[0].name[1].family");
+        assertNotNull(family);
+        assertEquals(family.path(), "Observation.contained[0].name[1].family");
+        assertEquals(tree.getParent(family).path(), "Observation.contained[0].name[1]");
+        assertSame(tree.getNode("Observation.contained[0].name[1].family"), family);
+
+        Encounter encounter = encounter();
+        String classPath = FHIRPathTree.tree(encounter).getRoot().children().stream()
+                .filter(child -> "class".equals(child.name()))
+                .findFirst().get().path();
+        assertNotNull(FHIRPathTree.lazyTree(encounter).getNode(classPath));
+        assertEquals(tree.getNode("Observation.bogus"), null);
+    }
+
+    @Test
+    public void testChildrenMemoized() {
+        FHIRPathNode root = FHIRPathTree.lazyTree(observation()).getRoot();
+        assertSame(root.children(), root.children());
+    }
+
+    @Test
+    public void testEvaluate() throws Exception {
+        FHIRPathEvaluator evaluator = FHIRPathEvaluator.evaluator();
+        Observation observation = observation();
+        String[] expressions = {
+            "Observation.value.as(Quantity)",
+            "Observation.contained.name.given",
+            "Observation.contained.birthDate",
+            "Observation.code.coding.where(system = 'http://loinc.org').code",
+            "%resource.status"
+        };
+        for (String expression : expressions) {
+            Collection<FHIRPathNode> expected = evaluator.evaluate(new EvaluationContext(observation), expression);
+            Collection<FHIRPathNode> actual = evaluator.evaluate(new EvaluationContext(FHIRPathTree.lazyTree(observation)), expression);
+            assertEquals(actual.size(), expected.size(), expression);
+            Iterator<FHIRPathNode> expectedIterator = expected.iterator();
+            for (FHIRPathNode node : actual) {
+                assertSameStructure(node, expectedIterator.next());
+            }
+        }
+    }
+
+    private static void assertSameStructure(FHIRPathNode actual, FHIRPathNode expected) {
+        assertEquals(actual.getClass(), expected.getClass(), expected.path());
+        assertEquals(actual.name(), expected.name(), expected.path());
+        assertEquals(actual.path(), expected.path());
+        assertEquals(actual.type(), expected.type(), expected.path());
+        assertEquals(actual.getValue(), expected.getValue(), expected.path());
+        if (actual.isSystemValue()) {
+            return;
+        }
+        List<FHIRPathNode> actualChildren = new ArrayList<>(actual.children());
+        List<FHIRPathNode> expectedChildren = new ArrayList<>(expected.children());
+        assertEquals(actualChildren.size(), expectedChildren.size(), expected.path());
+        for (int i = 0; i < actualChildren.size(); i++) {
+            assertSameStructure(actualChildren.get(i), expectedChildren.get(i));
+        }
+    }
+}
@@ -7,7 +7,6 @@
 package com.ibm.fhir.persistence.blob;
 
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -18,6 +17,7 @@ import com.ibm.fhir.model.resource.Resource;
 import com.ibm.fhir.persistence.FHIRPersistenceSupport;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
 import com.ibm.fhir.persistence.payload.FHIRPayloadPersistence;
+import com.ibm.fhir.persistence.payload.PayloadExecutors;
 import com.ibm.fhir.persistence.payload.PayloadPersistenceResponse;
 import com.ibm.fhir.persistence.payload.PayloadPersistenceResult;
 import com.ibm.fhir.persistence.payload.PayloadPersistenceResult.Status;
@@ -48,21 +48,23 @@ public class FHIRPayloadPersistenceBlobImpl implements FHIRPayloadPersistence {
     @Override
     public PayloadPersistenceResponse storePayload(String resourceType, int resourceTypeId, String logicalId, int version, String resourcePayloadKey, Resource resource)
         throws FHIRPersistenceException {
-        Future<PayloadPersistenceResult> result;
-        try {
-            // We leave compression to the storage platform, making it easier for other clients
-            // to read the resource data if they want
-            InputOutputByteStream ioStream = FHIRPersistenceSupport.render(resource, !PAYLOAD_COMPRESSED);
-            BlobStorePayload spl = new BlobStorePayload(resourceTypeId, logicalId, version, resourcePayloadKey, ioStream);
-            spl.run(getBlobContainerClient());
-
-            // TODO actual async behavior
-            result = CompletableFuture.completedFuture(new PayloadPersistenceResult(Status.OK));
-        } catch (Exception x) {
-            logger.log(Level.SEVERE, "storePayload failed for resource '" 
-        + resourceType + "[" + resourceTypeId + "]/" + logicalId + "/_history/" + version + "'", x);
-            result = CompletableFuture.completedFuture(new PayloadPersistenceResult(Status.FAILED));
-        }
+        // Get the container client on the request thread, then hand the write off
+        // to the payload write pool so that it overlaps with the RDBMS work
+        final BlobManagedContainer client = getBlobContainerClient();
+        Future<PayloadPersistenceResult> result = PayloadExecutors.submitWrite(() -> {
+            try {
+                // We leave compression to the storage platform, making it easier for other clients
+                // to read the resource data if they want
+                InputOutputByteStream ioStream = FHIRPersistenceSupport.render(resource, !PAYLOAD_COMPRESSED);
+                BlobStorePayload spl = new BlobStorePayload(resourceTypeId, logicalId, version, resourcePayloadKey, ioStream);
+                spl.run(client);
+                return new PayloadPersistenceResult(Status.OK);
+            } catch (Exception x) {
+                logger.log(Level.SEVERE, "storePayload failed for resource '"
+                        + resourceType + "[" + resourceTypeId + "]/" + logicalId + "/_history/" + version + "'", x);
+                return new PayloadPersistenceResult(Status.FAILED);
+            }
+        });
         return new PayloadPersistenceResponse(resourcePayloadKey, resourceType, resourceTypeId, logicalId, version, result);
     }
 
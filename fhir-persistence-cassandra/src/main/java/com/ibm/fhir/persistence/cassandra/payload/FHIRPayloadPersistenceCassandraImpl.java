@@ -7,7 +7,6 @@
 package com.ibm.fhir.persistence.cassandra.payload;
 
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -24,6 +23,7 @@ import com.ibm.fhir.persistence.cassandra.cql.DatasourceSessions;
 import com.ibm.fhir.persistence.cassandra.cql.TenantDatasourceKey;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
 import com.ibm.fhir.persistence.payload.FHIRPayloadPersistence;
+import com.ibm.fhir.persistence.payload.PayloadExecutors;
 import com.ibm.fhir.persistence.payload.PayloadPersistenceResponse;
 import com.ibm.fhir.persistence.payload.PayloadPersistenceResult;
 import com.ibm.fhir.persistence.payload.PayloadPersistenceResult.Status;
@@ -62,22 +62,20 @@ public class FHIRPayloadPersistenceCassandraImpl implements FHIRPayloadPersisten
     @Override
     public PayloadPersistenceResponse storePayload(String resourceType, int resourceTypeId, String logicalId, int version, String resourcePayloadKey, Resource resource)
         throws FHIRPersistenceException {
-        Future<PayloadPersistenceResult> result;
-
-        final CassandraPropertyGroupAdapter config = getConfigAdapter();
-        try (CqlSession session = getCqlSession()) {
-            // Get the IO stream for the rendered resource.
-            InputOutputByteStream ioStream = FHIRPersistenceSupport.render(resource, PAYLOAD_COMPRESSED);
-            CqlStorePayload spl = new CqlStorePayload(resourceTypeId, logicalId, version, resourcePayloadKey, ioStream);
-            spl.run(session);
-
-            // TODO actual async behavior
-            result = CompletableFuture.completedFuture(new PayloadPersistenceResult(Status.OK));
-        } catch (Exception x) {
-            logger.log(Level.SEVERE, "storePayload failed for resource '" 
-        + resourceType + "[" + resourceTypeId + "]/" + logicalId + "/_history/" + version + "'", x);
-            result = CompletableFuture.completedFuture(new PayloadPersistenceResult(Status.FAILED));
-        }
+        // Hand the write off to the payload write pool so that it overlaps with the RDBMS work
+        Future<PayloadPersistenceResult> result = PayloadExecutors.submitWrite(() -> {
+            try (CqlSession session = getCqlSession()) {
+                // Get the IO stream for the rendered resource.
+                InputOutputByteStream ioStream = FHIRPersistenceSupport.render(resource, PAYLOAD_COMPRESSED);
+                CqlStorePayload spl = new CqlStorePayload(resourceTypeId, logicalId, version, resourcePayloadKey, ioStream);
+                spl.run(session);
+                return new PayloadPersistenceResult(Status.OK);
+            } catch (Exception x) {
+                logger.log(Level.SEVERE, "storePayload failed for resource '"
+                        + resourceType + "[" + resourceTypeId + "]/" + logicalId + "/_history/" + version + "'", x);
+                return new PayloadPersistenceResult(Status.FAILED);
+            }
+        });
         return new PayloadPersistenceResponse(resourcePayloadKey, resourceType, resourceTypeId, logicalId, version, result);
     }
 
@@ -7,7 +7,6 @@
 package com.ibm.fhir.persistence.cos.payload;
 
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -22,6 +21,7 @@ import com.ibm.fhir.persistence.cos.client.CosPropertyGroupAdapter;
 import com.ibm.fhir.persistence.cos.impl.COSClientManager;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
 import com.ibm.fhir.persistence.payload.FHIRPayloadPersistence;
+import com.ibm.fhir.persistence.payload.PayloadExecutors;
 import com.ibm.fhir.persistence.payload.PayloadPersistenceResponse;
 import com.ibm.fhir.persistence.payload.PayloadPersistenceResult;
 import com.ibm.fhir.persistence.payload.PayloadPersistenceResult.Status;
@@ -39,27 +39,29 @@ public class FHIRPayloadPersistenceCosImpl implements FHIRPayloadPersistence {
     @Override
     public PayloadPersistenceResponse storePayload(String resourceTypeName, int resourceTypeId, String logicalId, int version, String resourcePayloadKey, Resource resource)
         throws FHIRPersistenceException {
-        long start = System.nanoTime();
-
         COSPayloadClient cpc = COSClientManager.getClientForTenantDatasource();
 
-        Future<PayloadPersistenceResult> result;
         final String objectName = makeObjectName(resourceTypeId, logicalId, version, resourcePayloadKey);
-        try {
-            // Render the object to a byte-stream but don't compress when storing in Cos
-            // (although this could be made a configurable option if we want)
-            InputOutputByteStream ioStream = FHIRPersistenceSupport.render(resource, false);
-            cpc.write(objectName, ioStream);
-            
-            result = CompletableFuture.completedFuture(new PayloadPersistenceResult(Status.OK));
-        } catch (Exception x) {
-            result = CompletableFuture.completedFuture(new PayloadPersistenceResult(Status.FAILED));
-        } finally {
-            if (logger.isLoggable(Level.FINE)) {
-                long elapsed = System.nanoTime() - start;
-                logger.fine(String.format("Wrote resource payload to COS: '%s/%s/%d' [took %5.3f s]", resourceTypeName, logicalId, version, elapsed/1e9));
+
+        // Hand the write off to the payload write pool so that it overlaps with the RDBMS work
+        Future<PayloadPersistenceResult> result = PayloadExecutors.submitWrite(() -> {
+            final long start = System.nanoTime();
+            try {
+                // Render the object to a byte-stream but don't compress when storing in Cos
+                // (although this could be made a configurable option if we want)
+                InputOutputByteStream ioStream = FHIRPersistenceSupport.render(resource, false);
+                cpc.write(objectName, ioStream);
+                return new PayloadPersistenceResult(Status.OK);
+            } catch (Exception x) {
+                logger.log(Level.SEVERE, "Failed to write payload to COS: '" + objectName + "'", x);
+                return new PayloadPersistenceResult(Status.FAILED);
+            } finally {
+                if (logger.isLoggable(Level.FINE)) {
+                    long elapsed = System.nanoTime() - start;
+                    logger.fine(String.format("Wrote resource payload to COS: '%s/%s/%d' [took %5.3f s]", resourceTypeName, logicalId, version, elapsed/1e9));
+                }
             }
-        }
+        });
         PayloadPersistenceResponse response = new PayloadPersistenceResponse(resourcePayloadKey, resourceTypeName, resourceTypeId, logicalId, version, result);
         return response;
     }
@@ -1,11 +1,14 @@
 /*
- * (C) Copyright IBM Corp. 2020, 2021
+ * (C) Copyright IBM Corp. 2020, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 
 package com.ibm.fhir.persistence.jdbc;
 
+import java.util.List;
+
+import com.ibm.fhir.cache.CacheStatistics;
 import com.ibm.fhir.persistence.jdbc.dao.api.ICommonTokenValuesCache;
 import com.ibm.fhir.persistence.jdbc.dao.api.IIdNameCache;
 import com.ibm.fhir.persistence.jdbc.dao.api.INameIdCache;
@@ -62,4 +65,10 @@ public interface FHIRPersistenceJDBCCache {
      * held in thread-local caches
      */
     public void transactionRolledBack();
-}
\ No newline at end of file
+
+    /**
+     * Get a snapshot of the size and hit/miss statistics of the shared caches
+     * @return
+     */
+    List<CacheStatistics> getCacheStatistics();
+}
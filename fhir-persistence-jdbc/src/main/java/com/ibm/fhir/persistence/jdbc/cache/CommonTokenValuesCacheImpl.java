@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2020, 2021
+ * (C) Copyright IBM Corp. 2020, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -14,6 +14,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.ibm.fhir.cache.CacheStatistics;
+import com.ibm.fhir.cache.util.CacheSupport;
 import com.ibm.fhir.persistence.jdbc.dao.api.ICommonTokenValuesCache;
 import com.ibm.fhir.persistence.jdbc.dao.impl.ResourceProfileRec;
 import com.ibm.fhir.persistence.jdbc.dao.impl.ResourceTokenValueRec;
@@ -22,7 +25,13 @@ import com.ibm.fhir.persistence.jdbc.dto.CommonTokenValue;
 
 /**
  * Implementation of a cache used for lookups of entities related
- * to local and external resource references
+ * to local and external resource references.
+ *
+ * The shared caches are bounded Caffeine caches, so lookups from concurrent
+ * requests don't contend on a lock. Values are staged in thread-local maps and
+ * only published to the shared caches by {@link #updateSharedMaps()} after the
+ * transaction commits, so ids generated by a transaction which is later rolled
+ * back are never seen by other threads.
  */
 public class CommonTokenValuesCacheImpl implements ICommonTokenValuesCache {
 
@@ -35,14 +44,19 @@ public class CommonTokenValuesCacheImpl implements ICommonTokenValuesCache {
     // thread-local cache of canonicals
     private final ThreadLocal<LinkedHashMap<String, Integer>> canonicalValues = new ThreadLocal<>();
 
-    // The lru code systems cache shared at the server level
-    private final LRUCache<String, Integer> codeSystemsCache;
+    // Names used to report the statistics for each of the shared caches
+    public static final String CODE_SYSTEMS_CACHE = "codeSystems";
+    public static final String TOKEN_VALUES_CACHE = "tokenValues";
+    public static final String CANONICAL_VALUES_CACHE = "canonicalValues";
+
+    // The code systems cache shared at the server level
+    private final Cache<String, Integer> codeSystemsCache;
 
-    // The lru token values cache shared at the server level
-    private final LRUCache<CommonTokenValue, Long> tokenValuesCache;
+    // The token values cache shared at the server level
+    private final Cache<CommonTokenValue, Long> tokenValuesCache;
 
-    // The lru canonical values cache shared at the server level
-    private final LRUCache<String, Integer> canonicalValuesCache;
+    // The canonical values cache shared at the server level
+    private final Cache<String, Integer> canonicalValuesCache;
 
     /**
      * Public constructor
@@ -52,24 +66,23 @@ public class CommonTokenValuesCacheImpl implements ICommonTokenValuesCache {
      */
     public CommonTokenValuesCacheImpl(int codeSystemCacheSize, int tokenValueCacheSize, int canonicalCacheSize) {
 
-        // LRU cache for quick lookup of code-systems and token-values
-        codeSystemsCache = new LRUCache<>(codeSystemCacheSize);
-        tokenValuesCache = new LRUCache<>(tokenValueCacheSize);
-        canonicalValuesCache = new LRUCache<>(canonicalCacheSize);
+        // Bounded caches for quick lookup of code-systems and token-values. We record
+        // stats so that the hit/miss ratio can be used to tune the configured sizes
+        codeSystemsCache = CacheSupport.createCache(codeSystemCacheSize, true);
+        tokenValuesCache = CacheSupport.createCache(tokenValueCacheSize, true);
+        canonicalValuesCache = CacheSupport.createCache(canonicalCacheSize, true);
     }
 
     /**
      * Called after a transaction commit() to transfer all the staged (thread-local) data
-     * over to the shared LRU cache.
+     * over to the shared caches.
      */
     @Override
     public void updateSharedMaps() {
 
         LinkedHashMap<String,Integer> sysMap = codeSystems.get();
         if (sysMap != null) {
-            synchronized(this.codeSystemsCache) {
-                codeSystemsCache.update(sysMap);
-            }
+            codeSystemsCache.putAll(sysMap);
 
             // clear the thread-local cache
             sysMap.clear();
@@ -77,9 +90,7 @@ public class CommonTokenValuesCacheImpl implements ICommonTokenValuesCache {
 
         LinkedHashMap<CommonTokenValue,Long> valMap = commonTokenValues.get();
         if (valMap != null) {
-            synchronized(this.tokenValuesCache) {
-                tokenValuesCache.update(valMap);
-            }
+            tokenValuesCache.putAll(valMap);
 
             // clear the thread-local cache
             valMap.clear();
@@ -87,9 +98,7 @@ public class CommonTokenValuesCacheImpl implements ICommonTokenValuesCache {
 
         LinkedHashMap<String,Integer> canMap = canonicalValues.get();
         if (canMap != null) {
-            synchronized(this.canonicalValuesCache) {
-                canonicalValuesCache.update(canMap);
-            }
+            canonicalValuesCache.putAll(canMap);
 
             // clear the thread-local cache
             canMap.clear();
@@ -111,9 +120,7 @@ public class CommonTokenValuesCacheImpl implements ICommonTokenValuesCache {
         }
 
         // See if it's in the shared cache
-        synchronized (this.codeSystemsCache) {
-            result = codeSystemsCache.get(codeSystem);
-        }
+        result = codeSystemsCache.getIfPresent(codeSystem);
 
         if (result != null) {
             // We found it in the shared cache, so update our thread-local
@@ -152,20 +159,18 @@ public class CommonTokenValuesCacheImpl implements ICommonTokenValuesCache {
             }
         }
 
-        // If we still have keys to find, look them up in the shared cache (which we need to lock first)
+        // If we still have keys to find, look them up in the shared cache
         if (needToFindSystems.size() > 0) {
-            synchronized (this.codeSystemsCache) {
-                for (ResourceTokenValueRec xr: needToFindSystems) {
-                    Integer id = codeSystemsCache.get(xr.getCodeSystemValue());
-                    if (id != null) {
-                        xr.setCodeSystemValueId(id);
-
-                        // Update the local cache with this value
-                        addCodeSystem(xr.getCodeSystemValue(), id);
-                    } else {
-                        // cache miss so add this record to the miss list for further processing
-                        misses.add(xr);
-                    }
+            for (ResourceTokenValueRec xr: needToFindSystems) {
+                Integer id = codeSystemsCache.getIfPresent(xr.getCodeSystemValue());
+                if (id != null) {
+                    xr.setCodeSystemValueId(id);
+
+                    // Update the local cache with this value
+                    addCodeSystem(xr.getCodeSystemValue(), id);
+                } else {
+                    // cache miss so add this record to the miss list for further processing
+                    misses.add(xr);
                 }
             }
         }
@@ -200,21 +205,19 @@ public class CommonTokenValuesCacheImpl implements ICommonTokenValuesCache {
             }
         }
 
-        // If we still have keys to find, look them up in the shared cache (which we need to lock first)
+        // If we still have keys to find, look them up in the shared cache
         if (needToFindValues.size() > 0) {
-            synchronized (this.tokenValuesCache) {
-                for (ResourceTokenValueRec tv: needToFindValues) {
-                    CommonTokenValue key = new CommonTokenValue(tv.getCodeSystemValue(), tv.getCodeSystemValueId(), tv.getTokenValue());
-                    Long id = tokenValuesCache.get(key);
-                    if (id != null) {
-                        tv.setCommonTokenValueId(id);
-
-                        // Update the local cache with this value
-                        addTokenValue(key, id);
-                    } else {
-                        // cache miss so add this record to the miss list for further processing
-                        misses.add(tv);
-                    }
+            for (ResourceTokenValueRec tv: needToFindValues) {
+                CommonTokenValue key = new CommonTokenValue(tv.getCodeSystemValue(), tv.getCodeSystemValueId(), tv.getTokenValue());
+                Long id = tokenValuesCache.getIfPresent(key);
+                if (id != null) {
+                    tv.setCommonTokenValueId(id);
+
+                    // Update the local cache with this value
+                    addTokenValue(key, id);
+                } else {
+                    // cache miss so add this record to the miss list for further processing
+                    misses.add(tv);
                 }
             }
         }
@@ -248,20 +251,18 @@ public class CommonTokenValuesCacheImpl implements ICommonTokenValuesCache {
             }
         }
 
-        // If we still have keys to find, look them up in the shared cache (which we need to lock first)
+        // If we still have keys to find, look them up in the shared cache
         if (needToFind.size() > 0) {
-            synchronized (this.canonicalValuesCache) {
-                for (ResourceProfileRec xr: needToFind) {
-                    Integer id = canonicalValuesCache.get(xr.getCanonicalValue());
-                    if (id != null) {
-                        xr.setCanonicalValueId(id);
-
-                        // Update the local cache with this value
-                        addCanonicalValue(xr.getCanonicalValue(), id);
-                    } else {
-                        // cache miss so add this record to the miss list for further processing
-                        misses.add(xr);
-                    }
+            for (ResourceProfileRec xr: needToFind) {
+                Integer id = canonicalValuesCache.getIfPresent(xr.getCanonicalValue());
+                if (id != null) {
+                    xr.setCanonicalValueId(id);
+
+                    // Update the local cache with this value
+                    addCanonicalValue(xr.getCanonicalValue(), id);
+                } else {
+                    // cache miss so add this record to the miss list for further processing
+                    misses.add(xr);
                 }
             }
         }
@@ -317,17 +318,9 @@ public class CommonTokenValuesCacheImpl implements ICommonTokenValuesCache {
         canonicalValues.remove();
 
         // clear the shared caches too
-        synchronized (this.codeSystemsCache) {
-            this.codeSystemsCache.clear();
-        }
-
-        synchronized (this.tokenValuesCache) {
-            this.tokenValuesCache.clear();
-        }
-
-        synchronized (this.canonicalValuesCache) {
-            this.canonicalValuesCache.clear();
-        }
+        this.codeSystemsCache.invalidateAll();
+        this.tokenValuesCache.invalidateAll();
+        this.canonicalValuesCache.invalidateAll();
     }
 
     @Override
@@ -355,9 +348,7 @@ public class CommonTokenValuesCacheImpl implements ICommonTokenValuesCache {
 
     @Override
     public void prefillCodeSystems(Map<String, Integer> codeSystems) {
-        synchronized(codeSystemsCache) {
-            codeSystemsCache.putAll(codeSystems);
-        }
+        codeSystemsCache.putAll(codeSystems);
     }
 
     @Override
@@ -373,12 +364,10 @@ public class CommonTokenValuesCacheImpl implements ICommonTokenValuesCache {
             result = valMap != null ? valMap.get(key) : null;
             if (result == null) {
                 // not found in the local cache, try the shared cache
-                synchronized (tokenValuesCache) {
-                    result = tokenValuesCache.get(key);
-                }
+                result = tokenValuesCache.getIfPresent(key);
 
                 if (result != null) {
-                    // add to the local cache so we can find it again without locking
+                    // add to the local cache so we can find it again
                     addTokenValue(key, result);
                 }
             }
@@ -404,12 +393,10 @@ public class CommonTokenValuesCacheImpl implements ICommonTokenValuesCache {
             Long tokenValueId = valMap != null ? valMap.get(token) : null;
             if (tokenValueId == null) {
                 // not found in the local cache, try the shared cache
-                synchronized (tokenValuesCache) {
-                    tokenValueId = tokenValuesCache.get(token);
-                }
+                tokenValueId = tokenValuesCache.getIfPresent(token);
 
                 if (tokenValueId != null) {
-                    // add to the local cache so we can find it again without locking
+                    // add to the local cache so we can find it again
                     addTokenValue(token, tokenValueId);
                 }
             }
@@ -432,16 +419,23 @@ public class CommonTokenValuesCacheImpl implements ICommonTokenValuesCache {
         result = valMap != null ? valMap.get(canonicalValue) : null;
         if (result == null) {
             // not found in the local cache, try the shared cache
-            synchronized (canonicalValuesCache) {
-                result = canonicalValuesCache.get(canonicalValue);
-            }
+            result = canonicalValuesCache.getIfPresent(canonicalValue);
 
             if (result != null) {
-                // add to the local cache so we can find it again without locking
+                // add to the local cache so we can find it again
                 addCanonicalValue(canonicalValue, result);
             }
         }
 
         return result;
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<CacheStatistics> getCacheStatistics() {
+        List<CacheStatistics> result = new ArrayList<>(3);
+        result.add(CacheStatistics.of(CODE_SYSTEMS_CACHE, codeSystemsCache));
+        result.add(CacheStatistics.of(TOKEN_VALUES_CACHE, tokenValuesCache));
+        result.add(CacheStatistics.of(CANONICAL_VALUES_CACHE, canonicalValuesCache));
+        return result;
+    }
+}
@@ -1,14 +1,17 @@
 /*
- * (C) Copyright IBM Corp. 2020, 2021
+ * (C) Copyright IBM Corp. 2020, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 
 package com.ibm.fhir.persistence.jdbc.cache;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
+import com.ibm.fhir.cache.CacheStatistics;
 import com.ibm.fhir.persistence.jdbc.FHIRPersistenceJDBCCache;
 import com.ibm.fhir.persistence.jdbc.dao.api.ICommonTokenValuesCache;
 import com.ibm.fhir.persistence.jdbc.dao.api.IIdNameCache;
@@ -20,6 +23,10 @@ import com.ibm.fhir.persistence.jdbc.dao.api.INameIdCache;
 public class FHIRPersistenceJDBCCacheImpl implements FHIRPersistenceJDBCCache {
     private static final Logger logger = Logger.getLogger(FHIRPersistenceJDBCCacheImpl.class.getName());
 
+    public static final String RESOURCE_TYPES_CACHE = "resourceTypes";
+    public static final String RESOURCE_TYPE_NAMES_CACHE = "resourceTypeNames";
+    public static final String PARAMETER_NAMES_CACHE = "parameterNames";
+
     private final INameIdCache<Integer> resourceTypeCache;
 
     private final IIdNameCache<Integer> resourceTypeNameCache;
@@ -105,4 +112,14 @@ public class FHIRPersistenceJDBCCacheImpl implements FHIRPersistenceJDBCCache {
     public void clearNeedToPrefill() {
         needToPrefillFlag.set(false);
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<CacheStatistics> getCacheStatistics() {
+        List<CacheStatistics> result = new ArrayList<>();
+        result.add(resourceTypeCache.getCacheStatistics(RESOURCE_TYPES_CACHE));
+        result.add(resourceTypeNameCache.getCacheStatistics(RESOURCE_TYPE_NAMES_CACHE));
+        result.add(parameterNameCache.getCacheStatistics(PARAMETER_NAMES_CACHE));
+        result.addAll(resourceReferenceCache.getCacheStatistics());
+        return result;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -10,7 +10,9 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+import com.ibm.fhir.cache.CacheStatistics;
 import com.ibm.fhir.persistence.jdbc.dao.api.IIdNameCache;
 
 
@@ -24,6 +26,10 @@ public class IdNameCache<T> implements IIdNameCache<T> {
     
     // The cache shared at the server level
     private final ConcurrentHashMap<T,String> shared = new ConcurrentHashMap<>();
+
+    // Lookups which did or did not find an entry
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
     
     /**
      * Public constructor
@@ -53,6 +59,12 @@ public class IdNameCache<T> implements IIdNameCache<T> {
         if (result == null) {
             result = shared.get(key);
         }
+
+        if (result != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
         return result;
     }
 
@@ -100,4 +112,9 @@ public class IdNameCache<T> implements IIdNameCache<T> {
         // we can add it directly to the shared map
         this.shared.putAll(content);
     }
-}
\ No newline at end of file
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return CacheStatistics.of(cacheName, shared.size(), hitCount.sum(), missCount.sum());
+    }
+}
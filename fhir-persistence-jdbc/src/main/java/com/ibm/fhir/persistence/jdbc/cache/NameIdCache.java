@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2020, 2021
+ * (C) Copyright IBM Corp. 2020, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -10,7 +10,9 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+import com.ibm.fhir.cache.CacheStatistics;
 import com.ibm.fhir.persistence.jdbc.dao.api.INameIdCache;
 
 
@@ -25,6 +27,10 @@ public class NameIdCache<T> implements INameIdCache<T> {
     
     // The cache shared at the server level
     private final ConcurrentHashMap<String, T> shared = new ConcurrentHashMap<>();
+
+    // Lookups which did or did not find an entry
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
     
     /**
      * Public constructor
@@ -54,6 +60,12 @@ public class NameIdCache<T> implements INameIdCache<T> {
         if (result == null) {
             result = shared.get(key);
         }
+
+        if (result != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
         return result;
     }
 
@@ -101,4 +113,9 @@ public class NameIdCache<T> implements INameIdCache<T> {
         // we can add it directly to the shared map
         this.shared.putAll(content);
     }
-}
\ No newline at end of file
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return CacheStatistics.of(cacheName, shared.size(), hitCount.sum(), missCount.sum());
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2020, 2021
+ * (C) Copyright IBM Corp. 2020, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.ibm.fhir.cache.CacheStatistics;
 import com.ibm.fhir.persistence.jdbc.dao.impl.ResourceProfileRec;
 import com.ibm.fhir.persistence.jdbc.dao.impl.ResourceTokenValueRec;
 import com.ibm.fhir.persistence.jdbc.dto.CommonTokenValue;
@@ -29,7 +30,7 @@ public interface ICommonTokenValuesCache {
 
     /**
      * Take the records we've touched in the current thread and update the
-     * shared LRU maps.
+     * shared maps.
      */
     void updateSharedMaps();
 
@@ -131,4 +132,10 @@ public interface ICommonTokenValuesCache {
      * @return
      */
     Integer getCanonicalId(String url);
+
+    /**
+     * Get a snapshot of the size and hit/miss statistics for each of the shared caches
+     * @return
+     */
+    List<CacheStatistics> getCacheStatistics();
 }
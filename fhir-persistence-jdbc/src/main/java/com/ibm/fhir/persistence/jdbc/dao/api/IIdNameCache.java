@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -9,6 +9,8 @@ package com.ibm.fhir.persistence.jdbc.dao.api;
 import java.util.Collection;
 import java.util.Map;
 
+import com.ibm.fhir.cache.CacheStatistics;
+
 /**
  * Interface to a cache mapping an id of type T to a string. Supports
  * thread-local caching to support temporary staging of values pending
@@ -59,4 +61,11 @@ public interface IIdNameCache<T> {
      * @param content
      */
     void prefill(Map<T,String> content);
-}
\ No newline at end of file
+
+    /**
+     * Get a snapshot of the size of the shared cache and the number of lookups which did or did not find an entry
+     * @param cacheName the name to report the statistics under
+     * @return
+     */
+    CacheStatistics getCacheStatistics(String cacheName);
+}
@@ -36,6 +36,20 @@ public interface ResourceDAO extends FHIRDbDAO {
     Resource read(String logicalId, String resourceType)
             throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException;
 
+    /**
+     * Reads and returns the latest version of each Resource with the passed logical ids and resource type
+     * using a single query. Logical ids which do not match an existing resource are simply absent from the
+     * returned list. The order of the returned list is arbitrary. The payload data is not included, so
+     * it must be fetched separately for the resource ids of the returned versions.
+     * @param logicalIds
+     * @param resourceType
+     * @return List<Resource> - The most recent version of each matching Resource
+     * @throws FHIRPersistenceDataAccessException
+     * @throws FHIRPersistenceDBConnectException
+     */
+    List<Resource> readMany(List<String> logicalIds, String resourceType)
+            throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException;
+
     /**
      * Reads and returns the version of the Resource with the passed logical id, resource type, and version id.
      * If no matching resource is found, null is returned.
@@ -63,6 +77,23 @@ public interface ResourceDAO extends FHIRDbDAO {
     List<Resource> history(String resourceType, String logicalId, Timestamp fromDateTime, int offset, int maxResults)
             throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException;
 
+    /**
+     * Reads and returns the versions of the Resource with the passed logicalId which are older than the passed
+     * versionId, ordered by descending version id. This is the keyset (seek) equivalent of
+     * {@link #history(String, String, Timestamp, int, int)}: the page starts directly after the last version
+     * of the previous page, without skipping over the rows of all previous pages.
+     * @param resourceType - The name of a FHIR Resource type
+     * @param logicalId - The logical id of a FHIR Resource
+     * @param fromDateTime - The starting date/time of the version history.
+     * @param versionId - The version id of the last version of the previous page
+     * @param maxResults - The maximum number of versions to return
+     * @return List<Resource> - An ordered list of Resource versions.
+     * @throws FHIRPersistenceDataAccessException
+     * @throws FHIRPersistenceDBConnectException
+     */
+    List<Resource> historyBeforeVersion(String resourceType, String logicalId, Timestamp fromDateTime, int versionId, int maxResults)
+            throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException;
+
     /**
      * Reads and returns the COUNT of all versions of the Resource with the passed logicalId.
      * If non-null, the passed fromDateTime is used to limit the count of Resource versions to those that were updated after the fromDateTime.
@@ -127,6 +158,15 @@ public interface ResourceDAO extends FHIRDbDAO {
      */
     int searchCount(Select countQuery) throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException;
 
+    /**
+     * Asks the database planner for an estimate of the count returned by the passed {@link Select} statement, without executing it.
+     * @param countQuery - Contains a search string and (optionally) bind variables.
+     * @return Integer The estimated count of FHIR Resources satisfying the passed search, or null if the database can't provide an estimate.
+     * @throws FHIRPersistenceDataAccessException
+     * @throws FHIRPersistenceDBConnectException
+     */
+    Integer searchCountEstimate(Select countQuery) throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException;
+
     /**
      * Executes the passed fully-formed SQL Select COUNT statement and returns the integer count.
      *
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -76,7 +76,7 @@ public class FetchPayloadsForIdsDAO {
         // We already did the deleted check when performing the initial scan for resource-ids
         // so this query does not need to include the deleted check by design - it won't change
         // for this resource version. Ordering is not important (because it is arbitrary anyway)
-        query.append("SELECT lr.logical_id, r.resource_id, r.data FROM ");
+        query.append("SELECT lr.logical_id, r.last_updated, r.resource_id, r.data FROM ");
         query.append(schemaName).append(DOT).append(rTableName).append(" AS r, ");
         query.append(schemaName).append(DOT).append(lrTableName).append(" AS lr ");
         query.append(" WHERE lr.logical_resource_id = r.logical_resource_id "); // join to parent PK
@@ -107,10 +107,15 @@ public class FetchPayloadsForIdsDAO {
                 // and just handing back the uncompressed stream. By avoiding deserialization/serialization,
                 // we can save a ton of CPU. The stream is closed by ResultSet (according to the docs). ResultSet
                 // will be closed when the PreparedStatement is closed
+                InputStream data = rs.getBinaryStream(4);
+                if (data == null) {
+                    // the payload of an erased version is no longer available
+                    continue;
+                }
                 String logicalId = rs.getString(1);
                 Instant lastUpdated = rs.getTimestamp(2, CalendarHelper.getCalendarForUTC()).toInstant();
                 long resourceId = rs.getLong(3);
-                InputStream is = new GZIPInputStream(rs.getBinaryStream(4));
+                InputStream is = new GZIPInputStream(data);
                 ResourcePayload rp =  new ResourcePayload(logicalId, lastUpdated, resourceId, is);
                 consumer.accept(rp);
             }
@@ -84,6 +84,11 @@ public class ResourceDAOImpl extends FHIRDbDAOImpl implements ResourceDAO {
             "FROM %s_RESOURCES R, %s_LOGICAL_RESOURCES LR WHERE " +
             "LR.LOGICAL_ID = ? AND R.RESOURCE_ID = LR.CURRENT_RESOURCE_ID";
 
+    // Read the latest version of a list of resources. The IN list bind markers are added per call
+    private static final String SQL_READ_MANY = "SELECT R.RESOURCE_ID, R.LOGICAL_RESOURCE_ID, R.VERSION_ID, R.LAST_UPDATED, R.IS_DELETED, CAST(NULL AS BLOB) AS DATA, LR.LOGICAL_ID, R.RESOURCE_PAYLOAD_KEY " +
+            "FROM %s_RESOURCES R, %s_LOGICAL_RESOURCES LR WHERE " +
+            "LR.LOGICAL_ID IN (%s) AND R.RESOURCE_ID = LR.CURRENT_RESOURCE_ID";
+
     // Read a specific version of the resource
     private static final String SQL_VERSION_READ =
             "SELECT R.RESOURCE_ID, R.LOGICAL_RESOURCE_ID, R.VERSION_ID, R.LAST_UPDATED, R.IS_DELETED, R.DATA, LR.LOGICAL_ID, R.RESOURCE_PAYLOAD_KEY " +
@@ -114,6 +119,18 @@ public class ResourceDAOImpl extends FHIRDbDAOImpl implements ResourceDAO {
                     "LR.LOGICAL_ID = ? AND R.LAST_UPDATED >= ? AND R.LOGICAL_RESOURCE_ID = LR.LOGICAL_RESOURCE_ID " +
                     "ORDER BY R.VERSION_ID DESC ";
 
+    private static final String SQL_HISTORY_BEFORE_VERSION =
+            "SELECT R.RESOURCE_ID, R.LOGICAL_RESOURCE_ID, R.VERSION_ID, R.LAST_UPDATED, R.IS_DELETED, R.DATA, LR.LOGICAL_ID, R.RESOURCE_PAYLOAD_KEY " +
+                    "FROM %s_RESOURCES R, %s_LOGICAL_RESOURCES LR WHERE " +
+                    "LR.LOGICAL_ID = ? AND R.VERSION_ID < ? AND R.LOGICAL_RESOURCE_ID = LR.LOGICAL_RESOURCE_ID " +
+                    "ORDER BY R.VERSION_ID DESC ";
+
+    private static final String SQL_HISTORY_FROM_DATETIME_BEFORE_VERSION =
+            "SELECT R.RESOURCE_ID, R.LOGICAL_RESOURCE_ID, R.VERSION_ID, R.LAST_UPDATED, R.IS_DELETED, R.DATA, LR.LOGICAL_ID, R.RESOURCE_PAYLOAD_KEY " +
+                    "FROM %s_RESOURCES R, %s_LOGICAL_RESOURCES LR WHERE " +
+                    "LR.LOGICAL_ID = ? AND R.LAST_UPDATED >= ? AND R.VERSION_ID < ? AND R.LOGICAL_RESOURCE_ID = LR.LOGICAL_RESOURCE_ID " +
+                    "ORDER BY R.VERSION_ID DESC ";
+
     private static final String SQL_HISTORY_FROM_DATETIME_COUNT =
             "SELECT COUNT(R.VERSION_ID) FROM %s_RESOURCES R, %s_LOGICAL_RESOURCES LR WHERE LR.LOGICAL_ID = ? AND " +
                     "R.LAST_UPDATED >= ? AND R.LOGICAL_RESOURCE_ID = LR.LOGICAL_RESOURCE_ID";
@@ -137,6 +154,9 @@ public class ResourceDAOImpl extends FHIRDbDAOImpl implements ResourceDAO {
 
     private static final String DB2_PAGINATION_PARMS = "LIMIT ? OFFSET ?";
 
+    // Supported by all of Db2, Derby and PostgreSQL; used for keyset pagination which needs no offset
+    private static final String FETCH_FIRST_PARM = "FETCH FIRST ? ROWS ONLY";
+
     @SuppressWarnings("unused")
     private FHIRPersistenceContext context;
 
@@ -222,6 +242,23 @@ public class ResourceDAOImpl extends FHIRDbDAOImpl implements ResourceDAO {
         return resource;
     }
 
+    @Override
+    public List<Resource> readMany(List<String> logicalIds, String resourceType) throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException {
+        final String METHODNAME = "readMany";
+        log.entering(CLASSNAME, METHODNAME);
+
+        try {
+            if (logicalIds.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final String bindMarkers = String.join(",", Collections.nCopies(logicalIds.size(), "?"));
+            final String stmtString = String.format(SQL_READ_MANY, resourceType, resourceType, bindMarkers);
+            return this.runQuery(stmtString, logicalIds.toArray());
+        } finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+    }
+
     @Override
     public Resource versionRead(String logicalId, String resourceType, int versionId) throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException {
         final String METHODNAME = "versionRead";
@@ -287,6 +324,29 @@ public class ResourceDAOImpl extends FHIRDbDAOImpl implements ResourceDAO {
         return resource;
     }
 
+    @Override
+    public List<Resource> historyBeforeVersion(String resourceType, String logicalId, Timestamp fromDateTime, int versionId, int maxResults)
+            throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException {
+        final String METHODNAME = "historyBeforeVersion";
+        log.entering(CLASSNAME, METHODNAME);
+
+        List<Resource> resources = null;
+        String stmtString = null;
+
+        try {
+            if (fromDateTime != null) {
+                stmtString = String.format(SQL_HISTORY_FROM_DATETIME_BEFORE_VERSION, resourceType, resourceType) + FETCH_FIRST_PARM;
+                resources = this.runQuery(stmtString, logicalId, fromDateTime, versionId, maxResults);
+            } else {
+                stmtString = String.format(SQL_HISTORY_BEFORE_VERSION, resourceType, resourceType) + FETCH_FIRST_PARM;
+                resources = this.runQuery(stmtString, logicalId, versionId, maxResults);
+            }
+        } finally {
+            log.exiting(CLASSNAME, METHODNAME, Arrays.toString(new Object[] { resources }));
+        }
+        return resources;
+    }
+
     @Override
     public List<Resource> history(String resourceType, String logicalId, Timestamp fromDateTime, int offset, int maxResults) throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException {
         final String METHODNAME = "history";
@@ -718,6 +778,12 @@ public class ResourceDAOImpl extends FHIRDbDAOImpl implements ResourceDAO {
         return runCountQuery(countQuery);
    }
 
+    @Override
+    public Integer searchCountEstimate(Select countQuery) throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException {
+        // Planner estimates are only available for databases which can explain a statement without extra setup
+        return null;
+    }
+
     @Override
     public List<Resource> search(Select select) throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException {
         return runQuery(select);
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -11,7 +11,8 @@ import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
 /**
  * Domain model of the FHIR search context representing the query used
  * to perform the search operation in the database. The query built by
- * this class fetches the data for the _include phase of searches.
+ * this class fetches the RESOURCE_IDs of the resources for the _include
+ * phase of searches.
  */
 public class SearchIncludeQuery extends SearchQuery {
 
@@ -41,7 +42,7 @@ public class SearchIncludeQuery extends SearchQuery {
 
         // Need to wrap the distinct include query as a sub-select so that we
         // can apply sorting
-        query = visitor.wrapInclude(query);
+        query = visitor.wrapIncludeIds(query);
 
         // now attach the requisite ordering and pagination clauses
         query = visitor.addSorting(query, "LR");
@@ -6,6 +6,7 @@
 
 package com.ibm.fhir.persistence.jdbc.domain;
 
+import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_JDBC_SEARCH_BIND_TOKEN_VALUE_IDS;
 import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_SEARCH_ENABLE_LEGACY_WHOLE_SYSTEM_SEARCH_PARAMS;
 import static com.ibm.fhir.database.utils.query.expression.ExpressionSupport.alias;
 import static com.ibm.fhir.database.utils.query.expression.ExpressionSupport.bind;
@@ -133,6 +134,9 @@ public class SearchQueryRenderer implements SearchQueryVisitor<QueryData> {
 
     // Include DATA in the data fetch queries
     private final boolean includeResourceData;
+
+    // Use bind markers instead of literals for the token value ids, so that the statement text only depends on the search shape
+    private final boolean bindTokenValueIds;
     /**
      * Public constructor
      * @param identityCache
@@ -148,6 +152,8 @@ public class SearchQueryRenderer implements SearchQueryVisitor<QueryData> {
         this.includeResourceData = includeResourceData;
         this.legacyWholeSystemSearchParamsEnabled =
                 FHIRConfigHelper.getBooleanProperty(PROPERTY_SEARCH_ENABLE_LEGACY_WHOLE_SYSTEM_SEARCH_PARAMS, false);
+        this.bindTokenValueIds =
+                FHIRConfigHelper.getBooleanProperty(PROPERTY_JDBC_SEARCH_BIND_TOKEN_VALUE_IDS, false);
     }
 
     /**
@@ -374,7 +380,7 @@ public class SearchQueryRenderer implements SearchQueryVisitor<QueryData> {
     public QueryData includeRoot(String rootResourceType) {
 
         /* Final query should like this:
-        SELECT R.RESOURCE_ID, R.LOGICAL_RESOURCE_ID, R.VERSION_ID, R.LAST_UPDATED, R.IS_DELETED, R.DATA, LR.LOGICAL_ID
+        SELECT LR.RESOURCE_ID
                 FROM (
               SELECT LR0.LOGICAL_RESOURCE_ID, LR0.LOGICAL_ID, LR0.CURRENT_RESOURCE_ID
                 FROM Patient_LOGICAL_RESOURCES AS LR0
@@ -387,27 +393,23 @@ public class SearchQueryRenderer implements SearchQueryVisitor<QueryData> {
                  AND (P2.STR_VALUE = ?)
                WHERE LR1.IS_DELETED = 'N'
                  AND LR1.LOGICAL_RESOURCE_ID = LR0.LOGICAL_RESOURCE_ID)) AS LR
-          INNER JOIN Patient_RESOURCES AS R ON LR.CURRENT_RESOURCE_ID = R.RESOURCE_ID
             ORDER BY LR.LOGICAL_RESOURCE_ID
          FETCH FIRST 10 ROWS ONLY
          */
 
-        // The root query is just the inner distinct piece. The overall query is built by wrapInclude
+        // The root query is just the inner distinct piece. The overall query is built by wrapIncludeIds
         final boolean distinct = true;
         SelectAdapter select = Select.select(distinct, "R0.RESOURCE_ID", "R0.LOGICAL_RESOURCE_ID", "R0.VERSION_ID", "R0.LAST_UPDATED", "R0.IS_DELETED", "LR0.LOGICAL_ID");
         return new QueryData(select, null, null, rootResourceType, 0);
     }
 
     @Override
-    public QueryData wrapInclude(QueryData query) {
-        // Need to join the RESOURCES table again to get the DATA column after the DISTINCT.
+    public QueryData wrapIncludeIds(QueryData query) {
+        // Only the ids are needed. The resources are fetched afterwards for the distinct ids of all the
+        // inclusion parameters, so there's no need to join the RESOURCES table again
         final String lrAlias = "LR";
-        final String rAlias = "R";
-        final String rTable = query.getResourceType() + "_RESOURCES";
-        SelectAdapter select = Select.select("LR.RESOURCE_ID", "LR.LOGICAL_RESOURCE_ID", "LR.VERSION_ID",
-                "LR.LAST_UPDATED", "LR.IS_DELETED", getDataCol(), "LR.LOGICAL_ID", "R.RESOURCE_PAYLOAD_KEY");
-        select.from(query.getQuery().build(), alias(lrAlias))
-            .innerJoin(rTable, alias(rAlias), on(lrAlias, "RESOURCE_ID").eq(rAlias, "RESOURCE_ID"));
+        SelectAdapter select = Select.select("LR.RESOURCE_ID");
+        select.from(query.getQuery().build(), alias(lrAlias));
         return new QueryData(select, lrAlias, null, query.getResourceType(), 0);
     }
 
@@ -644,7 +646,7 @@ public class SearchQueryRenderer implements SearchQueryVisitor<QueryData> {
                         addCommonTokenValueIdFilter(where, paramAlias, ctvs);
                     } else {
                         Long commonTokenValueId = identityCache.getCommonTokenValueId(system, normalizedCode);
-                        where.col(paramAlias, COMMON_TOKEN_VALUE_ID).eq(nullCheck(commonTokenValueId));
+                        eqCommonTokenValueId(where.col(paramAlias, COMMON_TOKEN_VALUE_ID), nullCheck(commonTokenValueId));
                     }
                 } else {
                     // Traditional approach, using a join to xx_TOKEN_VALUES_V
@@ -674,7 +676,7 @@ public class SearchQueryRenderer implements SearchQueryVisitor<QueryData> {
 
                         // Filter on the code system for the given parameter
                         Integer codeSystemId = identityCache.getCodeSystemId(system);
-                        where.col(paramAlias, CODE_SYSTEM_ID).eq().literal(nullCheck(codeSystemId));
+                        eqCodeSystemId(where.col(paramAlias, CODE_SYSTEM_ID), nullCheck(codeSystemId));
                     }
                 }
             }
@@ -687,6 +689,30 @@ public class SearchQueryRenderer implements SearchQueryVisitor<QueryData> {
         return where;
     }
 
+    /**
+     * Completes an equality predicate on a COMMON_TOKEN_VALUE_ID column. The id is a literal unless
+     * searchBindTokenValueIds is configured, in which case it is a bind marker and the statement
+     * text is the same for every search of the same shape. This lets the driver and database reuse
+     * the prepared statement (and its plan) instead of parsing each search as a new statement.
+     * @param where
+     * @param commonTokenValueId
+     * @return
+     */
+    private WhereFragment eqCommonTokenValueId(WhereFragment where, long commonTokenValueId) {
+        return bindTokenValueIds ? where.eq().bind(commonTokenValueId) : where.eq(commonTokenValueId);
+    }
+
+    /**
+     * Completes an equality predicate on a CODE_SYSTEM_ID column, using a literal or a bind marker
+     * as described for {@link #eqCommonTokenValueId(WhereFragment, long)}.
+     * @param where
+     * @param codeSystemId
+     * @return
+     */
+    private WhereFragment eqCodeSystemId(WhereFragment where, int codeSystemId) {
+        return bindTokenValueIds ? where.eq().bind(codeSystemId) : where.eq(codeSystemId);
+    }
+
     /**
      * Adds a filter predicate for COMMON_TOKEN_VALUE_ID. Fetches the list of possible matches (there's no code-system,
      * so there could be multiple). If no match, then -1 is used to make sure the row isn't produced. If there is a
@@ -722,7 +748,8 @@ public class SearchQueryRenderer implements SearchQueryVisitor<QueryData> {
      * Adds a filter predicate for COMMON_TOKEN_VALUE_ID. If the ctvs list is empty, then -1 is used to make
      * sure the row isn't produced. If there is a single match, the predicate is COMMON_TOKEN_VALUE_ID = {n}.
      * If there are multiple matches, the predicate is COMMON_TOKEN_VALUE_ID IN (1, 2, 3, ...).
-     * The query uses literal values not bind variables on purpose (better performance).
+     * The query uses literal values not bind variables on purpose (better performance), except for a
+     * single match when binding of token value ids is configured.
      * @param where
      * @param paramAlias
      * @param ctvs
@@ -734,7 +761,7 @@ public class SearchQueryRenderer implements SearchQueryVisitor<QueryData> {
             // use -1...resulting in no data
             where.col(paramAlias, COMMON_TOKEN_VALUE_ID).eq(-1L);
         } else if (ctvList.size() == 1) {
-            where.col(paramAlias, COMMON_TOKEN_VALUE_ID).eq(ctvList.get(0));
+            eqCommonTokenValueId(where.col(paramAlias, COMMON_TOKEN_VALUE_ID), ctvList.get(0));
         } else {
             where.col(paramAlias, COMMON_TOKEN_VALUE_ID).inLiteralLong(ctvList);
         }
@@ -941,6 +968,15 @@ public class SearchQueryRenderer implements SearchQueryVisitor<QueryData> {
         return queryData;
     }
 
+    @Override
+    public QueryData addDefaultSortQuerySorting(QueryData queryData) {
+        // The sort query is grouped by CURRENT_RESOURCE_ID, which maps to a single LOGICAL_RESOURCE_ID
+        final String expression = MIN + LEFT_PAREN + DataDefinitionUtil.getQualifiedName(queryData.getLRAlias(), "LOGICAL_RESOURCE_ID") + RIGHT_PAREN;
+        queryData.getQuery().addColumn(null, expression, null);
+        queryData.getQuery().from().orderBy(expression);
+        return queryData;
+    }
+
     @Override
     public QueryData addWholeSystemSorting(QueryData queryData, List<DomainSortParameter> sortParms, String lrAlias) {
         if (sortParms == null || sortParms.isEmpty()) {
@@ -1370,7 +1406,7 @@ public class SearchQueryRenderer implements SearchQueryVisitor<QueryData> {
 
                 // We have a code-system and a code so we must have a common_token_value if the tuple exists
                 Long commonTokenValueId = getCommonTokenValueId(value.getValueSystem(), searchValue);
-                whereClause.col(paramAlias, COMMON_TOKEN_VALUE_ID).eq(nullCheck(commonTokenValueId)); // use literal
+                eqCommonTokenValueId(whereClause.col(paramAlias, COMMON_TOKEN_VALUE_ID), nullCheck(commonTokenValueId));
             } else {
                 // No code system specified, search against both normalized code and unmodified code.
                 // Build equivalent of: pX.token_value IN (search-attribute-value, normalized-search-sttribute-value)
@@ -1712,6 +1748,14 @@ SELECT R0.RESOURCE_ID, R0.LOGICAL_RESOURCE_ID, R0.VERSION_ID, R0.LAST_UPDATED, R
         return queryData;
     }
 
+    @Override
+    public QueryData addKeysetFilter(QueryData queryData, long lastLogicalResourceId) {
+        // Seek past the previous pages: the data query is ordered by LOGICAL_RESOURCE_ID
+        SelectAdapter select = queryData.getQuery();
+        select.from().where().and(queryData.getLRAlias(), "LOGICAL_RESOURCE_ID").gt().bind(lastLogicalResourceId);
+        return queryData;
+    }
+
     @Override
     public QueryData addTokenParam(QueryData queryData, String resourceType, QueryParameter queryParm) throws FHIRPersistenceException {
         // Add a join to the query. The NOT/NOT_IN modifiers are trickier because
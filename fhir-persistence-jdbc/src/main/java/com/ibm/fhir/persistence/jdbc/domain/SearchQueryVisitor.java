@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -66,10 +66,12 @@ public interface SearchQueryVisitor<T> {
     T includeRoot(String rootResourceType);
 
     /**
+     * Wrap the distinct include query as a sub-select which returns only the
+     * RESOURCE_ID of each included resource. The data is fetched separately.
      * @param query
      * @return
      */
-    T wrapInclude(T query);
+    T wrapIncludeIds(T query);
 
     /**
      * The root of the FHIR search sort query
@@ -254,6 +256,14 @@ public interface SearchQueryVisitor<T> {
      */
     T addWholeSystemSorting(T query, List<DomainSortParameter> sortParms, String lrAlias);
 
+    /**
+     * Add sorting (order by) to a sort query without sort parameters, so that the ids
+     * are returned in the same order as the corresponding data query
+     * @param query
+     * @return
+     */
+    T addDefaultSortQuerySorting(T query);
+
     /**
      * Add pagination (LIMIT/OFFSET) to the query
      * @param query
@@ -324,6 +334,14 @@ public interface SearchQueryVisitor<T> {
      */
     T addWholeSystemResourceTypeFilter(T query, List<Integer> resourceTypeIds) throws FHIRPersistenceException;
 
+    /**
+     * Add a filter to the query which skips the resources of previous pages (keyset pagination)
+     * @param query
+     * @param lastLogicalResourceId the LOGICAL_RESOURCE_ID of the last resource of the previous page
+     * @return
+     */
+    T addKeysetFilter(T query, long lastLogicalResourceId);
+
     /**
      * Add the given sort parameter to the sort query
      * @param queryData
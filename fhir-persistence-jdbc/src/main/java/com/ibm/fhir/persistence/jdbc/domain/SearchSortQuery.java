@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -59,6 +59,9 @@ public class SearchSortQuery extends SearchQuery {
         for (DomainSortParameter dsp: this.sortParameters) {
             dsp.visit(query, visitor);
         }
+        if (this.sortParameters.isEmpty()) {
+            query = visitor.addDefaultSortQuerySorting(query);
+        }
 
         query = visitor.addPagination(query);
 
@@ -13,9 +13,11 @@ import static com.ibm.fhir.model.util.ModelSupport.getResourceType;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -23,12 +25,19 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -40,6 +49,11 @@ import javax.naming.InitialContext;
 import javax.transaction.TransactionSynchronizationRegistry;
 import javax.transaction.UserTransaction;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.ibm.fhir.cache.CacheKey;
+import com.ibm.fhir.cache.CacheManager;
+import com.ibm.fhir.cache.CacheManager.Configuration;
+import com.ibm.fhir.cache.CacheStatistics;
 import com.ibm.fhir.config.DefaultFHIRConfigProvider;
 import com.ibm.fhir.config.FHIRConfigHelper;
 import com.ibm.fhir.config.FHIRConfigProvider;
@@ -55,13 +69,13 @@ import com.ibm.fhir.database.utils.api.IDatabaseTranslator;
 import com.ibm.fhir.database.utils.api.UndefinedNameException;
 import com.ibm.fhir.database.utils.api.UniqueConstraintViolationException;
 import com.ibm.fhir.database.utils.model.DbType;
+import com.ibm.fhir.database.utils.query.QueryUtil;
 import com.ibm.fhir.database.utils.query.Select;
 import com.ibm.fhir.database.utils.schema.GetSchemaVersion;
 import com.ibm.fhir.exception.FHIRException;
 import com.ibm.fhir.model.format.Format;
 import com.ibm.fhir.model.generator.FHIRGenerator;
 import com.ibm.fhir.model.generator.exception.FHIRGeneratorException;
-import com.ibm.fhir.model.parser.FHIRJsonParser;
 import com.ibm.fhir.model.parser.FHIRParser;
 import com.ibm.fhir.model.resource.OperationOutcome;
 import com.ibm.fhir.model.resource.OperationOutcome.Issue;
@@ -85,15 +99,18 @@ import com.ibm.fhir.path.FHIRPathSystemValue;
 import com.ibm.fhir.path.evaluator.FHIRPathEvaluator;
 import com.ibm.fhir.path.evaluator.FHIRPathEvaluator.EvaluationContext;
 import com.ibm.fhir.persistence.FHIRPersistence;
+import com.ibm.fhir.persistence.FHIRPersistenceSupport;
 import com.ibm.fhir.persistence.FHIRPersistenceTransaction;
 import com.ibm.fhir.persistence.HistorySortOrder;
 import com.ibm.fhir.persistence.InteractionStatus;
 import com.ibm.fhir.persistence.MultiResourceResult;
 import com.ibm.fhir.persistence.ResourceChangeLogRecord;
 import com.ibm.fhir.persistence.ResourceEraseRecord;
+import com.ibm.fhir.persistence.ResourceKey;
 import com.ibm.fhir.persistence.ResourcePayload;
 import com.ibm.fhir.persistence.ResourceResult;
 import com.ibm.fhir.persistence.SingleResourceResult;
+import com.ibm.fhir.persistence.StoredResourcePayload;
 import com.ibm.fhir.persistence.context.FHIRHistoryContext;
 import com.ibm.fhir.persistence.context.FHIRPersistenceContext;
 import com.ibm.fhir.persistence.context.FHIRPersistenceContextFactory;
@@ -124,6 +141,7 @@ import com.ibm.fhir.persistence.jdbc.dao.api.JDBCIdentityCache;
 import com.ibm.fhir.persistence.jdbc.dao.api.ParameterDAO;
 import com.ibm.fhir.persistence.jdbc.dao.api.ResourceDAO;
 import com.ibm.fhir.persistence.jdbc.dao.api.ResourceIndexRecord;
+import com.ibm.fhir.persistence.jdbc.dao.impl.FetchPayloadsForIdsDAO;
 import com.ibm.fhir.persistence.jdbc.dao.impl.FetchResourceChangesDAO;
 import com.ibm.fhir.persistence.jdbc.dao.impl.FetchResourcePayloadsDAO;
 import com.ibm.fhir.persistence.jdbc.dao.impl.JDBCIdentityCacheImpl;
@@ -146,12 +164,17 @@ import com.ibm.fhir.persistence.jdbc.exception.FHIRPersistenceDBConnectException
 import com.ibm.fhir.persistence.jdbc.exception.FHIRPersistenceDataAccessException;
 import com.ibm.fhir.persistence.jdbc.exception.FHIRPersistenceFKVException;
 import com.ibm.fhir.persistence.jdbc.util.ExtractedSearchParameters;
+import com.ibm.fhir.persistence.jdbc.util.ExtractionExecutor;
 import com.ibm.fhir.persistence.jdbc.util.JDBCParameterBuildingVisitor;
+import com.ibm.fhir.persistence.jdbc.util.KeysetCursor;
 import com.ibm.fhir.persistence.jdbc.util.NewQueryBuilder;
 import com.ibm.fhir.persistence.jdbc.util.ParameterHashVisitor;
+import com.ibm.fhir.persistence.jdbc.util.SearchSnapshot;
 import com.ibm.fhir.persistence.jdbc.util.TimestampPrefixedUUID;
 import com.ibm.fhir.persistence.payload.FHIRPayloadPersistence;
+import com.ibm.fhir.persistence.payload.PayloadExecutors;
 import com.ibm.fhir.persistence.payload.PayloadPersistenceResponse;
+import com.ibm.fhir.persistence.payload.PayloadPersistenceResult;
 import com.ibm.fhir.persistence.util.FHIRPersistenceUtil;
 import com.ibm.fhir.persistence.util.InputOutputByteStream;
 import com.ibm.fhir.persistence.util.LogicalIdentityProvider;
@@ -184,6 +207,20 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
     private static final int DATA_BUFFER_INITIAL_SIZE = 10*1024; // 10KiB
     private static final Integer IF_NONE_MATCH_NULL = null;
 
+    // The maximum number of logical ids bound in a single readMany query
+    private static final int READ_MANY_BATCH_SIZE = 500;
+
+    // The (per-tenant) exact counts of recent searches, reused by the requests for their following pages
+    private static final String SEARCH_COUNT_CACHE_NAME = "com.ibm.fhir.persistence.jdbc.impl.FHIRPersistenceJDBCImpl.searchCountCache";
+    private static final int SEARCH_COUNT_CACHE_MAX_SIZE = 1024;
+    private static final int DEFAULT_SEARCH_COUNT_CACHE_TTL = 60; // seconds
+
+    // The (per-tenant) snapshots of search results, which the pages of a search are sliced from
+    private static final String SEARCH_SNAPSHOT_CACHE_NAME = "com.ibm.fhir.persistence.jdbc.impl.FHIRPersistenceJDBCImpl.searchSnapshotCache";
+    private static final int SEARCH_SNAPSHOT_CACHE_MAX_SIZE = 256;
+    private static final int DEFAULT_SEARCH_SNAPSHOT_MAX_SIZE = 0; // disabled
+    private static final int DEFAULT_SEARCH_SNAPSHOT_TTL = 300; // seconds
+
     protected static final String TXN_JNDI_NAME = "java:comp/UserTransaction";
     public static final String TRX_SYNCH_REG_JNDI_NAME = "java:comp/TransactionSynchronizationRegistry";
     private static final String TXN_DATA_KEY = "transactionDataKey/" + CLASSNAME;
@@ -227,6 +264,9 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
     // A list of payload persistence responses in case we have a rollback to clean up
     private final List<PayloadPersistenceResponse> payloadPersistenceResponses = new ArrayList<>();
 
+    // Search parameter extraction started ahead of time by prepareResource, keyed by resource instance
+    private final Map<Resource, PreparedResource> preparedResources = new IdentityHashMap<>();
+
     /**
      * Constructor for use when running as web application in WLP.
      * @throws Exception
@@ -387,8 +427,9 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
 
             // Persist the Resource DTO.
             resourceDao.setPersistenceContext(context);
-            ExtractedSearchParameters searchParameters = this.extractSearchParameters(updatedResource, resourceDTO);
+            ExtractedSearchParameters searchParameters = this.getSearchParameters(updatedResource, resourceDTO);
             resourceDao.insert(resourceDTO, searchParameters.getParameters(), searchParameters.getParameterHashB64(), parameterDao, context.getIfNoneMatch());
+            waitForOffload(context);
             if (log.isLoggable(Level.FINE)) {
                 log.fine("Persisted FHIR Resource '" + resourceDTO.getResourceType() + "/" + resourceDTO.getLogicalId() + "' id=" + resourceDTO.getId()
                             + ", version=" + resourceDTO.getVersionId());
@@ -579,9 +620,10 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
 
             // Persist the Resource DTO.
             resourceDao.setPersistenceContext(context);
-            ExtractedSearchParameters searchParameters = this.extractSearchParameters(resource, resourceDTO);
+            ExtractedSearchParameters searchParameters = this.getSearchParameters(resource, resourceDTO);
             resourceDao.insert(resourceDTO, searchParameters.getParameters(), searchParameters.getParameterHashB64(), 
                     parameterDao, context.getIfNoneMatch());
+            waitForOffload(context);
             
             if (log.isLoggable(Level.FINE)) {
                 if (resourceDTO.getInteractionStatus() == InteractionStatus.IF_NONE_MATCH_EXISTED) {
@@ -658,11 +700,33 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
             checkModifiers(searchContext, isSystemLevelSearch(resourceType));
             queryBuilder = new NewQueryBuilder(connectionStrategy.getQueryHints(), identityCache);
 
+            // When enabled, the pages of a type-level search are sliced from a snapshot of its results
+            final int snapshotMaxSize = isSystemLevelSearch(resourceType) ? 0
+                    : FHIRConfigHelper.getIntProperty(FHIRConfiguration.PROPERTY_JDBC_SEARCH_SNAPSHOT_MAX_SIZE, DEFAULT_SEARCH_SNAPSHOT_MAX_SIZE);
+            Select snapshotQuery = null;
+            List<String> snapshotQueryKey = null;
+            SearchSnapshot snapshot = null;
+            if (snapshotMaxSize > 0) {
+                // Ask for one more row than allowed to find out if there are too many results to snapshot
+                snapshotQuery = queryBuilder.buildSnapshotQuery(resourceType, searchContext, snapshotMaxSize + 1);
+                snapshotQueryKey = QueryUtil.getQueryKey(snapshotQuery, FHIRResourceDAOFactory.getTranslatorForFlavor(connectionStrategy.getFlavor()));
+                snapshot = getSearchSnapshot(searchContext.getSnapshotId(), snapshotQueryKey);
+            }
+            if (snapshot == null) {
+                // Ignore an unknown, expired or mismatched snapshot id
+                searchContext.setSnapshotId(null);
+            }
+
             // Skip count query if _total=none
-            if (!TotalValueSet.NONE.equals(searchContext.getTotalParameter())) {
+            if (snapshot != null) {
+                searchResultCount = snapshot.size();
+                if (!TotalValueSet.NONE.equals(searchContext.getTotalParameter())) {
+                    searchContext.setTotalCount(searchResultCount);
+                }
+            } else if (!TotalValueSet.NONE.equals(searchContext.getTotalParameter())) {
                 countQuery = queryBuilder.buildCountQuery(resourceType, searchContext);
                 if (countQuery != null) {
-                    searchResultCount = resourceDao.searchCount(countQuery);
+                    searchResultCount = getSearchCount(resourceDao, countQuery, searchContext);
                     if (log.isLoggable(Level.FINE)) {
                         log.fine("searchResultCount = " + searchResultCount);
                     }
@@ -681,11 +745,9 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
             }
 
             // For _summary=count or pageSize == 0, we return only the count
-            if ((searchResultCount == null || searchResultCount > 0)
+            if ((searchResultCount == null || searchResultCount > 0 || searchContext.isTotalCountEstimated())
                     && !SummaryValueSet.COUNT.equals(searchContext.getSummaryParameter())
                     && searchContext.getPageSize() > 0) {
-                query = queryBuilder.buildQuery(resourceType, searchContext);
-
                 List<String> elements = searchContext.getElementsParameters();
 
                 // Only consider _summary if _elements parameter is empty
@@ -717,7 +779,16 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
                 // path than other sorted searches. Since _include and _revinclude are not supported
                 // with system-level search, no special logic to handle it differently is needed here.
                 List<com.ibm.fhir.persistence.jdbc.dto.Resource> resourceDTOList;
-                if (isSystemLevelSearch(resourceType)) {
+                if (snapshot == null && snapshotMaxSize > 0
+                        && (searchResultCount == null || searchContext.isTotalCountEstimated() || searchResultCount <= snapshotMaxSize)) {
+                    snapshot = takeSearchSnapshot(resourceDao, snapshotQuery, snapshotQueryKey, snapshotMaxSize, searchContext);
+                }
+                if (snapshot != null) {
+                    final int offset = (searchContext.getPageNumber() - 1) * searchContext.getPageSize();
+                    List<Long> resourceIds = snapshot.getResourceIds(offset, searchContext.getPageSize());
+                    resourceDTOList = this.buildSortedResourceDTOList(resourceDao, resourceType, resourceIds, searchContext.isIncludeResourceData());
+                } else if (isSystemLevelSearch(resourceType)) {
+                    query = queryBuilder.buildQuery(resourceType, searchContext);
                     // If search parameters were specified other than those whose values get indexed
                     // in global values tables, then we will execute the old-style UNION'd query that
                     // was built. Otherwise, we need to execute the new whole-system filter query and
@@ -731,11 +802,21 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
                         resourceDTOList = resourceDao.search(wholeSystemDataQuery);
                     }
                 } else if (searchContext.hasSortParameters()) {
+                    query = queryBuilder.buildQuery(resourceType, searchContext);
                     resourceDTOList = this.buildSortedResourceDTOList(resourceDao, resourceType, resourceDao.searchForIds(query), searchContext.isIncludeResourceData());
                 } else {
+                    query = queryBuilder.buildQuery(resourceType, searchContext);
                     resourceDTOList = resourceDao.search(query);
                 }
 
+                // A full page may be followed by another one; give the caller a cursor which lets it seek
+                // directly to the next page instead of paging with an ever growing offset
+                if (snapshot == null && NewQueryBuilder.isKeysetPaginationSupported(resourceType, searchContext)
+                        && resourceDTOList.size() == searchContext.getPageSize()) {
+                    long lastLogicalResourceId = resourceDTOList.get(resourceDTOList.size() - 1).getLogicalResourceId();
+                    searchContext.setNextCursor(KeysetCursor.encode(searchContext.getPageNumber() + 1, searchContext.getPageSize(), lastLogicalResourceId));
+                }
+
                 resourceResults = this.convertResourceDTOList(resourceDao, resourceDTOList, resourceType, elements, searchContext.isIncludeResourceData());
                 searchContext.setMatchCount(resourceResults.size());
 
@@ -767,8 +848,120 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
     }
 
     /**
-     * Process the inclusion parameters. Build and execute a query for each parameter, and
-     * collect the resulting 'include' resources to be returned with the 'match' resources.
+     * Get the number of resources matching the search.
+     *
+     * <p>Exact counts are cached for a short time so that the requests for the following pages of the same search
+     * don't need to count again. The first page of a search always gets a fresh count, unless _total=estimate,
+     * in which case a cached count or else the database planner's estimate is used.
+     *
+     * @param resourceDao
+     * @param countQuery
+     * @param searchContext
+     * @return the exact or estimated count
+     * @throws FHIRPersistenceException
+     */
+    private int getSearchCount(ResourceDAO resourceDao, Select countQuery, FHIRSearchContext searchContext) throws FHIRPersistenceException {
+        final boolean estimate = TotalValueSet.ESTIMATE.equals(searchContext.getTotalParameter());
+        final int ttl = FHIRConfigHelper.getIntProperty(FHIRConfiguration.PROPERTY_JDBC_SEARCH_COUNT_CACHE_TTL, DEFAULT_SEARCH_COUNT_CACHE_TTL);
+
+        Cache<CacheKey, Integer> countCache = null;
+        CacheKey key = null;
+        if (ttl > 0) {
+            countCache = CacheManager.getCache(SEARCH_COUNT_CACHE_NAME, Configuration.of(SEARCH_COUNT_CACHE_MAX_SIZE, Duration.ofSeconds(ttl)));
+            IDatabaseTranslator translator = FHIRResourceDAOFactory.getTranslatorForFlavor(connectionStrategy.getFlavor());
+            key = CacheKey.key(FHIRRequestContext.get().getDataStoreId(), QueryUtil.getQueryKey(countQuery, translator));
+            if (estimate || searchContext.getPageNumber() > 1) {
+                Integer count = countCache.getIfPresent(key);
+                if (count != null) {
+                    if (log.isLoggable(Level.FINE)) {
+                        log.fine("Using the cached search count: " + count);
+                    }
+                    CacheManager.reportCacheStats(log, SEARCH_COUNT_CACHE_NAME);
+                    return count;
+                }
+            }
+        }
+
+        if (estimate) {
+            Integer count = resourceDao.searchCountEstimate(countQuery);
+            if (count != null) {
+                searchContext.setTotalCountEstimated(true);
+                return count;
+            }
+        }
+
+        int count = resourceDao.searchCount(countQuery);
+        if (countCache != null) {
+            countCache.put(key, count);
+        }
+        return count;
+    }
+
+    /**
+     * Get the snapshot with the given id, if it is still cached and was taken for the same search.
+     *
+     * @param snapshotId the snapshot id passed with the request; may be null
+     * @param snapshotQueryKey the key of the snapshot query of the current search
+     * @return the snapshot, or null
+     */
+    private SearchSnapshot getSearchSnapshot(String snapshotId, List<String> snapshotQueryKey) {
+        if (snapshotId == null) {
+            return null;
+        }
+        SearchSnapshot snapshot = getSearchSnapshotCache().getIfPresent(CacheKey.key(FHIRRequestContext.get().getDataStoreId(), snapshotId));
+        CacheManager.reportCacheStats(log, SEARCH_SNAPSHOT_CACHE_NAME);
+        if (snapshot != null && snapshot.matches(snapshotQueryKey)) {
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("Using search snapshot: " + snapshotId);
+            }
+            return snapshot;
+        }
+        return null;
+    }
+
+    /**
+     * Take a snapshot of the ordered RESOURCE_IDs matching the search, unless there are more than allowed.
+     * The snapshot is cached (and its id set on the search context) only if there are more pages to come.
+     *
+     * @param resourceDao
+     * @param snapshotQuery the snapshot query, which returns up to snapshotMaxSize + 1 ids
+     * @param snapshotQueryKey the key of the snapshot query
+     * @param snapshotMaxSize the maximum number of ids in a snapshot
+     * @param searchContext
+     * @return the snapshot, or null if there are too many results
+     * @throws FHIRPersistenceException
+     */
+    private SearchSnapshot takeSearchSnapshot(ResourceDAO resourceDao, Select snapshotQuery, List<String> snapshotQueryKey, int snapshotMaxSize,
+            FHIRSearchContext searchContext) throws FHIRPersistenceException {
+        List<Long> resourceIds = resourceDao.searchForIds(snapshotQuery);
+        if (resourceIds.size() > snapshotMaxSize) {
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("Too many search results for a snapshot; max=" + snapshotMaxSize);
+            }
+            return null;
+        }
+
+        SearchSnapshot snapshot = new SearchSnapshot(snapshotQueryKey, resourceIds);
+        if (snapshot.size() > searchContext.getPageNumber() * searchContext.getPageSize()) {
+            final String snapshotId = UUID.randomUUID().toString();
+            getSearchSnapshotCache().put(CacheKey.key(FHIRRequestContext.get().getDataStoreId(), snapshotId), snapshot);
+            searchContext.setSnapshotId(snapshotId);
+        }
+        return snapshot;
+    }
+
+    private Cache<CacheKey, SearchSnapshot> getSearchSnapshotCache() {
+        final int ttl = FHIRConfigHelper.getIntProperty(FHIRConfiguration.PROPERTY_JDBC_SEARCH_SNAPSHOT_TTL, DEFAULT_SEARCH_SNAPSHOT_TTL);
+        return CacheManager.getCache(SEARCH_SNAPSHOT_CACHE_NAME, Configuration.of(SEARCH_SNAPSHOT_CACHE_MAX_SIZE, Duration.ofSeconds(ttl)));
+    }
+
+    /**
+     * Process the inclusion parameters. The inclusion parameters are resolved in stages
+     * (hops): the non-iterative parameters against the 'match' resources, followed by
+     * each iteration of the iterative parameters. Within a stage, a query returning only
+     * the RESOURCE_IDs is executed for each parameter, and the new ids of all the parameters
+     * are de-duplicated before the 'include' resources of each target type are fetched with
+     * a single query.
      *
      * @param searchContext - the current search context
      * @param resourceType - the search resource type
@@ -790,58 +983,39 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
         // This is a map of iterations to query results. The query results is a map of
         // search resource type to returned logical resource IDs. The logical resource IDs
         // are used in the include queries.
-        Map<Integer, Map<String, Set<String>>> queryResultMap = new HashMap<>();
+        Map<Integer, Map<String, Set<Long>>> queryResultMap = new HashMap<>();
 
         // Add base query result to map
         String resourceTypeString = resourceType.getSimpleName();
-        Set<String> baseLogicalResourceIds = resourceDTOList.stream()
-                .map(r -> Long.toString(r.getLogicalResourceId())).collect(Collectors.toSet());
+        Set<Long> baseLogicalResourceIds = resourceDTOList.stream()
+                .map(r -> r.getLogicalResourceId()).collect(Collectors.toSet());
         queryResultMap.put(0, Collections.singletonMap(resourceTypeString, baseLogicalResourceIds));
 
-        // Process non-iterative _include parameters. These are only run against 'match' search
-        // results.
+        // Process non-iterative _include and _revinclude parameters. These are only run against
+        // 'match' search results.
+        Map<String, Set<Long>> stageResourceIds = new LinkedHashMap<>();
         for (InclusionParameter includeParm : searchContext.getIncludeParameters()) {
             if (!includeParm.isIterate()) {
-                // Build and run the query
-                List<com.ibm.fhir.persistence.jdbc.dto.Resource> includeResources =
-                        this.runIncludeQuery(resourceType, searchContext, queryBuilder, includeParm, SearchConstants.INCLUDE,
-                            baseLogicalResourceIds, queryResultMap, resourceDao, 1, allResourceIds);
-
-                // Add new ids to de-dup list
-                allResourceIds.addAll(includeResources.stream().map(r -> r.getId()).collect(Collectors.toSet()));
-
-                // Add resources to list
-                allIncludeResources.addAll(includeResources);
-
-                // Check if max size exceeded. If so, return results and let rest helper throw exception.
-                if (allIncludeResources.size() > searchContext.getMaxPageIncludeCount()) {
-                    return allIncludeResources;
+                this.runIncludeIdsQuery(resourceType, searchContext, queryBuilder, includeParm, SearchConstants.INCLUDE,
+                    baseLogicalResourceIds, resourceDao, allResourceIds, stageResourceIds);
+                if (isMaxPageIncludeCountExceeded(searchContext, allIncludeResources, stageResourceIds)) {
+                    break;
                 }
             }
         }
-
-        // Process non-iterative _revinclude parameters. These are only run against 'match' search
-        // results.
         for (InclusionParameter revincludeParm : searchContext.getRevIncludeParameters()) {
-            if (!revincludeParm.isIterate()) {
-                // Build and run the query
-                List<com.ibm.fhir.persistence.jdbc.dto.Resource> revincludeResources =
-                        this.runIncludeQuery(resourceType, searchContext, queryBuilder, revincludeParm, SearchConstants.REVINCLUDE,
-                            baseLogicalResourceIds, queryResultMap, resourceDao, 1, allResourceIds);
-
-                // Add new ids to de-dup list
-                allResourceIds.addAll(revincludeResources.stream().map(r -> r.getId()).collect(Collectors.toSet()));
-
-                // Add resources to list
-                allIncludeResources.addAll(revincludeResources);
-
-                // Check if max size exceeded. If so, return results and let rest helper throw exception.
-                if (allIncludeResources.size() > searchContext.getMaxPageIncludeCount()) {
-                    return allIncludeResources;
-                }
+            if (!revincludeParm.isIterate() && !isMaxPageIncludeCountExceeded(searchContext, allIncludeResources, stageResourceIds)) {
+                this.runIncludeIdsQuery(resourceType, searchContext, queryBuilder, revincludeParm, SearchConstants.REVINCLUDE,
+                    baseLogicalResourceIds, resourceDao, allResourceIds, stageResourceIds);
             }
         }
 
+        // Check if max size exceeded. If so, return results and let rest helper throw exception.
+        if (this.fetchIncludeResources(searchContext, resourceDao, stageResourceIds, queryResultMap, 1,
+                allResourceIds, allIncludeResources)) {
+            return allIncludeResources;
+        }
+
         // Process iterative parameters.
         // - Iteration 0 is a special iteration. It will only process against resources returned by primary search
         //   if the iterative parameter's target type is the same as the primary search resource type.
@@ -852,65 +1026,47 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
         //
         for (int i=0; i<=SearchConstants.MAX_INCLUSION_ITERATIONS; ++i) {
             // Get the map of resourceTypes for current iteration level
-            Map<String, Set<String>> resourceTypeMap = queryResultMap.get(i);
+            Map<String, Set<Long>> resourceTypeMap = queryResultMap.get(i);
             if (resourceTypeMap != null) {
                 if (i == 1) {
                     // For this iteration only, include both base and included resources
-                    Set<String> ids = resourceTypeMap.computeIfAbsent(resourceTypeString, k -> new HashSet<>());
+                    Set<Long> ids = resourceTypeMap.computeIfAbsent(resourceTypeString, k -> new HashSet<>());
                     ids.addAll(queryResultMap.get(0).get(resourceTypeString));
                 }
 
+                stageResourceIds = new LinkedHashMap<>();
+
                 // Process iterative _include parameters
                 for (InclusionParameter includeParm : searchContext.getIncludeParameters()) {
-                    if (includeParm.isIterate() && resourceTypeMap.keySet().contains(includeParm.getJoinResourceType())) {
+                    if (includeParm.isIterate() && resourceTypeMap.keySet().contains(includeParm.getJoinResourceType())
+                            && !isMaxPageIncludeCountExceeded(searchContext, allIncludeResources, stageResourceIds)) {
                         // For iteration 0, we only process if target type is same as join type
                         if (i > 0 || includeParm.getJoinResourceType().equals(includeParm.getSearchParameterTargetType())) {
                             // Get ids to query against
-                            Set<String> queryIds = resourceTypeMap.get(includeParm.getJoinResourceType());
-
-                            // Build and run the query
-                            List<com.ibm.fhir.persistence.jdbc.dto.Resource> includeResources =
-                                    this.runIncludeQuery(resourceType, searchContext, queryBuilder, includeParm,
-                                        SearchConstants.INCLUDE, queryIds, queryResultMap, resourceDao, i+1, allResourceIds);
-
-                            // Add new ids to de-dup list
-                            allResourceIds.addAll(includeResources.stream().map(r -> r.getId()).collect(Collectors.toSet()));
-
-                            // Add resources to list
-                            allIncludeResources.addAll(includeResources);
-
-                            // Check if max size exceeded. If so, return results and let rest helper throw exception.
-                            if (allIncludeResources.size() > searchContext.getMaxPageIncludeCount()) {
-                                return allIncludeResources;
-                            }
+                            Set<Long> queryIds = resourceTypeMap.get(includeParm.getJoinResourceType());
+                            this.runIncludeIdsQuery(resourceType, searchContext, queryBuilder, includeParm, SearchConstants.INCLUDE,
+                                queryIds, resourceDao, allResourceIds, stageResourceIds);
                         }
                     }
                 }
                 for (InclusionParameter revincludeParm : searchContext.getRevIncludeParameters()) {
-                    if (revincludeParm.isIterate() && resourceTypeMap.keySet().contains(revincludeParm.getSearchParameterTargetType())) {
+                    if (revincludeParm.isIterate() && resourceTypeMap.keySet().contains(revincludeParm.getSearchParameterTargetType())
+                            && !isMaxPageIncludeCountExceeded(searchContext, allIncludeResources, stageResourceIds)) {
                         // For iteration 0, we only process if target type is same as join type
                         if (i > 0 || revincludeParm.getJoinResourceType().equals(revincludeParm.getSearchParameterTargetType())) {
                             // Get ids to query against
-                            Set<String> queryIds = resourceTypeMap.get(revincludeParm.getSearchParameterTargetType());
-
-                            // Build and run the query
-                            List<com.ibm.fhir.persistence.jdbc.dto.Resource> revincludeResources =
-                                    this.runIncludeQuery(resourceType, searchContext, queryBuilder, revincludeParm,
-                                        SearchConstants.REVINCLUDE, queryIds, queryResultMap, resourceDao, i+1, allResourceIds);
-
-                            // Add new ids to de-dup list
-                            allResourceIds.addAll(revincludeResources.stream().map(r -> r.getId()).collect(Collectors.toSet()));
-
-                            // Add resources to list
-                            allIncludeResources.addAll(revincludeResources);
-
-                            // Check if max size exceeded. If so, return results and let rest helper throw exception.
-                            if (allIncludeResources.size() > searchContext.getMaxPageIncludeCount()) {
-                                return allIncludeResources;
-                            }
+                            Set<Long> queryIds = resourceTypeMap.get(revincludeParm.getSearchParameterTargetType());
+                            this.runIncludeIdsQuery(resourceType, searchContext, queryBuilder, revincludeParm, SearchConstants.REVINCLUDE,
+                                queryIds, resourceDao, allResourceIds, stageResourceIds);
                         }
                     }
                 }
+
+                // Check if max size exceeded. If so, return results and let rest helper throw exception.
+                if (this.fetchIncludeResources(searchContext, resourceDao, stageResourceIds, queryResultMap, i+1,
+                        allResourceIds, allIncludeResources)) {
+                    return allIncludeResources;
+                }
             }
         }
 
@@ -918,7 +1074,8 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
     }
 
     /**
-     * Build and execute a single query for a single inclusion parameter.
+     * Build and execute a single query returning the RESOURCE_IDs for a single inclusion parameter,
+     * and collect the ids which aren't already being returned.
      *
      * @param resourceType - the search resource type
      * @param searchContext - the current search context
@@ -926,59 +1083,106 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
      * @param inclusionParm - the inclusion parameter for which the query is being
      *                        built and executed
      * @param includeType - either INCLUDE or REVINCLUDE
-     * @param queryIds - the list of logical resource IDs of the target resources
+     * @param queryIds - the set of logical resource IDs of the target resources
      *                   the query is running against
-     * @param queryResultMap - the map of prior query results
      * @param resourceDao - the resource data access object
-     * @param iterationLevel - the current iteration level
-     * @param allResourceIds - the list of all resource IDs being returned - used
+     * @param allResourceIds - the set of all resource IDs being returned - used
      *                         for de-duplication
-     * @return the list of resources returned from the query
+     * @param stageResourceIds - the new resource IDs of the current stage, by resource type
      * @throws Exception
      */
-    private List<com.ibm.fhir.persistence.jdbc.dto.Resource> runIncludeQuery(Class<? extends Resource> resourceType,
-        FHIRSearchContext searchContext, NewQueryBuilder queryBuilder, InclusionParameter inclusionParm,
-        String includeType, Set<String> queryIds, Map<Integer, Map<String, Set<String>>> queryResultMap,
-        ResourceDAO resourceDao, int iterationLevel, Set<Long> allResourceIds) throws Exception {
+    private void runIncludeIdsQuery(Class<? extends Resource> resourceType, FHIRSearchContext searchContext,
+        NewQueryBuilder queryBuilder, InclusionParameter inclusionParm, String includeType, Set<Long> queryIds,
+        ResourceDAO resourceDao, Set<Long> allResourceIds, Map<String, Set<Long>> stageResourceIds) throws Exception {
 
         if (queryIds.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        // Build the query. For the new query builder, we work in the actual long logical_resource_id
-        // values, not strings. TODO keep the values as longs to avoid unnecessary overhead
-        List<Long> logicalResourceIds = queryIds.stream().map(Long::parseLong).collect(Collectors.toList());
-        Select includeQuery = queryBuilder.buildIncludeQuery(resourceType, searchContext, inclusionParm, logicalResourceIds, includeType);
-
-        // Execute the query and filter out duplicates
-        List<com.ibm.fhir.persistence.jdbc.dto.Resource> includeDTOs =
-                resourceDao.search(includeQuery).stream().filter(r -> !allResourceIds.contains(r.getId())).collect(Collectors.toList());
-
-        // Add query result to map.
-        // The logical resource IDs are pulled from the returned DTOs and saved in a
-        // map of resource type to logical resource IDs. This map is then saved in a
-        // map of iteration # to resource type map.
-        // On subsequent iterations, _include and _revinclude parameters which target
-        // this resource type will use the associated logical resource IDs in their queries.
-        if (!includeDTOs.isEmpty()) {
-            Set<String> lrIds = includeDTOs.stream()
-                    .map(r -> Long.toString(r.getLogicalResourceId())).collect(Collectors.toSet());
-            Map<String, Set<String>> resultMap = queryResultMap.computeIfAbsent(iterationLevel, k -> new HashMap<>());
-            
-            final String targetResourceType = SearchConstants.INCLUDE.equals(includeType) ?
-                    inclusionParm.getSearchParameterTargetType() : inclusionParm.getJoinResourceType();
-            Set<String> resultLogicalResourceIds = resultMap.computeIfAbsent(targetResourceType, k -> new HashSet<>());
-            resultLogicalResourceIds.addAll(lrIds);
-            
-            // Because the resultLogicalResourceIds may contain resources of different types, we need
-            // to make sure the resourceTypeId is properly marked on each DTO. We could've selected
-            // that from the database, but we have the info here, so it's easy to inject it and avoid
-            // pulling another column from the database we don't actually need.
+            return;
+        }
+
+        List<Long> logicalResourceIds = new ArrayList<>(queryIds);
+        Select includeQuery = queryBuilder.buildIncludeIdsQuery(resourceType, searchContext, inclusionParm, logicalResourceIds, includeType);
+
+        // Execute the query and collect the ids we're not already returning. The same resource may be
+        // matched by more than one inclusion parameter of the stage, so the per-type sets de-duplicate
+        // across parameters too.
+        final String targetResourceType = SearchConstants.INCLUDE.equals(includeType) ?
+                inclusionParm.getSearchParameterTargetType() : inclusionParm.getJoinResourceType();
+        Set<Long> resourceIds = stageResourceIds.computeIfAbsent(targetResourceType, k -> new LinkedHashSet<>());
+        for (Long resourceId : resourceDao.searchForIds(includeQuery)) {
+            if (!allResourceIds.contains(resourceId)) {
+                resourceIds.add(resourceId);
+            }
+        }
+    }
+
+    /**
+     * Fetch the 'include' resources collected for a stage, using a single query per resource type.
+     *
+     * @param searchContext - the current search context
+     * @param resourceDao - the resource data access object
+     * @param stageResourceIds - the new resource IDs of the stage, by resource type
+     * @param queryResultMap - the map of prior query results
+     * @param iterationLevel - the iteration level of the stage results
+     * @param allResourceIds - the set of all resource IDs being returned - used
+     *                         for de-duplication
+     * @param allIncludeResources - the list of 'include' resources to which the fetched resources are added
+     * @return true if the maximum number of 'include' resources is exceeded
+     * @throws Exception
+     */
+    private boolean fetchIncludeResources(FHIRSearchContext searchContext, ResourceDAO resourceDao,
+        Map<String, Set<Long>> stageResourceIds, Map<Integer, Map<String, Set<Long>>> queryResultMap, int iterationLevel,
+        Set<Long> allResourceIds, List<com.ibm.fhir.persistence.jdbc.dto.Resource> allIncludeResources) throws Exception {
+
+        for (Map.Entry<String, Set<Long>> entry : stageResourceIds.entrySet()) {
+            // We only need to know that the max was exceeded, so don't fetch more than one resource too many
+            final int remaining = searchContext.getMaxPageIncludeCount() + 1 - allIncludeResources.size();
+            if (remaining <= 0) {
+                break;
+            }
+            final String targetResourceType = entry.getKey();
+            List<Long> resourceIds = entry.getValue().stream().limit(remaining).collect(Collectors.toList());
+            List<com.ibm.fhir.persistence.jdbc.dto.Resource> includeDTOs =
+                    resourceDao.searchByIds(targetResourceType, resourceIds, searchContext.isIncludeResourceData());
+            if (includeDTOs.isEmpty()) {
+                continue;
+            }
+
+            // Add query result to map.
+            // The logical resource IDs are pulled from the returned DTOs and saved in a
+            // map of resource type to logical resource IDs. This map is then saved in a
+            // map of iteration # to resource type map.
+            // On subsequent iterations, _include and _revinclude parameters which target
+            // this resource type will use the associated logical resource IDs in their queries.
+            Map<String, Set<Long>> resultMap = queryResultMap.computeIfAbsent(iterationLevel, k -> new HashMap<>());
+            Set<Long> resultLogicalResourceIds = resultMap.computeIfAbsent(targetResourceType, k -> new HashSet<>());
+
+            // Because the include resources may be of different types, we need to make sure the
+            // resourceTypeId is properly marked on each DTO. We could've selected that from the
+            // database, but we have the info here, so it's easy to inject it and avoid pulling
+            // another column from the database we don't actually need.
             int targetResourceTypeId = getResourceTypeId(targetResourceType);
-            includeDTOs.forEach(dto -> dto.setResourceTypeId(targetResourceTypeId));
+            for (com.ibm.fhir.persistence.jdbc.dto.Resource dto : includeDTOs) {
+                dto.setResourceTypeId(targetResourceTypeId);
+                resultLogicalResourceIds.add(dto.getLogicalResourceId());
+                allResourceIds.add(dto.getId());
+            }
+            allIncludeResources.addAll(includeDTOs);
         }
 
-        return includeDTOs;
+        return allIncludeResources.size() > searchContext.getMaxPageIncludeCount();
+    }
+
+    /**
+     * @return true if the 'include' resources already fetched plus those collected for
+     *         the current stage exceed the maximum number of 'include' resources
+     */
+    private boolean isMaxPageIncludeCountExceeded(FHIRSearchContext searchContext,
+        List<com.ibm.fhir.persistence.jdbc.dto.Resource> allIncludeResources, Map<String, Set<Long>> stageResourceIds) {
+        long count = allIncludeResources.size();
+        for (Set<Long> resourceIds : stageResourceIds.values()) {
+            count += resourceIds.size();
+        }
+        return count > searchContext.getMaxPageIncludeCount();
     }
 
     /**
@@ -1043,6 +1247,7 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
             // Persist the logically deleted Resource DTO.
             resourceDao.setPersistenceContext(context);
             resourceDao.insert(resourceDTO, null, null, null, IF_NONE_MATCH_NULL);
+            waitForOffload(context);
 
             if (log.isLoggable(Level.FINE)) {
                 log.fine("Deleted FHIR Resource '" + resourceDTO.getResourceType() + "/" + resourceDTO.getLogicalId() + "' id=" + resourceDTO.getId()
@@ -1141,6 +1346,185 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
         }
     }
 
+    @Override
+    public List<ResourceResult<? extends Resource>> readMany(FHIRPersistenceContext context, List<ResourceKey> keys)
+            throws FHIRPersistenceException {
+        final String METHODNAME = "readMany";
+        log.entering(CLASSNAME, METHODNAME);
+
+        // Group the distinct logical ids by resource type so that we need only one query per type
+        final Map<Class<? extends Resource>, List<String>> logicalIdsByType = new LinkedHashMap<>();
+        for (ResourceKey key: keys) {
+            List<String> logicalIds = logicalIdsByType.computeIfAbsent(key.getResourceType(), k -> new ArrayList<>());
+            if (!logicalIds.contains(key.getLogicalId())) {
+                logicalIds.add(key.getLogicalId());
+            }
+        }
+
+        try (Connection connection = openConnection()) {
+            doCachePrefill(connection);
+            ResourceDAO resourceDao = makeResourceDAO(connection);
+
+            final Map<ResourceKey, com.ibm.fhir.persistence.jdbc.dto.Resource> dtoMap = new HashMap<>();
+            for (Map.Entry<Class<? extends Resource>, List<String>> entry: logicalIdsByType.entrySet()) {
+                final Class<? extends Resource> resourceType = entry.getKey();
+                final List<String> logicalIds = entry.getValue();
+                for (int start=0; start<logicalIds.size(); start += READ_MANY_BATCH_SIZE) {
+                    List<String> batch = logicalIds.subList(start, Math.min(logicalIds.size(), start + READ_MANY_BATCH_SIZE));
+                    for (com.ibm.fhir.persistence.jdbc.dto.Resource dto: resourceDao.readMany(batch, resourceType.getSimpleName())) {
+                        dtoMap.put(new ResourceKey(resourceType, dto.getLogicalId()), dto);
+                    }
+                }
+            }
+
+            // Convert each DTO, fetching the payloads in a single query per resource type, or in
+            // parallel if they are offloaded. The conversion of each distinct key is only performed once
+            final Map<ResourceKey, ResourceResult<? extends Resource>> resultMap = isOffloadingSupported()
+                    ? convertResourceDTOMapParallel(context, dtoMap)
+                    : convertResourceDTOMap(connection, context, dtoMap);
+
+            // Align the result entries with the keys
+            List<ResourceResult<? extends Resource>> result = new ArrayList<>(keys.size());
+            for (ResourceKey key: keys) {
+                result.add(resultMap.get(key));
+            }
+            return result;
+        } catch(FHIRPersistenceException e) {
+            throw e;
+        } catch(Throwable e) {
+            FHIRPersistenceException fx = new FHIRPersistenceException("Unexpected error while performing a readMany operation.");
+            log.log(Level.SEVERE, fx.getMessage(), e);
+            throw fx;
+        } finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+    }
+
+    /**
+     * Convert each of the DTOs in the map to a ResourceResult. The DTOs don't carry the payload,
+     * so the payloads stored in the RDBMS are fetched using a {@link FetchPayloadsForIdsDAO} for
+     * each resource type.
+     * @param connection
+     * @param context
+     * @param dtoMap
+     * @return
+     * @throws FHIRException
+     * @throws IOException
+     */
+    private Map<ResourceKey, ResourceResult<? extends Resource>> convertResourceDTOMap(Connection connection, FHIRPersistenceContext context,
+            Map<ResourceKey, com.ibm.fhir.persistence.jdbc.dto.Resource> dtoMap) throws FHIRException, IOException {
+        // Group the resource_id of each version we need the payload for by resource type
+        final Map<Class<? extends Resource>, List<Long>> resourceIdsByType = new LinkedHashMap<>();
+        for (Map.Entry<ResourceKey, com.ibm.fhir.persistence.jdbc.dto.Resource> entry: dtoMap.entrySet()) {
+            final com.ibm.fhir.persistence.jdbc.dto.Resource dto = entry.getValue();
+            if (!dto.isDeleted() || context.includeDeleted()) {
+                resourceIdsByType.computeIfAbsent(entry.getKey().getResourceType(), k -> new ArrayList<>()).add(dto.getId());
+            }
+        }
+
+        // The payloads are copied out of the result set, and parsed once the query is complete
+        final String schemaName = this.schemaNameSupplier.getSchemaForRequestContext(connection);
+        final Map<Long, InputOutputByteStream> payloads = new HashMap<>();
+        for (Map.Entry<Class<? extends Resource>, List<Long>> entry: resourceIdsByType.entrySet()) {
+            final List<Long> resourceIds = entry.getValue();
+            for (int start=0; start<resourceIds.size(); start += READ_MANY_BATCH_SIZE) {
+                List<Long> batch = resourceIds.subList(start, Math.min(resourceIds.size(), start + READ_MANY_BATCH_SIZE));
+                FetchPayloadsForIdsDAO dao = new FetchPayloadsForIdsDAO(schemaName, entry.getKey().getSimpleName(), batch, rp -> {
+                    InputOutputByteStream payload = new InputOutputByteStream(DATA_BUFFER_INITIAL_SIZE);
+                    try {
+                        rp.transferTo(payload.outputStream());
+                    } catch (IOException x) {
+                        throw new UncheckedIOException(x);
+                    }
+                    payloads.put(rp.getResourceId(), payload);
+                });
+                dao.run(connection);
+            }
+        }
+
+        Map<ResourceKey, ResourceResult<? extends Resource>> result = new HashMap<>();
+        for (Map.Entry<ResourceKey, com.ibm.fhir.persistence.jdbc.dto.Resource> entry: dtoMap.entrySet()) {
+            final com.ibm.fhir.persistence.jdbc.dto.Resource dto = entry.getValue();
+            Resource resource = null;
+            InputOutputByteStream payload = payloads.get(dto.getId());
+            if (payload != null) {
+                // the payload has already been decompressed
+                FHIRParser parser = FHIRPersistenceSupport.jsonParser();
+                parser.setValidating(false);
+                resource = parser.parse(payload.inputStream());
+            }
+            result.put(entry.getKey(), ResourceResult.builder()
+                    .logicalId(dto.getLogicalId())
+                    .resourceTypeName(entry.getKey().getResourceType().getSimpleName())
+                    .deleted(dto.isDeleted())
+                    .version(dto.getVersionId())
+                    .lastUpdated(dto.getLastUpdated().toInstant())
+                    .resource(resource)
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * Convert each of the DTOs in the map to a ResourceResult, reading the offloaded
+     * payloads in parallel using the shared payload read executor.
+     * @param context
+     * @param dtoMap
+     * @return
+     * @throws FHIRException
+     * @throws IOException
+     */
+    private Map<ResourceKey, ResourceResult<? extends Resource>> convertResourceDTOMapParallel(FHIRPersistenceContext context,
+            Map<ResourceKey, com.ibm.fhir.persistence.jdbc.dto.Resource> dtoMap) throws FHIRException, IOException {
+        final ExecutorService executor = PayloadExecutors.getReadExecutor();
+        final Map<ResourceKey, Future<ResourceResult<? extends Resource>>> futures = new HashMap<>();
+        final Map<ResourceKey, ResourceResult<? extends Resource>> result = new HashMap<>();
+        for (Map.Entry<ResourceKey, com.ibm.fhir.persistence.jdbc.dto.Resource> entry: dtoMap.entrySet()) {
+            final ResourceKey key = entry.getKey();
+            final com.ibm.fhir.persistence.jdbc.dto.Resource dto = entry.getValue();
+            if (dto.isDeleted() && !context.includeDeleted()) {
+                // no need to fetch the payload
+                result.put(key, convertResourceDTOToResourceResult(dto, key.getResourceType(), null, false));
+            } else {
+                // resolve the resource type id on this thread before handing off the payload read
+                final String resourceTypeName = key.getResourceType().getSimpleName();
+                final int resourceTypeId = getResourceTypeId(resourceTypeName);
+                futures.put(key, executor.submit(FHIRRequestContext.propagate(() -> {
+                    Resource resource = payloadPersistence.readResource(key.getResourceType(), resourceTypeName, resourceTypeId,
+                        dto.getLogicalId(), dto.getVersionId(), dto.getResourcePayloadKey(), null);
+                    return ResourceResult.builder()
+                            .logicalId(dto.getLogicalId())
+                            .resourceTypeName(resourceTypeName)
+                            .deleted(dto.isDeleted())
+                            .version(dto.getVersionId())
+                            .lastUpdated(dto.getLastUpdated().toInstant())
+                            .resource(resource)
+                            .build();
+                })));
+            }
+        }
+
+        try {
+            for (Map.Entry<ResourceKey, Future<ResourceResult<? extends Resource>>> entry: futures.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().get());
+            }
+        } catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+            throw new FHIRPersistenceException("Interrupted while reading offloaded payloads");
+        } catch (ExecutionException x) {
+            if (x.getCause() instanceof FHIRPersistenceException) {
+                throw (FHIRPersistenceException) x.getCause();
+            }
+            FHIRPersistenceException fx = new FHIRPersistenceException("Unexpected error while reading offloaded payloads.");
+            log.log(Level.SEVERE, fx.getMessage(), x.getCause());
+            throw fx;
+        } finally {
+            // don't leave any orphaned reads running if we bailed out early
+            futures.values().forEach(f -> f.cancel(true));
+        }
+        return result;
+    }
+
     @Override
     public MultiResourceResult history(FHIRPersistenceContext context, Class<? extends Resource> resourceType,
             String logicalId) throws FHIRPersistenceException {
@@ -1181,8 +1565,20 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
             }
 
             if (resourceCount > 0) {
-                offset = (historyContext.getPageNumber() - 1) * historyContext.getPageSize();
-                resourceDTOList = resourceDao.history(resourceType.getSimpleName(), logicalId, fromDateTime, offset, historyContext.getPageSize());
+                // History is ordered by VERSION_ID descending, so a cursor for this page lets us seek
+                // directly to the first version of the page instead of skipping the previous pages
+                Long lastVersionId = KeysetCursor.decode(historyContext.getCursor(), historyContext.getPageNumber(), historyContext.getPageSize());
+                if (lastVersionId != null) {
+                    resourceDTOList = resourceDao.historyBeforeVersion(resourceType.getSimpleName(), logicalId, fromDateTime,
+                        lastVersionId.intValue(), historyContext.getPageSize());
+                } else {
+                    offset = (historyContext.getPageNumber() - 1) * historyContext.getPageSize();
+                    resourceDTOList = resourceDao.history(resourceType.getSimpleName(), logicalId, fromDateTime, offset, historyContext.getPageSize());
+                }
+                if (resourceDTOList.size() == historyContext.getPageSize()) {
+                    int lastVersion = resourceDTOList.get(resourceDTOList.size() - 1).getVersionId();
+                    historyContext.setNextCursor(KeysetCursor.encode(historyContext.getPageNumber() + 1, historyContext.getPageSize(), lastVersion));
+                }
                 resourceResults = this.convertResourceDTOList(resourceDao, resourceDTOList, resourceType, null, true);
             }
 
@@ -1231,7 +1627,8 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
             }
         }
 
-        if (pagingContext.getTotalCount() != null) {
+        // An estimated total can't tell us where the last page is
+        if (pagingContext.getTotalCount() != null && !pagingContext.isTotalCountEstimated()) {
             pagingContext.setLastPageNumber(Math.max(((pagingContext.getTotalCount() + pageSize - 1) / pageSize), 1));
         }
         int lastPageNumber = pagingContext.getLastPageNumber();
@@ -1347,6 +1744,47 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
         }
     }
 
+    @Override
+    public StoredResourcePayload readStoredPayload(FHIRPersistenceContext context, Class<? extends Resource> resourceType, String logicalId,
+            String versionId) throws FHIRPersistenceException {
+        final String METHODNAME = "readStoredPayload";
+        log.entering(CLASSNAME, METHODNAME);
+
+        if (this.payloadPersistence != null) {
+            // offloaded payloads are only available as parsed resources
+            log.exiting(CLASSNAME, METHODNAME);
+            return null;
+        }
+
+        try (Connection connection = openConnection()) {
+            doCachePrefill(connection);
+            ResourceDAO resourceDao = makeResourceDAO(connection);
+
+            final com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTO;
+            if (versionId == null) {
+                resourceDTO = resourceDao.read(logicalId, resourceType.getSimpleName());
+            } else {
+                resourceDTO = resourceDao.versionRead(logicalId, resourceType.getSimpleName(), Integer.parseInt(versionId));
+            }
+
+            // Missing and deleted resources are reported by the regular read/vread
+            if (resourceDTO == null || resourceDTO.isDeleted() || resourceDTO.getDataStream() == null) {
+                return null;
+            }
+            return new StoredResourcePayload(resourceType.getSimpleName(), resourceDTO.getLogicalId(), resourceDTO.getVersionId(),
+                resourceDTO.getLastUpdated().toInstant(), resourceDTO.getDataStream());
+        } catch (NumberFormatException e) {
+            // let vread report the invalid version
+            return null;
+        } catch(Throwable e) {
+            FHIRPersistenceException fx = new FHIRPersistenceException("Unexpected error while reading a stored resource payload.");
+            log.log(Level.SEVERE, fx.getMessage(), e);
+            throw fx;
+        } finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+    }
+
     /**
      * This method takes the passed list of sorted Resource ids, acquires the ResourceDTO corresponding to each id,
      * and returns those ResourceDTOs in a List, sorted according to the input sorted ids.
@@ -1485,6 +1923,44 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
      */
     private ExtractedSearchParameters extractSearchParameters(Resource fhirResource, com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTOx)
              throws Exception {
+        return extractSearchParameters(fhirResource, resourceDTOx, supplementalIssues);
+    }
+
+    /**
+     * Get the search parameters for the given resource, using the result of any extraction
+     * started by {@link #prepareResource(Resource)} for the same resource instance.
+     * @param fhirResource - A FHIR Resource.
+     * @param resourceDTOx - A Resource DTO representation of the passed FHIR Resource.
+     * @return list of extracted search parameters
+     * @throws Exception
+     */
+    private ExtractedSearchParameters getSearchParameters(Resource fhirResource, com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTOx)
+             throws Exception {
+        final PreparedResource prepared = preparedResources.remove(fhirResource);
+        if (prepared != null) {
+            try {
+                ExtractedSearchParameters result = prepared.getSearchParameters().get();
+                supplementalIssues.addAll(prepared.getWarnings());
+                return result;
+            } catch (ExecutionException x) {
+                // Repeat the extraction on this thread so that the failure is reported in the usual way
+                log.log(Level.FINE, "Prepared search parameter extraction failed for '"
+                        + fhirResource.getClass().getSimpleName() + "/" + fhirResource.getId() + "'", x.getCause());
+            }
+        }
+        return extractSearchParameters(fhirResource, resourceDTOx);
+    }
+
+    /**
+     * Extracts search parameters for the passed FHIR Resource.
+     * @param fhirResource - A FHIR Resource.
+     * @param resourceDTOx - A Resource DTO representation of the passed FHIR Resource.
+     * @param warnings - the list to which any extraction warnings are added
+     * @return list of extracted search parameters
+     * @throws Exception
+     */
+    private ExtractedSearchParameters extractSearchParameters(Resource fhirResource, com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTOx,
+            List<OperationOutcome.Issue> warnings) throws Exception {
         final String METHODNAME = "extractSearchParameters";
         log.entering(CLASSNAME, METHODNAME);
 
@@ -1629,7 +2105,7 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
                                         if (log.isLoggable(Level.FINE)) {
                                             log.fine(msg);
                                         }
-                                        addWarning(IssueType.INVALID, msg);
+                                        addWarning(warnings, IssueType.INVALID, msg);
                                         continue;
                                     }
                                 } catch (IllegalArgumentException e) {
@@ -1644,7 +2120,7 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
                                     if (log.isLoggable(Level.FINE)) {
                                         log.fine(msg.toString());
                                     }
-                                    addWarning(IssueType.INVALID, msg.toString());
+                                    addWarning(warnings, IssueType.INVALID, msg.toString());
                                 }
                             }
                             if (components.size() == p.getComponent().size()) {
@@ -1683,7 +2159,7 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
                                     if (log.isLoggable(Level.FINE)) {
                                         log.fine(msg);
                                     }
-                                    addWarning(IssueType.INVALID, msg);
+                                    addWarning(warnings, IssueType.INVALID, msg);
                                     continue;
                                 }
                             } catch (IllegalArgumentException e) {
@@ -1698,7 +2174,7 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
                                 if (log.isLoggable(Level.FINE)) {
                                     log.fine(msg.toString());
                                 }
-                                addWarning(IssueType.INVALID, msg.toString());
+                                addWarning(warnings, IssueType.INVALID, msg.toString());
                             }
                         }
                         // retrieve the list of parameters built from all the FHIRPathElementNode values
@@ -1931,6 +2407,12 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
         }
     }
 
+    @Override
+    public List<CacheStatistics> getCacheStatistics() throws FHIRPersistenceException {
+        // the cache is private to the current tenant/datasource
+        return cache.getCacheStatistics();
+    }
+
     @Override
     public OperationOutcome getHealth() throws FHIRPersistenceException {
 
@@ -2076,18 +2558,9 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
                 // original impl - the resource, if any, was read from the RDBMS
                 if (resourceDTO.getDataStream() != null) {
                     try (InputStream in = new GZIPInputStream(resourceDTO.getDataStream().inputStream())) {
-                        FHIRParser parser = FHIRParser.parser(Format.JSON);
+                        FHIRParser parser = FHIRPersistenceSupport.jsonParser();
                         parser.setValidating(false);
-                        if (elements != null) {
-                            // parse/filter the resource using elements
-                            result = parser.as(FHIRJsonParser.class).parseAndFilter(in, elements);
-                            if (resourceType.equals(result.getClass()) && !FHIRUtil.hasTag(result, SearchConstants.SUBSETTED_TAG)) {
-                                // add a SUBSETTED tag to this resource to indicate that its elements have been filtered
-                                result = FHIRUtil.addTag(result, SearchConstants.SUBSETTED_TAG);
-                            }
-                        } else {
-                            result = parser.parse(in);
-                        }
+                        result = FHIRPersistenceSupport.parse(parser, resourceType, in, elements);
                     }
                 } else {
                     // Null DATA column means that this resource version was probably removed
@@ -2132,18 +2605,9 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
                 // original impl - the resource, if any, was read from the RDBMS
                 if (resourceDTO.getDataStream() != null) {
                     try (InputStream in = new GZIPInputStream(resourceDTO.getDataStream().inputStream())) {
-                        FHIRParser parser = FHIRParser.parser(Format.JSON);
+                        FHIRParser parser = FHIRPersistenceSupport.jsonParser();
                         parser.setValidating(false);
-                        if (elements != null) {
-                            // parse/filter the resource using elements
-                            resource = parser.as(FHIRJsonParser.class).parseAndFilter(in, elements);
-                            if (resourceType.equals(resource.getClass()) && !FHIRUtil.hasTag(resource, SearchConstants.SUBSETTED_TAG)) {
-                                // add a SUBSETTED tag to this resource to indicate that its elements have been filtered
-                                resource = FHIRUtil.addTag(resource, SearchConstants.SUBSETTED_TAG);
-                            }
-                        } else {
-                            resource = parser.parse(in);
-                        }
+                        resource = FHIRPersistenceSupport.parse(parser, resourceType, in, elements);
                     }
                 } else {
                     // Queries may return a NULL for the DATA column if the resource has been erased
@@ -2266,8 +2730,8 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
     /**
      * Associate a supplemental warning with the current request
      */
-    private void addWarning(IssueType issueType, String message, String... expression) {
-        supplementalIssues.add(OperationOutcome.Issue.builder()
+    private void addWarning(List<OperationOutcome.Issue> warnings, IssueType issueType, String message, String... expression) {
+        warnings.add(OperationOutcome.Issue.builder()
                 .severity(IssueSeverity.WARNING)
                 .code(issueType)
                 .details(CodeableConcept.builder()
@@ -2558,6 +3022,16 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
         // because the transaction has been rolled back
         log.fine("starting rollback handling for PayloadPersistenceResponse data");
         for (PayloadPersistenceResponse ppr: payloadPersistenceResponses) {
+            try {
+                // The write may still be in flight, in which case we need it to finish
+                // before we can delete it. We don't care whether or not it succeeded
+                ppr.getResult().get();
+            } catch (InterruptedException x) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException x) {
+                log.log(Level.FINE, "payload write failed: " + ppr.toString(), x);
+            }
+
             try {
                 log.fine(() -> "tx rollback - deleting payload: " + ppr.toString());
                 payloadPersistence.deletePayload(ppr.getResourceTypeName(), ppr.getResourceTypeId(), 
@@ -2809,6 +3283,47 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
         }
     }
 
+    @Override
+    public void prepareResource(Resource resource) throws FHIRPersistenceException {
+        if (resource != null && !preparedResources.containsKey(resource)) {
+            // Extraction only depends on the resource and the tenant configuration, so it can run on
+            // another thread while this instance continues to use its connection for other interactions
+            final List<OperationOutcome.Issue> warnings = new ArrayList<>();
+            final Future<ExtractedSearchParameters> future = ExtractionExecutor.getExecutor().submit(
+                FHIRRequestContext.propagate(() -> extractSearchParameters(resource, null, warnings)));
+            preparedResources.put(resource, new PreparedResource(future, warnings));
+        }
+    }
+
+    /**
+     * Wait for the offloaded payload write associated with the current interaction to complete.
+     * The write is started before the RDBMS work so that the two overlap, but it must be
+     * resolved before the transaction can commit.
+     * @param context
+     * @throws FHIRPersistenceException if the payload could not be stored
+     */
+    private void waitForOffload(FHIRPersistenceContext context) throws FHIRPersistenceException {
+        final PayloadPersistenceResponse offloadResponse = context.getOffloadResponse();
+        if (offloadResponse != null && offloadResponse.getResult() != null) {
+            final PayloadPersistenceResult result;
+            try {
+                result = offloadResponse.getResult().get();
+            } catch (InterruptedException x) {
+                Thread.currentThread().interrupt();
+                throw new FHIRPersistenceException("Interrupted while storing offloaded payload");
+            } catch (ExecutionException x) {
+                FHIRPersistenceException fx = new FHIRPersistenceException("Unexpected error while storing offloaded payload.");
+                log.log(Level.SEVERE, fx.getMessage() + " " + offloadResponse.toString(), x.getCause());
+                throw fx;
+            }
+
+            if (result.getStatus() != PayloadPersistenceResult.Status.OK) {
+                log.severe("Failed to store offloaded payload: " + offloadResponse.toString());
+                throw new FHIRPersistenceException("Failed to store offloaded payload");
+            }
+        }
+    }
+
     /**
      * Get the resource payload key value from the given context if offloading
      * is supported and configured. Returns null otherwise.
@@ -2851,4 +3366,34 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, SchemaNameSuppl
         SingleResourceResult<T> result = vread(context, resourceType, record.getLogicalId(), Integer.toString(record.getVersionId()));
         return result.getResource();
     }
-}
\ No newline at end of file
+
+    /**
+     * Search parameter extraction started by {@link FHIRPersistenceJDBCImpl#prepareResource(Resource)}
+     */
+    private static class PreparedResource {
+        // The pending extraction result
+        private final Future<ExtractedSearchParameters> searchParameters;
+
+        // Warnings collected by the extraction. Only safe to read after the future completes
+        private final List<OperationOutcome.Issue> warnings;
+
+        private PreparedResource(Future<ExtractedSearchParameters> searchParameters, List<OperationOutcome.Issue> warnings) {
+            this.searchParameters = searchParameters;
+            this.warnings = warnings;
+        }
+
+        /**
+         * @return the pending extraction result
+         */
+        public Future<ExtractedSearchParameters> getSearchParameters() {
+            return searchParameters;
+        }
+
+        /**
+         * @return the warnings collected by the extraction
+         */
+        public List<OperationOutcome.Issue> getWarnings() {
+            return warnings;
+        }
+    }
+}
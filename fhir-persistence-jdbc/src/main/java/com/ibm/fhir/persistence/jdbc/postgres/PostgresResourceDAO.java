@@ -14,6 +14,7 @@ import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
@@ -23,6 +24,8 @@ import java.util.logging.Logger;
 import javax.transaction.TransactionSynchronizationRegistry;
 
 import com.ibm.fhir.database.utils.common.CalendarHelper;
+import com.ibm.fhir.database.utils.query.QueryUtil;
+import com.ibm.fhir.database.utils.query.Select;
 import com.ibm.fhir.persistence.InteractionStatus;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceVersionIdMismatchException;
@@ -272,4 +275,33 @@ public class PostgresResourceDAO extends ResourceDAOImpl {
         }
         return resourceTypeId;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Integer searchCountEstimate(Select countQuery) throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException {
+        final String METHODNAME = "searchCountEstimate";
+        logger.entering(CLASSNAME, METHODNAME);
+
+        final List<String> planLines = new ArrayList<>();
+        long dbCallStartTime;
+        double dbCallDuration;
+
+        try (PreparedStatement stmt = QueryUtil.prepareExplain(getConnection(), "EXPLAIN ", countQuery, getTranslator())) {
+            dbCallStartTime = System.nanoTime();
+            ResultSet resultSet = stmt.executeQuery();
+            while (resultSet.next()) {
+                planLines.add(resultSet.getString(1));
+            }
+            dbCallDuration = (System.nanoTime() - dbCallStartTime) / 1e6;
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("DB explain count complete. executionTime=" + dbCallDuration + "ms");
+            }
+        } catch (Throwable e) {
+            // Don't emit the SQL text in an exception - it risks returning it to the client in a response
+            FHIRPersistenceDataAccessException fx = new FHIRPersistenceDataAccessException("Server error: failure estimating count");
+            throw severe(logger, fx, countQuery.toDebugString(), e);
+        } finally {
+            logger.exiting(CLASSNAME, METHODNAME);
+        }
+        return PostgresRowEstimate.fromPlan(planLines);
+    }
+}
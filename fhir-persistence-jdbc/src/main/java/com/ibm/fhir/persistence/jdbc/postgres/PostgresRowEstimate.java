@@ -0,0 +1,60 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.jdbc.postgres;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the planner's row estimate for a count query from the text output of a
+ * PostgreSQL EXPLAIN statement.
+ *
+ * <p>The top of the plan for a count query is the aggregate node (estimated at 1 row),
+ * so the estimate is taken from the first node below the aggregate and gather nodes.
+ * The row estimate of a parallel node is per worker, so it is scaled by the number of
+ * planned workers (plus the leader).
+ */
+public final class PostgresRowEstimate {
+    private static final Pattern NODE = Pattern.compile("^(?:->)?\\s*(.+?)\\s+\\(cost=\\S+ rows=(\\d+) width=\\d+\\)");
+    private static final Pattern WORKERS_PLANNED = Pattern.compile("^Workers Planned: (\\d+)");
+
+    private PostgresRowEstimate() {
+        // no instances
+    }
+
+    /**
+     * Get the estimated number of rows counted by the query with the given plan
+     * @param planLines the lines of the EXPLAIN output
+     * @return the estimate, or null if the plan doesn't contain one
+     */
+    public static Integer fromPlan(List<String> planLines) {
+        int workersPlanned = 0;
+        for (String line : planLines) {
+            final String trimmed = line.trim();
+            Matcher workers = WORKERS_PLANNED.matcher(trimmed);
+            if (workers.find()) {
+                workersPlanned = Integer.parseInt(workers.group(1));
+                continue;
+            }
+
+            Matcher node = NODE.matcher(trimmed);
+            if (node.find()) {
+                final String nodeType = node.group(1);
+                if (nodeType.contains("Aggregate") || nodeType.startsWith("Gather")) {
+                    continue;
+                }
+                long rows = Long.parseLong(node.group(2));
+                if (nodeType.startsWith("Parallel ")) {
+                    rows *= workersPlanned + 1;
+                }
+                return (int) Math.min(rows, Integer.MAX_VALUE);
+            }
+        }
+        return null;
+    }
+}
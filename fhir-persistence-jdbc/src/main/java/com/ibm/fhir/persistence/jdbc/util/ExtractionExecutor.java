@@ -0,0 +1,49 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.jdbc.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Shared thread pool used to extract search parameter values from resources
+ * ahead of the persistence interaction which needs them. Extraction is
+ * CPU-bound, so the pool is sized to the number of available processors.
+ */
+public class ExtractionExecutor {
+    private static final Logger logger = Logger.getLogger(ExtractionExecutor.class.getName());
+
+    // Lazily created so we don't start any threads unless the pipeline is used
+    private static volatile ExecutorService executor;
+
+    /**
+     * Get the shared extraction executor
+     * @return
+     */
+    public static ExecutorService getExecutor() {
+        ExecutorService result = executor;
+        if (result == null) {
+            synchronized (ExtractionExecutor.class) {
+                result = executor;
+                if (result == null) {
+                    final int threads = Runtime.getRuntime().availableProcessors();
+                    final AtomicInteger counter = new AtomicInteger();
+                    logger.info("Creating search parameter extraction executor with threads=" + threads);
+                    result = Executors.newFixedThreadPool(threads, r -> {
+                        Thread t = new Thread(r, "fhir-extract-" + counter.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    executor = result;
+                }
+            }
+        }
+        return result;
+    }
+}
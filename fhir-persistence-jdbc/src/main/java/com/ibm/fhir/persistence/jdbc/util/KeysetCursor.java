@@ -0,0 +1,79 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.jdbc.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.logging.Logger;
+
+/**
+ * Encodes and decodes the opaque cursor used for keyset (seek) pagination.
+ *
+ * <p>The cursor records the sort key of the last row of a page (e.g. the LOGICAL_RESOURCE_ID of the last
+ * resource in an unsorted search) so that the next page can be fetched with a {@code key > ?} predicate
+ * instead of an OFFSET, making deep pages as cheap as the first one. A cursor is only honored for the
+ * page number and page size it was issued for; any other request falls back to OFFSET/LIMIT pagination.
+ */
+public final class KeysetCursor {
+    private static final Logger logger = Logger.getLogger(KeysetCursor.class.getName());
+
+    // Bump this if the cursor content changes so that old cursors are ignored rather than misread
+    private static final String FORMAT_VERSION = "1";
+    private static final String SEPARATOR = ":";
+
+    private KeysetCursor() { }
+
+    /**
+     * Encode the cursor for the given page
+     *
+     * @param pageNumber
+     *     the page number the cursor is for (i.e. the page which follows the one containing the key)
+     * @param pageSize
+     *     the page size the cursor is for
+     * @param key
+     *     the sort key of the last row of the previous page
+     * @return
+     *     the opaque, URL-safe cursor
+     */
+    public static String encode(int pageNumber, int pageSize, long key) {
+        String value = FORMAT_VERSION + SEPARATOR + pageNumber + SEPARATOR + pageSize + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode the cursor for the given page
+     *
+     * @param cursor
+     *     the opaque cursor passed with the request; may be null
+     * @param pageNumber
+     *     the requested page number
+     * @param pageSize
+     *     the requested page size
+     * @return
+     *     the sort key of the last row of the previous page, or null if there is no cursor or it does not
+     *     apply to the requested page
+     */
+    public static Long decode(String cursor, int pageNumber, int pageSize) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String[] tokens = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR);
+            if (tokens.length == 4
+                    && FORMAT_VERSION.equals(tokens[0])
+                    && Integer.parseInt(tokens[1]) == pageNumber
+                    && Integer.parseInt(tokens[2]) == pageSize) {
+                return Long.parseLong(tokens[3]);
+            }
+            logger.fine("Ignoring cursor which does not match the requested page");
+        } catch (IllegalArgumentException e) {
+            // includes NumberFormatException
+            logger.fine("Ignoring invalid cursor: " + cursor);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.jdbc.util;
+
+import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
+import com.ibm.fhir.persistence.jdbc.domain.SearchExtension;
+import com.ibm.fhir.persistence.jdbc.domain.SearchQueryVisitor;
+
+/**
+ * A SearchExtension used to seek past the rows of previous pages
+ * (keyset pagination) instead of skipping them with an OFFSET.
+ * Only valid for queries ordered by LOGICAL_RESOURCE_ID.
+ */
+public class KeysetPaginationExtension implements SearchExtension {
+    // The LOGICAL_RESOURCE_ID of the last resource of the previous page
+    private final long lastLogicalResourceId;
+
+    /**
+     * Public constructor
+     * @param lastLogicalResourceId
+     */
+    public KeysetPaginationExtension(long lastLogicalResourceId) {
+        this.lastLogicalResourceId = lastLogicalResourceId;
+    }
+
+    @Override
+    public <T> T visit(T query, SearchQueryVisitor<T> visitor) throws FHIRPersistenceException {
+        return visitor.addKeysetFilter(query, lastLogicalResourceId);
+    }
+}
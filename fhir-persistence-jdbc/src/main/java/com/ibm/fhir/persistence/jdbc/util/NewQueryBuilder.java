@@ -218,7 +218,29 @@ public class NewQueryBuilder {
      */
     private Select renderQuery(SearchQuery domainModel, FHIRSearchContext searchContext) throws FHIRPersistenceException {
         final int offset = (searchContext.getPageNumber()-1) * searchContext.getPageSize();
-        final int rowsPerPage = searchContext.getPageSize();
+        return renderQuery(domainModel, searchContext, offset);
+    }
+
+    /**
+     * Render the domain model into a Select statement using the given row offset
+     * @param domainModel
+     * @param searchContext
+     * @param offset
+     * @return
+     */
+    private Select renderQuery(SearchQuery domainModel, FHIRSearchContext searchContext, int offset) throws FHIRPersistenceException {
+        return renderQuery(domainModel, searchContext, offset, searchContext.getPageSize());
+    }
+
+    /**
+     * Render the domain model into a Select statement using the given row offset and row limit
+     * @param domainModel
+     * @param searchContext
+     * @param offset
+     * @param rowsPerPage
+     * @return
+     */
+    private Select renderQuery(SearchQuery domainModel, FHIRSearchContext searchContext, int offset, int rowsPerPage) throws FHIRPersistenceException {
         SearchQueryRenderer renderer = new SearchQueryRenderer(this.identityCache, offset, rowsPerPage, searchContext.isIncludeResourceData());
         QueryData queryData = domainModel.visit(renderer);
         return queryData.getQuery().build();
@@ -237,6 +259,7 @@ public class NewQueryBuilder {
                 new Object[] { resourceType.getSimpleName(), searchContext.getSearchParameters() });
 
         final SearchQuery domainModel;
+        int offset = (searchContext.getPageNumber()-1) * searchContext.getPageSize();
         if (Resource.class.equals(resourceType)) {
             // Whole-system search
             if (allSearchParmsAreGlobal(searchContext.getSearchParameters())) {
@@ -290,28 +313,77 @@ public class NewQueryBuilder {
             domainModel = sortQuery;
         } else {
             domainModel = new SearchDataQuery(resourceType.getSimpleName());
+
+            // The data query is ordered by LOGICAL_RESOURCE_ID, so if the request carries a cursor for
+            // this page we can seek directly to the first row instead of skipping the previous pages
+            Long lastLogicalResourceId = KeysetCursor.decode(searchContext.getCursor(),
+                    searchContext.getPageNumber(), searchContext.getPageSize());
+            if (lastLogicalResourceId != null) {
+                domainModel.add(new KeysetPaginationExtension(lastLogicalResourceId));
+                offset = 0;
+            }
         }
         buildModelCommon(domainModel, resourceType, searchContext);
-        Select result = renderQuery(domainModel, searchContext);
+        Select result = renderQuery(domainModel, searchContext, offset);
+
+        log.exiting(CLASSNAME, METHODNAME);
+        return result;
+    }
+
+    /**
+     * Construct a query which returns the ordered list of RESOURCE_IDs matching the search
+     * (starting from the first match), used to take a snapshot of the search results
+     * @param resourceType
+     * @param searchContext
+     * @param maxRows the maximum number of ids to return
+     * @return
+     * @throws Exception
+     */
+    public Select buildSnapshotQuery(Class<?> resourceType, FHIRSearchContext searchContext, int maxRows) throws Exception {
+        final String METHODNAME = "buildSnapshotQuery";
+        log.entering(CLASSNAME, METHODNAME,
+                new Object[] { resourceType.getSimpleName(), searchContext.getSearchParameters() });
+
+        // Same as the sort query, but without sort parameters it is ordered like the data query
+        SearchSortQuery domainModel = new SearchSortQuery(resourceType.getSimpleName());
+        for (SortParameter sp: searchContext.getSortParameters()) {
+            domainModel.add(new DomainSortParameter(sp));
+        }
+        buildModelCommon(domainModel, resourceType, searchContext);
+        Select result = renderQuery(domainModel, searchContext, 0, maxRows);
 
         log.exiting(CLASSNAME, METHODNAME);
         return result;
     }
 
     /**
-     * Builds a query that returns included resources.
+     * Indicates whether the results of the query built by {@link #buildQuery(Class, FHIRSearchContext)} are
+     * ordered by LOGICAL_RESOURCE_ID and can therefore be paged with a {@link KeysetCursor}
+     *
+     * @param resourceType
+     * @param searchContext
+     * @return
+     */
+    public static boolean isKeysetPaginationSupported(Class<?> resourceType, FHIRSearchContext searchContext) {
+        return !Resource.class.equals(resourceType) && !searchContext.hasSortParameters();
+    }
+
+    /**
+     * Builds a query that returns only the RESOURCE_IDs of included resources, ordered
+     * by LOGICAL_RESOURCE_ID. The resources themselves can then be fetched in a single
+     * query for the distinct ids of all the inclusion parameters.
      *
      * @param resourceType  - the type of resource being searched for.
      * @param searchContext - the search context containing the search parameters.
      * @param inclusionParm - the inclusion parameter for which the query is being built.
      * @param ids           - the list of logical resource IDs the query will run against.
      * @param inclusionType - either INCLUDE or REVINCLUDE.
-     * @return Select the query to fetch the matching list of included resources
+     * @return Select the query to fetch the RESOURCE_IDs of the matching included resources
      * @throws Exception
      */
-    public Select buildIncludeQuery(Class<?> resourceType, FHIRSearchContext searchContext,
+    public Select buildIncludeIdsQuery(Class<?> resourceType, FHIRSearchContext searchContext,
             InclusionParameter inclusionParm, List<Long> logicalResourceIds, String inclusionType) throws Exception {
-        final String METHODNAME = "buildIncludeQuery";
+        final String METHODNAME = "buildIncludeIdsQuery";
         log.entering(CLASSNAME, METHODNAME,
             new Object[] { resourceType.getSimpleName(), inclusionParm });
 
@@ -0,0 +1,71 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.jdbc.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable snapshot of the ordered RESOURCE_IDs matching a search.
+ *
+ * <p>The snapshot is taken when the first page of a search is requested, and the following pages of the
+ * same search are sliced from it. Paging through a snapshot is therefore a primary key fetch per page,
+ * and the pages are consistent with each other even if matching resources are created, updated or
+ * deleted in the meantime.
+ */
+public class SearchSnapshot {
+    // Identifies the search (rendered query and bind values) the snapshot was taken for
+    private final List<String> queryKey;
+
+    // The RESOURCE_IDs in search order
+    private final long[] resourceIds;
+
+    /**
+     * Public constructor
+     * @param queryKey the key of the query the snapshot was taken for
+     * @param resourceIds the matching RESOURCE_IDs in search order
+     */
+    public SearchSnapshot(List<String> queryKey, List<Long> resourceIds) {
+        this.queryKey = Collections.unmodifiableList(new ArrayList<>(queryKey));
+        this.resourceIds = new long[resourceIds.size()];
+        for (int i = 0; i < this.resourceIds.length; i++) {
+            this.resourceIds[i] = resourceIds.get(i);
+        }
+    }
+
+    /**
+     * @param queryKey
+     * @return true if the snapshot was taken for the query with the given key
+     */
+    public boolean matches(List<String> queryKey) {
+        return this.queryKey.equals(queryKey);
+    }
+
+    /**
+     * @return the number of resources matching the search
+     */
+    public int size() {
+        return resourceIds.length;
+    }
+
+    /**
+     * Get a page of the snapshot
+     * @param offset the index of the first resource of the page
+     * @param count the maximum number of resources on the page
+     * @return the RESOURCE_IDs of the page in search order; empty if the offset is beyond the end of the snapshot
+     */
+    public List<Long> getResourceIds(int offset, int count) {
+        final int start = Math.max(offset, 0);
+        final int end = (int) Math.min((long) start + Math.max(count, 0), resourceIds.length);
+        List<Long> result = new ArrayList<>(Math.max(end - start, 0));
+        for (int i = start; i < end; i++) {
+            result.add(resourceIds[i]);
+        }
+        return result;
+    }
+}
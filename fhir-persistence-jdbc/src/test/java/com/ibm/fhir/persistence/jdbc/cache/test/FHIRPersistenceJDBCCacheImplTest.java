@@ -0,0 +1,77 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.jdbc.cache.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.cache.CacheStatistics;
+import com.ibm.fhir.persistence.jdbc.cache.CommonTokenValuesCacheImpl;
+import com.ibm.fhir.persistence.jdbc.cache.FHIRPersistenceJDBCCacheImpl;
+import com.ibm.fhir.persistence.jdbc.cache.IdNameCache;
+import com.ibm.fhir.persistence.jdbc.cache.NameIdCache;
+
+/**
+ * unit test for the statistics reported by {@link FHIRPersistenceJDBCCacheImpl}
+ */
+public class FHIRPersistenceJDBCCacheImplTest {
+
+    @Test
+    public void testCacheStatistics() {
+        NameIdCache<Integer> resourceTypeCache = new NameIdCache<>();
+        IdNameCache<Integer> resourceTypeNameCache = new IdNameCache<>();
+        NameIdCache<Integer> parameterNameCache = new NameIdCache<>();
+        FHIRPersistenceJDBCCacheImpl impl = new FHIRPersistenceJDBCCacheImpl(resourceTypeCache, resourceTypeNameCache,
+                parameterNameCache, new CommonTokenValuesCacheImpl(10, 10, 10));
+
+        resourceTypeCache.prefill(Collections.singletonMap("Patient", 1));
+        resourceTypeNameCache.prefill(Collections.singletonMap(1, "Patient"));
+
+        // staged entries are found by this thread but are not counted in the size until committed
+        parameterNameCache.addEntry("name", 2);
+        assertEquals(parameterNameCache.getId("name"), Integer.valueOf(2));
+
+        assertEquals(resourceTypeCache.getId("Patient"), Integer.valueOf(1));
+        assertEquals(resourceTypeCache.getId("Patient"), Integer.valueOf(1));
+        assertNull(resourceTypeCache.getId("Observation"));
+        assertEquals(resourceTypeNameCache.getName(1), "Patient");
+
+        List<CacheStatistics> statistics = impl.getCacheStatistics();
+        assertEquals(statistics.size(), 6);
+
+        CacheStatistics resourceTypes = statistics.get(0);
+        assertEquals(resourceTypes.getCacheName(), FHIRPersistenceJDBCCacheImpl.RESOURCE_TYPES_CACHE);
+        assertEquals(resourceTypes.getEstimatedSize(), 1);
+        assertNull(resourceTypes.getMaximumSize());
+        assertEquals(resourceTypes.getStats().hitCount(), 2);
+        assertEquals(resourceTypes.getStats().missCount(), 1);
+
+        CacheStatistics resourceTypeNames = statistics.get(1);
+        assertEquals(resourceTypeNames.getCacheName(), FHIRPersistenceJDBCCacheImpl.RESOURCE_TYPE_NAMES_CACHE);
+        assertEquals(resourceTypeNames.getEstimatedSize(), 1);
+        assertEquals(resourceTypeNames.getStats().hitCount(), 1);
+        assertEquals(resourceTypeNames.getStats().missCount(), 0);
+
+        CacheStatistics parameterNames = statistics.get(2);
+        assertEquals(parameterNames.getCacheName(), FHIRPersistenceJDBCCacheImpl.PARAMETER_NAMES_CACHE);
+        assertEquals(parameterNames.getEstimatedSize(), 0);
+        assertEquals(parameterNames.getStats().hitCount(), 1);
+
+        impl.transactionCommitted();
+        assertEquals(impl.getCacheStatistics().get(2).getEstimatedSize(), 1);
+
+        // followed by the token value caches
+        assertEquals(statistics.get(3).getCacheName(), CommonTokenValuesCacheImpl.CODE_SYSTEMS_CACHE);
+        assertEquals(statistics.get(4).getCacheName(), CommonTokenValuesCacheImpl.TOKEN_VALUES_CACHE);
+        assertEquals(statistics.get(5).getCacheName(), CommonTokenValuesCacheImpl.CANONICAL_VALUES_CACHE);
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2020, 2021
+ * (C) Copyright IBM Corp. 2020, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -7,14 +7,20 @@
 package com.ibm.fhir.persistence.jdbc.cache.test;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.testng.annotations.Test;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ibm.fhir.cache.CacheStatistics;
 import com.ibm.fhir.persistence.jdbc.cache.CommonTokenValuesCacheImpl;
 import com.ibm.fhir.persistence.jdbc.dao.impl.ResourceTokenValueRec;
+import com.ibm.fhir.persistence.jdbc.dto.CommonTokenValue;
 
 /**
  * unit test for {@link CommonTokenValuesCacheImpl}
@@ -97,4 +103,41 @@ public class ResourceReferenceCacheImplTest {
         assertEquals("sys3", sys3.getCodeSystemValue());
         assertEquals(3, sys3.getCodeSystemValueId());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testStagedValuesAndStats() throws Exception {
+        CommonTokenValuesCacheImpl impl = new CommonTokenValuesCacheImpl(10, 10, 10);
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            // Values staged by a rolled-back transaction are never published
+            impl.addCodeSystem("sys1", 1);
+            impl.clearLocalMaps();
+            impl.updateSharedMaps();
+            assertNull(other.submit(() -> impl.getCodeSystemId("sys1")).get());
+
+            // Staged values are only visible to other threads after updateSharedMaps
+            impl.addCodeSystem("sys1", 1);
+            impl.addTokenValue(new CommonTokenValue("sys1", 1, "val1"), 10L);
+            assertNull(other.submit(() -> impl.getCommonTokenValueId("sys1", "val1")).get());
+            impl.updateSharedMaps();
+            assertEquals(other.submit(() -> impl.getCommonTokenValueId("sys1", "val1")).get(), Long.valueOf(10L));
+
+            List<CacheStatistics> statistics = impl.getCacheStatistics();
+            assertEquals(statistics.get(0).getCacheName(), CommonTokenValuesCacheImpl.CODE_SYSTEMS_CACHE);
+            assertEquals(statistics.get(0).getEstimatedSize(), 1);
+            assertEquals(statistics.get(0).getMaximumSize(), Long.valueOf(10));
+            CacheStats codeSystemStats = statistics.get(0).getStats();
+            assertEquals(codeSystemStats.hitCount(), 1);
+            assertEquals(codeSystemStats.missCount(), 2);
+            assertEquals(statistics.get(1).getCacheName(), CommonTokenValuesCacheImpl.TOKEN_VALUES_CACHE);
+            CacheStats tokenValueStats = statistics.get(1).getStats();
+            assertEquals(tokenValueStats.hitCount(), 1);
+            assertEquals(tokenValueStats.missCount(), 0);
+
+            impl.reset();
+            assertNull(impl.getCodeSystemId("sys1"));
+        } finally {
+            other.shutdown();
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -12,11 +12,13 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.logging.Logger;
 
+import com.ibm.fhir.cache.CacheStatistics;
 import com.ibm.fhir.database.utils.api.IDatabaseTranslator;
 import com.ibm.fhir.database.utils.common.JdbcPropertyAdapter;
 import com.ibm.fhir.database.utils.model.DbType;
@@ -232,6 +234,11 @@ public class EraseTestMain {
                 public void prefill(Map content) {
                     // NOP
                 }
+
+                @Override
+                public CacheStatistics getCacheStatistics(String cacheName) {
+                    return CacheStatistics.of(cacheName, 0, 0, 0);
+                }
             };
             return cache;
         }
@@ -255,6 +262,11 @@ public class EraseTestMain {
         public void transactionRolledBack() {
             // No Operation
         }
+
+        @Override
+        public List<CacheStatistics> getCacheStatistics() {
+            return Collections.emptyList();
+        }
     }
 
     /**
@@ -0,0 +1,43 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.jdbc.test.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.persistence.jdbc.util.KeysetCursor;
+
+/**
+ * Unit test for {@link KeysetCursor}
+ */
+public class KeysetCursorTest {
+
+    @Test
+    public void testRoundTrip() {
+        String cursor = KeysetCursor.encode(3, 10, 12345L);
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+        assertEquals(KeysetCursor.decode(cursor, 3, 10), Long.valueOf(12345L));
+    }
+
+    @Test
+    public void testMismatchedPage() {
+        String cursor = KeysetCursor.encode(3, 10, 12345L);
+        assertNull(KeysetCursor.decode(cursor, 4, 10));
+        assertNull(KeysetCursor.decode(cursor, 3, 20));
+    }
+
+    @Test
+    public void testInvalidCursor() {
+        assertNull(KeysetCursor.decode(null, 1, 10));
+        assertNull(KeysetCursor.decode("", 1, 10));
+        assertNull(KeysetCursor.decode("not a cursor!", 1, 10));
+        assertNull(KeysetCursor.decode("MTo-", 1, 10));
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.jdbc.test.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.persistence.jdbc.postgres.PostgresRowEstimate;
+
+/**
+ * Unit test for {@link PostgresRowEstimate}
+ */
+public class PostgresRowEstimateTest {
+
+    @Test
+    public void testSerialPlan() {
+        Integer estimate = PostgresRowEstimate.fromPlan(Arrays.asList(
+            "Aggregate  (cost=1520.30..1520.31 rows=1 width=8)",
+            "  ->  Hash Join  (cost=48.25..1510.20 rows=4040 width=0)",
+            "        Hash Cond: (lr.logical_resource_id = p.logical_resource_id)",
+            "        ->  Seq Scan on patient_logical_resources lr  (cost=0.00..1210.00 rows=50000 width=8)"));
+        assertEquals(estimate, Integer.valueOf(4040));
+    }
+
+    @Test
+    public void testParallelPlan() {
+        Integer estimate = PostgresRowEstimate.fromPlan(Arrays.asList(
+            "Finalize Aggregate  (cost=10633.55..10633.56 rows=1 width=8)",
+            "  ->  Gather  (cost=10633.33..10633.54 rows=2 width=8)",
+            "        Workers Planned: 2",
+            "        ->  Partial Aggregate  (cost=9633.33..9633.34 rows=1 width=8)",
+            "              ->  Parallel Seq Scan on patient_logical_resources lr  (cost=0.00..8591.67 rows=416667 width=0)",
+            "                    Filter: (is_deleted = 'N'::bpchar)"));
+        assertEquals(estimate, Integer.valueOf(1250001));
+    }
+
+    @Test
+    public void testNoEstimate() {
+        assertNull(PostgresRowEstimate.fromPlan(Collections.emptyList()));
+        assertNull(PostgresRowEstimate.fromPlan(Arrays.asList("Aggregate  (cost=0.00..0.01 rows=1 width=8)")));
+    }
+}
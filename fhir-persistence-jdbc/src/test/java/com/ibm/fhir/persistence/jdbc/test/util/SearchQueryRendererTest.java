@@ -0,0 +1,197 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.jdbc.test.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.config.FHIRConfiguration;
+import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.database.utils.derby.DerbyTranslator;
+import com.ibm.fhir.database.utils.query.Select;
+import com.ibm.fhir.database.utils.query.expression.StringStatementRenderer;
+import com.ibm.fhir.database.utils.query.node.BindMarkerNode;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
+import com.ibm.fhir.persistence.jdbc.dao.api.JDBCIdentityCache;
+import com.ibm.fhir.persistence.jdbc.dto.CommonTokenValue;
+import com.ibm.fhir.persistence.jdbc.util.NewQueryBuilder;
+import com.ibm.fhir.search.context.FHIRSearchContext;
+import com.ibm.fhir.search.util.SearchUtil;
+
+/**
+ * Tests the rendering of token value and code system ids by the SearchQueryRenderer, which are
+ * literals by default and bind markers when searchBindTokenValueIds is configured
+ */
+public class SearchQueryRendererTest {
+    private static final String SYSTEM = "http://example.org/system";
+    private static final String OTHER_SYSTEM = "http://example.org/other-system";
+
+    @BeforeClass
+    public void before() throws Exception {
+        FHIRConfiguration.setConfigHome("src/test/resources");
+        FHIRRequestContext.set(new FHIRRequestContext("default"));
+    }
+
+    @AfterClass
+    public void after() throws Exception {
+        FHIRRequestContext.set(new FHIRRequestContext("default"));
+    }
+
+    /**
+     * Build the query for the identifier search and render it, collecting the bind markers
+     * @param identifier
+     * @param bindMarkers
+     * @return the statement text
+     */
+    private String render(String identifier, List<BindMarkerNode> bindMarkers) throws Exception {
+        Map<String, List<String>> queryParameters = new HashMap<>();
+        queryParameters.put("identifier", Collections.singletonList(identifier));
+        FHIRSearchContext searchContext = SearchUtil.parseQueryParameters(Patient.class, queryParameters);
+
+        NewQueryBuilder queryBuilder = new NewQueryBuilder(null, mockIdCache());
+        Select query = queryBuilder.buildQuery(Patient.class, searchContext);
+        return query.render(new StringStatementRenderer(new DerbyTranslator(), bindMarkers, false));
+    }
+
+    private static boolean containsValue(List<BindMarkerNode> bindMarkers, Object value) {
+        return bindMarkers.stream().anyMatch(b -> b.checkTypeAndValue(value));
+    }
+
+    @Test
+    public void testCommonTokenValueIdLiteral() throws Exception {
+        List<BindMarkerNode> bindMarkers1 = new ArrayList<>();
+        List<BindMarkerNode> bindMarkers2 = new ArrayList<>();
+        String sql1 = render(SYSTEM + "|a", bindMarkers1);
+        String sql2 = render(SYSTEM + "|b", bindMarkers2);
+
+        assertTrue(sql1.contains(".COMMON_TOKEN_VALUE_ID = 101"), sql1);
+        assertTrue(sql2.contains(".COMMON_TOKEN_VALUE_ID = 102"), sql2);
+        assertNotEquals(sql1, sql2);
+        assertEquals(bindMarkers1.size(), bindMarkers2.size());
+        assertFalse(containsValue(bindMarkers1, 101L));
+    }
+
+    @Test
+    public void testCodeSystemIdLiteral() throws Exception {
+        String sql1 = render(SYSTEM + "|", new ArrayList<>());
+        String sql2 = render(OTHER_SYSTEM + "|", new ArrayList<>());
+
+        assertTrue(sql1.contains(".CODE_SYSTEM_ID = 11"), sql1);
+        assertTrue(sql2.contains(".CODE_SYSTEM_ID = 12"), sql2);
+        assertNotEquals(sql1, sql2);
+    }
+
+    @Test
+    public void testCommonTokenValueIdBound() throws Exception {
+        FHIRRequestContext.set(new FHIRRequestContext("searchBindTokenValueIds"));
+        try {
+            List<BindMarkerNode> bindMarkers1 = new ArrayList<>();
+            List<BindMarkerNode> bindMarkers2 = new ArrayList<>();
+            String sql1 = render(SYSTEM + "|a", bindMarkers1);
+            String sql2 = render(SYSTEM + "|b", bindMarkers2);
+
+            // the same statement text, so the prepared statement can be reused
+            assertEquals(sql1, sql2);
+            assertTrue(sql1.contains(".COMMON_TOKEN_VALUE_ID = ?"), sql1);
+            assertTrue(containsValue(bindMarkers1, 101L));
+            assertTrue(containsValue(bindMarkers2, 102L));
+        } finally {
+            FHIRRequestContext.set(new FHIRRequestContext("default"));
+        }
+    }
+
+    @Test
+    public void testCodeSystemIdBound() throws Exception {
+        FHIRRequestContext.set(new FHIRRequestContext("searchBindTokenValueIds"));
+        try {
+            List<BindMarkerNode> bindMarkers1 = new ArrayList<>();
+            List<BindMarkerNode> bindMarkers2 = new ArrayList<>();
+            String sql1 = render(SYSTEM + "|", bindMarkers1);
+            String sql2 = render(OTHER_SYSTEM + "|", bindMarkers2);
+
+            assertEquals(sql1, sql2);
+            assertTrue(sql1.contains(".CODE_SYSTEM_ID = ?"), sql1);
+            assertTrue(containsValue(bindMarkers1, 11));
+            assertTrue(containsValue(bindMarkers2, 12));
+        } finally {
+            FHIRRequestContext.set(new FHIRRequestContext("default"));
+        }
+    }
+
+    /**
+     * Create and return a mock {@link JDBCIdentityCache} with fixed ids for the test systems and values
+     * @return
+     */
+    private JDBCIdentityCache mockIdCache() {
+        return new JDBCIdentityCache() {
+            @Override
+            public Integer getResourceTypeId(String resourceType) throws FHIRPersistenceException {
+                return 1;
+            }
+
+            @Override
+            public String getResourceTypeName(Integer resourceTypeId) throws FHIRPersistenceException {
+                return "Patient";
+            }
+
+            @Override
+            public Integer getCodeSystemId(String codeSystem) throws FHIRPersistenceException {
+                return SYSTEM.equals(codeSystem) ? 11 : 12;
+            }
+
+            @Override
+            public Integer getCanonicalId(String canonicalValue) throws FHIRPersistenceException {
+                return null;
+            }
+
+            @Override
+            public Integer getParameterNameId(String parameterName) throws FHIRPersistenceException {
+                return 2;
+            }
+
+            @Override
+            public Long getCommonTokenValueId(String codeSystem, String tokenValue) {
+                return "a".equals(tokenValue) ? 101L : 102L;
+            }
+
+            @Override
+            public Set<Long> getCommonTokenValueIds(Collection<CommonTokenValue> tokenValues) {
+                return null;
+            }
+
+            @Override
+            public List<Long> getCommonTokenValueIdList(String tokenValue) {
+                return null;
+            }
+
+            @Override
+            public List<String> getResourceTypeNames() throws FHIRPersistenceException {
+                return null;
+            }
+
+            @Override
+            public List<Integer> getResourceTypeIds() throws FHIRPersistenceException {
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.jdbc.test.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.persistence.jdbc.util.SearchSnapshot;
+
+/**
+ * Unit test for {@link SearchSnapshot}
+ */
+public class SearchSnapshotTest {
+    private static final List<String> QUERY_KEY = Arrays.asList("SELECT LR0.CURRENT_RESOURCE_ID FROM ...", "Doe");
+
+    @Test
+    public void testPages() {
+        SearchSnapshot snapshot = new SearchSnapshot(QUERY_KEY, Arrays.asList(5L, 3L, 9L, 1L, 7L));
+        assertEquals(snapshot.size(), 5);
+        assertEquals(snapshot.getResourceIds(0, 2), Arrays.asList(5L, 3L));
+        assertEquals(snapshot.getResourceIds(2, 2), Arrays.asList(9L, 1L));
+        assertEquals(snapshot.getResourceIds(4, 2), Arrays.asList(7L));
+        assertEquals(snapshot.getResourceIds(6, 2), Collections.emptyList());
+        assertEquals(snapshot.getResourceIds(0, Integer.MAX_VALUE).size(), 5);
+    }
+
+    @Test
+    public void testMatches() {
+        SearchSnapshot snapshot = new SearchSnapshot(QUERY_KEY, Arrays.asList(1L));
+        assertTrue(snapshot.matches(Arrays.asList("SELECT LR0.CURRENT_RESOURCE_ID FROM ...", "Doe")));
+        assertFalse(snapshot.matches(Arrays.asList("SELECT LR0.CURRENT_RESOURCE_ID FROM ...", "Roe")));
+    }
+}
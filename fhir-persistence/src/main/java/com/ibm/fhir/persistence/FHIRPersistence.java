@@ -6,16 +6,20 @@
 
 package com.ibm.fhir.persistence;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Future;
 import java.util.function.Function;
 
+import com.ibm.fhir.cache.CacheStatistics;
 import com.ibm.fhir.model.resource.OperationOutcome;
 import com.ibm.fhir.model.resource.Resource;
 import com.ibm.fhir.persistence.context.FHIRPersistenceContext;
 import com.ibm.fhir.persistence.erase.EraseDTO;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceNotSupportedException;
+import com.ibm.fhir.persistence.exception.FHIRPersistenceResourceDeletedException;
 import com.ibm.fhir.persistence.payload.PayloadPersistenceResponse;
 
 /**
@@ -64,6 +68,63 @@ public interface FHIRPersistence {
     <T extends Resource> SingleResourceResult<T> vread(FHIRPersistenceContext context, Class<T> resourceType, String logicalId, String versionId)
             throws FHIRPersistenceException;
 
+    /**
+     * Retrieves the stored payload of the most recent or a specific version of a FHIR Resource without
+     * parsing it, so that it can be returned to the client verbatim.
+     *
+     * <p>This is an optimization only. Callers must fall back to {@link #read(FHIRPersistenceContext, Class, String)}
+     * or {@link #vread(FHIRPersistenceContext, Class, String, String)} when null is returned, which is also how
+     * deleted and missing resources are reported. The default implementation always returns null.
+     *
+     * @param context the FHIRPersistenceContext instance associated with the current request
+     * @param resourceType the resource type of the Resource instance to be retrieved
+     * @param logicalId the logical id of the Resource instance to be retrieved
+     * @param versionId the version of the Resource instance to be retrieved or null for the most recent version
+     * @return the stored payload or null if it is not available in its stored form
+     * @throws FHIRPersistenceException
+     */
+    default StoredResourcePayload readStoredPayload(FHIRPersistenceContext context, Class<? extends Resource> resourceType,
+            String logicalId, String versionId) throws FHIRPersistenceException {
+        return null;
+    }
+
+    /**
+     * Retrieves the most recent version of each of the requested FHIR Resources from the datastore.
+     * The returned list is aligned entry-for-entry with the keys list. An entry is null if
+     * the corresponding resource does not exist. If the resource is deleted and the context does not
+     * include deleted resources, the entry is marked as deleted and carries no resource.
+     *
+     * <p>The default implementation simply calls {@link #read(FHIRPersistenceContext, Class, String)}
+     * for each key. Implementations should override this to fetch the resources using
+     * as few round-trips to the datastore as possible.
+     *
+     * @param context the FHIRPersistenceContext instance associated with the current request
+     * @param keys the type and logical id of each Resource instance to be retrieved
+     * @return a list of ResourceResult objects with the same number of entries as the given keys list
+     * @throws FHIRPersistenceException
+     */
+    default List<ResourceResult<? extends Resource>> readMany(FHIRPersistenceContext context, List<ResourceKey> keys)
+            throws FHIRPersistenceException {
+        List<ResourceResult<? extends Resource>> result = new ArrayList<>(keys.size());
+        for (ResourceKey key: keys) {
+            try {
+                SingleResourceResult<? extends Resource> srr = read(context, key.getResourceType(), key.getLogicalId());
+                if (srr.getResource() != null) {
+                    result.add(ResourceResult.from(srr.getResource()));
+                } else {
+                    result.add(null);
+                }
+            } catch (FHIRPersistenceResourceDeletedException x) {
+                result.add(ResourceResult.builder()
+                    .resourceTypeName(key.getResourceType().getSimpleName())
+                    .logicalId(key.getLogicalId())
+                    .deleted(true)
+                    .build());
+            }
+        }
+        return result;
+    }
+
     /**
      * Updates an existing FHIR Resource by storing a new version in the datastore.
      * This new method expects the resource being passed in to already be modified with correct
@@ -124,6 +185,17 @@ public interface FHIRPersistence {
      */
     OperationOutcome getHealth() throws FHIRPersistenceException;
 
+    /**
+     * Returns a snapshot of the size and hit/miss statistics of the caches maintained by the
+     * persistence layer for the current tenant and datastore. The default implementation
+     * returns an empty list.
+     * @return a list of 0 or more cache statistics
+     * @throws FHIRPersistenceException
+     */
+    default List<CacheStatistics> getCacheStatistics() throws FHIRPersistenceException {
+        return Collections.emptyList();
+    }
+
     /**
      * Read the resources for each of the change log records in the list, aligning
      * the entries in the returned list to match the entries in the records list.
@@ -271,4 +343,18 @@ public interface FHIRPersistence {
      * @throws FHIRPersistenceException
      */
     PayloadPersistenceResponse storePayload(Resource resource, String logicalId, int newVersionNumber, String resourcePayloadKey) throws FHIRPersistenceException;
+
+    /**
+     * Hint that the given resource will be passed to a later create or update call on
+     * this instance. Implementations may use this to start preparing the resource for
+     * persistence (for example, extracting search parameter values) in the background,
+     * overlapping that work with other interactions which use the same connection.
+     * The resource is immutable, so the prepared state is only used if the same instance
+     * is subsequently persisted. The default implementation does nothing.
+     * @param resource the resource which will be persisted, with its final id and meta
+     * @throws FHIRPersistenceException
+     */
+    default void prepareResource(Resource resource) throws FHIRPersistenceException {
+        // NOP
+    }
 }
\ No newline at end of file
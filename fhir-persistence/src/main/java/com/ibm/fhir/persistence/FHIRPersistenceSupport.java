@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -15,10 +15,12 @@ import java.util.logging.Logger;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
+import com.ibm.fhir.model.config.FHIRModelConfig;
 import com.ibm.fhir.model.format.Format;
 import com.ibm.fhir.model.generator.FHIRGenerator;
 import com.ibm.fhir.model.generator.exception.FHIRGeneratorException;
 import com.ibm.fhir.model.parser.FHIRJsonParser;
+import com.ibm.fhir.model.parser.FHIRJsonStreamingParser;
 import com.ibm.fhir.model.parser.FHIRParser;
 import com.ibm.fhir.model.parser.exception.FHIRParserException;
 import com.ibm.fhir.model.resource.Resource;
@@ -82,16 +84,7 @@ public class FHIRPersistenceSupport {
                 // see we close the stream as required in the finally block
                 in = new GZIPInputStream(in);
             }
-            if (elements != null) {
-                // parse/filter the resource using elements
-                result = FHIRParser.parser(Format.JSON).as(FHIRJsonParser.class).parseAndFilter(in, elements);
-                if (resourceType.equals(result.getClass()) && !FHIRUtil.hasTag(result, SearchConstants.SUBSETTED_TAG)) {
-                    // add a SUBSETTED tag to this resource to indicate that its elements have been filtered
-                    result = FHIRUtil.addTag(result, SearchConstants.SUBSETTED_TAG);
-                }
-            } else {
-                result = FHIRParser.parser(Format.JSON).parse(in);
-            }
+            result = parse(jsonParser(), resourceType, in, elements);
         } finally {
             if (uncompress) {
                 // make sure we always close the GZIPInputStream to avoid leaking resources it holds onto
@@ -102,6 +95,43 @@ public class FHIRPersistenceSupport {
         return result;
     }
 
+    /**
+     * Parse the given (uncompressed) stream with the parser, using elements if needed
+     * @param <T>
+     * @param parser a JSON parser obtained from {@link #jsonParser()}
+     * @param resourceType
+     * @param in
+     * @param elements
+     * @return
+     */
+    public static <T extends Resource> T parse(FHIRParser parser, Class<T> resourceType, InputStream in, List<String> elements) throws FHIRParserException {
+        T result;
+        if (elements != null) {
+            // parse/filter the resource using elements
+            if (parser instanceof FHIRJsonStreamingParser) {
+                result = parser.as(FHIRJsonStreamingParser.class).parseAndFilter(in, elements);
+            } else {
+                result = parser.as(FHIRJsonParser.class).parseAndFilter(in, elements);
+            }
+            if (resourceType.equals(result.getClass()) && !FHIRUtil.hasTag(result, SearchConstants.SUBSETTED_TAG)) {
+                // add a SUBSETTED tag to this resource to indicate that its elements have been filtered
+                result = FHIRUtil.addTag(result, SearchConstants.SUBSETTED_TAG);
+            }
+        } else {
+            result = parser.parse(in);
+        }
+        return result;
+    }
+
+    /**
+     * Create the parser for reading JSON payloads in bulk. This is the FHIRJsonParser unless the
+     * FHIRJsonStreamingParser is enabled with {@link FHIRModelConfig#setJsonStreamingParser(boolean)}
+     * @return
+     */
+    public static FHIRParser jsonParser() {
+        return FHIRModelConfig.getJsonStreamingParser() ? FHIRParser.streamingParser(Format.JSON) : FHIRParser.parser(Format.JSON);
+    }
+
     /**
      * Get the current time which can be used for the lastUpdated field
      * @return current time in UTC
@@ -0,0 +1,70 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence;
+
+import java.util.Objects;
+
+import com.ibm.fhir.model.resource.Resource;
+
+/**
+ * Identifies the current version of a resource by its type and logical id.
+ * Used to request a batch of resources in a single persistence interaction.
+ */
+public class ResourceKey {
+
+    // The resource type class, e.g. Patient.class
+    private final Class<? extends Resource> resourceType;
+
+    // The logical id of the resource
+    private final String logicalId;
+
+    /**
+     * Public constructor
+     * @param resourceType
+     * @param logicalId
+     */
+    public ResourceKey(Class<? extends Resource> resourceType, String logicalId) {
+        this.resourceType = Objects.requireNonNull(resourceType, "resourceType");
+        this.logicalId = Objects.requireNonNull(logicalId, "logicalId");
+    }
+
+    /**
+     * @return the resourceType
+     */
+    public Class<? extends Resource> getResourceType() {
+        return resourceType;
+    }
+
+    /**
+     * @return the logicalId
+     */
+    public String getLogicalId() {
+        return logicalId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(resourceType, logicalId);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof ResourceKey) {
+            ResourceKey that = (ResourceKey) obj;
+            return this.resourceType.equals(that.resourceType) && this.logicalId.equals(that.logicalId);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return resourceType.getSimpleName() + "/" + logicalId;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+
+import com.ibm.fhir.persistence.util.InputOutputByteStream;
+
+/**
+ * The gzip-compressed JSON payload of a single resource version exactly as it is held by the datastore,
+ * together with the version metadata needed to build a response without parsing the payload
+ */
+public class StoredResourcePayload {
+    private final String resourceTypeName;
+    private final String logicalId;
+    private final int versionId;
+    private final Instant lastUpdated;
+    private final InputOutputByteStream compressedPayload;
+
+    /**
+     * @param resourceTypeName the non-null resource type name
+     * @param logicalId the non-null logical id of the resource
+     * @param versionId the version of the resource
+     * @param lastUpdated the non-null lastUpdated time of this version, matching meta.lastUpdated of the payload
+     * @param compressedPayload a non-null buffer holding the gzip-compressed JSON payload
+     */
+    public StoredResourcePayload(String resourceTypeName, String logicalId, int versionId, Instant lastUpdated,
+            InputOutputByteStream compressedPayload) {
+        this.resourceTypeName = Objects.requireNonNull(resourceTypeName, "resourceTypeName");
+        this.logicalId = Objects.requireNonNull(logicalId, "logicalId");
+        this.versionId = versionId;
+        this.lastUpdated = Objects.requireNonNull(lastUpdated, "lastUpdated");
+        this.compressedPayload = Objects.requireNonNull(compressedPayload, "compressedPayload");
+    }
+
+    /**
+     * @return the resource type name
+     */
+    public String getResourceTypeName() {
+        return resourceTypeName;
+    }
+
+    /**
+     * @return the logical id of the resource
+     */
+    public String getLogicalId() {
+        return logicalId;
+    }
+
+    /**
+     * @return the version of the resource
+     */
+    public int getVersionId() {
+        return versionId;
+    }
+
+    /**
+     * @return the lastUpdated time of this version
+     */
+    public Instant getLastUpdated() {
+        return lastUpdated;
+    }
+
+    /**
+     * @return the size of the compressed payload in bytes
+     */
+    public int getCompressedSize() {
+        return compressedPayload.size();
+    }
+
+    /**
+     * Copy the payload into the given {@link OutputStream}, either as stored (gzip-compressed) or decompressed
+     * @param os the OutputStream to transfer the bytes into
+     * @param compressed true to copy the gzip-compressed bytes, false to copy the decompressed JSON
+     * @return the number of bytes transferred into the {@link OutputStream}
+     * @throws IOException
+     */
+    public long transferTo(OutputStream os, boolean compressed) throws IOException {
+        if (compressed) {
+            os.write(compressedPayload.getRawBuffer(), 0, compressedPayload.size());
+            return compressedPayload.size();
+        }
+
+        try (InputStream in = new GZIPInputStream(compressedPayload.inputStream())) {
+            long result = 0;
+
+            // Do not increase the size of this buffer - doing so may have
+            // a serious negative impact on performance
+            byte[] buffer = new byte[4096];
+            int len;
+
+            while ((len = in.read(buffer)) >= 0) {
+                if (len > 0) {
+                    os.write(buffer, 0, len);
+                    result += len;
+                }
+            }
+            return result;
+        }
+    }
+}
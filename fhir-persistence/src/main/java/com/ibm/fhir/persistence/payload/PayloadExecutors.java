@@ -0,0 +1,116 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.payload;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import com.ibm.fhir.config.FHIRConfigHelper;
+import com.ibm.fhir.config.FHIRConfiguration;
+import com.ibm.fhir.config.FHIRRequestContext;
+
+/**
+ * Shared thread pools used to interact with offloaded payload storage
+ * concurrently with the request thread.
+ */
+public class PayloadExecutors {
+    private static final Logger logger = Logger.getLogger(PayloadExecutors.class.getName());
+
+    // The number of payload reads which can be in flight at the same time across the whole server
+    public static final int DEFAULT_READ_PARALLELISM = 16;
+
+    // The number of payload writes which can be in flight at the same time for each tenant/datasource
+    public static final int DEFAULT_WRITE_THREADS = 8;
+
+    // The number of payload writes which can be waiting for a thread for each tenant/datasource
+    public static final int DEFAULT_WRITE_QUEUE_SIZE = 64;
+
+    // Lazily created pool used to fetch offloaded payloads in parallel
+    private static volatile ExecutorService readExecutor;
+
+    // Bounded write pools, one per tenant/datasource so that one tenant can't starve another
+    private static final Map<String, ExecutorService> writeExecutors = new ConcurrentHashMap<>();
+
+    /**
+     * Get the shared executor used to read offloaded payloads in parallel.
+     * @return
+     */
+    public static ExecutorService getReadExecutor() {
+        ExecutorService result = readExecutor;
+        if (result == null) {
+            synchronized (PayloadExecutors.class) {
+                result = readExecutor;
+                if (result == null) {
+                    logger.info("Creating payload read executor with parallelism " + DEFAULT_READ_PARALLELISM);
+                    result = Executors.newFixedThreadPool(DEFAULT_READ_PARALLELISM, new DaemonThreadFactory("fhir-payload-read"));
+                    readExecutor = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the bounded executor used to write offloaded payloads for the tenant/datasource
+     * of the current request. The pool has a fixed number of threads and a bounded queue.
+     * When the queue is full, the write is run on the calling thread which applies
+     * back-pressure to the request threads instead of buffering an unlimited number
+     * of rendered payloads in memory.
+     * @return
+     */
+    public static ExecutorService getWriteExecutor() {
+        final FHIRRequestContext requestContext = FHIRRequestContext.get();
+        final String key = requestContext.getTenantId() + "/" + requestContext.getDataStoreId();
+        return writeExecutors.computeIfAbsent(key, k -> {
+            final int threads = FHIRConfigHelper.getIntProperty(FHIRConfiguration.PROPERTY_PAYLOAD_WRITE_THREADS, DEFAULT_WRITE_THREADS);
+            final int queueSize = FHIRConfigHelper.getIntProperty(FHIRConfiguration.PROPERTY_PAYLOAD_WRITE_QUEUE_SIZE, DEFAULT_WRITE_QUEUE_SIZE);
+            logger.info("Creating payload write executor for '" + k + "' with threads=" + threads + ", queueSize=" + queueSize);
+            return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new DaemonThreadFactory("fhir-payload-write"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        });
+    }
+
+    /**
+     * Submit a payload write task to the write executor for the current tenant/datasource.
+     * The task runs with a copy of the {@link FHIRRequestContext} of the calling thread.
+     * @param task
+     * @return a {@link Future} which must be resolved before the transaction commits
+     */
+    public static Future<PayloadPersistenceResult> submitWrite(Callable<PayloadPersistenceResult> task) {
+        return getWriteExecutor().submit(FHIRRequestContext.propagate(task));
+    }
+
+    /**
+     * Creates named daemon threads so that the pools never prevent JVM shutdown
+     */
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -54,6 +54,9 @@ public class FHIRPersistenceUtil {
                 } else if ("_count".equals(name)) {
                     int pageSize = Integer.parseInt(first);
                     context.setPageSize(pageSize);
+                } else if ("_cursor".equals(name)) {
+                    // opaque value produced by the persistence layer for the next page
+                    context.setCursor(first);
                 } else if ("_since".equals(name)) {
                     DateTime dt = DateTime.of(first);
                     if (!dt.isPartial()) {
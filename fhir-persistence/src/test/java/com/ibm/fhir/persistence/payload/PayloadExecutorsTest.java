@@ -0,0 +1,65 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.payload;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.persistence.payload.PayloadPersistenceResult.Status;
+
+/**
+ * Unit test for PayloadExecutors
+ */
+public class PayloadExecutorsTest {
+
+    @AfterMethod
+    public void clearContext() {
+        FHIRRequestContext.remove();
+    }
+
+    @Test
+    public void testRequestContextPropagation() throws Exception {
+        FHIRRequestContext.set(new FHIRRequestContext("tenant1", "ds1"));
+        final String callerThread = Thread.currentThread().getName();
+
+        Future<String> f = PayloadExecutors.getReadExecutor().submit(FHIRRequestContext.propagate(() -> {
+            assertNotEquals(Thread.currentThread().getName(), callerThread);
+            return FHIRRequestContext.get().getTenantId() + "/" + FHIRRequestContext.get().getDataStoreId();
+        }));
+        assertEquals(f.get(), "tenant1/ds1");
+    }
+
+    @Test
+    public void testSubmitWrite() throws Exception {
+        FHIRRequestContext.set(new FHIRRequestContext("tenant2", "ds2"));
+
+        // Submit more tasks than the pool can hold so that some run on this thread
+        List<Future<PayloadPersistenceResult>> futures = new ArrayList<>();
+        for (int i=0; i<PayloadExecutors.DEFAULT_WRITE_THREADS + PayloadExecutors.DEFAULT_WRITE_QUEUE_SIZE + 10; i++) {
+            futures.add(PayloadExecutors.submitWrite(() -> {
+                Thread.sleep(1);
+                return "tenant2".equals(FHIRRequestContext.get().getTenantId()) ? new PayloadPersistenceResult(Status.OK) : new PayloadPersistenceResult(Status.FAILED);
+            }));
+        }
+
+        for (Future<PayloadPersistenceResult> f: futures) {
+            assertEquals(f.get().getStatus(), Status.OK);
+        }
+
+        // The context of the calling thread must be intact even if tasks ran on it
+        assertEquals(FHIRRequestContext.get().getTenantId(), "tenant2");
+        assertEquals(FHIRRequestContext.get().getDataStoreId(), "ds2");
+    }
+}
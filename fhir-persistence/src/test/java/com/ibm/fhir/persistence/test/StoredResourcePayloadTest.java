@@ -0,0 +1,64 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.test;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.persistence.StoredResourcePayload;
+import com.ibm.fhir.persistence.util.InputOutputByteStream;
+
+/**
+ * Tests for transferring a stored payload to an output stream
+ */
+public class StoredResourcePayloadTest {
+    private static final String JSON = "{\"resourceType\":\"Patient\",\"id\":\"1\",\"meta\":{\"versionId\":\"2\"}}";
+
+    private StoredResourcePayload payload() throws Exception {
+        InputOutputByteStream buffer = new InputOutputByteStream(256);
+        try (OutputStream os = new GZIPOutputStream(buffer.outputStream())) {
+            os.write(JSON.getBytes(StandardCharsets.UTF_8));
+        }
+        return new StoredResourcePayload("Patient", "1", 2, Instant.now(), buffer);
+    }
+
+    @Test
+    public void testTransferDecompressed() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = payload().transferTo(out, false);
+        assertEquals(out.toString(StandardCharsets.UTF_8.name()), JSON);
+        assertEquals(count, out.size());
+    }
+
+    @Test
+    public void testTransferCompressed() throws Exception {
+        StoredResourcePayload payload = payload();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = payload.transferTo(out, true);
+        assertEquals(count, payload.getCompressedSize());
+        assertEquals(out.size(), payload.getCompressedSize());
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            byte[] buffer = new byte[4096];
+            int len;
+            while ((len = in.read(buffer)) >= 0) {
+                json.write(buffer, 0, len);
+            }
+        }
+        assertEquals(json.toString(StandardCharsets.UTF_8.name()), JSON);
+    }
+}
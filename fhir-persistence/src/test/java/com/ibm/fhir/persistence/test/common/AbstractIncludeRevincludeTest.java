@@ -19,6 +19,8 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -37,7 +39,10 @@ import com.ibm.fhir.model.test.TestUtil;
 import com.ibm.fhir.model.type.HumanName;
 import com.ibm.fhir.model.type.Reference;
 import com.ibm.fhir.model.type.code.LinkType;
+import com.ibm.fhir.persistence.MultiResourceResult;
 import com.ibm.fhir.persistence.util.FHIRPersistenceTestSupport;
+import com.ibm.fhir.search.context.FHIRSearchContext;
+import com.ibm.fhir.search.util.SearchUtil;
 
 /**
  *  This class tests the persistence layer support for the FHIR _include and _revinclude search result parameters.
@@ -1167,6 +1172,129 @@ public abstract class AbstractIncludeRevincludeTest extends AbstractPersistenceT
         }
     }
 
+    /**
+     * This test queries a Patient and requests the reverse inclusion of Observations by two
+     * different parameters of the same stage. Both parameters match savedObservation2 and
+     * savedObservation3, but each is only returned once.
+     * @throws Exception
+     */
+    @Test
+    public void testMultiRevIncludeDuplicatesAcrossParameters() throws Exception {
+        Map<String, List<String>> queryParms = new HashMap<String, List<String>>();
+        queryParms.put("_id", Collections.singletonList(savedPatient1.getId()));
+        queryParms.put("_revinclude", Arrays.asList(new String[] {"Observation:subject", "Observation:patient"}));
+        List<Resource> resources = runQueryTest(Patient.class, queryParms);
+        assertNotNull(resources);
+        assertEquals(3, resources.size());
+        assertDistinct(resources);
+        for (Resource resource : resources) {
+            if (resource instanceof Patient) {
+                assertEquals(savedPatient1.getId(), resource.getId());
+            } else if (resource instanceof Observation) {
+                assertTrue(resource.getId().equals(savedObservation2.getId()) ||
+                    resource.getId().equals(savedObservation3.getId()));
+            } else {
+                fail("Unexpected resource type returned.");
+            }
+        }
+    }
+
+    /**
+     * This test queries two Encounters and requests the inclusion of both the Encounters they are
+     * part of and the Encounters which are part of them. savedEncounter1 and savedEncounter2 are
+     * matched by the inclusion parameters but are already returned as matches, so only
+     * savedEncounter3 is included.
+     * @throws Exception
+     */
+    @Test
+    public void testIncludeAndRevIncludeSkipMatches() throws Exception {
+        Map<String, List<String>> queryParms = new HashMap<String, List<String>>();
+        queryParms.put("_id", Collections.singletonList(savedEncounter1.getId() + "," + savedEncounter2.getId()));
+        queryParms.put("_include", Collections.singletonList("Encounter:part-of"));
+        queryParms.put("_revinclude", Collections.singletonList("Encounter:part-of"));
+        List<Resource> resources = runQueryTest(Encounter.class, queryParms);
+        assertNotNull(resources);
+        assertEquals(3, resources.size());
+        assertDistinct(resources);
+        for (Resource resource : resources) {
+            assertTrue(resource.getId().equals(savedEncounter3.getId()) ||
+                resource.getId().equals(savedEncounter2.getId()) ||
+                resource.getId().equals(savedEncounter1.getId()));
+        }
+    }
+
+    /**
+     * This test queries an Encounter with iterative inclusion of both the Encounter it is part of and
+     * the Encounter which is part of it. The second stage finds only resources which were returned
+     * by the first stage or as a match, so each Encounter is returned once.
+     * It should return savedEncounter1, savedEncounter2, and savedEncounter3.
+     * @throws Exception
+     */
+    @Test
+    public void testIncludeAndRevIncludeIterateSkipPreviousStages() throws Exception {
+        Map<String, List<String>> queryParms = new HashMap<String, List<String>>();
+        queryParms.put("_id", Collections.singletonList(savedEncounter2.getId()));
+        queryParms.put("_include:iterate", Collections.singletonList("Encounter:part-of"));
+        queryParms.put("_revinclude:iterate", Collections.singletonList("Encounter:part-of"));
+        List<Resource> resources = runQueryTest(Encounter.class, queryParms);
+        assertNotNull(resources);
+        assertEquals(3, resources.size());
+        assertDistinct(resources);
+        for (Resource resource : resources) {
+            assertTrue(resource.getId().equals(savedEncounter3.getId()) ||
+                resource.getId().equals(savedEncounter2.getId()) ||
+                resource.getId().equals(savedEncounter1.getId()));
+        }
+    }
+
+    /**
+     * This test queries a Patient with three inclusion parameters which each match one resource,
+     * with the maximum number of included resources set to 1. Collection stops part-way through the
+     * stage once the maximum is exceeded, and only one resource more than the maximum is returned,
+     * which is enough for the caller to detect it.
+     * @throws Exception
+     */
+    @Test
+    public void testMaxPageIncludeCountExceeded() throws Exception {
+        Map<String, List<String>> queryParms = new HashMap<String, List<String>>();
+        queryParms.put("_id", Collections.singletonList(savedPatient3.getId()));
+        queryParms.put("_include", Collections.singletonList("Patient:organization"));
+        queryParms.put("_revinclude", Arrays.asList(new String[] {"Observation:subject", "Device:patient"}));
+
+        // all three are included when the maximum isn't reached
+        List<Resource> resources = runQueryTest(Patient.class, queryParms);
+        assertEquals(4, resources.size());
+
+        FHIRSearchContext searchContext = SearchUtil.parseQueryParameters(Patient.class, queryParms);
+        searchContext.setMaxPageIncludeCount(1);
+        MultiResourceResult result = runQueryTest(searchContext, Patient.class, queryParms, null);
+        resources = result.getResourceResults().stream().map(r -> r.getResource()).collect(Collectors.toList());
+        assertEquals(3, resources.size());
+        assertDistinct(resources);
+        for (Resource resource : resources) {
+            if (resource instanceof Patient) {
+                assertEquals(savedPatient3.getId(), resource.getId());
+            } else if (resource instanceof Organization) {
+                assertEquals(savedOrg1.getId(), resource.getId());
+            } else if (resource instanceof Observation) {
+                assertEquals(savedObservation5.getId(), resource.getId());
+            } else {
+                // the Device parameter is not run once the maximum is exceeded
+                fail("Unexpected resource type returned.");
+            }
+        }
+    }
+
+    /**
+     * Assert that no resource is returned more than once
+     */
+    private void assertDistinct(List<Resource> resources) {
+        Set<String> keys = new HashSet<>();
+        for (Resource resource : resources) {
+            assertTrue(keys.add(resource.getClass().getSimpleName() + "/" + resource.getId()));
+        }
+    }
+
     private Reference reference(String reference) {
         return Reference.builder().reference(string(reference)).build();
     }
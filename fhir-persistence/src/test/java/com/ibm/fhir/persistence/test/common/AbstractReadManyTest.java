@@ -0,0 +1,124 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.test.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.resource.Device;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.test.TestUtil;
+import com.ibm.fhir.persistence.ResourceKey;
+import com.ibm.fhir.persistence.ResourceResult;
+import com.ibm.fhir.persistence.util.FHIRPersistenceTestSupport;
+
+/**
+ * This class contains tests for reading a batch of resources in one interaction.
+ */
+public abstract class AbstractReadManyTest extends AbstractPersistenceTest {
+    private Device device1;
+    private Device device2;
+    private Patient patient1;
+    private final List<Resource> createdResources = new ArrayList<>();
+
+    @BeforeClass
+    public void createResources() throws Exception {
+        final com.ibm.fhir.model.type.Instant lastUpdated = com.ibm.fhir.model.type.Instant.now(ZoneOffset.UTC);
+        startTrx();
+        device1 = copyAndSetResourceMetaFields(TestUtil.getMinimalResource(Device.class), UUID.randomUUID().toString(), 1, lastUpdated);
+        persistence.create(getDefaultPersistenceContext(), device1);
+        createdResources.add(device1);
+
+        device2 = copyAndSetResourceMetaFields(TestUtil.getMinimalResource(Device.class), UUID.randomUUID().toString(), 1, lastUpdated);
+        persistence.create(getDefaultPersistenceContext(), device2);
+        createdResources.add(device2);
+
+        // Version 2 so we can check that only the current version is returned
+        device2 = updateVersionMeta(device2);
+        persistence.update(getDefaultPersistenceContext(), device2);
+
+        patient1 = copyAndSetResourceMetaFields(TestUtil.getMinimalResource(Patient.class), UUID.randomUUID().toString(), 1, lastUpdated);
+        persistence.create(getDefaultPersistenceContext(), patient1);
+        createdResources.add(patient1);
+        commitTrx();
+    }
+
+    /**
+     * Clean up any resources we may have created
+     */
+    @AfterClass
+    public void tearDown() throws Exception {
+        if (persistence.isDeleteSupported()) {
+            // as this is AfterClass, we need to manually start/end the transaction
+            startTrx();
+            for (Resource resource : createdResources) {
+                try {
+                    FHIRPersistenceTestSupport.delete(persistence, getDefaultPersistenceContext(), resource);
+                } catch (Exception e) {
+                    // Swallow any exception.
+                }
+            }
+            commitTrx();
+        }
+    }
+
+    @Test
+    public void testReadMany() throws Exception {
+        final String missingId = UUID.randomUUID().toString();
+        List<ResourceKey> keys = Arrays.asList(
+            new ResourceKey(Device.class, device1.getId()),
+            new ResourceKey(Patient.class, patient1.getId()),
+            new ResourceKey(Device.class, missingId),
+            new ResourceKey(Device.class, device2.getId()),
+            new ResourceKey(Device.class, device1.getId()));
+
+        List<ResourceResult<? extends Resource>> results = persistence.readMany(getDefaultPersistenceContext(), keys);
+        assertEquals(results.size(), keys.size());
+
+        // results must line up with the keys, including duplicates
+        assertNotNull(results.get(0));
+        assertEquals(results.get(0).getResource().getId(), device1.getId());
+        assertTrue(results.get(0).getResource() instanceof Device);
+        assertNotNull(results.get(1));
+        assertEquals(results.get(1).getResource().getId(), patient1.getId());
+        assertTrue(results.get(1).getResource() instanceof Patient);
+        assertNull(results.get(2));
+        assertNotNull(results.get(3));
+        assertEquals(results.get(3).getVersion(), 2);
+        assertEquals(results.get(3).getResource().getMeta().getVersionId().getValue(), "2");
+        assertNotNull(results.get(4));
+        assertEquals(results.get(4).getResource().getId(), device1.getId());
+    }
+
+    @Test
+    public void testReadManyEmpty() throws Exception {
+        List<ResourceResult<? extends Resource>> results = persistence.readMany(getDefaultPersistenceContext(), new ArrayList<>());
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void testReadManyWrongType() throws Exception {
+        // a Device id requested as a Patient should not be found
+        List<ResourceResult<? extends Resource>> results = persistence.readMany(getDefaultPersistenceContext(),
+            Arrays.asList(new ResourceKey(Patient.class, device1.getId())));
+        assertEquals(results.size(), 1);
+        assertNull(results.get(0));
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.test.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.parser.FHIRParser;
+import com.ibm.fhir.model.resource.Device;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.test.TestUtil;
+import com.ibm.fhir.persistence.StoredResourcePayload;
+import com.ibm.fhir.persistence.util.FHIRPersistenceTestSupport;
+
+/**
+ * This class contains tests for reading the stored payload of a resource without parsing it.
+ */
+public abstract class AbstractReadStoredPayloadTest extends AbstractPersistenceTest {
+    private Device device1;
+    private Device device2;
+    private Device deletedDevice;
+    private final List<Resource> createdResources = new ArrayList<>();
+
+    @BeforeClass
+    public void createResources() throws Exception {
+        final com.ibm.fhir.model.type.Instant lastUpdated = com.ibm.fhir.model.type.Instant.now(ZoneOffset.UTC);
+        startTrx();
+        device1 = copyAndSetResourceMetaFields(TestUtil.getMinimalResource(Device.class), UUID.randomUUID().toString(), 1, lastUpdated);
+        persistence.create(getDefaultPersistenceContext(), device1);
+        createdResources.add(device1);
+
+        // Version 2 so we can check that read returns the current version and vread the requested one
+        device2 = copyAndSetResourceMetaFields(TestUtil.getMinimalResource(Device.class), UUID.randomUUID().toString(), 1, lastUpdated);
+        persistence.create(getDefaultPersistenceContext(), device2);
+        device2 = updateVersionMeta(device2);
+        persistence.update(getDefaultPersistenceContext(), device2);
+        createdResources.add(device2);
+
+        deletedDevice = copyAndSetResourceMetaFields(TestUtil.getMinimalResource(Device.class), UUID.randomUUID().toString(), 1, lastUpdated);
+        persistence.create(getDefaultPersistenceContext(), deletedDevice);
+        FHIRPersistenceTestSupport.delete(persistence, getDefaultPersistenceContext(), deletedDevice);
+        commitTrx();
+    }
+
+    /**
+     * Clean up any resources we may have created
+     */
+    @AfterClass
+    public void tearDown() throws Exception {
+        if (persistence.isDeleteSupported()) {
+            // as this is AfterClass, we need to manually start/end the transaction
+            startTrx();
+            for (Resource resource : createdResources) {
+                try {
+                    FHIRPersistenceTestSupport.delete(persistence, getDefaultPersistenceContext(), resource);
+                } catch (Exception e) {
+                    // Swallow any exception.
+                }
+            }
+            commitTrx();
+        }
+    }
+
+    private static Resource parse(StoredResourcePayload payload, boolean compressed) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = payload.transferTo(out, compressed);
+        assertEquals(count, out.size());
+        InputStream in = new ByteArrayInputStream(out.toByteArray());
+        if (compressed) {
+            assertEquals(out.size(), payload.getCompressedSize());
+            in = new GZIPInputStream(in);
+        }
+        return FHIRParser.parser(Format.JSON).parse(in);
+    }
+
+    private static void assertStored(Resource stored, Resource expected) {
+        assertEquals(stored.getClass(), expected.getClass());
+        assertEquals(stored.getId(), expected.getId());
+        assertEquals(stored.getMeta().getVersionId(), expected.getMeta().getVersionId());
+        assertEquals(stored.getMeta().getLastUpdated(), expected.getMeta().getLastUpdated());
+    }
+
+    @Test
+    public void testReadStoredPayload() throws Exception {
+        StoredResourcePayload payload = persistence.readStoredPayload(getDefaultPersistenceContext(), Device.class, device1.getId(), null);
+        assertNotNull(payload);
+        assertEquals(payload.getResourceTypeName(), "Device");
+        assertEquals(payload.getLogicalId(), device1.getId());
+        assertEquals(payload.getVersionId(), 1);
+        assertEquals(payload.getLastUpdated(), device1.getMeta().getLastUpdated().getValue().toInstant());
+
+        // the payload is the stored resource, whether or not it is decompressed
+        assertStored(parse(payload, false), device1);
+        assertStored(parse(payload, true), device1);
+    }
+
+    @Test
+    public void testReadStoredPayloadVersions() throws Exception {
+        StoredResourcePayload payload = persistence.readStoredPayload(getDefaultPersistenceContext(), Device.class, device2.getId(), null);
+        assertNotNull(payload);
+        assertEquals(payload.getVersionId(), 2);
+        assertStored(parse(payload, false), device2);
+
+        payload = persistence.readStoredPayload(getDefaultPersistenceContext(), Device.class, device2.getId(), "1");
+        assertNotNull(payload);
+        assertEquals(payload.getVersionId(), 1);
+        assertEquals(parse(payload, false).getMeta().getVersionId().getValue(), "1");
+
+        // vread of a version which doesn't exist or isn't a number is left to vread
+        assertNull(persistence.readStoredPayload(getDefaultPersistenceContext(), Device.class, device2.getId(), "3"));
+        assertNull(persistence.readStoredPayload(getDefaultPersistenceContext(), Device.class, device2.getId(), "abc"));
+    }
+
+    @Test
+    public void testReadStoredPayloadMissing() throws Exception {
+        assertNull(persistence.readStoredPayload(getDefaultPersistenceContext(), Device.class, UUID.randomUUID().toString(), null));
+    }
+
+    @Test
+    public void testReadStoredPayloadWrongType() throws Exception {
+        // a Device id requested as a Patient should not be found
+        assertNull(persistence.readStoredPayload(getDefaultPersistenceContext(), Patient.class, device1.getId(), null));
+        assertNull(persistence.readStoredPayload(getDefaultPersistenceContext(), Patient.class, device1.getId(), "1"));
+    }
+
+    @Test
+    public void testReadStoredPayloadDeleted() throws Exception {
+        // deleted resources are reported by read and vread
+        assertNull(persistence.readStoredPayload(getDefaultPersistenceContext(), Device.class, deletedDevice.getId(), null));
+        assertNull(persistence.readStoredPayload(getDefaultPersistenceContext(), Device.class, deletedDevice.getId(), "2"));
+
+        // but the versions before the delete are still available
+        StoredResourcePayload payload = persistence.readStoredPayload(getDefaultPersistenceContext(), Device.class, deletedDevice.getId(), "1");
+        assertNotNull(payload);
+        assertEquals(payload.getVersionId(), 1);
+    }
+}
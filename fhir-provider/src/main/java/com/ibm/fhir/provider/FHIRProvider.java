@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016, 2021
+ * (C) Copyright IBM Corp. 2016, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -43,12 +43,19 @@ import com.ibm.fhir.core.FHIRMediaType;
 import com.ibm.fhir.core.HTTPHandlingPreference;
 import com.ibm.fhir.model.format.Format;
 import com.ibm.fhir.model.generator.FHIRGenerator;
+import com.ibm.fhir.model.generator.FHIRJsonGenerator;
+import com.ibm.fhir.model.generator.JsonFragmentCache;
 import com.ibm.fhir.model.generator.exception.FHIRGeneratorException;
 import com.ibm.fhir.model.parser.FHIRParser;
 import com.ibm.fhir.model.parser.exception.FHIRParserException;
+import com.ibm.fhir.model.resource.CapabilityStatement;
+import com.ibm.fhir.model.resource.CodeSystem;
 import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.resource.StructureDefinition;
+import com.ibm.fhir.model.resource.ValueSet;
 import com.ibm.fhir.model.type.code.IssueSeverity;
 import com.ibm.fhir.model.type.code.IssueType;
+import com.ibm.fhir.provider.util.FHIRProviderUtil;
 
 /**
  * Maps entity streams to/from fhir-model objects
@@ -60,6 +67,14 @@ import com.ibm.fhir.model.type.code.IssueType;
 public class FHIRProvider implements MessageBodyReader<Resource>, MessageBodyWriter<Resource> {
     private static final Logger log = Logger.getLogger(FHIRProvider.class.getName());
 
+    // conformance resources are typically served many times from the same instance (e.g. the cached
+    // CapabilityStatement or resources from the registry), so their serialized form is worth keeping
+    private static final JsonFragmentCache FRAGMENT_CACHE = new JsonFragmentCache(visitable ->
+            visitable instanceof CapabilityStatement
+            || visitable instanceof StructureDefinition
+            || visitable instanceof ValueSet
+            || visitable instanceof CodeSystem);
+
     @Context
     private UriInfo uriInfo;
     @Context
@@ -117,7 +132,13 @@ public class FHIRProvider implements MessageBodyReader<Resource>, MessageBodyWri
             OutputStream entityStream) throws IOException, WebApplicationException {
         log.entering(this.getClass().getName(), "writeTo");
         try {
-            FHIRGenerator.generator(getFormat(mediaType), isPretty(requestHeaders, uriInfo)).generate(t, entityStream);
+            FHIRGenerator generator = FHIRGenerator.generator(getFormat(mediaType), isPretty(requestHeaders, uriInfo));
+            if (RuntimeType.SERVER.equals(runtimeType)
+                    && generator.isPropertySupported(FHIRJsonGenerator.PROPERTY_FRAGMENT_CACHE)
+                    && FHIRConfigHelper.getBooleanProperty(FHIRConfiguration.PROPERTY_JSON_FRAGMENT_CACHE_ENABLED, Boolean.TRUE)) {
+                generator.setProperty(FHIRJsonGenerator.PROPERTY_FRAGMENT_CACHE, FRAGMENT_CACHE);
+            }
+            generator.generate(t, entityStream);
         } catch (FHIRGeneratorException e) {
             // log the error but don't throw because that seems to block to original IOException from bubbling for some reason
             log.log(Level.WARNING, "an error occurred during resource serialization", e);
@@ -138,24 +159,8 @@ public class FHIRProvider implements MessageBodyReader<Resource>, MessageBodyWri
 
     protected boolean isPretty(HttpHeaders httpHeaders, UriInfo uriInfo) {
         if (RuntimeType.SERVER.equals(runtimeType)) {
-            // Header evaluation
-            String value = httpHeaders.getHeaderString(FHIRConfiguration.DEFAULT_PRETTY_RESPONSE_HEADER_NAME);
-
-            // IFF not Header set, then grab the Query Parameter.
-            // and use the FIRST value for _pretty.
-            if (value == null) {
-                value = uriInfo.getQueryParameters().getFirst("_pretty");
-            }
-
-            if (value != null) {
-                if (Boolean.parseBoolean(value)) {
-                    //explicitly on in the header
-                    return true;
-                } else if ("false".equalsIgnoreCase(value)) {
-                    //explicitly off in the header.  ignore header value if it doesn't specify "true" or false"
-                    return false;
-                }
-            }
+            return FHIRProviderUtil.isPretty(httpHeaders.getHeaderString(FHIRConfiguration.DEFAULT_PRETTY_RESPONSE_HEADER_NAME),
+                    uriInfo.getQueryParameters().getFirst("_pretty"));
         }
 
         // Config evaluation (default false)
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -13,6 +13,8 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 
+import com.ibm.fhir.config.FHIRConfigHelper;
+import com.ibm.fhir.config.FHIRConfiguration;
 import com.ibm.fhir.core.FHIRMediaType;
 import com.ibm.fhir.model.resource.OperationOutcome;
 
@@ -50,6 +52,35 @@ public final class FHIRProviderUtil {
         return FHIRMediaType.APPLICATION_FHIR_JSON_TYPE;
     }
     
+    /**
+     * Whether a server response should be pretty printed. An explicit "true" or "false" in the pretty response header
+     * takes precedence over the _pretty query parameter, and the configured default applies when neither is set.
+     *
+     * @param headerValue
+     *     the value of the {@link FHIRConfiguration#DEFAULT_PRETTY_RESPONSE_HEADER_NAME} header or null
+     * @param queryParameterValue
+     *     the first value of the _pretty query parameter or null
+     * @return
+     *     true if the response should be pretty printed
+     */
+    public static boolean isPretty(String headerValue, String queryParameterValue) {
+        // IFF not Header set, then grab the Query Parameter.
+        String value = (headerValue != null) ? headerValue : queryParameterValue;
+
+        if (value != null) {
+            if (Boolean.parseBoolean(value)) {
+                //explicitly on in the header
+                return true;
+            } else if ("false".equalsIgnoreCase(value)) {
+                //explicitly off in the header.  ignore header value if it doesn't specify "true" or false"
+                return false;
+            }
+        }
+
+        // Config evaluation (default false)
+        return FHIRConfigHelper.getBooleanProperty(FHIRConfiguration.PROPERTY_DEFAULT_PRETTY_PRINT, false);
+    }
+
     public static Response buildResponse(OperationOutcome operationOutcome, MediaType mediaType) {
         Response response = Response.status(Response.Status.BAD_REQUEST)
                 .header(HttpHeaders.CONTENT_TYPE, mediaType)
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019, 2021
+ * (C) Copyright IBM Corp. 2019, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -13,7 +13,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +20,7 @@ import java.util.Objects;
 import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import com.ibm.fhir.model.resource.DomainResource;
@@ -41,6 +41,10 @@ public final class FHIRRegistry {
     private static final FHIRRegistry INSTANCE = new FHIRRegistry();
 
     private final List<FHIRRegistryResourceProvider> providers;
+    private final AtomicLong version = new AtomicLong();
+
+    // built on first use and discarded whenever the providers change
+    private volatile FHIRRegistryIndex index;
 
     private FHIRRegistry() {
         providers = new CopyOnWriteArrayList<>(loadProviders());
@@ -57,8 +61,26 @@ public final class FHIRRegistry {
      */
     public void addProvider(FHIRRegistryResourceProvider provider) {
         Objects.requireNonNull(provider);
-        providers.add(provider);
-        provider.init();
+        synchronized (this) {
+            providers.add(provider);
+            provider.init();
+            index = null;
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the version of the registry
+     *
+     * <p>The version changes whenever a registry resource provider is added or the providers are initialized,
+     * so it can be used to invalidate results that were computed from registry resources (e.g. validation results).
+     * Changes to the resources served by an individual provider are not reflected.
+     *
+     * @return
+     *     the version of the registry
+     */
+    public long getVersion() {
+        return version.get();
     }
 
     /**
@@ -115,16 +137,7 @@ public final class FHIRRegistry {
         if (!ModelSupport.isResourceType(type)) {
             throw new IllegalArgumentException("The type argument must be a valid FHIR resource type name");
         }
-        List<FHIRRegistryResource> registryResources = new ArrayList<>();
-        for (FHIRRegistryResourceProvider provider : providers) {
-            registryResources.addAll(provider.getProfileResources(type));
-        }
-        Collections.sort(registryResources);
-        List<Canonical> profiles = new ArrayList<>();
-        for (FHIRRegistryResource registryResource : registryResources) {
-            profiles.add(Canonical.of(registryResource.getUrl(), registryResource.getVersion().toString()));
-        }
-        return Collections.unmodifiableList(profiles);
+        return getIndex().getProfiles(type);
     }
 
     /**
@@ -242,13 +255,7 @@ public final class FHIRRegistry {
     public Collection<SearchParameter> getSearchParameters(String type) {
         Objects.requireNonNull(type);
         SearchParamType.Value.from(type);
-        List<SearchParameter> searchParameters = new ArrayList<>();
-        for (FHIRRegistryResourceProvider provider : providers) {
-            for (FHIRRegistryResource registryResource : provider.getSearchParameterResources(type)) {
-                searchParameters.add(registryResource.getResource().as(SearchParameter.class));
-            }
-        }
-        return Collections.unmodifiableList(searchParameters);
+        return getIndex().getSearchParameters(type);
     }
 
     /**
@@ -285,41 +292,21 @@ public final class FHIRRegistry {
     }
 
     private FHIRRegistryResource findRegistryResource(Class<? extends Resource> resourceType, String url, String version, String providerNameToExclude) {
-        if (version != null) {
-            // find the first registry resource with the specified resourceType, url, and version (across all providers)
-            for (FHIRRegistryResourceProvider provider : providers) {
-                FHIRRegistryResource registryResource = provider.getRegistryResource(resourceType, url, version);
-                if (registryResource != null) {
-                    return registryResource;
-                }
-            }
-        } else {
-            // find the default (or latest) version of the registry resource with the specified resourceType and url (across all providers)
-            Set<FHIRRegistryResource> distinct = new HashSet<>();
-            for (FHIRRegistryResourceProvider provider : providers) {
-                if (providerNameToExclude != null && providerNameToExclude.equals(provider.getClass().getCanonicalName())) {
-                    // Needs to skip as the provider is calling the findRegistryResource and trying to find it in itself.
-                    continue;
-                }
-                FHIRRegistryResource registryResource = provider.getRegistryResource(resourceType, url, version);
-                if (registryResource != null) {
-                    distinct.add(registryResource);
-                }
-            }
-            List<FHIRRegistryResource> registryResources = new ArrayList<>(distinct);
-            Collections.sort(registryResources);
-            if (!registryResources.isEmpty()) {
-                for (FHIRRegistryResource registryResource : registryResources) {
-                    if (registryResource.isDefaultVersion()) {
-                        // default version
-                        return registryResource;
-                    }
+        return getIndex().findRegistryResource(resourceType, url, version, providerNameToExclude);
+    }
+
+    private FHIRRegistryIndex getIndex() {
+        FHIRRegistryIndex index = this.index;
+        if (index == null) {
+            synchronized (this) {
+                index = this.index;
+                if (index == null) {
+                    index = new FHIRRegistryIndex(providers);
+                    this.index = index;
                 }
-                // latest version
-                return registryResources.get(registryResources.size() - 1);
             }
         }
-        return null;
+        return index;
     }
 
     private Resource getResource(FHIRRegistryResource registryResource, String url, String id) {
@@ -355,8 +342,13 @@ public final class FHIRRegistry {
      * initializes the Resource Providers.
      */
     public static void init() {
-        for (FHIRRegistryResourceProvider provider : getInstance().providers) {
-            provider.init();
+        FHIRRegistry registry = getInstance();
+        synchronized (registry) {
+            for (FHIRRegistryResourceProvider provider : registry.providers) {
+                provider.init();
+            }
+            registry.index = null;
+            registry.version.incrementAndGet();
         }
     }
 
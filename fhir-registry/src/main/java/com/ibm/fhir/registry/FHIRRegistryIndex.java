@@ -0,0 +1,301 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.registry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.resource.SearchParameter;
+import com.ibm.fhir.model.resource.StructureDefinition;
+import com.ibm.fhir.model.type.Canonical;
+import com.ibm.fhir.model.type.code.ResourceType;
+import com.ibm.fhir.model.type.code.SearchParamType;
+import com.ibm.fhir.registry.resource.FHIRRegistryResource;
+import com.ibm.fhir.registry.resource.FHIRRegistryResource.Version;
+import com.ibm.fhir.registry.spi.FHIRRegistryResourceProvider;
+
+/**
+ * An immutable index over the registry resources of the static providers of a {@link FHIRRegistry}.
+ *
+ * <p>The index is built from a snapshot of the provider list. The resources of static providers are indexed by
+ * resource type, url and version, and their profile and search parameter resources are grouped by type, so that
+ * lookups don't need to ask every provider and sort the candidates on each call. Non-static providers are
+ * remembered with their position so that their resources can still be merged in provider order.
+ */
+final class FHIRRegistryIndex {
+    private final List<FHIRRegistryResourceProvider> providers;
+    private final boolean[] dynamic;
+    private final Set<String> staticProviderNames = new LinkedHashSet<>();
+    private final boolean hasDynamicProviders;
+
+    // resource type -> url -> entry
+    private final Map<Class<? extends Resource>, Map<String, Entry>> entryMap = new HashMap<>();
+
+    // per provider position: type -> resources
+    private final List<Map<String, List<FHIRRegistryResource>>> profileResourceMaps = new ArrayList<>();
+    private final List<Map<String, List<FHIRRegistryResource>>> searchParameterResourceMaps = new ArrayList<>();
+
+    // the results for the static providers only, computed on first use
+    private final Map<String, List<Canonical>> profilesMap = new ConcurrentHashMap<>();
+    private final Map<String, List<SearchParameter>> searchParametersMap = new ConcurrentHashMap<>();
+
+    FHIRRegistryIndex(List<FHIRRegistryResourceProvider> providers) {
+        this.providers = new ArrayList<>(providers);
+        this.dynamic = new boolean[this.providers.size()];
+        boolean hasDynamicProviders = false;
+        for (int position = 0; position < this.providers.size(); position++) {
+            FHIRRegistryResourceProvider provider = this.providers.get(position);
+            if (provider.isStatic()) {
+                staticProviderNames.add(provider.getClass().getCanonicalName());
+                index(position, provider);
+            } else {
+                dynamic[position] = true;
+                hasDynamicProviders = true;
+                profileResourceMaps.add(Collections.emptyMap());
+                searchParameterResourceMaps.add(Collections.emptyMap());
+            }
+        }
+        this.hasDynamicProviders = hasDynamicProviders;
+        for (Map<String, Entry> map : entryMap.values()) {
+            for (Entry entry : map.values()) {
+                entry.complete();
+            }
+        }
+    }
+
+    private void index(int position, FHIRRegistryResourceProvider provider) {
+        Map<String, List<FHIRRegistryResource>> profileResourceMap = new HashMap<>();
+        Map<String, List<FHIRRegistryResource>> searchParameterResourceMap = new HashMap<>();
+        for (FHIRRegistryResource registryResource : provider.getRegistryResources()) {
+            Class<? extends Resource> resourceType = registryResource.getResourceType();
+            String url = registryResource.getUrl();
+            Entry entry = entryMap.computeIfAbsent(resourceType, k -> new HashMap<>()).computeIfAbsent(url, k -> new Entry());
+            // the first provider with a given version wins
+            entry.versions.putIfAbsent(registryResource.getVersion(), new Located(position, registryResource));
+            if (entry.lastPosition != position) {
+                // the default (or latest) version according to this provider
+                entry.lastPosition = position;
+                FHIRRegistryResource candidate = provider.getRegistryResource(resourceType, url, null);
+                if (candidate != null) {
+                    entry.candidates.add(new Located(position, candidate));
+                }
+            }
+        }
+        for (SearchParamType.Value type : SearchParamType.Value.values()) {
+            Collection<FHIRRegistryResource> searchParameterResources = provider.getSearchParameterResources(type.value());
+            if (!searchParameterResources.isEmpty()) {
+                searchParameterResourceMap.put(type.value(), new ArrayList<>(searchParameterResources));
+            }
+        }
+        if (!provider.getRegistryResources(StructureDefinition.class).isEmpty()) {
+            for (ResourceType.Value type : ResourceType.Value.values()) {
+                Collection<FHIRRegistryResource> profileResources = provider.getProfileResources(type.value());
+                if (!profileResources.isEmpty()) {
+                    profileResourceMap.put(type.value(), new ArrayList<>(profileResources));
+                }
+            }
+        }
+        profileResourceMaps.add(profileResourceMap);
+        searchParameterResourceMaps.add(searchParameterResourceMap);
+    }
+
+    /**
+     * Find a registry resource with the same semantics as asking each provider in turn
+     *
+     * @return the registry resource, or null if there is no match
+     */
+    FHIRRegistryResource findRegistryResource(Class<? extends Resource> resourceType, String url, String version, String providerNameToExclude) {
+        Entry entry = entryMap.getOrDefault(resourceType, Collections.emptyMap()).get(url);
+
+        if (version != null) {
+            // the first registry resource with the specified version in provider order
+            Located located = (entry != null) ? entry.versions.get(Version.from(version)) : null;
+            int limit = (located != null) ? located.position : providers.size();
+            for (int position = 0; position < limit; position++) {
+                if (dynamic[position]) {
+                    FHIRRegistryResource registryResource = providers.get(position).getRegistryResource(resourceType, url, version);
+                    if (registryResource != null) {
+                        return registryResource;
+                    }
+                }
+            }
+            return (located != null) ? located.registryResource : null;
+        }
+
+        // the default (or latest) version across providers
+        List<FHIRRegistryResource> dynamicCandidates = null;
+        for (int position = 0; position < providers.size(); position++) {
+            if (dynamic[position] && !isExcluded(position, providerNameToExclude)) {
+                FHIRRegistryResource registryResource = providers.get(position).getRegistryResource(resourceType, url, null);
+                if (registryResource != null) {
+                    if (dynamicCandidates == null) {
+                        dynamicCandidates = new ArrayList<>();
+                    }
+                    dynamicCandidates.add(registryResource);
+                }
+            }
+        }
+        boolean excludesStaticProvider = providerNameToExclude != null && staticProviderNames.contains(providerNameToExclude);
+        if (dynamicCandidates == null && !excludesStaticProvider) {
+            return (entry != null) ? entry.defaultOrLatest : null;
+        }
+
+        Set<FHIRRegistryResource> distinct = new LinkedHashSet<>();
+        if (entry != null) {
+            for (Located candidate : entry.candidates) {
+                if (!isExcluded(candidate.position, providerNameToExclude)) {
+                    distinct.add(candidate.registryResource);
+                }
+            }
+        }
+        if (dynamicCandidates != null) {
+            distinct.addAll(dynamicCandidates);
+        }
+        return select(new ArrayList<>(distinct));
+    }
+
+    private boolean isExcluded(int position, String providerNameToExclude) {
+        return providerNameToExclude != null && providerNameToExclude.equals(providers.get(position).getClass().getCanonicalName());
+    }
+
+    /**
+     * @return the default version, or else the latest version, of the passed registry resources
+     */
+    private static FHIRRegistryResource select(List<FHIRRegistryResource> registryResources) {
+        if (registryResources.isEmpty()) {
+            return null;
+        }
+        Collections.sort(registryResources);
+        for (FHIRRegistryResource registryResource : registryResources) {
+            if (registryResource.isDefaultVersion()) {
+                // default version
+                return registryResource;
+            }
+        }
+        // latest version
+        return registryResources.get(registryResources.size() - 1);
+    }
+
+    /**
+     * @see FHIRRegistry#getProfiles(String)
+     */
+    Collection<Canonical> getProfiles(String type) {
+        List<Collection<FHIRRegistryResource>> dynamicResources = getDynamicResources(p -> p.getProfileResources(type));
+        if (dynamicResources == null) {
+            return profilesMap.computeIfAbsent(type, k -> toCanonicals(merge(profileResourceMaps, type, null)));
+        }
+        return toCanonicals(merge(profileResourceMaps, type, dynamicResources));
+    }
+
+    private static List<Canonical> toCanonicals(List<FHIRRegistryResource> registryResources) {
+        Collections.sort(registryResources);
+        List<Canonical> profiles = new ArrayList<>(registryResources.size());
+        for (FHIRRegistryResource registryResource : registryResources) {
+            profiles.add(Canonical.of(registryResource.getUrl(), registryResource.getVersion().toString()));
+        }
+        return Collections.unmodifiableList(profiles);
+    }
+
+    /**
+     * @see FHIRRegistry#getSearchParameters(String)
+     */
+    Collection<SearchParameter> getSearchParameters(String type) {
+        List<Collection<FHIRRegistryResource>> dynamicResources = getDynamicResources(p -> p.getSearchParameterResources(type));
+        if (dynamicResources == null) {
+            return searchParametersMap.computeIfAbsent(type, k -> toSearchParameters(merge(searchParameterResourceMaps, type, null)));
+        }
+        return toSearchParameters(merge(searchParameterResourceMaps, type, dynamicResources));
+    }
+
+    private static List<SearchParameter> toSearchParameters(List<FHIRRegistryResource> registryResources) {
+        List<SearchParameter> searchParameters = new ArrayList<>(registryResources.size());
+        for (FHIRRegistryResource registryResource : registryResources) {
+            searchParameters.add(registryResource.getResource().as(SearchParameter.class));
+        }
+        return Collections.unmodifiableList(searchParameters);
+    }
+
+    /**
+     * @return the resources of each provider position (empty for static providers), or null if no dynamic provider has any
+     */
+    private List<Collection<FHIRRegistryResource>> getDynamicResources(Function<FHIRRegistryResourceProvider, Collection<FHIRRegistryResource>> function) {
+        if (!hasDynamicProviders) {
+            return null;
+        }
+        List<Collection<FHIRRegistryResource>> result = null;
+        for (int position = 0; position < providers.size(); position++) {
+            if (dynamic[position]) {
+                Collection<FHIRRegistryResource> registryResources = function.apply(providers.get(position));
+                if (!registryResources.isEmpty()) {
+                    if (result == null) {
+                        result = new ArrayList<>(Collections.nCopies(providers.size(), Collections.emptyList()));
+                    }
+                    result.set(position, registryResources);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the resources of the given type in provider order
+     */
+    private List<FHIRRegistryResource> merge(List<Map<String, List<FHIRRegistryResource>>> staticResourceMaps, String type,
+            List<Collection<FHIRRegistryResource>> dynamicResources) {
+        List<FHIRRegistryResource> result = new ArrayList<>();
+        for (int position = 0; position < providers.size(); position++) {
+            if (dynamic[position]) {
+                if (dynamicResources != null) {
+                    result.addAll(dynamicResources.get(position));
+                }
+            } else {
+                result.addAll(staticResourceMaps.get(position).getOrDefault(type, Collections.emptyList()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The registry resources of the static providers with a given resource type and url
+     */
+    private static final class Entry {
+        private final Map<Version, Located> versions = new HashMap<>();
+        private final List<Located> candidates = new ArrayList<>();
+        private int lastPosition = -1;
+        private FHIRRegistryResource defaultOrLatest;
+
+        private void complete() {
+            Set<FHIRRegistryResource> distinct = new LinkedHashSet<>();
+            for (Located candidate : candidates) {
+                distinct.add(candidate.registryResource);
+            }
+            defaultOrLatest = select(new ArrayList<>(distinct));
+        }
+    }
+
+    /**
+     * A registry resource and the position of the provider it came from
+     */
+    private static final class Located {
+        private final int position;
+        private final FHIRRegistryResource registryResource;
+
+        private Located(int position, FHIRRegistryResource registryResource) {
+            this.position = position;
+            this.registryResource = registryResource;
+        }
+    }
+}
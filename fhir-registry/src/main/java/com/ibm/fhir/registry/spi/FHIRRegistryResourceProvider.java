@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019, 2021
+ * (C) Copyright IBM Corp. 2019, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -25,6 +25,19 @@ public interface FHIRRegistryResourceProvider {
         // NOP
     }
 
+    /**
+     * Indicates whether the registry resources served by this provider are fixed once the provider is initialized
+     *
+     * <p>The {@link com.ibm.fhir.registry.FHIRRegistry} indexes the registry resources of static providers when they
+     * are first needed; non-static providers are asked on each lookup.
+     *
+     * @return
+     *     true if the registry resources served by this provider never change after {@link #init()}, false otherwise
+     */
+    default boolean isStatic() {
+        return false;
+    }
+
     /**
      * Get the registry resource from this provider for the given resource type, url and version
      *
@@ -0,0 +1,61 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.registry.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Generates the binary index ({@code .index.bin}) of each package below one or more directories from its JSON index
+ * ({@code .index.json})
+ *
+ * <p>This runs during the build of each module that contains packages (see the {@code generate-binary-index}
+ * execution of the exec-maven-plugin in fhir-parent) with the output directory of the module, e.g. {@code target/classes}.
+ *
+ * <p>Usage: {@code BinaryIndexGenerator <directory>...}
+ */
+public class BinaryIndexGenerator {
+    private static final Logger log = Logger.getLogger(BinaryIndexGenerator.class.getName());
+
+    public static void main(String[] args) throws Exception {
+        for (String directory : args) {
+            Path root = Paths.get(directory);
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            List<Path> jsonIndexPaths;
+            try (Stream<Path> paths = Files.walk(root)) {
+                jsonIndexPaths = paths.filter(path -> ".index.json".equals(path.getFileName().toString()))
+                        .collect(Collectors.toList());
+            }
+            for (Path jsonIndexPath : jsonIndexPaths) {
+                generate(jsonIndexPath);
+            }
+        }
+    }
+
+    private static void generate(Path jsonIndexPath) throws IOException {
+        byte[] jsonIndex = Files.readAllBytes(jsonIndexPath);
+        Index index = new Index();
+        try (InputStream in = new ByteArrayInputStream(jsonIndex)) {
+            index.load(in);
+        }
+        try (OutputStream out = Files.newOutputStream(jsonIndexPath.resolveSibling(".index.bin"))) {
+            index.storeBinary(out, Index.digest(jsonIndex));
+        }
+        log.info("Generated binary index for " + jsonIndexPath.getParent() + " with " + index.getEntries().size() + " entries");
+    }
+}
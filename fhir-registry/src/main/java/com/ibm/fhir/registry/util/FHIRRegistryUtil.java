@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019, 2020
+ * (C) Copyright IBM Corp. 2019, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -7,9 +7,16 @@
 package com.ibm.fhir.registry.util;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -147,7 +154,14 @@ public final class FHIRRegistryUtil {
     public static Collection<FHIRRegistryResource> getRegistryResources(String packageId) {
         List<FHIRRegistryResource> resources = new ArrayList<>();
         String packageDirectory = packageId.replace(".", "/") + "/package";
-        for (Entry entry : readIndex(packageDirectory + "/.index.json")) {
+        String indexPath = packageDirectory + "/.index.json";
+        // the JSON index is always read; the binary index is only used if it was generated from it
+        byte[] jsonIndex = readBytes(indexPath);
+        List<Entry> entries = (jsonIndex != null) ? readBinaryIndex(packageDirectory + "/.index.bin", Index.digest(jsonIndex)) : null;
+        if (entries == null) {
+            entries = (jsonIndex != null) ? readIndex(indexPath, jsonIndex) : readIndex(indexPath);
+        }
+        for (Entry entry : entries) {
             resources.add(new PackageRegistryResource(
                 ModelSupport.getResourceType(entry.getResourceType()),
                 entry.getId(),
@@ -171,4 +185,69 @@ public final class FHIRRegistryUtil {
         }
         return Collections.emptyList();
     }
-}
\ No newline at end of file
+
+    private static List<Entry> readIndex(String indexPath, byte[] jsonIndex) {
+        log.info("Loading index: " + indexPath);
+        try (InputStream in = new ByteArrayInputStream(jsonIndex)) {
+            Index index = new Index();
+            index.load(in);
+            return index.getEntries();
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Unexpected error while loading index '" + indexPath + "'", e);
+        }
+        return Collections.emptyList();
+    }
+
+    private static byte[] readBytes(String path) {
+        try (InputStream in = FHIRRegistryUtil.class.getClassLoader().getResourceAsStream(path)) {
+            return (in != null) ? in.readAllBytes() : null;
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Unexpected error while reading '" + path + "'", e);
+        }
+        return null;
+    }
+
+    /**
+     * Read the binary form of a package index
+     *
+     * <p>If the index is a file on the file system, then it is memory-mapped; otherwise (e.g. if it is packaged in a jar)
+     * it is read into memory.
+     *
+     * @param indexPath
+     *     the classpath location of the binary index
+     * @param expectedSourceDigest
+     *     the digest of the current JSON index of the package (see {@link Index#digest(byte[])})
+     * @return
+     *     the index entries, or null if there is no binary index at the given location, it could not be loaded or
+     *     it was generated from a different JSON index
+     */
+    public static List<Entry> readBinaryIndex(String indexPath, byte[] expectedSourceDigest) {
+        URL url = FHIRRegistryUtil.class.getClassLoader().getResource(indexPath);
+        if (url == null) {
+            return null;
+        }
+        log.info("Loading binary index: " + indexPath);
+        try {
+            ByteBuffer buffer;
+            if ("file".equals(url.getProtocol())) {
+                try (FileChannel channel = FileChannel.open(Paths.get(url.toURI()), StandardOpenOption.READ)) {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            } else {
+                try (InputStream in = url.openStream()) {
+                    buffer = ByteBuffer.wrap(in.readAllBytes());
+                }
+            }
+            Index index = new Index();
+            index.load(buffer);
+            if (!MessageDigest.isEqual(index.getSourceDigest(), expectedSourceDigest)) {
+                log.warning("Ignoring binary index '" + indexPath + "' because it is out of date with the JSON index");
+                return null;
+            }
+            return index.getEntries();
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Unexpected error while loading binary index '" + indexPath + "'", e);
+        }
+        return null;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2020, 2021
+ * (C) Copyright IBM Corp. 2020, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -9,16 +9,23 @@ package com.ibm.fhir.registry.util;
 import static com.ibm.fhir.registry.util.FHIRRegistryUtil.isDefinitionalResource;
 
 import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -34,15 +41,30 @@ import com.ibm.fhir.model.resource.Resource;
 import com.ibm.fhir.model.resource.SearchParameter;
 import com.ibm.fhir.model.resource.StructureDefinition;
 
+/**
+ * The index of an NPM package as specified at
+ * <a href="https://confluence.hl7.org/pages/viewpage.action?pageId=35718629">https://confluence.hl7.org/pages/viewpage.action?pageId=35718629</a>
+ *
+ * <p>In addition to the JSON form ({@code .index.json}), an index can be stored in a compact binary form
+ * ({@code .index.bin}) in which each distinct string is stored once and entries refer to strings by position.
+ * The binary form can be loaded from a (memory-mapped) {@link ByteBuffer} without JSON parsing. It records a digest of
+ * the JSON form it was generated from, so that a stale binary index can be detected.
+ */
 public class Index {
     private static final Logger log = Logger.getLogger(Index.class.getName());
 
+    // "FHIX"
+    private static final int BINARY_MAGIC = 0x46484958;
+    private static final int BINARY_FORMAT_VERSION = 2;
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
     private static final JsonProvider PROVIDER = JsonProvider.provider();
     private static final JsonParserFactory PARSER_FACTORY = PROVIDER.createParserFactory(null);
     private static final JsonGeneratorFactory GENERATOR_FACTORY = PROVIDER.createGeneratorFactory(Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
 
     private int version = -1;
     private final List<Entry> entries = new ArrayList<>();
+    private byte[] sourceDigest;
 
     public Index() { }
 
@@ -61,6 +83,32 @@ public class Index {
         return Collections.unmodifiableList(entries);
     }
 
+    /**
+     * Get the digest of the JSON index that this index was generated from
+     *
+     * @return
+     *     the digest recorded in the binary form of this index, or null if this index was not loaded from its binary form
+     */
+    public byte[] getSourceDigest() {
+        return (sourceDigest != null) ? sourceDigest.clone() : null;
+    }
+
+    /**
+     * Compute the digest of the given JSON index, as recorded in the binary form of an index
+     *
+     * @param jsonIndex
+     *     the content of a JSON index ({@code .index.json})
+     * @return
+     *     the digest
+     */
+    public static byte[] digest(byte[] jsonIndex) {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(jsonIndex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public void load(InputStream in) {
         load(new BufferedReader(new InputStreamReader(in,  StandardCharsets.UTF_8)));
     }
@@ -209,6 +257,113 @@ public class Index {
         generator.writeEnd();
     }
 
+    /**
+     * Load an index from its binary form
+     *
+     * @param buffer
+     *     the buffer positioned at the start of the binary index
+     * @throws IllegalStateException
+     *     if the buffer does not contain a binary index in a supported format
+     */
+    public void load(ByteBuffer buffer) {
+        if (buffer.getInt() != BINARY_MAGIC) {
+            throw new IllegalStateException("buffer does not contain a binary index");
+        }
+        int formatVersion = buffer.getInt();
+        if (formatVersion != BINARY_FORMAT_VERSION) {
+            throw new IllegalStateException("unsupported binary index format version: " + formatVersion);
+        }
+        version = buffer.getInt();
+
+        sourceDigest = new byte[buffer.getInt()];
+        buffer.get(sourceDigest);
+
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            String fileName = string(strings, buffer.getInt());
+            String resourceType = string(strings, buffer.getInt());
+            String id = string(strings, buffer.getInt());
+            String url = string(strings, buffer.getInt());
+            String version = string(strings, buffer.getInt());
+            String kind = string(strings, buffer.getInt());
+            String type = string(strings, buffer.getInt());
+            try {
+                entries.add(new Entry(fileName, resourceType, id, url, version, kind, type));
+            } catch (NullPointerException e) {
+                log.log(Level.WARNING, "Skipping index entry " + i + " due to " +
+                    "one or more missing required fields, beginning with: " + e.getMessage());
+            }
+        }
+
+        if (version < 1) {
+            throw new IllegalStateException("index version was not set");
+        }
+    }
+
+    private String string(String[] strings, int position) {
+        return (position == -1) ? null : strings[position];
+    }
+
+    /**
+     * Store this index in its binary form
+     *
+     * @param out
+     *     the output stream
+     * @param sourceDigest
+     *     the digest of the JSON index that this index was generated from
+     * @throws IOException
+     *     if an I/O error occurs
+     * @see #digest(byte[])
+     */
+    public void storeBinary(OutputStream out, byte[] sourceDigest) throws IOException {
+        Objects.requireNonNull(sourceDigest, "sourceDigest");
+        if (version < 1) {
+            throw new IllegalStateException("index version was not set");
+        }
+        if (entries.isEmpty()) {
+            throw new IllegalStateException("index contains no entries");
+        }
+        Collections.sort(entries);
+
+        Map<String, Integer> positions = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (Entry entry : entries) {
+            for (String value : entry.values()) {
+                if (value != null && !positions.containsKey(value)) {
+                    positions.put(value, strings.size());
+                    strings.add(value);
+                }
+            }
+        }
+
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(BINARY_MAGIC);
+        dataOut.writeInt(BINARY_FORMAT_VERSION);
+        dataOut.writeInt(version);
+        dataOut.writeInt(sourceDigest.length);
+        dataOut.write(sourceDigest);
+        dataOut.writeInt(strings.size());
+        for (String value : strings) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            dataOut.writeInt(bytes.length);
+            dataOut.write(bytes);
+        }
+        dataOut.writeInt(entries.size());
+        for (Entry entry : entries) {
+            for (String value : entry.values()) {
+                dataOut.writeInt((value != null) ? positions.get(value) : -1);
+            }
+        }
+        dataOut.flush();
+    }
+
     public boolean add(Entry entry) {
         if (entry == null) {
             return false;
@@ -270,6 +425,10 @@ public class Index {
             return type;
         }
 
+        private String[] values() {
+            return new String[] { fileName, resourceType, id, url, version, kind, type };
+        }
+
         public static Entry entry(Resource resource) {
             Objects.requireNonNull(resource);
 
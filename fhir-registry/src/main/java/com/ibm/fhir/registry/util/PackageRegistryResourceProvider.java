@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2020, 2021
+ * (C) Copyright IBM Corp. 2020, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -50,6 +50,11 @@ public abstract class PackageRegistryResourceProvider extends AbstractRegistryRe
      */
     public abstract String getPackageId();
 
+    @Override
+    public boolean isStatic() {
+        return true;
+    }
+
     @Override
     protected List<FHIRRegistryResource> getRegistryResources(Class<? extends Resource> resourceType, String url) {
         return registryResourceMap.getOrDefault(resourceType, Collections.emptyMap())
@@ -0,0 +1,119 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.registry.test;
+
+import static com.ibm.fhir.model.type.String.string;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.resource.SearchParameter;
+import com.ibm.fhir.model.resource.StructureDefinition;
+import com.ibm.fhir.model.type.Boolean;
+import com.ibm.fhir.model.type.Canonical;
+import com.ibm.fhir.model.type.Code;
+import com.ibm.fhir.model.type.Markdown;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.code.PublicationStatus;
+import com.ibm.fhir.model.type.code.ResourceType;
+import com.ibm.fhir.model.type.code.SearchParamType;
+import com.ibm.fhir.model.type.code.StructureDefinitionKind;
+import com.ibm.fhir.registry.util.FHIRRegistryUtil;
+import com.ibm.fhir.registry.util.Index;
+import com.ibm.fhir.registry.util.Index.Entry;
+
+public class BinaryIndexTest {
+    // generated from the JSON index during the build
+    private static final String CORE_JSON_INDEX = "hl7/fhir/core/package/.index.json";
+    private static final String CORE_BINARY_INDEX = "hl7/fhir/core/package/.index.bin";
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Index index = new Index(1);
+        for (int i = 0; i < 10; i++) {
+            index.add(Entry.entry(StructureDefinition.builder()
+                .id("test-" + i)
+                .url(Uri.of("http://ibm.com/fhir/StructureDefinition/test-" + i))
+                .version(string("1.0.0"))
+                .status(PublicationStatus.DRAFT)
+                .name(string("Test Profile"))
+                .kind(StructureDefinitionKind.RESOURCE)
+                .baseDefinition(Canonical.of("http://hl7.org/fhir/StructureDefinition/Patient"))
+                ._abstract(Boolean.FALSE)
+                .type(Uri.of("Patient"))
+                .build()));
+        }
+        // no version
+        index.add(Entry.entry(SearchParameter.builder()
+            .id("test-search-parameter")
+            .url(Uri.of("http://ibm.com/fhir/SearchParameter/test"))
+            .name(string("test"))
+            .status(PublicationStatus.DRAFT)
+            .description(Markdown.of("test"))
+            .code(Code.of("test"))
+            .base(Collections.singleton(ResourceType.PATIENT))
+            .type(SearchParamType.STRING)
+            .build()));
+
+        byte[] digest = Index.digest("{}".getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.storeBinary(out, digest);
+
+        Index loaded = new Index();
+        loaded.load(ByteBuffer.wrap(out.toByteArray()));
+        assertEquals(loaded.getVersion(), 1);
+        assertEquals(loaded.getSourceDigest(), digest);
+        assertEquals(loaded.getEntries(), index.getEntries());
+        assertNull(loaded.getEntries().get(0).getVersion());
+        assertEquals(loaded.getEntries().get(1).getKind(), "resource");
+        assertEquals(loaded.getEntries().get(1).getType(), "Patient");
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testInvalidBinaryIndex() throws Exception {
+        new Index().load(ByteBuffer.wrap("{\"index-version\": 1}".getBytes()));
+    }
+
+    @Test
+    public void testMissingBinaryIndex() throws Exception {
+        assertNull(FHIRRegistryUtil.readBinaryIndex("com/ibm/fhir/test/package/.index.bin", Index.digest(new byte[0])));
+    }
+
+    @Test
+    public void testGeneratedBinaryIndex() throws Exception {
+        byte[] jsonIndex;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(CORE_JSON_INDEX)) {
+            jsonIndex = in.readAllBytes();
+        }
+        Index index = new Index();
+        index.load(new ByteArrayInputStream(jsonIndex));
+
+        List<Entry> entries = FHIRRegistryUtil.readBinaryIndex(CORE_BINARY_INDEX, Index.digest(jsonIndex));
+        assertNotNull(entries);
+        // the binary index is sorted by file name
+        List<Entry> expected = new ArrayList<>(index.getEntries());
+        Collections.sort(expected);
+        assertEquals(entries, expected);
+    }
+
+    @Test
+    public void testStaleBinaryIndex() throws Exception {
+        // a binary index generated from a different JSON index is ignored
+        assertNull(FHIRRegistryUtil.readBinaryIndex(CORE_BINARY_INDEX, Index.digest("{}".getBytes(StandardCharsets.UTF_8))));
+    }
+}
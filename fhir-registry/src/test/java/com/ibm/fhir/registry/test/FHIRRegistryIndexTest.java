@@ -0,0 +1,181 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.registry.test;
+
+import static com.ibm.fhir.model.type.String.string;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.resource.SearchParameter;
+import com.ibm.fhir.model.resource.StructureDefinition;
+import com.ibm.fhir.model.type.Boolean;
+import com.ibm.fhir.model.type.Canonical;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.code.PublicationStatus;
+import com.ibm.fhir.model.type.code.StructureDefinitionKind;
+import com.ibm.fhir.registry.FHIRRegistry;
+import com.ibm.fhir.registry.resource.FHIRRegistryResource;
+import com.ibm.fhir.registry.resource.FHIRRegistryResource.Version;
+import com.ibm.fhir.registry.spi.FHIRRegistryResourceProvider;
+
+/**
+ * Tests that the index over static providers gives the same answers as asking each provider in turn
+ */
+public class FHIRRegistryIndexTest {
+    private static final String URL = "http://ibm.com/fhir/StructureDefinition/index-test";
+    private static final String OTHER_URL = "http://ibm.com/fhir/StructureDefinition/index-test-other";
+    private static final String DYNAMIC_URL = "http://ibm.com/fhir/StructureDefinition/index-test-dynamic";
+
+    private static final TestProvider DYNAMIC_PROVIDER = new TestProvider(false,
+        FHIRRegistryResource.from(createStructureDefinition(URL, "1.0.0")));
+
+    static {
+        FHIRRegistry.getInstance().addProvider(DYNAMIC_PROVIDER);
+        FHIRRegistry.getInstance().addProvider(new TestProvider(true,
+            FHIRRegistryResource.from(createStructureDefinition(URL, "1.0.0")),
+            FHIRRegistryResource.from(createStructureDefinition(URL, "2.0.0")),
+            FHIRRegistryResource.from(createStructureDefinition(OTHER_URL, "1.0.0"), true),
+            FHIRRegistryResource.from(createStructureDefinition(OTHER_URL, "2.0.0"))));
+        FHIRRegistry.getInstance().addProvider(new TestProvider(true,
+            FHIRRegistryResource.from(createStructureDefinition(URL, "3.0.0"))));
+    }
+
+    @Test
+    public void testVersionedLookup() throws Exception {
+        FHIRRegistry registry = FHIRRegistry.getInstance();
+        assertEquals(registry.getResource(URL + "|2.0.0", StructureDefinition.class).getVersion().getValue(), "2.0.0");
+        assertEquals(registry.getResource(URL + "|3.0", StructureDefinition.class).getVersion().getValue(), "3.0.0");
+        assertNull(registry.getResource(URL + "|4.0.0", StructureDefinition.class));
+        assertTrue(registry.hasResource(OTHER_URL + "|2.0.0", StructureDefinition.class));
+        assertFalse(registry.hasResource(OTHER_URL + "|3.0.0", StructureDefinition.class));
+    }
+
+    @Test
+    public void testDefaultVersion() throws Exception {
+        FHIRRegistry registry = FHIRRegistry.getInstance();
+        assertEquals(registry.getDefaultVersion(URL, StructureDefinition.class), "3.0.0");
+        assertEquals(registry.getDefaultVersion(OTHER_URL, StructureDefinition.class), "1.0.0");
+        assertEquals(registry.getResource(OTHER_URL, StructureDefinition.class).getVersion().getValue(), "1.0.0");
+    }
+
+    @Test
+    public void testProviderNameToExclude() throws Exception {
+        FHIRRegistry registry = FHIRRegistry.getInstance();
+        assertEquals(registry.getResource(URL, StructureDefinition.class, TestProvider.class.getCanonicalName()), null);
+        assertEquals(registry.getResource(URL, StructureDefinition.class, "com.example.Unknown").getVersion().getValue(), "3.0.0");
+    }
+
+    @Test
+    public void testDynamicProvider() throws Exception {
+        FHIRRegistry registry = FHIRRegistry.getInstance();
+        assertNull(registry.getDefaultVersion(DYNAMIC_URL, StructureDefinition.class));
+        assertFalse(registry.getProfiles("Basic").contains(Canonical.of(DYNAMIC_URL, "1.0.0")));
+
+        // resources that are added to a dynamic provider are visible without rebuilding the index
+        DYNAMIC_PROVIDER.add(FHIRRegistryResource.from(createStructureDefinition(DYNAMIC_URL, "1.0.0")));
+        assertEquals(registry.getDefaultVersion(DYNAMIC_URL, StructureDefinition.class), "1.0.0");
+        assertTrue(registry.hasResource(DYNAMIC_URL + "|1.0.0", StructureDefinition.class));
+        assertTrue(registry.getProfiles("Basic").contains(Canonical.of(DYNAMIC_URL, "1.0.0")));
+    }
+
+    private static StructureDefinition createStructureDefinition(String url, String version) {
+        return StructureDefinition.builder()
+                .id("test")
+                .url(Uri.of(url))
+                .version(string(version))
+                .status(PublicationStatus.DRAFT)
+                .name(string("Test Profile"))
+                .kind(StructureDefinitionKind.RESOURCE)
+                .baseDefinition(Canonical.of("http://hl7.org/fhir/StructureDefinition/Basic"))
+                ._abstract(Boolean.FALSE)
+                .type(Uri.of("Basic"))
+                .build();
+    }
+
+    private static class TestProvider implements FHIRRegistryResourceProvider {
+        private final boolean isStatic;
+        private final List<FHIRRegistryResource> registryResources = new ArrayList<>();
+
+        TestProvider(boolean isStatic, FHIRRegistryResource... registryResources) {
+            this.isStatic = isStatic;
+            for (FHIRRegistryResource registryResource : registryResources) {
+                this.registryResources.add(registryResource);
+            }
+        }
+
+        synchronized void add(FHIRRegistryResource registryResource) {
+            registryResources.add(registryResource);
+        }
+
+        @Override
+        public boolean isStatic() {
+            return isStatic;
+        }
+
+        @Override
+        public FHIRRegistryResource getRegistryResource(Class<? extends Resource> resourceType, String url, String version) {
+            List<FHIRRegistryResource> registryResources = getRegistryResources(resourceType).stream()
+                    .filter(registryResource -> registryResource.getUrl().equals(url))
+                    .sorted()
+                    .collect(Collectors.toList());
+            if (!registryResources.isEmpty()) {
+                if (version != null) {
+                    Version v = Version.from(version);
+                    for (FHIRRegistryResource registryResource : registryResources) {
+                        if (registryResource.getVersion().equals(v)) {
+                            return registryResource;
+                        }
+                    }
+                } else {
+                    for (FHIRRegistryResource registryResource : registryResources) {
+                        if (registryResource.isDefaultVersion()) {
+                            return registryResource;
+                        }
+                    }
+                    return registryResources.get(registryResources.size() - 1);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Collection<FHIRRegistryResource> getRegistryResources(Class<? extends Resource> resourceType) {
+            return getRegistryResources().stream()
+                    .filter(registryResource -> registryResource.getResourceType().equals(resourceType))
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public synchronized Collection<FHIRRegistryResource> getRegistryResources() {
+            return new ArrayList<>(registryResources);
+        }
+
+        @Override
+        public Collection<FHIRRegistryResource> getProfileResources(String type) {
+            return getRegistryResources(StructureDefinition.class).stream()
+                    .filter(registryResource -> type.equals(registryResource.getType()))
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public Collection<FHIRRegistryResource> getSearchParameterResources(String type) {
+            return getRegistryResources(SearchParameter.class).stream()
+                    .filter(registryResource -> type.equals(registryResource.getType()))
+                    .collect(Collectors.toList());
+        }
+    }
+}
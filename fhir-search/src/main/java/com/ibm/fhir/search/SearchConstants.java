@@ -65,6 +65,12 @@ public class SearchConstants {
     // _page
     public static final String PAGE = "_page";
 
+    // _cursor
+    public static final String CURSOR = "_cursor";
+
+    // _snapshot
+    public static final String SNAPSHOT = "_snapshot";
+
     // _elements
     public static final String ELEMENTS = "_elements";
 
@@ -121,7 +127,7 @@ public class SearchConstants {
 
     // set as unmodifiable
     public static final Set<String> SEARCH_RESULT_PARAMETER_NAMES =
-            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(SORT, COUNT, PAGE, INCLUDE, REVINCLUDE, ELEMENTS, SUMMARY, TOTAL)));
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(SORT, COUNT, PAGE, CURSOR, SNAPSHOT, INCLUDE, REVINCLUDE, ELEMENTS, SUMMARY, TOTAL)));
 
     /**
      * https://www.hl7.org/fhir/search.html#lastUpdated
@@ -133,7 +139,7 @@ public class SearchConstants {
 
     // set as unmodifiable
     public static final Set<String> SEARCH_SINGLETON_PARAMETER_NAMES =
-            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(SORT, COUNT, PAGE, SUMMARY, TOTAL, ELEMENTS, RESOURCE_TYPE)));
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(SORT, COUNT, PAGE, CURSOR, SNAPSHOT, SUMMARY, TOTAL, ELEMENTS, RESOURCE_TYPE)));
 
     // Set of whole-system search parameters indexed in global parameter tables
     public static final Set<String> SYSTEM_LEVEL_GLOBAL_PARAMETER_NAMES =
@@ -116,6 +116,19 @@ public interface FHIRSearchContext extends FHIRPagingContext {
      */
     void setTotalParameter(TotalValueSet total);
 
+    /**
+     * Get the id of the snapshot of the search results which is used to page through them.
+     *
+     * @return the snapshot id, or null if the results are not paged from a snapshot
+     */
+    String getSnapshotId();
+
+    /**
+     * Set the id of the snapshot of the search results which is used to page through them.
+     * @param snapshotId the snapshot id
+     */
+    void setSnapshotId(String snapshotId);
+
     /**
      * Get the list of issues to be returned in the search outcome.
      * @return a list of issues to be returned in the search outcome
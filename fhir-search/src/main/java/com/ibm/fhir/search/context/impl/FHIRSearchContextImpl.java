@@ -30,6 +30,7 @@ public class FHIRSearchContextImpl extends FHIRPagingContextImpl implements FHIR
     private List<String> elementsParameters = null;
     private SummaryValueSet summaryParameter = null;
     private TotalValueSet totalParameter = null;
+    private String snapshotId = null;
     private List<Issue> outcomeIssues = null;
     
     // should the search result Bundle include the actual resource for each result entry
@@ -141,6 +142,16 @@ public class FHIRSearchContextImpl extends FHIRPagingContextImpl implements FHIR
         this.totalParameter = total;
     }
 
+    @Override
+    public String getSnapshotId() {
+        return this.snapshotId;
+    }
+
+    @Override
+    public void setSnapshotId(String snapshotId) {
+        this.snapshotId = snapshotId;
+    }
+
     @Override
     public List<String> getSearchResourceTypes() {
         return this.searchResourceTypes;
@@ -183,6 +194,8 @@ public class FHIRSearchContextImpl extends FHIRPagingContextImpl implements FHIR
         builder.append(summaryParameter);
         builder.append(", totalParameter=");
         builder.append(totalParameter);
+        builder.append(", snapshotId=");
+        builder.append(snapshotId);
         builder.append(", outcomeIssues=");
         builder.append(outcomeIssues);
         builder.append("]");
@@ -97,6 +97,20 @@ public class UriBuilder {
         queryString.append(SearchConstants.EQUALS_CHAR);
         queryString.append(context.getPageNumber());
 
+        if (context.getCursor() != null) {
+            queryString.append(SearchConstants.AND_CHAR);
+            queryString.append(SearchConstants.CURSOR);
+            queryString.append(SearchConstants.EQUALS_CHAR);
+            queryString.append(context.getCursor());
+        }
+
+        if (context.getSnapshotId() != null) {
+            queryString.append(SearchConstants.AND_CHAR);
+            queryString.append(SearchConstants.SNAPSHOT);
+            queryString.append(SearchConstants.EQUALS_CHAR);
+            queryString.append(context.getSnapshotId());
+        }
+
         URI selfUri = new URI(requestUri.getScheme(), requestUri.getAuthority(), requestUri.getPath(),
                 queryString.toString(), null);
 
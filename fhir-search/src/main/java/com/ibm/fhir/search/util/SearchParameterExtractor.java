@@ -0,0 +1,370 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.search.util;
+
+import static com.ibm.fhir.path.util.FHIRPathUtil.getSingleton;
+import static com.ibm.fhir.path.util.FHIRPathUtil.isSingleton;
+import static com.ibm.fhir.path.util.FHIRPathUtil.singleton;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.resource.SearchParameter;
+import com.ibm.fhir.path.FHIRPathNode;
+import com.ibm.fhir.path.FHIRPathParser;
+import com.ibm.fhir.path.FHIRPathParser.ExpressionContext;
+import com.ibm.fhir.path.FHIRPathTree;
+import com.ibm.fhir.path.FHIRPathType;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator.CompiledExpression;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator.EvaluationContext;
+import com.ibm.fhir.path.exception.FHIRPathException;
+
+/**
+ * Extracts the values of all search parameters for a resource in a single pass over its {@link FHIRPathTree}.
+ *
+ * <p>The search parameter expressions for a resource type are split into their union branches and the leading
+ * member path of each branch (e.g. {@code Observation.code.coding}) is merged into a prefix trie. During extraction
+ * each trie node is navigated once, so common prefixes like {@code Observation.subject} are shared across parameters.
+ * Whatever follows the member path (e.g. {@code .where(...)}, {@code as Quantity}) is evaluated against the nodes
+ * reached by the path. Branches that don't start with a member path are evaluated against the resource as before.
+ *
+ * <p>The result is the same as evaluating each expression independently against the resource.
+ */
+public class SearchParameterExtractor {
+    private static final Logger log = Logger.getLogger(SearchParameterExtractor.class.getName());
+
+    // Logging Strings
+    private static final String EXTRACT_PARAMETERS_LOGGING = "extractParameterValues: [%s] [%s]";
+    private static final String UNSUPPORTED_EXCEPTION =
+            "Search Parameter includes an unsupported operation or bad expression : [%s] [%s] [%s]";
+    private static final String UNSUPPORTED_EXPR_NULL =
+            "An empty expression is found or the parameter type is unsupported [%s][%s]";
+
+    // Plans keyed by tenant and resource type
+    private static final Map<String, Plan> PLAN_CACHE = new ConcurrentHashMap<>();
+
+    private SearchParameterExtractor() {
+        // No operation
+    }
+
+    /**
+     * Extract the values of the passed search parameters from the resource
+     *
+     * @param resource
+     *     the resource
+     * @param parameters
+     *     the search parameters for the resource type, keyed by code
+     * @param skipEmpty
+     *     if true, parameters without any values are not included in the result
+     * @return
+     *     the search parameter values, in the iteration order of the passed parameters
+     * @throws Exception
+     */
+    public static Map<SearchParameter, List<FHIRPathNode>> extract(Resource resource, Map<String, SearchParameter> parameters,
+            boolean skipEmpty) throws Exception {
+        String resourceType = resource.getClass().getSimpleName();
+        String key = FHIRRequestContext.get().getTenantId() + "/" + resourceType;
+
+        Plan plan = PLAN_CACHE.get(key);
+        if (plan == null || !plan.isFor(parameters)) {
+            plan = new Plan(parameters);
+            PLAN_CACHE.put(key, plan);
+        }
+
+        return plan.extract(resource, skipEmpty);
+    }
+
+    /**
+     * The prefix trie and per-parameter bookkeeping for one set of search parameters
+     */
+    private static class Plan {
+        private final List<SearchParameter> parameters = new ArrayList<>();
+        private final List<String> codes = new ArrayList<>();
+        private final List<String> expressions = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private final List<Integer> branchCounts = new ArrayList<>();
+        private final TrieNode root = new TrieNode();
+
+        private Plan(Map<String, SearchParameter> parameters) {
+            for (Entry<String, SearchParameter> entry : parameters.entrySet()) {
+                int index = this.parameters.size();
+                SearchParameter parameter = entry.getValue();
+                String expression = (parameter.getExpression() != null) ? parameter.getExpression().getValue() : null;
+
+                this.parameters.add(parameter);
+                codes.add(entry.getKey());
+                expressions.add(expression);
+                errors.add(null);
+                branchCounts.add(0);
+
+                if (expression == null) {
+                    continue;
+                }
+
+                try {
+                    CompiledExpression compiled = FHIRPathEvaluator.compile(expression);
+                    List<ExpressionContext> branches = new ArrayList<>();
+                    flatten(compiled.getExpressionContext(), branches);
+                    for (int i = 0; i < branches.size(); i++) {
+                        add(expression, branches.get(i), index, i);
+                    }
+                    branchCounts.set(index, branches.size());
+                } catch (FHIRPathException e) {
+                    errors.set(index, e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * @return true if this plan was built for exactly the passed search parameters
+         */
+        private boolean isFor(Map<String, SearchParameter> parameters) {
+            if (parameters.size() != this.parameters.size()) {
+                return false;
+            }
+            int i = 0;
+            for (SearchParameter parameter : parameters.values()) {
+                if (parameter != this.parameters.get(i++)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Split a (possibly parenthesized) union expression into its branches
+         */
+        private void flatten(ExpressionContext ctx, List<ExpressionContext> branches) {
+            if (ctx instanceof FHIRPathParser.UnionExpressionContext) {
+                FHIRPathParser.UnionExpressionContext union = (FHIRPathParser.UnionExpressionContext) ctx;
+                flatten(union.expression(0), branches);
+                flatten(union.expression(1), branches);
+            } else if (ctx instanceof FHIRPathParser.TermExpressionContext &&
+                    ((FHIRPathParser.TermExpressionContext) ctx).term() instanceof FHIRPathParser.ParenthesizedTermContext) {
+                flatten(((FHIRPathParser.ParenthesizedTermContext) ((FHIRPathParser.TermExpressionContext) ctx).term()).expression(), branches);
+            } else {
+                branches.add(ctx);
+            }
+        }
+
+        /**
+         * Add a branch to the trie under its leading member path
+         */
+        private void add(String expression, ExpressionContext branch, int parameterIndex, int branchIndex) throws FHIRPathException {
+            String branchText = text(expression, branch);
+
+            // walk down the left spine through invocations and type operators, looking for a member invocation at the bottom
+            List<ExpressionContext> spine = new ArrayList<>();
+            ExpressionContext ctx = branch;
+            String base = null;
+            while (base == null && ctx != null) {
+                if (ctx instanceof FHIRPathParser.InvocationExpressionContext) {
+                    spine.add(ctx);
+                    ctx = ((FHIRPathParser.InvocationExpressionContext) ctx).expression();
+                } else if (ctx instanceof FHIRPathParser.TypeExpressionContext) {
+                    spine.add(ctx);
+                    ctx = ((FHIRPathParser.TypeExpressionContext) ctx).expression();
+                } else if (ctx instanceof FHIRPathParser.TermExpressionContext &&
+                        ((FHIRPathParser.TermExpressionContext) ctx).term() instanceof FHIRPathParser.InvocationTermContext &&
+                        ((FHIRPathParser.InvocationTermContext) ((FHIRPathParser.TermExpressionContext) ctx).term()).invocation() instanceof FHIRPathParser.MemberInvocationContext) {
+                    base = identifier(((FHIRPathParser.MemberInvocationContext) ((FHIRPathParser.InvocationTermContext) ((FHIRPathParser.TermExpressionContext) ctx).term()).invocation()).identifier().getText());
+                } else {
+                    ctx = null;
+                }
+            }
+
+            // %context is bound to the initial context, so such branches must be evaluated from the resource
+            if (base == null || branchText.contains("%context")) {
+                root.branches.add(new Branch(parameterIndex, branchIndex, FHIRPathEvaluator.compile(branchText)));
+                return;
+            }
+
+            // extend the member path upwards for as long as the spine consists of member invocations
+            TrieNode node = root.child(base);
+            ExpressionContext prefix = ctx;
+            for (int i = spine.size() - 1; i >= 0; i--) {
+                ExpressionContext next = spine.get(i);
+                if (!(next instanceof FHIRPathParser.InvocationExpressionContext) ||
+                        !(((FHIRPathParser.InvocationExpressionContext) next).invocation() instanceof FHIRPathParser.MemberInvocationContext)) {
+                    break;
+                }
+                node = node.child(identifier(((FHIRPathParser.MemberInvocationContext) ((FHIRPathParser.InvocationExpressionContext) next).invocation()).identifier().getText()));
+                prefix = next;
+            }
+
+            CompiledExpression tail = null;
+            if (prefix != branch) {
+                // the rest of the branch is evaluated with the nodes reached by the member path as $this
+                try {
+                    tail = FHIRPathEvaluator.compile("$this" + expression.substring(prefix.stop.getStopIndex() + 1, branch.stop.getStopIndex() + 1));
+                } catch (FHIRPathException e) {
+                    if (log.isLoggable(Level.FINE)) {
+                        log.fine("Unable to split branch '" + branchText + "' of expression '" + expression + "'; evaluating it from the resource");
+                    }
+                    root.branches.add(new Branch(parameterIndex, branchIndex, FHIRPathEvaluator.compile(branchText)));
+                    return;
+                }
+            }
+            node.branches.add(new Branch(parameterIndex, branchIndex, tail));
+        }
+
+        private Map<SearchParameter, List<FHIRPathNode>> extract(Resource resource, boolean skipEmpty) throws Exception {
+            FHIRPathEvaluator evaluator = FHIRPathEvaluator.evaluator();
+            EvaluationContext evaluationContext = new EvaluationContext(FHIRPathTree.lazyTree(resource));
+
+            List<List<Collection<FHIRPathNode>>> branchResults = new ArrayList<>(parameters.size());
+            List<String> failures = new ArrayList<>(errors);
+            for (int i = 0; i < parameters.size(); i++) {
+                branchResults.add(new ArrayList<>(branchCounts.get(i)));
+                for (int j = 0; j < branchCounts.get(i); j++) {
+                    branchResults.get(i).add(null);
+                }
+            }
+
+            extract(evaluator, evaluationContext, root, singleton(evaluationContext.getTree().getRoot()), branchResults, failures);
+
+            Map<SearchParameter, List<FHIRPathNode>> result = new LinkedHashMap<>();
+            for (int i = 0; i < parameters.size(); i++) {
+                SearchParameter parameter = parameters.get(i);
+                if (log.isLoggable(Level.FINEST)) {
+                    log.finest(String.format(EXTRACT_PARAMETERS_LOGGING, codes.get(i), (expressions.get(i) != null) ? expressions.get(i) : "EMPTY"));
+                }
+                if (expressions.get(i) == null) {
+                    if (log.isLoggable(Level.FINER)) {
+                        log.finer(String.format(UNSUPPORTED_EXPR_NULL, parameter.getType(), codes.get(i)));
+                    }
+                    continue;
+                }
+                if (failures.get(i) != null) {
+                    log.warning(String.format(UNSUPPORTED_EXCEPTION, codes.get(i), expressions.get(i), failures.get(i)));
+                    continue;
+                }
+
+                List<Collection<FHIRPathNode>> branches = branchResults.get(i);
+                List<FHIRPathNode> values;
+                if (branches.size() == 1) {
+                    values = new ArrayList<>(branches.get(0));
+                } else {
+                    // union semantics: distinct values in branch order
+                    Set<FHIRPathNode> union = new LinkedHashSet<>();
+                    for (Collection<FHIRPathNode> branch : branches) {
+                        union.addAll(branch);
+                    }
+                    values = new ArrayList<>(union);
+                }
+
+                if (log.isLoggable(Level.FINEST)) {
+                    log.finest("Expression [" + expressions.get(i) + "] parameter-code [" + codes.get(i) + "] Size -[" + values.size() + "]");
+                }
+
+                if (!values.isEmpty() || !skipEmpty) {
+                    result.put(parameter, values);
+                }
+            }
+            return result;
+        }
+
+        private void extract(FHIRPathEvaluator evaluator, EvaluationContext evaluationContext, TrieNode node,
+                Collection<FHIRPathNode> context, List<List<Collection<FHIRPathNode>>> branchResults, List<String> failures) {
+            for (Branch branch : node.branches) {
+                if (failures.get(branch.parameterIndex) != null) {
+                    continue;
+                }
+                if (branch.tail == null) {
+                    branchResults.get(branch.parameterIndex).set(branch.branchIndex, context);
+                    continue;
+                }
+                try {
+                    branchResults.get(branch.parameterIndex).set(branch.branchIndex, evaluator.evaluate(evaluationContext, branch.tail, context));
+                } catch (UnsupportedOperationException | FHIRPathException e) {
+                    failures.set(branch.parameterIndex, e.getMessage());
+                }
+            }
+            for (Entry<String, TrieNode> entry : node.children.entrySet()) {
+                extract(evaluator, evaluationContext, entry.getValue(), navigate(context, entry.getKey()), branchResults, failures);
+            }
+        }
+    }
+
+    /**
+     * Navigate from the context to the children with the passed name, the same way the FHIRPath evaluator
+     * evaluates a member invocation
+     */
+    private static Collection<FHIRPathNode> navigate(Collection<FHIRPathNode> context, String identifier) {
+        if (isSingleton(context)) {
+            FHIRPathNode node = getSingleton(context);
+            if (closure(node.type()).contains(identifier)) {
+                return context;
+            }
+        }
+
+        List<FHIRPathNode> result = new ArrayList<>();
+        for (FHIRPathNode node : context) {
+            for (FHIRPathNode child : node.children()) {
+                if (identifier.equals(child.name())) {
+                    result.add(child);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> closure(FHIRPathType type) {
+        Set<String> closure = new HashSet<>();
+        if ("System".equals(type.namespace())) {
+            return closure;
+        }
+        while (!FHIRPathType.FHIR_ANY.equals(type)) {
+            closure.add(type.getName());
+            type = type.baseType();
+        }
+        return closure;
+    }
+
+    private static String identifier(String text) {
+        return text.startsWith("`") ? text.substring(1, text.length() - 1) : text;
+    }
+
+    private static String text(String expression, ExpressionContext ctx) {
+        return expression.substring(ctx.start.getStartIndex(), ctx.stop.getStopIndex() + 1);
+    }
+
+    private static class TrieNode {
+        private final Map<String, TrieNode> children = new LinkedHashMap<>();
+        private final List<Branch> branches = new ArrayList<>();
+
+        private TrieNode child(String identifier) {
+            return children.computeIfAbsent(identifier, k -> new TrieNode());
+        }
+    }
+
+    private static class Branch {
+        private final int parameterIndex;
+        private final int branchIndex;
+        // null if the branch is just the member path
+        private final CompiledExpression tail;
+
+        private Branch(int parameterIndex, int branchIndex, CompiledExpression tail) {
+            this.parameterIndex = parameterIndex;
+            this.branchIndex = branchIndex;
+            this.tail = tail;
+        }
+    }
+}
@@ -59,7 +59,6 @@ import com.ibm.fhir.model.util.ModelSupport;
 import com.ibm.fhir.path.FHIRPathNode;
 import com.ibm.fhir.path.evaluator.FHIRPathEvaluator;
 import com.ibm.fhir.path.evaluator.FHIRPathEvaluator.EvaluationContext;
-import com.ibm.fhir.path.exception.FHIRPathException;
 import com.ibm.fhir.search.SearchConstants;
 import com.ibm.fhir.search.SearchConstants.Modifier;
 import com.ibm.fhir.search.SearchConstants.Prefix;
@@ -93,11 +92,6 @@ public class SearchUtil {
     private static final String CLASSNAME = SearchUtil.class.getName();
     private static final Logger log = Logger.getLogger(CLASSNAME);
 
-    // Logging Strings
-    private static final String EXTRACT_PARAMETERS_LOGGING = "extractParameterValues: [%s] [%s]";
-    private static final String UNSUPPORTED_EXCEPTION =
-            "Search Parameter includes an unsupported operation or bad expression : [%s] [%s] [%s]";
-
     // Exception Strings
     private static final String SEARCH_PARAMETER_NOT_FOUND = "Search parameter '%s' for resource type '%s' was not found.";
     private static final String MODIFIER_NOT_ALLOWED_WITH_CHAINED_EXCEPTION = "Modifier: '%s' not allowed on chained parameter";
@@ -106,8 +100,6 @@ public class SearchUtil {
     private static final String SEARCH_PARAMETER_MODIFIER_NAME =
             "Search parameter: '%s' must have resource type name modifier";
     private static final String INVALID_TARGET_TYPE_EXCEPTION = "Invalid target type for the Inclusion Parameter.";
-    private static final String UNSUPPORTED_EXPR_NULL =
-            "An empty expression is found or the parameter type is unsupported [%s][%s]";
     private static final String MODIFIYERRESOURCETYPE_NOT_ALLOWED_FOR_RESOURCETYPE =
             "Modifier resource type [%s] is not allowed for search parameter [%s] of resource type [%s].";
     private static final String DIFFERENT_MODIFIYERRESOURCETYPES_FOUND_FOR_RESOURCETYPES =
@@ -300,6 +292,9 @@ public class SearchUtil {
     /**
      * extract parameter values.
      *
+     * <p>All search parameter expressions for the resource type are evaluated in a single pass over the resource;
+     * see {@link SearchParameterExtractor}.
+     *
      * @param resource
      * @param skipEmpty
      * @return
@@ -307,62 +302,10 @@ public class SearchUtil {
      */
     public static Map<SearchParameter, List<FHIRPathNode>> extractParameterValues(Resource resource, boolean skipEmpty)
             throws Exception {
-
-        Map<SearchParameter, List<FHIRPathNode>> result = new LinkedHashMap<>();
-
         // Get the Parameters for the class.
-        Class<?> resourceType = resource.getClass();
-
-        // Create one time.
-        FHIRPathEvaluator evaluator = FHIRPathEvaluator.evaluator();
-        EvaluationContext evaluationContext = new EvaluationContext(resource);
-
-        Map<String, SearchParameter> parameters = getSearchParameters(resourceType.getSimpleName());
-
-        for (Entry<String, SearchParameter> parameterEntry : parameters.entrySet()) {
-            String code = parameterEntry.getKey();
-            SearchParameter parameter = parameterEntry.getValue();
-
-            com.ibm.fhir.model.type.String expression = parameter.getExpression();
-
-            // Outputs the Expression and the Name of the SearchParameter
-            if (log.isLoggable(Level.FINEST)) {
-                String loggedValue = "EMPTY";
-                if (expression != null) {
-                    loggedValue = expression.getValue();
-                }
-
-                log.finest(String.format(EXTRACT_PARAMETERS_LOGGING, code, loggedValue));
-            }
+        Map<String, SearchParameter> parameters = getSearchParameters(resource.getClass().getSimpleName());
 
-            // Process the Expression
-            if (expression == null) {
-                if (log.isLoggable(Level.FINER)) {
-                    log.finer(String.format(UNSUPPORTED_EXPR_NULL, parameter.getType(), code));
-                }
-                continue;
-            }
-            try {
-                Collection<FHIRPathNode> tmpResults = evaluator.evaluate(evaluationContext, expression.getValue());
-
-                if (log.isLoggable(Level.FINEST)) {
-                    log.finest("Expression [" + expression.getValue() + "] parameter-code ["
-                            + code + "] Size -[" + tmpResults.size() + "]");
-                }
-
-                // Adds only if !skipEmpty || tmpResults is not empty
-                if (!tmpResults.isEmpty() || !skipEmpty) {
-                    result.put(parameter, new ArrayList<>(tmpResults));
-                }
-
-            } catch (java.lang.UnsupportedOperationException | FHIRPathException uoe) {
-                // switched to using code instead of name
-                log.warning(String.format(UNSUPPORTED_EXCEPTION, code,
-                        expression.getValue(), uoe.getMessage()));
-            }
-        }
-
-        return result;
+        return SearchParameterExtractor.extract(resource, parameters, skipEmpty);
     }
 
     public static FHIRSearchContext parseQueryParameters(Class<?> resourceType,
@@ -1347,6 +1290,12 @@ public class SearchUtil {
             } else if (SearchConstants.PAGE.equals(name)) {
                 int pageNumber = Integer.parseInt(first);
                 context.setPageNumber(pageNumber);
+            } else if (SearchConstants.CURSOR.equals(name) && first != null) {
+                // the cursor is opaque to the search layer; it is interpreted (or ignored) by the persistence layer
+                context.setCursor(first);
+            } else if (SearchConstants.SNAPSHOT.equals(name) && first != null) {
+                // the snapshot id is opaque to the search layer; it is interpreted (or ignored) by the persistence layer
+                context.setSnapshotId(first);
             } else if (SearchConstants.SORT.equals(name) && first != null) {
                 // in R4, we only look for _sort
                 // Only first value is used, which matches behavior of other parameters that are supposed to be specified at most once
@@ -0,0 +1,168 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.search.test;
+
+import static com.ibm.fhir.model.type.String.string;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.resource.Observation;
+import com.ibm.fhir.model.resource.SearchParameter;
+import com.ibm.fhir.model.type.Code;
+import com.ibm.fhir.model.type.CodeableConcept;
+import com.ibm.fhir.model.type.Coding;
+import com.ibm.fhir.model.type.DateTime;
+import com.ibm.fhir.model.type.Decimal;
+import com.ibm.fhir.model.type.Markdown;
+import com.ibm.fhir.model.type.Quantity;
+import com.ibm.fhir.model.type.Reference;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.code.ObservationStatus;
+import com.ibm.fhir.model.type.code.PublicationStatus;
+import com.ibm.fhir.model.type.code.ResourceType;
+import com.ibm.fhir.model.type.code.SearchParamType;
+import com.ibm.fhir.path.FHIRPathElementNode;
+import com.ibm.fhir.path.FHIRPathNode;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator.EvaluationContext;
+import com.ibm.fhir.search.util.SearchParameterExtractor;
+
+/**
+ * Tests that the single pass {@link SearchParameterExtractor} gives the same results as evaluating
+ * each search parameter expression on its own.
+ */
+public class SearchParameterExtractorTest {
+    private static final String[] EXPRESSIONS = {
+        "Observation.code",
+        "Observation.code.coding",
+        "Observation.code.coding.code",
+        "Observation.subject.where(resolve() is Patient)",
+        "Observation.subject",
+        "(Observation.value as Quantity) | (Observation.value as SampledData)",
+        "Observation.value.as(Quantity).value",
+        "(Observation.value as CodeableConcept).text",
+        "Observation.effective",
+        "Observation.code.coding | Observation.component.code.coding",
+        "Observation.code.coding.exists().not()",
+        "Observation.component.value",
+        "Resource.id",
+        "Observation.code.coding.code | Observation.code.coding.code",
+        "Observation.status = 'final'",
+        "Observation.code.coding.where(system = %context.code.coding.system.first())",
+        "Observation.bogus.where("
+    };
+
+    private static Observation observation() {
+        return Observation.builder()
+                .id("o1")
+                .status(ObservationStatus.FINAL)
+                .code(CodeableConcept.builder()
+                    .coding(Coding.builder().system(Uri.of("http://loinc.org")).code(Code.of("29463-7")).build())
+                    .coding(Coding.builder().system(Uri.of("http://loinc.org")).code(Code.of("29463-7")).build())
+                    .build())
+                .subject(Reference.builder().reference(string("Patient/1")).build())
+                .effective(DateTime.of("2021-01-01"))
+                .value(Quantity.builder()
+                    .value(Decimal.of(new BigDecimal("70.5")))
+                    .unit(string("kg"))
+                    .system(Uri.of("http://unitsofmeasure.org"))
+                    .code(Code.of("kg"))
+                    .build())
+                .component(Observation.Component.builder()
+                    .code(CodeableConcept.builder()
+                        .coding(Coding.builder().system(Uri.of("http://loinc.org")).code(Code.of("8480-6")).build())
+                        .build())
+                    .value(Quantity.builder().value(Decimal.of(120)).build())
+                    .build())
+                .build();
+    }
+
+    private static Map<String, SearchParameter> parameters() {
+        Map<String, SearchParameter> parameters = new LinkedHashMap<>();
+        for (int i = 0; i < EXPRESSIONS.length; i++) {
+            String code = "p" + i;
+            parameters.put(code, SearchParameter.builder()
+                .url(Uri.of("http://example.com/SearchParameter/" + code))
+                .name(string(code))
+                .status(PublicationStatus.ACTIVE)
+                .description(Markdown.of(code))
+                .code(Code.of(code))
+                .base(ResourceType.OBSERVATION)
+                .type(SearchParamType.TOKEN)
+                .expression(string(EXPRESSIONS[i]))
+                .build());
+        }
+        return parameters;
+    }
+
+    @Test
+    public void testMatchesIndependentEvaluation() throws Exception {
+        Observation observation = observation();
+        Map<String, SearchParameter> parameters = parameters();
+
+        Map<SearchParameter, List<FHIRPathNode>> actual = SearchParameterExtractor.extract(observation, parameters, false);
+
+        FHIRPathEvaluator evaluator = FHIRPathEvaluator.evaluator();
+        EvaluationContext evaluationContext = new EvaluationContext(observation);
+        Map<SearchParameter, List<FHIRPathNode>> expected = new LinkedHashMap<>();
+        for (SearchParameter parameter : parameters.values()) {
+            try {
+                expected.put(parameter, new ArrayList<>(evaluator.evaluate(evaluationContext, parameter.getExpression().getValue())));
+            } catch (Exception e) {
+                // skipped by the extractor as well
+            }
+        }
+
+        assertEquals(new ArrayList<>(actual.keySet()), new ArrayList<>(expected.keySet()));
+        assertFalse(actual.containsKey(parameters.get("p" + (EXPRESSIONS.length - 1))));
+        for (SearchParameter parameter : expected.keySet()) {
+            String expression = parameter.getExpression().getValue();
+            assertEquals(describe(actual.get(parameter)), describe(expected.get(parameter)), expression);
+        }
+    }
+
+    @Test
+    public void testSkipEmpty() throws Exception {
+        Map<String, SearchParameter> parameters = parameters();
+        Map<SearchParameter, List<FHIRPathNode>> result = SearchParameterExtractor.extract(observation(), parameters, true);
+        // (Observation.value as CodeableConcept).text
+        assertFalse(result.containsKey(parameters.get("p7")));
+        assertTrue(result.containsKey(parameters.get("p0")));
+        for (List<FHIRPathNode> values : result.values()) {
+            assertFalse(values.isEmpty());
+        }
+    }
+
+    @Test
+    public void testSharedNodes() throws Exception {
+        Map<String, SearchParameter> parameters = parameters();
+        Map<SearchParameter, List<FHIRPathNode>> result = SearchParameterExtractor.extract(observation(), parameters, false);
+        // both parameters reach Observation.code through the same trie node
+        FHIRPathElementNode code = result.get(parameters.get("p0")).get(0).asElementNode();
+        FHIRPathElementNode coding = result.get(parameters.get("p1")).get(0).asElementNode();
+        assertSame(coding.getTree().getParent(coding), code);
+    }
+
+    private static List<String> describe(Collection<FHIRPathNode> nodes) {
+        List<String> result = new ArrayList<>();
+        for (FHIRPathNode node : nodes) {
+            result.add(node.getClass().getSimpleName() + ":" + node.path() + ":" + node.name() + ":" + node.getValue());
+        }
+        return result;
+    }
+}
@@ -548,6 +548,16 @@ public interface FHIRResourceHelpers {
      */
     PayloadPersistenceResponse storePayload(Resource resource, String logicalId, int newVersionNumber, String resourcePayloadKey) throws Exception;
 
+    /**
+     * Tell the underlying persistence layer that the given resource will be persisted later
+     * in this request so that it can start any expensive preparation in the background.
+     * @param resource the final resource (with correct Meta fields) which will be persisted
+     * @throws Exception
+     */
+    default void prepareResource(Resource resource) throws Exception {
+        // NOP
+    }
+
     /**
      * Validate a resource. First validate profile assertions for the resource if configured to do so,
      * then validate the resource itself.
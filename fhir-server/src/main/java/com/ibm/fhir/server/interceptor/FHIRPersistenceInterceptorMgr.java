@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016, 2021
+ * (C) Copyright IBM Corp. 2016, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -33,6 +33,8 @@ import com.ibm.fhir.server.spi.operation.FHIROperationContext;
 public class FHIRPersistenceInterceptorMgr {
     private static final Logger log = Logger.getLogger(FHIRPersistenceInterceptorMgr.class.getName());
 
+    private static final String[] READ_INTERCEPTOR_METHODS = { "beforeRead", "afterRead", "beforeVread", "afterVread" };
+
     private static FHIRPersistenceInterceptorMgr instance = new FHIRPersistenceInterceptorMgr();
 
     // Our list of discovered interceptors.
@@ -84,6 +86,27 @@ public class FHIRPersistenceInterceptorMgr {
         interceptors.add(0, interceptor);
     }
 
+    /**
+     * Whether any registered interceptor implements one of the read or vread interceptor methods.
+     * Reads may only bypass the resource model when no interceptor needs to see the resource.
+     * @return true if at least one interceptor overrides beforeRead, afterRead, beforeVread or afterVread
+     */
+    public boolean isInterceptingReads() {
+        for (FHIRPersistenceInterceptor interceptor : interceptors) {
+            for (String methodName : READ_INTERCEPTOR_METHODS) {
+                try {
+                    if (interceptor.getClass().getMethod(methodName, FHIRPersistenceEvent.class).getDeclaringClass() != FHIRPersistenceInterceptor.class) {
+                        return true;
+                    }
+                } catch (NoSuchMethodException e) {
+                    // not possible for an implementation of the interface
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * The following methods will invoke the respective interceptor methods on each registered interceptor.
      */
@@ -10,6 +10,7 @@ import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_CHECK_CONTROL_CHARS
 import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_CHECK_REFERENCE_TYPES;
 import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_DATASOURCES;
 import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_EXTENDED_CODEABLE_CONCEPT_VALIDATION;
+import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_JSON_STREAMING_PARSER;
 import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_KAFKA_CONNECTIONPROPS;
 import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_KAFKA_ENABLED;
 import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_KAFKA_TOPICNAME;
@@ -221,6 +222,9 @@ public class FHIRServletContextListener implements ServletContextListener {
             Boolean checkUnicodeChars = fhirConfig.getBooleanProperty(PROPERTY_CHECK_CONTROL_CHARS, Boolean.TRUE);
             FHIRModelConfig.setCheckForControlChars(checkUnicodeChars);
 
+            Boolean jsonStreamingParser = fhirConfig.getBooleanProperty(PROPERTY_JSON_STREAMING_PARSER, Boolean.FALSE);
+            FHIRModelConfig.setJsonStreamingParser(jsonStreamingParser);
+
             Boolean serverRegistryResourceProviderEnabled = fhirConfig.getBooleanProperty(PROPERTY_SERVER_REGISTRY_RESOURCE_PROVIDER_ENABLED, Boolean.FALSE);
             if (serverRegistryResourceProviderEnabled) {
                 log.info("Registering ServerRegistryResourceProvider...");
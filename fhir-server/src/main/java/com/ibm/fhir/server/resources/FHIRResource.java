@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016, 2021
+ * (C) Copyright IBM Corp. 2016, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -29,10 +29,12 @@ import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.owasp.encoder.Encode;
@@ -42,6 +44,7 @@ import com.ibm.fhir.config.FHIRConfiguration;
 import com.ibm.fhir.config.FHIRRequestContext;
 import com.ibm.fhir.config.PropertyGroup;
 import com.ibm.fhir.core.FHIRConstants;
+import com.ibm.fhir.core.FHIRMediaType;
 import com.ibm.fhir.exception.FHIROperationException;
 import com.ibm.fhir.model.format.Format;
 import com.ibm.fhir.model.generator.FHIRGenerator;
@@ -57,9 +60,11 @@ import com.ibm.fhir.model.type.code.IssueType;
 import com.ibm.fhir.model.util.FHIRUtil;
 import com.ibm.fhir.model.util.ModelSupport;
 import com.ibm.fhir.persistence.FHIRPersistence;
+import com.ibm.fhir.persistence.StoredResourcePayload;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
 import com.ibm.fhir.persistence.helper.FHIRPersistenceHelper;
 import com.ibm.fhir.persistence.helper.PersistenceHelper;
+import com.ibm.fhir.provider.util.FHIRProviderUtil;
 import com.ibm.fhir.server.exception.FHIRRestBundledRequestException;
 import com.ibm.fhir.server.listener.FHIRServletContextListener;
 
@@ -231,6 +236,98 @@ public class FHIRResource {
                 .lastModified(Date.from(resource.getMeta().getLastUpdated().getValue().toInstant()));
     }
 
+    /**
+     * Adds the Etag and Last-Modified headers to the specified response object using the version metadata
+     * of a stored payload.
+     */
+    protected ResponseBuilder addHeaders(ResponseBuilder rb, StoredResourcePayload payload) {
+        return rb.header(HttpHeaders.ETAG, "W/\"" + payload.getVersionId() + "\"")
+                .lastModified(Date.from(payload.getLastUpdated()));
+    }
+
+    /**
+     * Determine whether the stored payload of a resource can be written to the response as-is, without parsing and
+     * re-generating it. This is only the case when the response is unformatted JSON and the request has no query
+     * parameters which could change the content of the response (e.g. _elements, _summary or _pretty).
+     *
+     * @return the media type of the response, or null if the response must be generated from the parsed resource
+     */
+    protected MediaType getRawResourceMediaType() {
+        if (!FHIRConfigHelper.getBooleanProperty(FHIRConfiguration.PROPERTY_RAW_RESOURCE_READ_ENABLED, Boolean.TRUE)) {
+            return null;
+        }
+        if (!uriInfo.getQueryParameters().isEmpty()
+                || FHIRProviderUtil.isPretty(httpServletRequest.getHeader(FHIRConfiguration.DEFAULT_PRETTY_RESPONSE_HEADER_NAME), null)) {
+            return null;
+        }
+
+        String accept = httpServletRequest.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.trim().isEmpty()) {
+            return FHIRMediaType.APPLICATION_FHIR_JSON_TYPE;
+        }
+        if (accept.indexOf(',') != -1) {
+            // leave content negotiation between multiple media types to the framework
+            return null;
+        }
+
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.valueOf(accept.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (mediaType.isWildcardType() || FHIRMediaType.APPLICATION_FHIR_JSON_TYPE.isCompatible(mediaType)) {
+            return FHIRMediaType.APPLICATION_FHIR_JSON_TYPE;
+        }
+        if (MediaType.APPLICATION_JSON_TYPE.isCompatible(mediaType) && !mediaType.isWildcardSubtype()) {
+            return MediaType.APPLICATION_JSON_TYPE;
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the Accept-Encoding header of the request allows a gzip-encoded response
+     */
+    protected boolean isGzipAccepted() {
+        String acceptEncoding = httpServletRequest.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].trim();
+                    if (param.startsWith("q=")) {
+                        try {
+                            return Double.parseDouble(param.substring(2).trim()) > 0;
+                        } catch (NumberFormatException e) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build a 200 OK response which writes the stored payload directly to the response stream.
+     * The payload bytes are passed through still compressed if the client accepts a gzip content encoding.
+     */
+    protected ResponseBuilder buildRawResourceResponse(StoredResourcePayload payload, MediaType mediaType) {
+        boolean gzip = isGzipAccepted();
+        ResponseBuilder rb = Response.ok()
+                .entity((StreamingOutput) out -> payload.transferTo(out, gzip))
+                .type(mediaType)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            rb = rb.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return addHeaders(rb, payload);
+    }
+
     /**
      * Add the etag header using the version obtained from the locationURI
      * @param rb
@@ -375,7 +472,7 @@ public class FHIRResource {
     /**
      * Retrieves the shared persistence helper object from the servlet context.
      */
-    private PersistenceHelper getPersistenceHelper() {
+    protected PersistenceHelper getPersistenceHelper() {
         if (persistenceHelper == null) {
             persistenceHelper =
                     (PersistenceHelper) context.getAttribute(FHIRPersistenceHelper.class.getName());
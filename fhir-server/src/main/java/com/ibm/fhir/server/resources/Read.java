@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016, 2021
+ * (C) Copyright IBM Corp. 2016, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -31,6 +31,7 @@ import javax.ws.rs.core.Response.Status;
 import com.ibm.fhir.core.FHIRMediaType;
 import com.ibm.fhir.exception.FHIROperationException;
 import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.persistence.StoredResourcePayload;
 import com.ibm.fhir.server.spi.operation.FHIRRestOperationResponse;
 import com.ibm.fhir.server.util.FHIRRestHelper;
 import com.ibm.fhir.server.util.RestAuditLogger;
@@ -65,8 +66,6 @@ public class Read extends FHIRResource {
             MultivaluedMap<String, String> queryParameters = uriInfo.getQueryParameters();
             long modifiedSince = parseIfModifiedSince();
 
-            FHIRRestHelper helper = new FHIRRestHelper(getPersistenceImpl());
-            Resource resource = helper.doRead(type, id, true, false, null, queryParameters).getResource();
             int version2Match = -1;
             // Support ETag value with or without " (and W/)
             // e.g:  1, "1", W/1, W/"1" (the first format is used by TouchStone)
@@ -88,20 +87,28 @@ public class Read extends FHIRResource {
                 modifiedTime2Compare = Instant.ofEpochMilli(modifiedSince);
             }
 
-            boolean isModified = true;
-            // check if-not-match first
-            if (version2Match != -1) {
-                if (version2Match == Integer.parseInt(resource.getMeta().getVersionId().getValue())) {
-                    isModified = false;
-                }
-            }
-            // then check if-modified-since
-            if(isModified && modifiedTime2Compare != null) {
-                if (resource.getMeta().getLastUpdated().getValue().toInstant().isBefore(modifiedTime2Compare)) {
-                    isModified = false;
+            FHIRRestHelper helper = new FHIRRestHelper(getPersistenceImpl());
+
+            // Write the stored payload as-is when the response doesn't need the parsed resource
+            MediaType rawMediaType = getRawResourceMediaType();
+            StoredResourcePayload payload = (rawMediaType != null) ? helper.doReadStoredPayload(type, id, null) : null;
+            if (payload != null) {
+                ResponseBuilder response;
+                if (isModified(payload.getVersionId(), payload.getLastUpdated(), version2Match, modifiedTime2Compare)) {
+                    status = Status.OK;
+                    response = buildRawResourceResponse(payload, rawMediaType);
+                } else {
+                    status = Status.NOT_MODIFIED;
+                    response = Response.status(Response.Status.NOT_MODIFIED);
                 }
+                return response.build();
             }
 
+            Resource resource = helper.doRead(type, id, true, false, null, queryParameters).getResource();
+
+            boolean isModified = isModified(Integer.parseInt(resource.getMeta().getVersionId().getValue()),
+                    resource.getMeta().getLastUpdated().getValue().toInstant(), version2Match, modifiedTime2Compare);
+
             ResponseBuilder response;
             if (isModified) {
                 status = Status.OK;
@@ -130,4 +137,16 @@ public class Read extends FHIRResource {
             log.exiting(this.getClass().getName(), "read(String,String)");
         }
     }
+
+    private boolean isModified(int versionId, Instant lastUpdated, int version2Match, Instant modifiedTime2Compare) {
+        // check if-not-match first
+        if (version2Match != -1 && version2Match == versionId) {
+            return false;
+        }
+        // then check if-modified-since
+        if (modifiedTime2Compare != null && lastUpdated.isBefore(modifiedTime2Compare)) {
+            return false;
+        }
+        return true;
+    }
 }
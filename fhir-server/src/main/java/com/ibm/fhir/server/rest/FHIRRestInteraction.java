@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -29,4 +29,16 @@ public interface FHIRRestInteraction {
      * @return
      */
     int getEntryIndex();
+
+    /**
+     * Get a key identifying the resource targeted by this interaction, in the
+     * form "type/id". Interactions with the same target key must be processed
+     * in bundle order. Returns null if the target isn't known, in which case
+     * the interaction can be processed independently of any other.
+     *
+     * @return
+     */
+    default String getTargetKey() {
+        return null;
+    }
 }
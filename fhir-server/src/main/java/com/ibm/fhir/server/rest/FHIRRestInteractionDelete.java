@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -39,4 +39,9 @@ public class FHIRRestInteractionDelete extends FHIRRestInteractionBase {
     public void process(FHIRRestInteractionVisitor visitor) throws Exception {
         visitor.doDelete(getEntryIndex(), getRequestDescription(), getRequestURL(), getAccumulatedTime(), type, id, searchQueryString);
     }
-}
\ No newline at end of file
+
+    @Override
+    public String getTargetKey() {
+        return id != null ? type + "/" + id : null;
+    }
+}
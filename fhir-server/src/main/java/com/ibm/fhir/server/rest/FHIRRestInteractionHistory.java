@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -45,4 +45,9 @@ public class FHIRRestInteractionHistory extends FHIRRestInteractionBase {
         visitor.doHistory(getEntryIndex(), getRequestDescription(), getRequestURL(), getAccumulatedTime(), type, id,
                 queryParameters, requestUri);
     }
-}
\ No newline at end of file
+
+    @Override
+    public String getTargetKey() {
+        return id != null ? type + "/" + id : null;
+    }
+}
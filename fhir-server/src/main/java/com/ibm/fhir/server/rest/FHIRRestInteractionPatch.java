@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -75,4 +75,9 @@ public class FHIRRestInteractionPatch extends FHIRRestInteractionResource {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public String getTargetKey() {
+        return id != null ? type + "/" + id : super.getTargetKey();
+    }
+}
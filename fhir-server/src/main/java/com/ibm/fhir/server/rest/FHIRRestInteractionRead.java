@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -55,4 +55,37 @@ public class FHIRRestInteractionRead extends FHIRRestInteractionBase {
     public void process(FHIRRestInteractionVisitor visitor) throws Exception {
         visitor.doRead(getEntryIndex(), getRequestDescription(), getRequestURL(), getAccumulatedTime(), type, id, throwExcOnNull, includeDeleted, contextResource, queryParameters, checkInteractionAllowed);
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the resource type name
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return the logical id of the resource to read
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return true if the resource should be returned even if it is deleted
+     */
+    public boolean isIncludeDeleted() {
+        return includeDeleted;
+    }
+
+    /**
+     * @return the query parameters of the read, or null if there are none
+     */
+    public MultivaluedMap<String, String> getQueryParameters() {
+        return queryParameters;
+    }
+
+    @Override
+    public String getTargetKey() {
+        return id != null ? type + "/" + id : null;
+    }
+}
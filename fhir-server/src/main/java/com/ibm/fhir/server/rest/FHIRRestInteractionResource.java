@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -108,4 +108,13 @@ public abstract class FHIRRestInteractionResource extends FHIRRestInteractionBas
     public void setOffloadResponse(PayloadPersistenceResponse offloadResponse) {
         this.offloadResponse = offloadResponse;
     }
-}
\ No newline at end of file
+
+    @Override
+    public String getTargetKey() {
+        // The meta phase assigns the id of the new resource, including for create and conditional update
+        if (newResource != null && newResource.getId() != null) {
+            return newResource.getClass().getSimpleName() + "/" + newResource.getId();
+        }
+        return null;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -98,6 +98,7 @@ public class FHIRRestInteractionVisitorReferenceMapping extends FHIRRestInteract
             String resourcePayloadKey = UUID.randomUUID().toString();
             int newVersionNumber = Integer.parseInt(finalResource.getMeta().getVersionId().getValue());
             PayloadPersistenceResponse actualOffloadResponse = storePayload(finalResource, finalResource.getId(), newVersionNumber, resourcePayloadKey);
+            prepareResource(finalResource);
 
             // Pass back the updated resource so it can be used in the next phase if required
             return new FHIRRestOperationResponse(finalResource, finalResource.getId(), actualOffloadResponse);
@@ -125,6 +126,7 @@ public class FHIRRestInteractionVisitorReferenceMapping extends FHIRRestInteract
             String resourcePayloadKey = UUID.randomUUID().toString();
             int newVersionNumber = Integer.parseInt(newResource.getMeta().getVersionId().getValue());
             PayloadPersistenceResponse actualOffloadResponse = storePayload(newResource, newResource.getId(), newVersionNumber, resourcePayloadKey);
+            prepareResource(newResource);
 
             // Pass back the updated resource so it can be used in the next phase
             FHIRRestOperationResponse result = new FHIRRestOperationResponse(newResource, null, actualOffloadResponse);
@@ -154,6 +156,7 @@ public class FHIRRestInteractionVisitorReferenceMapping extends FHIRRestInteract
             String resourcePayloadKey = UUID.randomUUID().toString();
             int newVersionNumber = Integer.parseInt(newResource.getMeta().getVersionId().getValue());
             PayloadPersistenceResponse actualOffloadResponse = storePayload(newResource, newResource.getId(), newVersionNumber, resourcePayloadKey);
+            prepareResource(newResource);
 
             // Pass back the updated resource so it can be used in the next phase
             return new FHIRRestOperationResponse(newResource, null, actualOffloadResponse);
@@ -200,6 +203,20 @@ public class FHIRRestInteractionVisitorReferenceMapping extends FHIRRestInteract
        return helpers.storePayload(resource, logicalId, newVersionNumber, resourcePayloadKey);
     }
 
+    /**
+     * For transaction bundles, every entry is persisted using the same connection in the
+     * persist phase. Let the persistence layer start preparing the final resource now so
+     * that this work overlaps with the persistence of the entries ahead of it. Batch
+     * entries may be persisted by a different persistence instance, so are not prepared.
+     * @param resource
+     * @throws Exception
+     */
+    protected void prepareResource(Resource resource) throws Exception {
+        if (transaction) {
+            helpers.prepareResource(resource);
+        }
+    }
+
     /**
      * Unified exception handling for each of the operation calls
      * @param entryIndex
@@ -12,14 +12,20 @@ import static com.ibm.fhir.model.util.ModelSupport.getResourceType;
 import static javax.servlet.http.HttpServletResponse.SC_ACCEPTED;
 import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
 
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -28,17 +34,27 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
 import org.owasp.encoder.Encode;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.ibm.fhir.cache.CacheKey;
+import com.ibm.fhir.cache.CacheManager;
+import com.ibm.fhir.cache.CacheManager.Configuration;
 import com.ibm.fhir.config.FHIRConfigHelper;
 import com.ibm.fhir.config.FHIRConfiguration;
 import com.ibm.fhir.config.FHIRRequestContext;
@@ -50,6 +66,9 @@ import com.ibm.fhir.core.HTTPReturnPreference;
 import com.ibm.fhir.core.context.FHIRPagingContext;
 import com.ibm.fhir.database.utils.api.LockException;
 import com.ibm.fhir.exception.FHIROperationException;
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.generator.FHIRGenerator;
+import com.ibm.fhir.model.generator.exception.FHIRGeneratorException;
 import com.ibm.fhir.model.patch.FHIRPatch;
 import com.ibm.fhir.model.patch.exception.FHIRPatchException;
 import com.ibm.fhir.model.resource.Bundle;
@@ -96,8 +115,10 @@ import com.ibm.fhir.persistence.MultiResourceResult;
 import com.ibm.fhir.persistence.ResourceChangeLogRecord;
 import com.ibm.fhir.persistence.ResourceChangeLogRecord.ChangeType;
 import com.ibm.fhir.persistence.ResourceEraseRecord;
+import com.ibm.fhir.persistence.ResourceKey;
 import com.ibm.fhir.persistence.ResourceResult;
 import com.ibm.fhir.persistence.SingleResourceResult;
+import com.ibm.fhir.persistence.StoredResourcePayload;
 import com.ibm.fhir.persistence.context.FHIRHistoryContext;
 import com.ibm.fhir.persistence.context.FHIRPersistenceContext;
 import com.ibm.fhir.persistence.context.FHIRPersistenceContextFactory;
@@ -110,10 +131,12 @@ import com.ibm.fhir.persistence.exception.FHIRPersistenceIfNoneMatchException;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceResourceDeletedException;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceResourceNotFoundException;
 import com.ibm.fhir.persistence.helper.FHIRTransactionHelper;
+import com.ibm.fhir.persistence.helper.PersistenceHelper;
 import com.ibm.fhir.persistence.jdbc.exception.FHIRPersistenceDataAccessException;
 import com.ibm.fhir.persistence.payload.PayloadPersistenceResponse;
 import com.ibm.fhir.persistence.util.FHIRPersistenceUtil;
 import com.ibm.fhir.profile.ProfileSupport;
+import com.ibm.fhir.registry.FHIRRegistry;
 import com.ibm.fhir.search.SearchConstants;
 import com.ibm.fhir.search.SummaryValueSet;
 import com.ibm.fhir.search.context.FHIRSearchContext;
@@ -127,6 +150,8 @@ import com.ibm.fhir.search.util.SearchUtil;
 import com.ibm.fhir.server.interceptor.FHIRPersistenceInterceptorMgr;
 import com.ibm.fhir.server.operation.FHIROperationRegistry;
 import com.ibm.fhir.server.rest.FHIRRestInteraction;
+import com.ibm.fhir.server.rest.FHIRRestInteractionRead;
+import com.ibm.fhir.server.rest.FHIRRestInteractionVisitor;
 import com.ibm.fhir.server.rest.FHIRRestInteractionVisitorMeta;
 import com.ibm.fhir.server.rest.FHIRRestInteractionVisitorPersist;
 import com.ibm.fhir.server.rest.FHIRRestInteractionVisitorReferenceMapping;
@@ -164,6 +189,17 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
     // clamp the number of entries in system history to 1000
     private static final int MAX_HISTORY_ENTRIES = 1000;
 
+    // by default, batch bundle entries are processed sequentially
+    private static final int DEFAULT_BATCH_PARALLELISM = 1;
+
+    // the container-provided executor used to process batch bundle entries in parallel
+    private static final String MANAGED_EXECUTOR_JNDI_NAME = "java:comp/DefaultManagedExecutorService";
+
+    // the (per-tenant) results of recently validated resources; entries expire at the same rate as the
+    // resources cached by the ServerRegistryResourceProvider because the registry version doesn't track them
+    private static final String VALIDATION_RESULT_CACHE_NAME = "com.ibm.fhir.server.util.FHIRRestHelper.validationResultCache";
+    private static final Configuration VALIDATION_RESULT_CACHE_CONFIGURATION = Configuration.of(1024, Duration.of(1, ChronoUnit.MINUTES));
+
     public static final DateTimeFormatter PARSER_FORMATTER = new DateTimeFormatterBuilder()
             .appendPattern("EEE")
             .optionalStart()
@@ -177,15 +213,34 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
 
     private FHIRPersistence persistence = null;
 
+    // Used to obtain additional persistence instances when processing batch entries in parallel
+    private PersistenceHelper persistenceHelper = null;
+
     // Used for correlating requests within a bundle.
     private String bundleRequestCorrelationId = null;
 
-    private final FHIRValidator validator = FHIRValidator.validator(FHIRConfigHelper.getBooleanProperty(FHIRConfiguration.PROPERTY_VALIDATION_FAIL_FAST, Boolean.FALSE));
+    // The current version of the resources read by a batch bundle, fetched before its entries are processed
+    private Map<ResourceKey, ResourceResult<? extends Resource>> prefetchedReads = null;
+
+    private final FHIRValidator validator = createValidator();
 
     public FHIRRestHelper(FHIRPersistence persistence) {
         this.persistence = persistence;
     }
 
+    /**
+     * Constructor used when processing bundles. The persistenceHelper is used to obtain
+     * a separate {@link FHIRPersistence} instance for each worker when the entries of
+     * a batch bundle are processed in parallel.
+     *
+     * @param persistence
+     * @param persistenceHelper
+     */
+    public FHIRRestHelper(FHIRPersistence persistence, PersistenceHelper persistenceHelper) {
+        this.persistence = persistence;
+        this.persistenceHelper = persistenceHelper;
+    }
+
     @Override
     public FHIRRestOperationResponse doCreate(String type, Resource resource, String ifNoneExist,
         boolean doValidation) throws Exception {
@@ -1126,7 +1181,19 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
 
             FHIRPersistenceContext persistenceContext =
                     FHIRPersistenceContextFactory.createPersistenceContext(event, includeDeleted, searchContext);
-            result = persistence.read(persistenceContext, resourceType, id);
+            ResourceResult<? extends Resource> prefetched = getPrefetchedRead(resourceType, id, includeDeleted, searchContext);
+            if (prefetched != null) {
+                if (prefetched.isDeleted()) {
+                    throw new FHIRPersistenceResourceDeletedException("Resource '" + type + "/" + id + "' is deleted.");
+                }
+                result = new SingleResourceResult.Builder<Resource>()
+                        .success(true)
+                        .resource(prefetched.getResource())
+                        .interactionStatus(InteractionStatus.READ)
+                        .build();
+            } else {
+                result = persistence.read(persistenceContext, resourceType, id);
+            }
             Resource resource = result.getResource();
             if (resource == null && throwExcOnNull) {
                 throw new FHIRPersistenceResourceNotFoundException("Resource '" + type + "/" + id + "' not found.");
@@ -1222,6 +1289,66 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
         }
     }
 
+    /**
+     * Performs a 'read' or 'vread' operation which returns the stored payload of the resource without parsing it.
+     * This is only possible when no registered interceptor needs to see the resource and the persistence layer
+     * can provide the payload in its stored form; otherwise null is returned and the caller must fall back
+     * to {@link #doRead} or {@link #doVRead}, which also report missing and deleted resources.
+     *
+     * @param type
+     *            the resource type associated with the Resource to be retrieved
+     * @param id
+     *            the id of the Resource to be retrieved
+     * @param versionId
+     *            the version of the Resource to be retrieved or null for the most recent version
+     * @return the stored payload or null
+     * @throws Exception
+     */
+    public StoredResourcePayload doReadStoredPayload(String type, String id, String versionId) throws Exception {
+        log.entering(this.getClass().getName(), "doReadStoredPayload");
+
+        // Validate that interaction is allowed for given resource type
+        validateInteraction(versionId == null ? Interaction.READ : Interaction.VREAD, type);
+
+        if (!ModelSupport.isResourceType(type)) {
+            throw buildUnsupportedResourceTypeException(type);
+        }
+        if (isInterceptingReads()) {
+            log.exiting(this.getClass().getName(), "doReadStoredPayload");
+            return null;
+        }
+
+        // Start a new txn in the persistence layer if one is not already active.
+        FHIRTransactionHelper txn = new FHIRTransactionHelper(getTransaction());
+        txn.begin();
+
+        // Save the current request context.
+        FHIRRequestContext requestContext = FHIRRequestContext.get();
+
+        try {
+            FHIRPersistenceEvent event =
+                    new FHIRPersistenceEvent(null, buildPersistenceEventProperties(type, id, versionId, null));
+            FHIRPersistenceContext persistenceContext = FHIRPersistenceContextFactory.createPersistenceContext(event);
+            StoredResourcePayload payload = persistence.readStoredPayload(persistenceContext, getResourceType(type), id, versionId);
+
+            // Commit our transaction if we started one before.
+            txn.commit();
+            txn = null;
+
+            return payload;
+        } finally {
+            // Restore the original request context.
+            FHIRRequestContext.set(requestContext);
+
+            // If we previously started a transaction and it's still active, we need to rollback due to an error.
+            if (txn != null) {
+                txn.rollback();
+            }
+
+            log.exiting(this.getClass().getName(), "doReadStoredPayload");
+        }
+    }
+
     /**
      * Performs the work of retrieving versions of a Resource.
      *
@@ -1988,13 +2115,22 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
                 }
             }
 
+            // Fetch the resources for the read entries of a batch using as few queries as possible. The
+            // read interceptors are still invoked for each entry when it is processed in phase 3
+            if (!transaction) {
+                prefetchBatchReads(bundleInteractions, responseEntries);
+            }
+
             // Phase 3: Now run all the persistence operations in the correct order, injecting each result into the
             // appropriate position in the responseEntries array. At the end of the loop, each slot will be filled.
-            FHIRRestInteractionVisitorPersist persist = new FHIRRestInteractionVisitorPersist(this, localRefMap, responseEntries, transaction);
-            for (FHIRRestInteraction interaction: bundleInteractions) {
-                // Only process stuff we don't yet have a response for
-                if (responseEntries[interaction.getEntryIndex()] == null) {
-                    interaction.accept(persist);
+            // Each batch entry runs in its own transaction, so independent entries may be processed in parallel
+            if (transaction || !processBatchInteractionsInParallel(bundleInteractions, localRefMap, responseEntries)) {
+                FHIRRestInteractionVisitorPersist persist = new FHIRRestInteractionVisitorPersist(this, localRefMap, responseEntries, transaction);
+                for (FHIRRestInteraction interaction: bundleInteractions) {
+                    // Only process stuff we don't yet have a response for
+                    if (responseEntries[interaction.getEntryIndex()] == null) {
+                        interaction.accept(persist);
+                    }
                 }
             }
         } catch (Exception x) {
@@ -2004,6 +2140,8 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
             }
             throw x;
         } finally {
+            prefetchedReads = null;
+
             // close out the transaction if we need to
             if (txn != null) {
                 txn.end();
@@ -2014,6 +2152,251 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
         return Arrays.asList(responseEntries);
     }
 
+    /**
+     * Read the current version of the resources targeted by the plain read interactions of a batch
+     * bundle using {@link FHIRPersistence#readMany(FHIRPersistenceContext, List)}. Reads of resources
+     * which are also the target of another interaction in the bundle are not prefetched because the
+     * other interaction may change the resource before the read is processed.
+     *
+     * @param bundleInteractions
+     * @param responseEntries
+     * @throws Exception
+     */
+    private void prefetchBatchReads(List<FHIRRestInteraction> bundleInteractions, Entry[] responseEntries) throws Exception {
+        Set<String> otherTargets = new HashSet<>();
+        List<FHIRRestInteractionRead> reads = new ArrayList<>();
+        for (FHIRRestInteraction interaction: bundleInteractions) {
+            if (responseEntries[interaction.getEntryIndex()] != null) {
+                continue;
+            }
+            if (interaction instanceof FHIRRestInteractionRead) {
+                FHIRRestInteractionRead read = (FHIRRestInteractionRead) interaction;
+                if (read.getId() != null && !read.isIncludeDeleted() && read.getQueryParameters() == null
+                        && ModelSupport.isResourceType(read.getType())) {
+                    reads.add(read);
+                }
+            } else if (interaction.getTargetKey() != null) {
+                otherTargets.add(interaction.getTargetKey());
+            }
+        }
+
+        List<ResourceKey> keys = new ArrayList<>(reads.size());
+        for (FHIRRestInteractionRead read: reads) {
+            if (!otherTargets.contains(read.getTargetKey())) {
+                keys.add(new ResourceKey(getResourceType(read.getType()), read.getId()));
+            }
+        }
+        if (keys.size() <= 1) {
+            return;
+        }
+
+        FHIRTransactionHelper txn = new FHIRTransactionHelper(getTransaction());
+        txn.begin();
+        try {
+            List<ResourceResult<? extends Resource>> results = persistence.readMany(FHIRPersistenceContextFactory.createPersistenceContext(null), keys);
+            Map<ResourceKey, ResourceResult<? extends Resource>> prefetched = new HashMap<>();
+            for (int i=0; i<keys.size(); i++) {
+                if (results.get(i) != null) {
+                    prefetched.put(keys.get(i), results.get(i));
+                }
+            }
+            prefetchedReads = Collections.unmodifiableMap(prefetched);
+
+            txn.commit();
+            txn = null;
+        } catch (FHIRPersistenceException x) {
+            // each entry reports its own failure when it is read individually
+            log.log(Level.WARNING, "Unable to prefetch the batch read entries; reading each entry individually", x);
+        } finally {
+            if (txn != null) {
+                txn.rollback();
+            }
+        }
+    }
+
+    /**
+     * Get the result prefetched for a read of the current version of the given resource
+     *
+     * @param resourceType
+     * @param id
+     * @param includeDeleted
+     * @param searchContext
+     * @return the prefetched result, or null if the resource must be read from the persistence layer
+     */
+    private ResourceResult<? extends Resource> getPrefetchedRead(Class<? extends Resource> resourceType, String id, boolean includeDeleted,
+            FHIRSearchContext searchContext) {
+        if (prefetchedReads == null || includeDeleted || searchContext != null) {
+            return null;
+        }
+        return prefetchedReads.get(new ResourceKey(resourceType, id));
+    }
+
+    /**
+     * Run the persistence phase for the interactions of a batch bundle using the container's
+     * managed executor. Interactions are partitioned by their target resource so that entries
+     * which touch the same resource are still processed in bundle order by a single worker.
+     * Each worker uses its own {@link FHIRPersistence} instance (and therefore its own
+     * connection and transactions) and writes its results into distinct slots of responseEntries.
+     *
+     * @param bundleInteractions
+     * @param localRefMap
+     * @param responseEntries
+     * @return false if parallel processing is not configured or not available, in which
+     *         case the caller should process the interactions sequentially
+     * @throws Exception
+     */
+    private boolean processBatchInteractionsInParallel(List<FHIRRestInteraction> bundleInteractions,
+            Map<String, String> localRefMap, Entry[] responseEntries) throws Exception {
+        final int parallelism = FHIRConfigHelper.getIntProperty(FHIRConfiguration.PROPERTY_BATCH_PARALLELISM, DEFAULT_BATCH_PARALLELISM);
+        if (parallelism <= 1 || persistenceHelper == null || bundleInteractions.size() <= 1) {
+            return false;
+        }
+
+        final ExecutorService executor = getManagedExecutor("processing batch entries sequentially");
+        if (executor == null) {
+            return false;
+        }
+
+        List<List<FHIRRestInteraction>> partitions = partitionBatchInteractions(bundleInteractions, responseEntries, parallelism);
+
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("Processing batch bundle entries with parallelism=" + parallelism + ", request-correlation-id=" + bundleRequestCorrelationId);
+        }
+
+        processPartitions(executor, partitions, () -> {
+            // FHIRPersistence implementations aren't thread-safe, so each worker gets its own
+            FHIRRestHelper worker = new FHIRRestHelper(persistenceHelper.getFHIRPersistenceImplementation());
+            worker.bundleRequestCorrelationId = this.bundleRequestCorrelationId;
+            worker.prefetchedReads = this.prefetchedReads;
+            return new FHIRRestInteractionVisitorPersist(worker, localRefMap, responseEntries, false);
+        });
+        return true;
+    }
+
+    /**
+     * Partition the interactions we don't yet have a response for. Interactions with the same
+     * target key are always in the same partition, in bundle order. Those without a known
+     * target are independent, so they are spread across the partitions by entry index.
+     *
+     * @param bundleInteractions
+     * @param responseEntries
+     * @param parallelism
+     * @return the partitions, some of which may be empty
+     */
+    static List<List<FHIRRestInteraction>> partitionBatchInteractions(List<FHIRRestInteraction> bundleInteractions,
+            Entry[] responseEntries, int parallelism) {
+        List<List<FHIRRestInteraction>> partitions = new ArrayList<>(parallelism);
+        for (int i=0; i<parallelism; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (FHIRRestInteraction interaction: bundleInteractions) {
+            if (responseEntries[interaction.getEntryIndex()] == null) {
+                final String targetKey = interaction.getTargetKey();
+                final int partition = targetKey != null ? Math.floorMod(targetKey.hashCode(), parallelism) : interaction.getEntryIndex() % parallelism;
+                partitions.get(partition).add(interaction);
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Process each non-empty partition on the executor, visiting its interactions in order
+     * with a visitor of its own. Each worker runs with its own copy of the {@link FHIRRequestContext}
+     * because interactions may change the context while they are processed.
+     *
+     * @param executor
+     * @param partitions
+     * @param visitorFactory
+     *            called on the current thread to create the visitor for each partition
+     * @throws Exception
+     *            the first failure of any worker, with the failures of the other workers suppressed
+     */
+    static void processPartitions(ExecutorService executor, List<List<FHIRRestInteraction>> partitions,
+            Callable<FHIRRestInteractionVisitor> visitorFactory) throws Exception {
+        List<Future<Void>> futures = new ArrayList<>(partitions.size());
+        for (List<FHIRRestInteraction> partition: partitions) {
+            if (partition.isEmpty()) {
+                continue;
+            }
+
+            FHIRRestInteractionVisitor visitor = visitorFactory.call();
+            futures.add(executor.submit(FHIRRequestContext.propagate(() -> {
+                for (FHIRRestInteraction interaction: partition) {
+                    interaction.accept(visitor);
+                }
+                return null;
+            })));
+        }
+
+        // Wait for every worker before reporting any failure so that no work is left running
+        // after the request completes
+        Exception failure = null;
+        for (Future<Void> future: futures) {
+            try {
+                future.get();
+            } catch (ExecutionException x) {
+                Exception cause = x.getCause() instanceof Exception ? (Exception) x.getCause() : x;
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Look up the container's default managed executor, which propagates the
+     * naming and classloader context required by the persistence layer.
+     *
+     * @param fallback
+     *            describes what happens instead when the executor is not available
+     * @return the executor, or null if one is not available
+     */
+    private static ExecutorService getManagedExecutor(String fallback) {
+        try {
+            InitialContext ctx = new InitialContext();
+            return (ExecutorService) ctx.lookup(MANAGED_EXECUTOR_JNDI_NAME);
+        } catch (NamingException | ClassCastException x) {
+            log.log(Level.WARNING, "Unable to look up '" + MANAGED_EXECUTOR_JNDI_NAME + "'; " + fallback, x);
+            return null;
+        }
+    }
+
+    /**
+     * Create the validator configured for the server. A parallel validator looks up profiles
+     * and value sets from the threads of its executor, so it uses the managed executor and runs
+     * each task with a copy of the {@link FHIRRequestContext} of the calling thread; otherwise
+     * the registry lookups would resolve against the default tenant and datastore.
+     *
+     * @return the validator
+     */
+    private static FHIRValidator createValidator() {
+        final boolean failFast = FHIRConfigHelper.getBooleanProperty(FHIRConfiguration.PROPERTY_VALIDATION_FAIL_FAST, Boolean.FALSE);
+        if (FHIRConfigHelper.getBooleanProperty(FHIRConfiguration.PROPERTY_VALIDATION_PARALLEL, Boolean.FALSE)) {
+            final ExecutorService executor = getManagedExecutor("validating resources sequentially");
+            if (executor != null) {
+                return createParallelValidator(failFast, executor);
+            }
+        }
+        return FHIRValidator.validator(failFast);
+    }
+
+    /**
+     * Create a parallel validator which validates subtrees on the given executor, each with
+     * a copy of the {@link FHIRRequestContext} of the thread which calls the validator.
+     *
+     * @param failFast
+     * @param executor
+     * @return the validator
+     */
+    static FHIRValidator createParallelValidator(boolean failFast, ExecutorService executor) {
+        return FHIRValidator.validator(failFast, executor, FHIRRequestContext::propagate);
+    }
+
     /**
      * common update to the operationContext
      * @param operationContext
@@ -2387,6 +2770,13 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
         return FHIRPersistenceInterceptorMgr.getInstance();
     }
 
+    /**
+     * @return true if a registered interceptor needs to see the resource of a read or vread
+     */
+    boolean isInterceptingReads() {
+        return getInterceptorMgr().isInterceptingReads();
+    }
+
     private Bundle addLinks(FHIRPagingContext context, Bundle responseBundle, String requestUri) throws Exception {
         String selfUri = null;
         SummaryValueSet summaryParameter = null;
@@ -2415,14 +2805,16 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
             // to avoid unnecessarily paging through additional page numbers < 1
             int nextPageNumber = Math.max(context.getPageNumber() + 1, 1);
             if (nextPageNumber <= context.getLastPageNumber()
-                    && (nextPageNumber == 1 || context.getTotalCount() != null || context.getMatchCount() == context.getPageSize())) {
+                    && (nextPageNumber == 1 || (context.getTotalCount() != null && !context.isTotalCountEstimated())
+                            || context.getMatchCount() == context.getPageSize())) {
 
                 // starting with the self URI
                 String nextLinkUrl = selfUri;
 
-                // remove existing _page parameters from the query string
+                // remove existing _page and _cursor parameters from the query string
                 nextLinkUrl = nextLinkUrl.replace("&_page=" + context.getPageNumber(), "").replace("_page="
                         + context.getPageNumber() + "&", "").replace("_page=" + context.getPageNumber(), "");
+                nextLinkUrl = removeCursorParameter(nextLinkUrl);
 
                 if (nextLinkUrl.contains("?")) {
                     if (!nextLinkUrl.endsWith("?")) {
@@ -2436,6 +2828,11 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
                 // add new _page parameter to the query string
                 nextLinkUrl += "_page=" + nextPageNumber;
 
+                // add the cursor which lets the persistence layer seek directly to the next page
+                if (context.getNextCursor() != null) {
+                    nextLinkUrl += "&" + SearchConstants.CURSOR + "=" + context.getNextCursor();
+                }
+
                 // create 'next' link
                 Bundle.Link nextLink =
                         Bundle.Link.builder().relation(string("next")).url(Url.of(nextLinkUrl)).build();
@@ -2448,11 +2845,12 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
                 // starting with the original request URI
                 String prevLinkUrl = requestUri;
 
-                // remove existing _page parameters from the query string
+                // remove existing _page and _cursor parameters from the query string
                 prevLinkUrl =
                         prevLinkUrl.replace("&_page=" + context.getPageNumber(), "").replace("_page="
                                 + context.getPageNumber() + "&", "").replace("_page="
                                         + context.getPageNumber(), "");
+                prevLinkUrl = removeCursorParameter(prevLinkUrl);
 
                 if (prevLinkUrl.contains("?")) {
                     if (!prevLinkUrl.endsWith("?")) {
@@ -2476,6 +2874,18 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
         return bundleBuilder.build();
     }
 
+    /**
+     * Remove the _cursor parameter (if any) from the query string of the passed URI.
+     * A cursor is only valid for the page it was issued for, so it must not be carried over to other links.
+     */
+    private String removeCursorParameter(String uri) {
+        String result = uri.replaceAll("([?&])" + SearchConstants.CURSOR + "=[^&]*&?", "$1");
+        if (result.endsWith("&")) {
+            result = result.substring(0, result.length() - 1);
+        }
+        return result;
+    }
+
     /**
      * Get the original request URI from either the HttpServletRequest or a configured Header (in case of re-writing proxies).
      *
@@ -2927,7 +3337,7 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
         }
 
         try {
-            issues = validator.validate(resourceToValidate);
+            issues = validate(resourceToValidate);
         } catch (FHIRValidationException e) {
             throw new FHIROperationException("Error validating resource.", e);
         }
@@ -2935,6 +3345,71 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
         return issues;
     }
 
+    /**
+     * Validate a resource, reusing the result for an identical resource that was validated recently.
+     *
+     * <p>The result is keyed by a hash of the JSON serialization of the resource (without meta.versionId and
+     * meta.lastUpdated), its id, its asserted profiles and the version of the FHIRRegistry.
+     *
+     * @param resource
+     *     the resource to validate
+     * @return
+     *     an unmodifiable list of issues
+     * @throws FHIRValidationException
+     *     for errors that occur during validation
+     */
+    private List<Issue> validate(Resource resource) throws FHIRValidationException {
+        if (!FHIRConfigHelper.getBooleanProperty(FHIRConfiguration.PROPERTY_VALIDATION_RESULT_CACHE_ENABLED, Boolean.FALSE)) {
+            return validator.validate(resource);
+        }
+
+        CacheKey key = CacheKey.key(getValidationFingerprint(resource), resource.getId(),
+                ProfileSupport.getResourceAssertedProfiles(resource), FHIRRegistry.getInstance().getVersion());
+
+        Cache<CacheKey, List<Issue>> cache = CacheManager.getCache(VALIDATION_RESULT_CACHE_NAME, VALIDATION_RESULT_CACHE_CONFIGURATION);
+        List<Issue> issues = cache.getIfPresent(key);
+        if (issues == null) {
+            // the validator reuses its list of issues
+            issues = Collections.unmodifiableList(new ArrayList<>(validator.validate(resource)));
+            cache.put(key, issues);
+        } else if (log.isLoggable(Level.FINE)) {
+            log.fine("Using the cached validation result for resource: " + resource.getClass().getSimpleName());
+        }
+        CacheManager.reportCacheStats(log, VALIDATION_RESULT_CACHE_NAME);
+        return issues;
+    }
+
+    /**
+     * Compute the SHA-256 hash of the JSON serialization of the resource. The meta.versionId and
+     * meta.lastUpdated elements are excluded because they are injected by the FHIR server.
+     *
+     * @param resource
+     *     the resource
+     * @return
+     *     the base64-encoded hash
+     * @throws FHIRValidationException
+     *     if the resource could not be serialized
+     */
+    private static String getValidationFingerprint(Resource resource) throws FHIRValidationException {
+        Resource resourceToHash = resource;
+        Meta meta = resource.getMeta();
+        if (meta != null && (meta.getVersionId() != null || meta.getLastUpdated() != null)) {
+            boolean hasOtherChildren = meta.getId() != null || !meta.getExtension().isEmpty() || meta.getSource() != null
+                    || !meta.getProfile().isEmpty() || !meta.getSecurity().isEmpty() || !meta.getTag().isEmpty();
+            Meta metaToHash = hasOtherChildren ? meta.toBuilder().versionId(null).lastUpdated((com.ibm.fhir.model.type.Instant) null).build() : null;
+            resourceToHash = resource.toBuilder().meta(metaToHash).build();
+        }
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            FHIRGenerator.generator(Format.JSON).generate(resourceToHash, out);
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(out.toByteArray());
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException | FHIRGeneratorException e) {
+            throw new FHIRValidationException("Error computing the fingerprint of the resource", e);
+        }
+    }
+
     @Override
     public void validateInteraction(Interaction interaction, String resourceType) throws FHIROperationException {
         List<String> interactions = null;
@@ -3328,7 +3803,14 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
     @Override
     public PayloadPersistenceResponse storePayload(Resource resource, String logicalId, int newVersionNumber, String resourcePayloadKey) throws Exception {
 
-        // Delegate to the persistence layer. Result will be null if offloading is not supported
+        // Delegate to the persistence layer. Result will be null if offloading is not supported.
+        // The write runs asynchronously and is joined by the persistence layer once the
+        // corresponding RDBMS record has been written
         return persistence.storePayload(resource, logicalId, newVersionNumber, resourcePayloadKey);
     }
+
+    @Override
+    public void prepareResource(Resource resource) throws Exception {
+        persistence.prepareResource(resource);
+    }
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 package com.ibm.fhir.server.interceptor.test;
 /*
- * (C) Copyright IBM Corp. 2016, 2021
+ * (C) Copyright IBM Corp. 2016, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -145,6 +145,12 @@ public class InterceptorTest {
         assertEquals(2, MyInterceptor.getAfterVreadCount());
     }
 
+    @Test
+    public void testIsInterceptingReads() throws Exception {
+        // MyInterceptor implements the read and vread methods, so the stored payload can't be returned as-is
+        assertTrue(mgr.isInterceptingReads());
+    }
+
     @Test
     public void testBeforeHistory() throws Exception {
         Map<String, Object> properties = new HashMap<String, Object>();
@@ -0,0 +1,181 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.server.resources;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.config.FHIRConfiguration;
+import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.core.FHIRMediaType;
+import com.ibm.fhir.persistence.StoredResourcePayload;
+import com.ibm.fhir.persistence.util.InputOutputByteStream;
+
+/**
+ * Tests the content negotiation and response building of the raw resource read path of {@link FHIRResource}
+ */
+public class RawResourceResponseTest {
+    private static final String JSON = "{\"resourceType\":\"Patient\",\"id\":\"1\"}";
+    private static final Instant LAST_UPDATED = Instant.parse("2022-01-02T03:04:05Z");
+
+    private HttpServletRequest request;
+    private UriInfo uriInfo;
+    private FHIRResource resource;
+
+    @BeforeClass
+    void setup() throws Exception {
+        FHIRConfiguration.setConfigHome("src/test/resources");
+    }
+
+    @AfterMethod
+    void resetRequestContext() throws Exception {
+        FHIRRequestContext.set(new FHIRRequestContext("default"));
+    }
+
+    private FHIRResource resource(String accept, String acceptEncoding) throws Exception {
+        request = mock(HttpServletRequest.class);
+        when(request.getHeader(HttpHeaders.ACCEPT)).thenReturn(accept);
+        when(request.getHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn(acceptEncoding);
+        uriInfo = mock(UriInfo.class);
+        when(uriInfo.getQueryParameters()).thenReturn(new MultivaluedHashMap<>());
+
+        resource = new FHIRResource();
+        resource.httpServletRequest = request;
+        resource.uriInfo = uriInfo;
+        return resource;
+    }
+
+    private static StoredResourcePayload payload() throws Exception {
+        InputOutputByteStream buffer = new InputOutputByteStream(256);
+        try (OutputStream out = new GZIPOutputStream(buffer.outputStream())) {
+            out.write(JSON.getBytes(StandardCharsets.UTF_8));
+        }
+        return new StoredResourcePayload("Patient", "1", 3, LAST_UPDATED, buffer);
+    }
+
+    private static byte[] entity(Response response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testMediaTypeWithoutAccept() throws Exception {
+        assertEquals(resource(null, null).getRawResourceMediaType(), FHIRMediaType.APPLICATION_FHIR_JSON_TYPE);
+        assertEquals(resource(" ", null).getRawResourceMediaType(), FHIRMediaType.APPLICATION_FHIR_JSON_TYPE);
+    }
+
+    @Test
+    public void testMediaTypeJson() throws Exception {
+        assertEquals(resource("*/*", null).getRawResourceMediaType(), FHIRMediaType.APPLICATION_FHIR_JSON_TYPE);
+        assertEquals(resource("application/*", null).getRawResourceMediaType(), FHIRMediaType.APPLICATION_FHIR_JSON_TYPE);
+        assertEquals(resource(FHIRMediaType.APPLICATION_FHIR_JSON, null).getRawResourceMediaType(), FHIRMediaType.APPLICATION_FHIR_JSON_TYPE);
+        assertEquals(resource(MediaType.APPLICATION_JSON, null).getRawResourceMediaType(), MediaType.APPLICATION_JSON_TYPE);
+    }
+
+    @Test
+    public void testMediaTypeNotRaw() throws Exception {
+        // XML must be generated from the parsed resource
+        assertNull(resource(FHIRMediaType.APPLICATION_FHIR_XML, null).getRawResourceMediaType());
+        assertNull(resource(MediaType.APPLICATION_XML, null).getRawResourceMediaType());
+        // multiple media types are negotiated by the framework
+        assertNull(resource(FHIRMediaType.APPLICATION_FHIR_JSON + ", " + FHIRMediaType.APPLICATION_FHIR_XML, null).getRawResourceMediaType());
+        assertNull(resource("not a media type", null).getRawResourceMediaType());
+    }
+
+    @Test
+    public void testMediaTypeWithQueryParameters() throws Exception {
+        // _format, _elements, _summary and _pretty may all change the response
+        for (String parameter : new String[] { "_format", "_elements", "_summary", "_pretty" }) {
+            FHIRResource resource = resource(null, null);
+            MultivaluedHashMap<String, String> queryParameters = new MultivaluedHashMap<>();
+            queryParameters.add(parameter, "json");
+            when(uriInfo.getQueryParameters()).thenReturn(queryParameters);
+            assertNull(resource.getRawResourceMediaType(), parameter);
+        }
+    }
+
+    @Test
+    public void testMediaTypeWithPrettyHeader() throws Exception {
+        FHIRResource resource = resource(null, null);
+        when(request.getHeader(FHIRConfiguration.DEFAULT_PRETTY_RESPONSE_HEADER_NAME)).thenReturn("true");
+        assertNull(resource.getRawResourceMediaType());
+    }
+
+    @Test
+    public void testMediaTypeDisabled() throws Exception {
+        FHIRRequestContext.set(new FHIRRequestContext("rawResourceReadDisabledTest"));
+        assertNull(resource(null, null).getRawResourceMediaType());
+    }
+
+    @Test
+    public void testGzipAccepted() throws Exception {
+        assertTrue(resource(null, "gzip").isGzipAccepted());
+        assertTrue(resource(null, "deflate, GZIP").isGzipAccepted());
+        assertTrue(resource(null, "br;q=1.0, gzip;q=0.5").isGzipAccepted());
+        assertFalse(resource(null, null).isGzipAccepted());
+        assertFalse(resource(null, "deflate, br").isGzipAccepted());
+        assertFalse(resource(null, "gzip;q=0").isGzipAccepted());
+        assertFalse(resource(null, "gzip;q=abc").isGzipAccepted());
+        assertFalse(resource(null, "x-gzip").isGzipAccepted());
+    }
+
+    @Test
+    public void testRawResourceResponse() throws Exception {
+        Response response = resource(null, null).buildRawResourceResponse(payload(), FHIRMediaType.APPLICATION_FHIR_JSON_TYPE).build();
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+        assertEquals(response.getMediaType(), FHIRMediaType.APPLICATION_FHIR_JSON_TYPE);
+        assertEquals(response.getMetadata().getFirst(HttpHeaders.ETAG), "W/\"3\"");
+        assertEquals(response.getLastModified(), Date.from(LAST_UPDATED));
+        assertEquals(response.getMetadata().getFirst(HttpHeaders.VARY), HttpHeaders.ACCEPT_ENCODING);
+        assertNull(response.getMetadata().getFirst(HttpHeaders.CONTENT_ENCODING));
+
+        // the payload is decompressed
+        assertEquals(new String(entity(response), StandardCharsets.UTF_8), JSON);
+    }
+
+    @Test
+    public void testRawResourceResponseGzip() throws Exception {
+        StoredResourcePayload payload = payload();
+        Response response = resource(null, "gzip").buildRawResourceResponse(payload, MediaType.APPLICATION_JSON_TYPE).build();
+        assertEquals(response.getMediaType(), MediaType.APPLICATION_JSON_TYPE);
+        assertEquals(response.getMetadata().getFirst(HttpHeaders.ETAG), "W/\"3\"");
+        assertEquals(response.getMetadata().getFirst(HttpHeaders.CONTENT_ENCODING), "gzip");
+
+        // the payload is passed through as stored
+        byte[] entity = entity(response);
+        assertEquals(entity.length, payload.getCompressedSize());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(entity))) {
+            assertEquals(new String(in.readAllBytes(), StandardCharsets.UTF_8), JSON);
+        }
+    }
+}
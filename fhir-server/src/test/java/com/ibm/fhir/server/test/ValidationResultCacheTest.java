@@ -0,0 +1,113 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.server.test;
+
+import static com.ibm.fhir.model.type.String.string;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import java.util.List;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.cache.CacheManager;
+import com.ibm.fhir.config.FHIRConfiguration;
+import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.exception.FHIRException;
+import com.ibm.fhir.model.resource.OperationOutcome.Issue;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.type.HumanName;
+import com.ibm.fhir.model.type.Id;
+import com.ibm.fhir.model.type.Instant;
+import com.ibm.fhir.model.type.Integer;
+import com.ibm.fhir.model.type.Meta;
+import com.ibm.fhir.registry.FHIRRegistry;
+import com.ibm.fhir.server.util.FHIRRestHelper;
+
+/**
+ * Tests that FHIRRestHelper reuses the validation result of identical resources
+ */
+public class ValidationResultCacheTest {
+    private static final String VALIDATION_RESULT_CACHE_NAME = "com.ibm.fhir.server.util.FHIRRestHelper.validationResultCache";
+
+    FHIRRestHelper helper;
+
+    @BeforeClass
+    void setup() throws FHIRException {
+        FHIRConfiguration.setConfigHome("src/test/resources");
+        FHIRRequestContext.get().setTenantId("validationResultCacheTest");
+        helper = new FHIRRestHelper(new MockPersistenceImpl());
+    }
+
+    @AfterClass
+    void tearDown() throws FHIRException {
+        FHIRConfiguration.setConfigHome("");
+        FHIRRequestContext.get().setTenantId("default");
+    }
+
+    private static Patient patient(String family) {
+        return Patient.builder()
+                .name(HumanName.builder()
+                    .family(string(family))
+                    .build())
+                .build();
+    }
+
+    @Test
+    public void testValidationResultCache() throws Exception {
+        List<Issue> issues = helper.validateResource(patient("Doe"));
+        long hits = CacheManager.getCacheStats(VALIDATION_RESULT_CACHE_NAME).hitCount();
+
+        // an identical resource
+        assertSame(helper.validateResource(patient("Doe")), issues);
+        assertEquals(CacheManager.getCacheStats(VALIDATION_RESULT_CACHE_NAME).hitCount(), hits + 1);
+
+        // meta.versionId and meta.lastUpdated are not part of the fingerprint
+        Patient patient = patient("Doe").toBuilder()
+                .meta(Meta.builder()
+                    .versionId(Id.of("2"))
+                    .lastUpdated(Instant.now())
+                    .build())
+                .build();
+        assertSame(helper.validateResource(patient), issues);
+
+        // a different resource
+        helper.validateResource(patient("Smith"));
+        assertEquals(CacheManager.getCacheStats(VALIDATION_RESULT_CACHE_NAME).hitCount(), hits + 2);
+    }
+
+    @Test
+    public void testRegistryVersion() throws Exception {
+        List<Issue> issues = helper.validateResource(patient("Roe"));
+        assertSame(helper.validateResource(patient("Roe")), issues);
+
+        long version = FHIRRegistry.getInstance().getVersion();
+        FHIRRegistry.getInstance().addProvider(new MockRegistryResourceProvider());
+        assertNotEquals(FHIRRegistry.getInstance().getVersion(), version);
+
+        List<Issue> revalidated = helper.validateResource(patient("Roe"));
+        assertEquals(revalidated, issues);
+        assertNotSame(revalidated, issues);
+    }
+
+    @Test
+    public void testIntegerValues() throws Exception {
+        helper.validateResource(patient("Poe").toBuilder().multipleBirth(Integer.of(5)).build());
+        long misses = CacheManager.getCacheStats(VALIDATION_RESULT_CACHE_NAME).missCount();
+
+        // resources which differ only in an integer value must not share a result
+        helper.validateResource(patient("Poe").toBuilder().multipleBirth(Integer.of(500)).build());
+        assertEquals(CacheManager.getCacheStats(VALIDATION_RESULT_CACHE_NAME).missCount(), misses + 1);
+
+        helper.validateResource(patient("Poe").toBuilder().multipleBirth(Integer.of(500)).build());
+        assertEquals(CacheManager.getCacheStats(VALIDATION_RESULT_CACHE_NAME).missCount(), misses + 1);
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.server.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.core.HTTPReturnPreference;
+import com.ibm.fhir.model.resource.Bundle.Entry;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.server.rest.FHIRRestInteraction;
+import com.ibm.fhir.server.rest.FHIRRestInteractionVisitor;
+
+/**
+ * Tests the parallel processing of batch bundle interactions by FHIRRestHelper
+ */
+public class BatchParallelProcessingTest {
+    private static final int PARALLELISM = 4;
+
+    private ExecutorService executor;
+    private FHIRRequestContext requestContext;
+
+    /**
+     * An interaction which records the order in which it is processed
+     */
+    private static class MockInteraction implements FHIRRestInteraction {
+        private final int entryIndex;
+        private final String targetKey;
+        private final Map<String, List<Integer>> processed;
+        private final Set<FHIRRequestContext> contexts;
+        private final Exception failure;
+
+        private MockInteraction(int entryIndex, String targetKey, Map<String, List<Integer>> processed,
+                Set<FHIRRequestContext> contexts, Exception failure) {
+            this.entryIndex = entryIndex;
+            this.targetKey = targetKey;
+            this.processed = processed;
+            this.contexts = contexts;
+            this.failure = failure;
+        }
+
+        @Override
+        public void accept(FHIRRestInteractionVisitor visitor) throws Exception {
+            FHIRRequestContext context = FHIRRequestContext.get();
+            assertEquals(context.getTenantId(), "batchTenant");
+            synchronized (contexts) {
+                contexts.add(context);
+            }
+            // interactions such as history change the context
+            context.setReturnPreference(HTTPReturnPreference.REPRESENTATION);
+
+            // give the other workers a chance to interleave
+            Thread.sleep(1);
+            processed.computeIfAbsent(String.valueOf(targetKey), k -> Collections.synchronizedList(new ArrayList<>())).add(entryIndex);
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        @Override
+        public int getEntryIndex() {
+            return entryIndex;
+        }
+
+        @Override
+        public String getTargetKey() {
+            return targetKey;
+        }
+    }
+
+    @BeforeClass
+    void setup() throws Exception {
+        executor = Executors.newFixedThreadPool(PARALLELISM);
+        requestContext = new FHIRRequestContext("batchTenant");
+        requestContext.setReturnPreference(HTTPReturnPreference.MINIMAL);
+        FHIRRequestContext.set(requestContext);
+    }
+
+    @AfterClass
+    void tearDown() throws Exception {
+        executor.shutdown();
+        FHIRRequestContext.set(new FHIRRequestContext("default"));
+    }
+
+    private static String targetKey(int entryIndex) {
+        // every third entry has no known target
+        return entryIndex % 3 == 0 ? null : "Patient/" + (entryIndex % 5);
+    }
+
+    private static List<FHIRRestInteraction> interactions(int count, Map<String, List<Integer>> processed,
+            Set<FHIRRequestContext> contexts, Exception... failures) {
+        List<FHIRRestInteraction> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Exception failure = i < failures.length ? failures[i] : null;
+            result.add(new MockInteraction(i, targetKey(i), processed, contexts, failure));
+        }
+        return result;
+    }
+
+    @Test
+    public void testPartitioning() {
+        List<FHIRRestInteraction> interactions = interactions(40, new ConcurrentHashMap<>(), Collections.emptySet());
+        Entry[] responseEntries = new Entry[interactions.size()];
+        responseEntries[7] = Entry.builder().fullUrl(Uri.of("Patient/2")).build();
+
+        List<List<FHIRRestInteraction>> partitions =
+                FHIRRestHelper.partitionBatchInteractions(interactions, responseEntries, PARALLELISM);
+        assertEquals(partitions.size(), PARALLELISM);
+
+        Map<String, Integer> partitionByTarget = new ConcurrentHashMap<>();
+        int total = 0;
+        for (int p = 0; p < partitions.size(); p++) {
+            int previous = -1;
+            for (FHIRRestInteraction interaction : partitions.get(p)) {
+                // bundle order within each partition
+                assertTrue(interaction.getEntryIndex() > previous);
+                previous = interaction.getEntryIndex();
+
+                String targetKey = interaction.getTargetKey();
+                if (targetKey == null) {
+                    assertEquals(interaction.getEntryIndex() % PARALLELISM, p);
+                } else {
+                    // all interactions with the same target are in the same partition
+                    assertEquals(partitionByTarget.computeIfAbsent(targetKey, k -> partition(partitions, k)), Integer.valueOf(p));
+                }
+                total++;
+            }
+        }
+
+        // the interaction which already has a response is not processed again
+        assertEquals(total, interactions.size() - 1);
+        for (List<FHIRRestInteraction> partition : partitions) {
+            for (FHIRRestInteraction interaction : partition) {
+                assertTrue(interaction.getEntryIndex() != 7);
+            }
+        }
+    }
+
+    private static int partition(List<List<FHIRRestInteraction>> partitions, String targetKey) {
+        for (int p = 0; p < partitions.size(); p++) {
+            for (FHIRRestInteraction interaction : partitions.get(p)) {
+                if (targetKey.equals(interaction.getTargetKey())) {
+                    return p;
+                }
+            }
+        }
+        throw new AssertionError(targetKey);
+    }
+
+    @Test
+    public void testOrderWithinTarget() throws Exception {
+        Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+        Set<FHIRRequestContext> contexts = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<FHIRRestInteraction> interactions = interactions(60, processed, contexts);
+        List<List<FHIRRestInteraction>> partitions =
+                FHIRRestHelper.partitionBatchInteractions(interactions, new Entry[interactions.size()], PARALLELISM);
+
+        FHIRRestHelper.processPartitions(executor, partitions, () -> null);
+
+        // every interaction was processed, and those with the same target in bundle order
+        int total = 0;
+        for (Map.Entry<String, List<Integer>> entry : processed.entrySet()) {
+            List<Integer> entryIndexes = entry.getValue();
+            if (!"null".equals(entry.getKey())) {
+                List<Integer> sorted = new ArrayList<>(entryIndexes);
+                Collections.sort(sorted);
+                assertEquals(entryIndexes, sorted);
+            }
+            total += entryIndexes.size();
+        }
+        assertEquals(total, interactions.size());
+
+        // each worker had its own copy of the request context
+        assertEquals(contexts.size(), PARALLELISM);
+        for (FHIRRequestContext context : contexts) {
+            assertNotSame(context, requestContext);
+        }
+        assertSame(FHIRRequestContext.get(), requestContext);
+        assertEquals(requestContext.getReturnPreference(), HTTPReturnPreference.MINIMAL);
+    }
+
+    @Test
+    public void testFailures() throws Exception {
+        Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+        Exception failure0 = new Exception("failure0");
+        Exception failure1 = new Exception("failure1");
+        List<FHIRRestInteraction> interactions = interactions(12, processed, Collections.synchronizedSet(new HashSet<>()),
+            failure0, failure1);
+        List<List<FHIRRestInteraction>> partitions = Arrays.asList(
+                Arrays.asList(interactions.get(0), interactions.get(2)),
+                Arrays.asList(interactions.get(1), interactions.get(3)),
+                interactions.subList(4, 12));
+
+        try {
+            FHIRRestHelper.processPartitions(executor, partitions, () -> null);
+            fail();
+        } catch (Exception e) {
+            // the first failure is reported, with the others suppressed
+            assertSame(e, failure0);
+            assertEquals(e.getSuppressed().length, 1);
+            assertSame(e.getSuppressed()[0], failure1);
+        }
+
+        // a failed worker stops at the failed interaction, but the other workers complete
+        int total = 0;
+        for (List<Integer> entryIndexes : processed.values()) {
+            total += entryIndexes.size();
+        }
+        assertEquals(total, 2 + 8);
+    }
+}
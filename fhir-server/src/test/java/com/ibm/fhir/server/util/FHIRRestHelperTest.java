@@ -15,6 +15,7 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.ws.rs.core.Response;
@@ -2120,6 +2121,62 @@ public class FHIRRestHelperTest {
         assertEquals(response.getStatus().getValue(), "400");
     }
 
+    /**
+     * Test that the read entries of a batch bundle are fetched with a single readMany
+     * call, and that the read interceptors are still invoked for each entry
+     */
+    @Test
+    public void testBatchBundleReadMany() throws Exception {
+        List<String> afterReads = new ArrayList<>();
+        FHIRPersistenceInterceptorMgr.getInstance().addInterceptor(new FHIRPersistenceInterceptor() {
+            @Override
+            public void afterRead(FHIRPersistenceEvent event) throws FHIRPersistenceInterceptorException {
+                if (event.getFhirResource() != null) {
+                    afterReads.add(event.getFhirResource().getId());
+                }
+            }
+        });
+
+        Patient patient1 = Patient.builder().id("1").build();
+        Patient patient2 = Patient.builder().id("2").build();
+
+        FHIRPersistence persistence = Mockito.mock(FHIRPersistence.class);
+        when(persistence.getTransaction()).thenReturn(new MockTransactionAdapter());
+        when(persistence.readMany(any(), any())).thenReturn(Arrays.asList(ResourceResult.from(patient1), ResourceResult.from(patient2)));
+        FHIRRestHelper helper = new FHIRRestHelper(persistence);
+
+        Bundle requestBundle = Bundle.builder()
+                .id("bundle1")
+                .type(BundleType.BATCH)
+                .entry(Bundle.Entry.builder()
+                    .request(Bundle.Entry.Request.builder()
+                        .method(HTTPVerb.GET)
+                        .url(Uri.of("Patient/1"))
+                        .build())
+                    .build(),
+                    Bundle.Entry.builder()
+                    .request(Bundle.Entry.Request.builder()
+                        .method(HTTPVerb.GET)
+                        .url(Uri.of("Patient/2"))
+                        .build())
+                    .build())
+                .build();
+
+        // Process bundle
+        FHIRRequestContext.get().setOriginalRequestUri("test");
+        FHIRRequestContext.get().setReturnPreference(HTTPReturnPreference.OPERATION_OUTCOME);
+        Bundle responseBundle = helper.doBundle(requestBundle, false);
+
+        // Validate results
+        Mockito.verify(persistence, Mockito.times(1)).readMany(any(), any());
+        Mockito.verify(persistence, Mockito.never()).read(any(), any(), any());
+        assertEquals(responseBundle.getEntry().size(), 2);
+        assertEquals(responseBundle.getEntry().get(0).getResponse().getStatus().getValue(), "200");
+        assertEquals(responseBundle.getEntry().get(0).getResource().getId(), "1");
+        assertEquals(responseBundle.getEntry().get(1).getResource().getId(), "2");
+        assertEquals(afterReads, Arrays.asList("1", "2"));
+    }
+
     /**
      * Test transaction bundle post with multiple local reference dependencies. The
      * local references, as well as the fullUrls, are a mix of absolute and relative URLs.
@@ -0,0 +1,173 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.server.util;
+
+import static com.ibm.fhir.model.type.String.string;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.OperationOutcome.Issue;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.Canonical;
+import com.ibm.fhir.model.type.HumanName;
+import com.ibm.fhir.model.type.Meta;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.code.BundleType;
+import com.ibm.fhir.registry.FHIRRegistry;
+import com.ibm.fhir.registry.resource.FHIRRegistryResource;
+import com.ibm.fhir.registry.spi.FHIRRegistryResourceProvider;
+import com.ibm.fhir.validation.FHIRValidator;
+
+/**
+ * Tests that the parallel validator created by FHIRRestHelper looks up profiles with the tenant of the request
+ */
+public class ParallelValidationTenantTest {
+    private static final String PROFILE_URL = "http://ibm.com/fhir/test/parallel-validation-tenant-profile";
+    private static final int ENTRY_COUNT = 200;
+
+    private final List<String> lookupTenants = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> lookupThreads = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * A provider which records the tenant and thread of each lookup of the test profile
+     */
+    private class TenantRecordingProvider implements FHIRRegistryResourceProvider {
+        @Override
+        public FHIRRegistryResource getRegistryResource(Class<? extends Resource> resourceType, String url, String version) {
+            if (PROFILE_URL.equals(url)) {
+                lookupTenants.add(FHIRRequestContext.get().getTenantId());
+                lookupThreads.add(Thread.currentThread().getName());
+            }
+            return null;
+        }
+
+        @Override
+        public Collection<FHIRRegistryResource> getRegistryResources(Class<? extends Resource> resourceType) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<FHIRRegistryResource> getRegistryResources() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<FHIRRegistryResource> getProfileResources(String type) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<FHIRRegistryResource> getSearchParameterResources(String type) {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * An executor which runs each task to completion on a new thread, so no task is left for the calling thread
+     */
+    private static class NewThreadExecutor extends AbstractExecutorService {
+        @Override
+        public void execute(Runnable command) {
+            Thread thread = new Thread(command, "validation-worker");
+            thread.start();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    @BeforeClass
+    void setup() throws Exception {
+        FHIRRegistry.getInstance().addProvider(new TenantRecordingProvider());
+        FHIRRequestContext.set(new FHIRRequestContext("parallelValidationTenant", "parallelValidationDatastore"));
+    }
+
+    @AfterClass
+    void tearDown() throws Exception {
+        FHIRRequestContext.set(new FHIRRequestContext("default"));
+    }
+
+    private static Bundle bundle() {
+        Bundle.Builder builder = Bundle.builder().type(BundleType.COLLECTION);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            builder.entry(Bundle.Entry.builder()
+                .fullUrl(Uri.of("urn:uuid:00000000-0000-0000-0000-" + String.format("%012d", i)))
+                .resource(Patient.builder()
+                    .id("p" + i)
+                    .meta(Meta.builder()
+                        .profile(Canonical.of(PROFILE_URL))
+                        .build())
+                    .name(HumanName.builder()
+                        .family(string("Doe" + i))
+                        .build())
+                    .build())
+                .build());
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testParallelValidationWithNonDefaultTenant() throws Exception {
+        ExecutorService executor = new NewThreadExecutor();
+        FHIRValidator validator = FHIRRestHelper.createParallelValidator(false, executor);
+        assertTrue(validator.isParallel());
+
+        List<Issue> issues = validator.validate(bundle());
+        List<Issue> expected = FHIRValidator.validator().validate(bundle());
+        assertEquals(issues, expected);
+
+        // the profile of every entry was looked up on a worker thread, with the tenant of the caller
+        assertFalse(lookupTenants.isEmpty());
+        for (String tenantId : lookupTenants) {
+            assertEquals(tenantId, "parallelValidationTenant");
+        }
+        assertTrue(lookupThreads.contains("validation-worker"));
+        assertEquals(FHIRRequestContext.get().getTenantId(), "parallelValidationTenant");
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.server.util;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Instant;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.config.FHIRConfiguration;
+import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.exception.FHIROperationException;
+import com.ibm.fhir.model.resource.Observation;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.persistence.FHIRPersistence;
+import com.ibm.fhir.persistence.StoredResourcePayload;
+import com.ibm.fhir.persistence.context.FHIRPersistenceEvent;
+import com.ibm.fhir.persistence.util.InputOutputByteStream;
+import com.ibm.fhir.server.interceptor.FHIRPersistenceInterceptorMgr;
+import com.ibm.fhir.server.spi.interceptor.FHIRPersistenceInterceptor;
+import com.ibm.fhir.server.test.MockTransactionAdapter;
+
+/**
+ * Tests FHIRRestHelper.doReadStoredPayload, which serves read and vread from the stored payload of a resource
+ */
+public class ReadStoredPayloadTest {
+    private final StoredResourcePayload payload =
+            new StoredResourcePayload("Patient", "1", 2, Instant.now(), new InputOutputByteStream(16));
+    private final StoredResourcePayload payloadVersion1 =
+            new StoredResourcePayload("Patient", "1", 1, Instant.now(), new InputOutputByteStream(16));
+
+    private FHIRPersistence persistence;
+
+    @BeforeClass
+    void setup() throws Exception {
+        FHIRConfiguration.setConfigHome("src/test/resources");
+        FHIRRequestContext.set(new FHIRRequestContext("default"));
+
+        persistence = mock(FHIRPersistence.class);
+        when(persistence.getTransaction()).thenReturn(new MockTransactionAdapter());
+        when(persistence.readStoredPayload(any(), eq(Patient.class), eq("1"), isNull())).thenReturn(payload);
+        when(persistence.readStoredPayload(any(), eq(Patient.class), eq("1"), eq("1"))).thenReturn(payloadVersion1);
+    }
+
+    /**
+     * @return a helper which behaves as if no interceptor needs to see the resources that are read
+     */
+    private FHIRRestHelper helper(FHIRPersistence persistence, boolean interceptingReads) {
+        return new FHIRRestHelper(persistence) {
+            @Override
+            boolean isInterceptingReads() {
+                return interceptingReads;
+            }
+        };
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        assertSame(helper(persistence, false).doReadStoredPayload("Patient", "1", null), payload);
+    }
+
+    @Test
+    public void testVRead() throws Exception {
+        assertSame(helper(persistence, false).doReadStoredPayload("Patient", "1", "1"), payloadVersion1);
+    }
+
+    @Test
+    public void testMissingOrDeleted() throws Exception {
+        // the persistence layer returns null for missing and deleted resources, so that read and vread report them
+        assertNull(helper(persistence, false).doReadStoredPayload("Patient", "2", null));
+        assertNull(helper(persistence, false).doReadStoredPayload("Patient", "1", "3"));
+    }
+
+    @Test
+    public void testWrongType() throws Exception {
+        assertNull(helper(persistence, false).doReadStoredPayload("Observation", "1", null));
+        verify(persistence).readStoredPayload(any(), eq(Observation.class), eq("1"), isNull());
+    }
+
+    @Test(expectedExceptions = FHIROperationException.class)
+    public void testUnsupportedType() throws Exception {
+        helper(persistence, false).doReadStoredPayload("NotAResourceType", "1", null);
+    }
+
+    @Test
+    public void testInterceptedReads() throws Exception {
+        FHIRPersistence persistence = mock(FHIRPersistence.class);
+        assertNull(helper(persistence, true).doReadStoredPayload("Patient", "1", null));
+        assertNull(helper(persistence, true).doReadStoredPayload("Patient", "1", "1"));
+        verify(persistence, never()).readStoredPayload(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testRegisteredReadInterceptor() throws Exception {
+        FHIRPersistenceInterceptorMgr.getInstance().addInterceptor(new FHIRPersistenceInterceptor() {
+            @Override
+            public void afterRead(FHIRPersistenceEvent event) {
+                // the interceptor needs to see the resource, so the stored payload can't be returned as-is
+            }
+        });
+        FHIRPersistence persistence = mock(FHIRPersistence.class);
+        FHIRRestHelper helper = new FHIRRestHelper(persistence);
+        assertTrue(helper.isInterceptingReads());
+        assertNull(helper.doReadStoredPayload("Patient", "1", null));
+        verify(persistence, never()).readStoredPayload(any(), any(), any(), any());
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019, 2021
+ * (C) Copyright IBM Corp. 2019, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -32,7 +32,13 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -46,7 +52,6 @@ import com.ibm.fhir.model.type.CodeableConcept;
 import com.ibm.fhir.model.type.Extension;
 import com.ibm.fhir.model.type.code.IssueSeverity;
 import com.ibm.fhir.model.type.code.IssueType;
-import com.ibm.fhir.model.util.ModelSupport;
 import com.ibm.fhir.model.visitor.Visitable;
 import com.ibm.fhir.path.FHIRPathElementNode;
 import com.ibm.fhir.path.FHIRPathNode;
@@ -58,6 +63,7 @@ import com.ibm.fhir.path.util.DiagnosticsEvaluationListener;
 import com.ibm.fhir.path.visitor.FHIRPathDefaultNodeVisitor;
 import com.ibm.fhir.profile.ProfileSupport;
 import com.ibm.fhir.registry.FHIRRegistry;
+import com.ibm.fhir.validation.ValidationPlan.Step;
 import com.ibm.fhir.validation.exception.FHIRValidationException;
 
 import net.jcip.annotations.NotThreadSafe;
@@ -74,16 +80,51 @@ public class FHIRValidator {
 
     private static final Logger log = Logger.getLogger(FHIRValidator.class.getName());
 
+    /**
+     * The minimum number of children a node must have for the validation of its subtrees to be split
+     * across threads when the validator is parallel
+     */
+    private static final int PARALLEL_THRESHOLD = 64;
+
     private final ValidatingNodeVisitor visitor;
     private final boolean failFast;
+    private final boolean parallel;
+
+    /**
+     * Wraps each task that a parallel validator hands to its executor
+     *
+     * <p>Use this to run the tasks with state of the calling thread (e.g. the request context) that the
+     * registry resource providers consulted during validation depend on.
+     */
+    @FunctionalInterface
+    public interface TaskWrapper {
+        /**
+         * Wrap the given task
+         *
+         * @param <T>
+         *     the result type of the task
+         * @param task
+         *     the task
+         * @return
+         *     the wrapped task
+         */
+        <T> Callable<T> wrap(Callable<T> task);
+    }
 
     private FHIRValidator() {
-        this(false);
+        this(false, false, null, null);
     }
 
-    private FHIRValidator(boolean failFast) {
-        visitor = new ValidatingNodeVisitor(failFast);
+    private FHIRValidator(boolean failFast, boolean parallel, Executor executor, TaskWrapper taskWrapper) {
+        visitor = new ValidatingNodeVisitor(failFast, parallel && !failFast,
+            (executor != null) ? executor : ForkJoinPool.commonPool(),
+            (taskWrapper != null) ? taskWrapper : FHIRValidator::unwrapped);
         this.failFast = failFast;
+        this.parallel = parallel;
+    }
+
+    private static <T> Callable<T> unwrapped(Callable<T> task) {
+        return task;
     }
 
     /**
@@ -98,6 +139,22 @@ public class FHIRValidator {
         return failFast;
     }
 
+    /**
+     * Indicates whether this validator is parallel
+     *
+     * <p>A parallel validator splits the validation of nodes with many children (e.g. Bundle entries or
+     * Questionnaire items) into subtrees which are validated concurrently using its executor (by default, the common
+     * {@link ForkJoinPool}). Subtrees that no thread of the executor has started yet are validated by the calling thread.
+     * The issues of each subtree are merged in document order, so the result is the same as for a sequential
+     * validator. Fail-fast validation is never split.
+     *
+     * @return
+     *     true if this validator is parallel, false otherwise
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
     /**
      * Validate a {@link Resource} against constraints in the base specification and
      * resource-asserted profile references or specific profile references but not both.
@@ -225,7 +282,44 @@ public class FHIRValidator {
     }
 
     public static FHIRValidator validator(boolean failFast) {
-        return new FHIRValidator(failFast);
+        return new FHIRValidator(failFast, false, null, null);
+    }
+
+    /**
+     * Static factory method for creating validators which may validate large resources in parallel
+     *
+     * @param failFast
+     *     whether the validator should terminate on the first issue with a severity of ERROR
+     * @param parallel
+     *     whether the validator should validate the subtrees of nodes with many children concurrently
+     * @return
+     *     a new FHIRValidator instance
+     * @see #isParallel()
+     */
+    public static FHIRValidator validator(boolean failFast, boolean parallel) {
+        return new FHIRValidator(failFast, parallel, null, null);
+    }
+
+    /**
+     * Static factory method for creating parallel validators which validate subtrees using the given executor
+     *
+     * <p>Registry resource providers may be consulted from the threads of the executor (e.g. to look up profiles),
+     * so the task wrapper should carry over whatever state of the calling thread those providers depend on.
+     *
+     * @param failFast
+     *     whether the validator should terminate on the first issue with a severity of ERROR
+     * @param executor
+     *     the executor used to validate subtrees
+     * @param taskWrapper
+     *     wraps each task before it is handed to the executor
+     * @return
+     *     a new FHIRValidator instance
+     * @see #isParallel()
+     */
+    public static FHIRValidator validator(boolean failFast, Executor executor, TaskWrapper taskWrapper) {
+        Objects.requireNonNull(executor);
+        Objects.requireNonNull(taskWrapper);
+        return new FHIRValidator(failFast, true, executor, taskWrapper);
     }
 
     private static Issue issue(IssueSeverity severity, IssueType code, String description, FHIRPathNode node) {
@@ -248,6 +342,9 @@ public class FHIRValidator {
         private static final Map<Class<?>, IsValidFunction> IS_VALID_FUNCTION_MAP = new ConcurrentHashMap<>();
 
         private final boolean failFast;
+        private final boolean parallel;
+        private final Executor executor;
+        private final TaskWrapper taskWrapper;
 
         private FHIRPathEvaluator evaluator = FHIRPathEvaluator.evaluator();
         private EvaluationContext evaluationContext;
@@ -257,8 +354,11 @@ public class FHIRValidator {
         private DiagnosticsEvaluationListener diagnosticsEvaluationListener = new DiagnosticsEvaluationListener();
         private boolean aborted = false;
 
-        private ValidatingNodeVisitor(boolean failFast) {
+        private ValidatingNodeVisitor(boolean failFast, boolean parallel, Executor executor, TaskWrapper taskWrapper) {
             this.failFast = failFast;
+            this.parallel = parallel;
+            this.executor = executor;
+            this.taskWrapper = taskWrapper;
         }
 
         private List<Issue> validate(EvaluationContext evaluationContext, boolean includeResourceAssertedProfiles, List<String> profiles) {
@@ -279,14 +379,89 @@ public class FHIRValidator {
 
         @Override
         protected void visitChildren(FHIRPathNode node) {
-            for (FHIRPathNode child : node.children()) {
+            Collection<FHIRPathNode> children = node.children();
+            if (parallel && children.size() >= PARALLEL_THRESHOLD) {
+                visitChildrenInParallel(new ArrayList<>(children));
+                return;
+            }
+            for (FHIRPathNode child : children) {
                 if (aborted) {
                     break;
                 }
+                visitChild(child);
+            }
+        }
+
+        private void visitChild(FHIRPathNode child) {
+            if (child.isElementNode() && !ValidationPlan.requiresVisit(child)) {
+                visitExtensions(child);
+            } else {
                 child.accept(this);
             }
         }
 
+        private void visitChildrenInParallel(List<FHIRPathNode> children) {
+            if (aborted) {
+                return;
+            }
+            int chunkSize = PARALLEL_THRESHOLD / 2;
+            List<FutureTask<List<Issue>>> tasks = new ArrayList<>();
+            for (int from = 0; from < children.size(); from += chunkSize) {
+                int to = Math.min(from + chunkSize, children.size());
+                FutureTask<List<Issue>> task = new FutureTask<>(taskWrapper.wrap(new SubtreeValidationTask(this, children, from, to)));
+                tasks.add(task);
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    // the task is run by this thread below
+                }
+            }
+            // run the tasks that haven't been started yet on this thread, so a busy or bounded executor
+            // (or nested parallel validation) can't stall the validation
+            for (FutureTask<List<Issue>> task : tasks) {
+                task.run();
+            }
+            // merge in document order
+            for (FutureTask<List<Issue>> task : tasks) {
+                issues.addAll(getSubtreeIssues(task));
+            }
+            aborted = failFast && hasErrors(issues);
+        }
+
+        private List<Issue> getSubtreeIssues(FutureTask<List<Issue>> task) {
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while validating subtrees in parallel", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+
+        /**
+         * Visit only the extensions below a node which has nothing else to validate
+         */
+        private void visitExtensions(FHIRPathNode node) {
+            for (FHIRPathNode child : node.children()) {
+                if (aborted) {
+                    break;
+                }
+                if (child.isElementNode() && child.asElementNode().element().is(Extension.class)) {
+                    child.accept(this);
+                } else {
+                    visitExtensions(child);
+                }
+            }
+        }
+
         @Override
         public void doVisit(FHIRPathElementNode node) {
             validate(node);
@@ -299,18 +474,19 @@ public class FHIRValidator {
 
         private void validate(FHIRPathElementNode elementNode) {
             Class<?> elementType = elementNode.element().getClass();
-            List<Constraint> constraints = new ArrayList<>(ModelSupport.getConstraints(elementType));
+            List<Step> steps = ValidationPlan.getElementSteps(elementType);
             if (Extension.class.equals(elementType)) {
                 String url = elementNode.element().as(Extension.class).getUrl();
                 if (isAbsolute(url)) {
                     if (FHIRRegistry.getInstance().hasResource(url, StructureDefinition.class)) {
-                        constraints.add(Constraint.Factory.createConstraint("generated-ext-1", Constraint.LEVEL_RULE, Constraint.LOCATION_BASE, "Extension must conform to definition '" + url + "'", "conformsTo('" + url + "')", SOURCE_VALIDATOR, false, true));
+                        steps = new ArrayList<>(steps);
+                        steps.add(ValidationPlan.createStep(Constraint.Factory.createConstraint("generated-ext-1", Constraint.LEVEL_RULE, Constraint.LOCATION_BASE, "Extension must conform to definition '" + url + "'", "conformsTo('" + url + "')", SOURCE_VALIDATOR, false, true)));
                     } else {
                         issues.add(issue(IssueSeverity.WARNING, IssueType.NOT_SUPPORTED, "Extension definition '" + url + "' is not supported", elementNode));
                     }
                 }
             }
-            validate(elementNode, constraints);
+            validate(elementNode, steps);
         }
 
         private boolean isAbsolute(String url) {
@@ -324,17 +500,24 @@ public class FHIRValidator {
 
         private void validate(FHIRPathResourceNode resourceNode) {
             Class<?> resourceType = resourceNode.resource().getClass();
-            List<Constraint> constraints = new ArrayList<>(ModelSupport.getConstraints(resourceType));
+            List<String> planProfiles = Collections.emptyList();
             if (includeResourceAssertedProfiles) {
                 List<String> resourceAssertedProfiles = ProfileSupport.getResourceAssertedProfiles(resourceNode.resource());
                 validateProfileReferences(resourceNode, resourceAssertedProfiles, true);
-                constraints.addAll(ProfileSupport.getConstraints(resourceAssertedProfiles, resourceType));
+                planProfiles = resourceAssertedProfiles;
             }
             if (!profiles.isEmpty() && !resourceNode.path().contains(".")) {
                 validateProfileReferences(resourceNode, profiles, false);
-                constraints.addAll(ProfileSupport.getConstraints(profiles, resourceType));
+                planProfiles = planProfiles.isEmpty() ? profiles : concat(planProfiles, profiles);
             }
-            validate(resourceNode, constraints);
+            validate(resourceNode, ValidationPlan.getPlan(resourceType, planProfiles).getSteps());
+        }
+
+        private List<String> concat(List<String> first, List<String> second) {
+            List<String> result = new ArrayList<>(first.size() + second.size());
+            result.addAll(first);
+            result.addAll(second);
+            return result;
         }
 
         private void validateProfileReferences(FHIRPathResourceNode resourceNode, List<String> profiles, boolean resourceAsserted) {
@@ -353,26 +536,21 @@ public class FHIRValidator {
             }
         }
 
-        private void validate(FHIRPathNode node, Collection<Constraint> constraints) {
-            for (Constraint constraint : constraints) {
+        private void validate(FHIRPathNode node, List<Step> steps) {
+            for (Step step : steps) {
                 if (aborted) {
                     break;
                 }
-                if (constraint.modelChecked()) {
-                    if (log.isLoggable(Level.FINER)) {
-                        log.finer("    Constraint: " + constraint.id() + " is model-checked");
-                    }
-                    continue;
-                }
-                evaluationContext.setConstraint(constraint);
-                validate(node, constraint);
+                evaluationContext.setConstraint(step.getConstraint());
+                validate(node, step);
                 evaluationContext.unsetConstraint();
             }
         }
 
-        private void validate(FHIRPathNode node, Constraint constraint) {
+        private void validate(FHIRPathNode node, Step step) {
+            Constraint constraint = step.getConstraint();
             String path = node.path();
-            ConstraintValidator<?> validator = getConstraintValidator(constraint.validatorClass());
+            ConstraintValidator<?> validator = getConstraintValidator(step.getValidatorClass());
 
             if ((constraint.expression() == null || constraint.expression().isEmpty()) && validator == null) {
                 log.log(Level.WARNING, "No expression or validator for constraint: " + constraint);
@@ -386,12 +564,14 @@ public class FHIRValidator {
 
                 Collection<FHIRPathNode> initialContext = singleton(node);
                 if (!Constraint.LOCATION_BASE.equals(constraint.location())) {
-                    initialContext = evaluator.evaluate(evaluationContext, constraint.location(), initialContext);
+                    initialContext = (step.getLocation() != null) ?
+                            evaluator.evaluate(evaluationContext, step.getLocation(), initialContext) :
+                            evaluator.evaluate(evaluationContext, constraint.location(), initialContext);
                     issues.addAll(evaluationContext.getIssues());
                     evaluationContext.clearIssues();
                 }
 
-                IssueSeverity severity = Constraint.LEVEL_WARNING.equals(constraint.level()) ? IssueSeverity.WARNING : IssueSeverity.ERROR;
+                IssueSeverity severity = step.getSeverity();
 
                 if (constraint.generated()) {
                     evaluationContext.addEvaluationListener(diagnosticsEvaluationListener);
@@ -411,7 +591,9 @@ public class FHIRValidator {
                         evaluationContext.setExternalConstant("rootResource", getRootResourceNode(evaluationContext.getTree(), contextNode));
                         evaluationContext.setExternalConstant("resource", getResourceNode(evaluationContext.getTree(), contextNode));
 
-                        result = evaluator.evaluate(evaluationContext, constraint.expression(), singleton(contextNode));
+                        result = (step.getExpression() != null) ?
+                                evaluator.evaluate(evaluationContext, step.getExpression(), singleton(contextNode)) :
+                                evaluator.evaluate(evaluationContext, constraint.expression(), singleton(contextNode));
 
                         issues.addAll(evaluationContext.getIssues());
                         evaluationContext.clearIssues();
@@ -497,6 +679,39 @@ public class FHIRValidator {
             throw new AssertionError();
         }
 
+        /**
+         * Validates a range of sibling nodes with a visitor of its own
+         */
+        private static class SubtreeValidationTask implements Callable<List<Issue>> {
+            private final ValidatingNodeVisitor parent;
+            private final List<FHIRPathNode> nodes;
+            private final int from;
+            private final int to;
+
+            private SubtreeValidationTask(ValidatingNodeVisitor parent, List<FHIRPathNode> nodes, int from, int to) {
+                this.parent = parent;
+                this.nodes = nodes;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            public List<Issue> call() {
+                ValidatingNodeVisitor visitor = new ValidatingNodeVisitor(parent.failFast, parent.parallel, parent.executor, parent.taskWrapper);
+                visitor.evaluationContext = new EvaluationContext(parent.evaluationContext);
+                visitor.includeResourceAssertedProfiles = parent.includeResourceAssertedProfiles;
+                visitor.profiles = parent.profiles;
+                visitor.aborted = parent.aborted;
+                for (int i = from; i < to; i++) {
+                    if (visitor.aborted) {
+                        break;
+                    }
+                    visitor.visitChild(nodes.get(i));
+                }
+                return visitor.issues;
+            }
+        }
+
         @FunctionalInterface
         interface IsValidFunction {
             boolean apply(ConstraintValidator<?> validator, Visitable visitable, Constraint constraint);
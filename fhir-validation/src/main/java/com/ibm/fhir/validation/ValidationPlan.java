@@ -0,0 +1,275 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.validation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.ibm.fhir.cache.CacheKey;
+import com.ibm.fhir.cache.CacheManager;
+import com.ibm.fhir.cache.CacheManager.Configuration;
+import com.ibm.fhir.model.annotation.Constraint;
+import com.ibm.fhir.model.annotation.Constraint.FHIRPathConstraintValidator;
+import com.ibm.fhir.model.constraint.spi.ConstraintValidator;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.resource.StructureDefinition;
+import com.ibm.fhir.model.type.Element;
+import com.ibm.fhir.model.type.Extension;
+import com.ibm.fhir.model.type.code.IssueSeverity;
+import com.ibm.fhir.model.util.ModelSupport;
+import com.ibm.fhir.model.util.ModelSupport.ElementInfo;
+import com.ibm.fhir.path.FHIRPathNode;
+import com.ibm.fhir.path.exception.FHIRPathException;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator.CompiledExpression;
+import com.ibm.fhir.profile.ProfileSupport;
+
+/**
+ * The constraints that apply to a resource type under a given set of profiles, prepared once so that validation
+ * doesn't need to collect, filter and parse them again for every node of every resource.
+ *
+ * <p>A plan holds the compiled constraints for the resource node itself. Element constraints don't depend on
+ * profiles (profile constraints are evaluated from the resource node), so they are prepared per element type and
+ * shared by all plans. Element nodes whose type, and every type that can be reached through its elements,
+ * has no constraints to evaluate can be skipped by the validator apart from any extensions they contain.
+ */
+final class ValidationPlan {
+    private static final Logger log = Logger.getLogger(ValidationPlan.class.getName());
+
+    // per tenant, like the ProfileSupport caches the profile constraints are taken from
+    static final String PLAN_CACHE_NAME = "com.ibm.fhir.validation.ValidationPlan.planCache";
+    static final Configuration PLAN_CACHE_CONFIG = Configuration.of(1024);
+
+    private static final Map<Class<?>, List<Step>> ELEMENT_STEPS_MAP = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Boolean> REQUIRES_VISIT_MAP = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, List<Class<?>>> MODEL_SUBTYPES_MAP = new ConcurrentHashMap<>();
+
+    private final List<Step> steps;
+
+    private ValidationPlan(List<Step> steps) {
+        this.steps = steps;
+    }
+
+    /**
+     * @return the prepared constraints to evaluate against the resource node, in evaluation order
+     */
+    List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Get the plan for a resource type and the profiles it should be validated against.
+     *
+     * <p>Profiles which are unknown or not applicable to the resource type contribute no constraints, as in
+     * {@link ProfileSupport#getConstraints(List, Class)}. The plan is keyed by the url and version of the resolved
+     * profiles so that a profile which is added to or replaced in the registry results in a new plan.
+     *
+     * @param resourceType
+     *     the resource type
+     * @param profiles
+     *     the profile references, possibly empty
+     * @return
+     *     the plan
+     */
+    static ValidationPlan getPlan(Class<?> resourceType, List<String> profiles) {
+        List<Object> keyValues = new ArrayList<>(profiles.size() + 1);
+        keyValues.add(resourceType);
+        for (String url : profiles) {
+            StructureDefinition profile = ProfileSupport.getProfile(url, resourceType);
+            if (profile != null) {
+                keyValues.add(ProfileSupport.getUrl(profile) + "|" + ProfileSupport.getVersion(profile));
+            }
+        }
+        Map<CacheKey, ValidationPlan> planCache = CacheManager.getCacheAsMap(PLAN_CACHE_NAME, PLAN_CACHE_CONFIG);
+
+        try {
+            return planCache.computeIfAbsent(CacheKey.key(keyValues.toArray()), k -> computePlan(resourceType, profiles));
+        } finally {
+            CacheManager.reportCacheStats(log, PLAN_CACHE_NAME);
+        }
+    }
+
+    private static ValidationPlan computePlan(Class<?> resourceType, List<String> profiles) {
+        List<Step> steps = new ArrayList<>(getElementSteps(resourceType));
+        steps.addAll(compile(ProfileSupport.getConstraints(profiles, resourceType)));
+        return new ValidationPlan(Collections.unmodifiableList(steps));
+    }
+
+    /**
+     * @return the prepared model constraints of an element or resource type (excluding model-checked constraints)
+     */
+    static List<Step> getElementSteps(Class<?> modelClass) {
+        return ELEMENT_STEPS_MAP.computeIfAbsent(modelClass, k -> Collections.unmodifiableList(compile(ModelSupport.getConstraints(modelClass))));
+    }
+
+    /**
+     * Create a step for a constraint which is not known ahead of time
+     */
+    static Step createStep(Constraint constraint) {
+        return new Step(constraint);
+    }
+
+    private static List<Step> compile(Collection<Constraint> constraints) {
+        List<Step> steps = new ArrayList<>(constraints.size());
+        for (Constraint constraint : constraints) {
+            if (constraint.modelChecked()) {
+                if (log.isLoggable(Level.FINER)) {
+                    log.finer("    Constraint: " + constraint.id() + " is model-checked");
+                }
+                continue;
+            }
+            steps.add(new Step(constraint));
+        }
+        return steps;
+    }
+
+    /**
+     * Indicates whether the validator needs to visit an element node and its children. Nodes that don't need
+     * to be visited may still contain extensions that do.
+     *
+     * @param node
+     *     an element node
+     * @return
+     *     false if neither the element nor any element that can be reached from it (apart from extensions)
+     *     has constraints to evaluate, true otherwise
+     */
+    static boolean requiresVisit(FHIRPathNode node) {
+        return requiresVisit(node.asElementNode().element().getClass());
+    }
+
+    private static boolean requiresVisit(Class<?> elementType) {
+        Boolean result = REQUIRES_VISIT_MAP.get(elementType);
+        if (result == null) {
+            result = computeRequiresVisit(elementType, new HashSet<>());
+            REQUIRES_VISIT_MAP.put(elementType, result);
+        }
+        return result;
+    }
+
+    private static boolean computeRequiresVisit(Class<?> type, Set<Class<?>> visited) {
+        if (!visited.add(type)) {
+            // already being computed further up; it doesn't change the result
+            return false;
+        }
+        if (!ModelSupport.isModelClass(type) || ModelSupport.isAbstract(type) || Resource.class.isAssignableFrom(type)
+                || Extension.class.equals(type) || !getElementSteps(type).isEmpty()) {
+            return true;
+        }
+        for (ElementInfo elementInfo : ModelSupport.getElementInfo(type)) {
+            String name = elementInfo.getName();
+            if ("extension".equals(name) || "modifierExtension".equals(name)) {
+                // extensions are checked per instance
+                continue;
+            }
+            Collection<Class<?>> elementTypes = elementInfo.isChoice() ?
+                    elementInfo.getChoiceTypes() : Collections.singleton(elementInfo.getType());
+            for (Class<?> elementType : elementTypes) {
+                if (!Element.class.isAssignableFrom(elementType) && !Resource.class.isAssignableFrom(elementType)) {
+                    // java value of a primitive type
+                    continue;
+                }
+                for (Class<?> subtype : getModelSubtypes(elementType)) {
+                    if (computeRequiresVisit(subtype, visited)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the model classes that may be the value of an element declared with the passed type
+     */
+    private static List<Class<?>> getModelSubtypes(Class<?> type) {
+        return MODEL_SUBTYPES_MAP.computeIfAbsent(type, ValidationPlan::computeModelSubtypes);
+    }
+
+    private static List<Class<?>> computeModelSubtypes(Class<?> type) {
+        List<Class<?>> subtypes = new ArrayList<>();
+        subtypes.add(type);
+        for (Class<?> modelClass : ModelSupport.getModelClasses()) {
+            if (modelClass != type && type.isAssignableFrom(modelClass)) {
+                subtypes.add(modelClass);
+            }
+        }
+        return subtypes;
+    }
+
+    /**
+     * A constraint with its level, location, expression and validator resolved ahead of evaluation
+     */
+    static final class Step {
+        private final Constraint constraint;
+        private final IssueSeverity severity;
+        private final CompiledExpression location;
+        private final CompiledExpression expression;
+        private final Class<? extends ConstraintValidator<?>> validatorClass;
+
+        private Step(Constraint constraint) {
+            this.constraint = constraint;
+            this.severity = Constraint.LEVEL_WARNING.equals(constraint.level()) ? IssueSeverity.WARNING : IssueSeverity.ERROR;
+            this.location = Constraint.LOCATION_BASE.equals(constraint.location()) ? null : compile(constraint.location());
+            Class<? extends ConstraintValidator<?>> validatorClass = constraint.validatorClass();
+            this.validatorClass = FHIRPathConstraintValidator.class.equals(validatorClass) ? null : validatorClass;
+            this.expression = (this.validatorClass == null && hasExpression(constraint)) ? compile(constraint.expression()) : null;
+        }
+
+        private static boolean hasExpression(Constraint constraint) {
+            return constraint.expression() != null && !constraint.expression().isEmpty();
+        }
+
+        /**
+         * @return the compiled expression, or null if it isn't valid FHIRPath (which is reported when it is evaluated)
+         */
+        private static CompiledExpression compile(String expr) {
+            try {
+                return FHIRPathEvaluator.compile(expr);
+            } catch (FHIRPathException e) {
+                log.log(Level.FINE, "Unable to compile expression: " + expr, e);
+                return null;
+            }
+        }
+
+        Constraint getConstraint() {
+            return constraint;
+        }
+
+        IssueSeverity getSeverity() {
+            return severity;
+        }
+
+        /**
+         * @return the compiled location, or null if the constraint is evaluated at the node itself or if the location could not be compiled
+         */
+        CompiledExpression getLocation() {
+            return location;
+        }
+
+        /**
+         * @return the compiled expression, or null if the constraint has a validator class or if the expression could not be compiled
+         */
+        CompiledExpression getExpression() {
+            return expression;
+        }
+
+        /**
+         * @return the validator class, or null if the constraint is evaluated as a FHIRPath expression
+         */
+        Class<? extends ConstraintValidator<?>> getValidatorClass() {
+            return validatorClass;
+        }
+    }
+}
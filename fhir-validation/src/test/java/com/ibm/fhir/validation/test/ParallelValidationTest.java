@@ -0,0 +1,82 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.validation.test;
+
+import static com.ibm.fhir.model.type.String.string;
+import static com.ibm.fhir.validation.util.FHIRValidationUtil.countErrors;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.OperationOutcome.Issue;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.type.DateTime;
+import com.ibm.fhir.model.type.HumanName;
+import com.ibm.fhir.model.type.Period;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.code.BundleType;
+import com.ibm.fhir.validation.FHIRValidator;
+
+/**
+ * Tests that a parallel validator reports the same issues, in the same order, as a sequential one
+ */
+public class ParallelValidationTest {
+    private static final int ENTRY_COUNT = 500;
+
+    private static Bundle bundle() {
+        Bundle.Builder builder = Bundle.builder().type(BundleType.COLLECTION);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            Patient.Builder patient = Patient.builder()
+                    .id("p" + i)
+                    .name(HumanName.builder()
+                        .family(string("Doe" + i))
+                        .build());
+            if (i % 7 == 0) {
+                // per-1: If present, start SHALL have a lower value than end
+                patient.name(HumanName.builder()
+                    .family(string("Doe" + i))
+                    .period(Period.builder()
+                        .start(DateTime.of("2022-01-02"))
+                        .end(DateTime.of("2022-01-01"))
+                        .build())
+                    .build());
+            }
+            builder.entry(Bundle.Entry.builder()
+                .fullUrl(Uri.of("urn:uuid:00000000-0000-0000-0000-" + String.format("%012d", i)))
+                .resource(patient.build())
+                .build());
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testParallelValidation() throws Exception {
+        Bundle bundle = bundle();
+        List<Issue> expected = FHIRValidator.validator().validate(bundle);
+        assertEquals(countErrors(expected), (ENTRY_COUNT + 6) / 7);
+
+        FHIRValidator validator = FHIRValidator.validator(false, true);
+        assertTrue(validator.isParallel());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(validator.validate(bundle), expected);
+        }
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        FHIRValidator validator = FHIRValidator.validator(true, true);
+        assertTrue(validator.isFailFast());
+        List<Issue> issues = validator.validate(bundle());
+        assertEquals(countErrors(issues), 1);
+        assertFalse(FHIRValidator.validator().isParallel());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.validation.test;
+
+import static com.ibm.fhir.model.type.String.string;
+import static com.ibm.fhir.validation.util.FHIRValidationUtil.countErrors;
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.resource.OperationOutcome.Issue;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.type.Code;
+import com.ibm.fhir.model.type.CodeableConcept;
+import com.ibm.fhir.model.type.Coding;
+import com.ibm.fhir.model.type.DateTime;
+import com.ibm.fhir.model.type.Extension;
+import com.ibm.fhir.model.type.HumanName;
+import com.ibm.fhir.model.type.Period;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.code.IssueSeverity;
+import com.ibm.fhir.validation.FHIRValidator;
+
+/**
+ * Tests that constraints are still evaluated in parts of a resource which the validator only partially visits
+ */
+public class ValidationPlanTest {
+    private static Patient patient() {
+        // ext-1: Must have either extensions or value[x], not both
+        Extension invalidExtension = Extension.builder()
+                .url("invalid-extension")
+                .value(string("value"))
+                .extension(Extension.builder()
+                    .url("nested")
+                    .value(string("nested"))
+                    .build())
+                .build();
+        return Patient.builder()
+                .name(HumanName.builder()
+                    .family(string("Doe"))
+                    .period(Period.builder()
+                        // per-1: If present, start SHALL have a lower value than end
+                        .start(DateTime.of("2022-01-02"))
+                        .end(DateTime.of("2022-01-01"))
+                        .build())
+                    .build())
+                .maritalStatus(CodeableConcept.builder()
+                    .coding(Coding.builder()
+                        .system(Uri.of("http://terminology.hl7.org/CodeSystem/v3-MaritalStatus"))
+                        .code(Code.builder()
+                            .value("M")
+                            .extension(invalidExtension)
+                            .build())
+                        .build())
+                    .build())
+                .build();
+    }
+
+    @Test
+    public void testConstraintsBelowUnconstrainedElements() throws Exception {
+        FHIRValidator validator = FHIRValidator.validator();
+        for (int i = 0; i < 2; i++) {
+            List<Issue> issues = validator.validate(patient());
+            List<String> expressions = issues.stream()
+                    .filter(issue -> IssueSeverity.ERROR.equals(issue.getSeverity()))
+                    .map(issue -> issue.getExpression().get(0).getValue())
+                    .sorted()
+                    .collect(Collectors.toList());
+            assertEquals(expressions.size(), 2, issues.toString());
+            assertEquals(expressions.get(0), "Patient.maritalStatus.coding[0].code.extension[0]");
+            assertEquals(expressions.get(1), "Patient.name[0].period");
+        }
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        List<Issue> issues = FHIRValidator.validator(true).validate(patient());
+        assertEquals(countErrors(issues), 1);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.operation.healthcheck;
+
+import static com.ibm.fhir.model.type.String.string;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ibm.fhir.cache.CacheManager;
+import com.ibm.fhir.cache.CacheStatistics;
+import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.exception.FHIROperationException;
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.parser.FHIRParser;
+import com.ibm.fhir.model.resource.OperationDefinition;
+import com.ibm.fhir.model.resource.Parameters;
+import com.ibm.fhir.model.resource.Parameters.Parameter;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.Code;
+import com.ibm.fhir.model.type.Decimal;
+import com.ibm.fhir.persistence.FHIRPersistence;
+import com.ibm.fhir.server.spi.operation.AbstractOperation;
+import com.ibm.fhir.server.spi.operation.FHIROperationContext;
+import com.ibm.fhir.server.spi.operation.FHIRResourceHelpers;
+
+/**
+ * Reports the size and hit/miss statistics of the caches held for the current tenant, covering
+ * both the caches managed by the {@link CacheManager} and those maintained by the persistence layer.
+ */
+public class CacheStatsOperation extends AbstractOperation {
+    public static final String SOURCE_CACHE_MANAGER = "cache-manager";
+    public static final String SOURCE_PERSISTENCE = "persistence";
+
+    public CacheStatsOperation() {
+        super();
+    }
+
+    @Override
+    protected OperationDefinition buildOperationDefinition() {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("cache-stats.json")) {
+            return FHIRParser.parser(Format.JSON).parse(in);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+
+    @Override
+    protected Parameters doInvoke(FHIROperationContext operationContext, Class<? extends Resource> resourceType,
+            String logicalId, String versionId, Parameters parameters, FHIRResourceHelpers resourceHelper)
+            throws FHIROperationException {
+        try {
+            FHIRPersistence pl =
+                    (FHIRPersistence) operationContext.getProperty(FHIROperationContext.PROPNAME_PERSISTENCE_IMPL);
+            FHIRRequestContext requestContext = FHIRRequestContext.get();
+
+            Parameters.Builder result = Parameters.builder();
+            result.parameter(Parameter.builder().name(string("tenant")).value(string(requestContext.getTenantId())).build());
+            result.parameter(Parameter.builder().name(string("datastore")).value(string(requestContext.getDataStoreId())).build());
+            addCacheParameters(result, SOURCE_CACHE_MANAGER, CacheManager.getCacheStatistics());
+            addCacheParameters(result, SOURCE_PERSISTENCE, pl.getCacheStatistics());
+            return result.build();
+        } catch (Throwable t) {
+            throw new FHIROperationException("Unexpected error occurred while processing request for operation '"
+                    + getName() + "': " + getCausedByMessage(t), t);
+        }
+    }
+
+    private void addCacheParameters(Parameters.Builder builder, String source, List<CacheStatistics> statistics) {
+        for (CacheStatistics cacheStatistics : statistics) {
+            CacheStats stats = cacheStatistics.getStats();
+            Parameter.Builder cache = Parameter.builder().name(string("cache"));
+            cache.part(Parameter.builder().name(string("name")).value(string(cacheStatistics.getCacheName())).build());
+            cache.part(Parameter.builder().name(string("source")).value(Code.of(source)).build());
+            cache.part(part("size", cacheStatistics.getEstimatedSize()));
+            if (cacheStatistics.getMaximumSize() != null) {
+                cache.part(part("maximumSize", cacheStatistics.getMaximumSize()));
+            }
+            cache.part(part("hitCount", stats.hitCount()));
+            cache.part(part("missCount", stats.missCount()));
+            cache.part(Parameter.builder().name(string("hitRate")).value(Decimal.of(BigDecimal.valueOf(stats.hitRate()))).build());
+            cache.part(part("evictionCount", stats.evictionCount()));
+            cache.part(part("loadCount", stats.loadCount()));
+            cache.part(part("totalLoadTime", stats.totalLoadTime()));
+            builder.parameter(cache.build());
+        }
+    }
+
+    /**
+     * Counters can exceed the range of a FHIR integer, so they are reported as decimals
+     */
+    private Parameter part(String name, long value) {
+        return Parameter.builder().name(string(name)).value(Decimal.of(value)).build();
+    }
+
+    private String getCausedByMessage(Throwable throwable) {
+        return throwable.getClass().getName() + ": " + throwable.getMessage();
+    }
+}
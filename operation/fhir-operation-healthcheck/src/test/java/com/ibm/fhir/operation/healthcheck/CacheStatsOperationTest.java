@@ -0,0 +1,154 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.operation.healthcheck;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.ibm.fhir.cache.CacheManager;
+import com.ibm.fhir.cache.CacheManager.Configuration;
+import com.ibm.fhir.cache.CacheStatistics;
+import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.exception.FHIROperationException;
+import com.ibm.fhir.model.resource.Parameters;
+import com.ibm.fhir.model.resource.Parameters.Parameter;
+import com.ibm.fhir.model.type.Code;
+import com.ibm.fhir.model.type.Decimal;
+import com.ibm.fhir.persistence.FHIRPersistence;
+import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
+import com.ibm.fhir.server.spi.operation.FHIROperationContext;
+
+/**
+ * Tests the Java code for the CacheStatsOperation
+ */
+public class CacheStatsOperationTest {
+    private static final String CACHE_NAME = "cacheStatsTestCache";
+
+    private CacheStatsOperation cacheStatsOperation;
+
+    @BeforeClass
+    public void setup() throws Exception {
+        FHIRRequestContext.set(new FHIRRequestContext("default", "default"));
+        cacheStatsOperation = new CacheStatsOperation();
+
+        Cache<String, Integer> cache = CacheManager.getCache(CACHE_NAME, Configuration.of(16));
+        cache.put("1", 1);
+        cache.getIfPresent("1");
+        cache.getIfPresent("2");
+    }
+
+    @AfterClass
+    public void tearDown() {
+        CacheManager.removeCache(CACHE_NAME);
+    }
+
+    private static FHIROperationContext operationContext(FHIRPersistence persistence) {
+        FHIROperationContext operationContext = FHIROperationContext.createSystemOperationContext("cache-stats");
+        operationContext.setProperty(FHIROperationContext.PROPNAME_PERSISTENCE_IMPL, persistence);
+        return operationContext;
+    }
+
+    /**
+     * Find the cache parameter with the given cache name
+     */
+    private static Parameter cache(Parameters parameters, String name) {
+        for (Parameter parameter : parameters.getParameter()) {
+            if ("cache".equals(parameter.getName().getValue()) && name.equals(stringPart(parameter, "name"))) {
+                return parameter;
+            }
+        }
+        return null;
+    }
+
+    private static Parameter part(Parameter parameter, String name) {
+        for (Parameter part : parameter.getPart()) {
+            if (name.equals(part.getName().getValue())) {
+                return part;
+            }
+        }
+        return null;
+    }
+
+    private static String stringPart(Parameter parameter, String name) {
+        return part(parameter, name).getValue().as(com.ibm.fhir.model.type.String.class).getValue();
+    }
+
+    private static long longPart(Parameter parameter, String name) {
+        return part(parameter, name).getValue().as(Decimal.class).getValue().longValueExact();
+    }
+
+    @Test
+    public void testCacheStats() throws Exception {
+        FHIRPersistence persistence = mock(FHIRPersistence.class);
+        when(persistence.getCacheStatistics()).thenReturn(Arrays.asList(
+                CacheStatistics.of("resourceTypes", 3, 5, 1)));
+
+        Parameters result = cacheStatsOperation.doInvoke(operationContext(persistence), null, null, null, null, null);
+
+        assertEquals(result.getParameter().get(0).getName().getValue(), "tenant");
+        assertEquals(result.getParameter().get(0).getValue().as(com.ibm.fhir.model.type.String.class).getValue(), "default");
+        assertEquals(result.getParameter().get(1).getName().getValue(), "datastore");
+        assertEquals(result.getParameter().get(1).getValue().as(com.ibm.fhir.model.type.String.class).getValue(), "default");
+
+        // a cache managed by the CacheManager for the current tenant
+        Parameter managed = cache(result, CACHE_NAME);
+        assertNotNull(managed);
+        assertEquals(part(managed, "source").getValue().as(Code.class).getValue(), CacheStatsOperation.SOURCE_CACHE_MANAGER);
+        assertEquals(longPart(managed, "size"), 1);
+        assertEquals(longPart(managed, "maximumSize"), 16);
+        assertEquals(longPart(managed, "hitCount"), 1);
+        assertEquals(longPart(managed, "missCount"), 1);
+
+        // a cache maintained by the persistence layer, which is not bounded by size
+        Parameter persistent = cache(result, "resourceTypes");
+        assertNotNull(persistent);
+        assertEquals(part(persistent, "source").getValue().as(Code.class).getValue(), CacheStatsOperation.SOURCE_PERSISTENCE);
+        assertEquals(longPart(persistent, "size"), 3);
+        assertNull(part(persistent, "maximumSize"));
+        assertEquals(longPart(persistent, "hitCount"), 5);
+        assertEquals(longPart(persistent, "missCount"), 1);
+        assertEquals(longPart(persistent, "evictionCount"), 0);
+        BigDecimal hitRate = part(persistent, "hitRate").getValue().as(Decimal.class).getValue();
+        assertEquals(hitRate.doubleValue(), 5.0 / 6.0, 1e-9);
+    }
+
+    @Test
+    public void testCacheStatsOtherTenant() throws Exception {
+        FHIRRequestContext.set(new FHIRRequestContext("tenant1", "profile"));
+        try {
+            FHIRPersistence persistence = mock(FHIRPersistence.class);
+            Parameters result = cacheStatsOperation.doInvoke(operationContext(persistence), null, null, null, null, null);
+            assertEquals(result.getParameter().get(0).getValue().as(com.ibm.fhir.model.type.String.class).getValue(), "tenant1");
+            assertEquals(result.getParameter().get(1).getValue().as(com.ibm.fhir.model.type.String.class).getValue(), "profile");
+
+            // the caches of the default tenant are not reported
+            assertNull(cache(result, CACHE_NAME));
+            assertFalse(result.getParameter().stream().anyMatch(p -> "cache".equals(p.getName().getValue())));
+        } finally {
+            FHIRRequestContext.set(new FHIRRequestContext("default", "default"));
+        }
+    }
+
+    @Test(expectedExceptions = FHIROperationException.class)
+    public void testPersistenceError() throws Exception {
+        FHIRPersistence persistence = mock(FHIRPersistence.class);
+        when(persistence.getCacheStatistics()).thenThrow(new FHIRPersistenceException("test"));
+        cacheStatsOperation.doInvoke(operationContext(persistence), null, null, null, null, null);
+    }
+}